@@ -0,0 +1,237 @@
+import utils.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bench - Small JMH-style harness for the benchmarks in this directory.
+ *
+ * Each benchmark is warmed up for a fixed time (so the JIT, the pool and the
+ * driver's statement cache settle), then measured for a fixed time from one
+ * or more threads. Every operation is timed into a LatencyHistogram, so the
+ * results carry throughput and tail latency, not only an average.
+ *
+ * Results can be written to a CSV file and compared against an earlier CSV:
+ * a benchmark whose throughput dropped or whose p99 grew by more than the
+ * tolerance is reported as a regression and the run exits with status 1.
+ *
+ * Options (any order):
+ *   --warmup s      warm-up seconds per benchmark (default 2)
+ *   --time s        measured seconds per benchmark (default 5)
+ *   --only regex    run only benchmarks whose name matches
+ *   --out file      write results as CSV
+ *   --baseline file compare against a CSV written by an earlier run
+ *   --tolerance pct allowed slowdown before a regression is reported (default 10)
+ * Unrecognised options are left for the benchmark program (see getOption).
+ */
+public class Bench {
+
+    /**
+     * One benchmark operation; the random source is private to the calling thread
+     */
+    public interface Op {
+        void run(SplittableRandom random) throws Exception;
+    }
+
+    /**
+     * Measured outcome of one benchmark
+     */
+    public static final class Result {
+        final String name;
+        final int threads;
+        final double opsPerSecond;
+        final long errors;
+        final LatencyHistogram latency;
+
+        Result(String name, int threads, double opsPerSecond, long errors, LatencyHistogram latency) {
+            this.name = name;
+            this.threads = threads;
+            this.opsPerSecond = opsPerSecond;
+            this.errors = errors;
+            this.latency = latency;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final double warmupSeconds;
+    private final double measureSeconds;
+    private final Pattern only;
+    private final List<Result> results = new ArrayList<>();
+
+    public Bench(String[] args) {
+        options = parseOptions(args);
+        warmupSeconds = Double.parseDouble(getOption("warmup", "2"));
+        measureSeconds = Double.parseDouble(getOption("time", "5"));
+        only = options.containsKey("only") ? Pattern.compile(options.get("only")) : null;
+    }
+
+    /**
+     * Parses "--name value" pairs; a flag without a value maps to "true"
+     */
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+                options.put(args[i].substring(2), hasValue ? args[++i] : "true");
+            }
+        }
+        return options;
+    }
+
+    public String getOption(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    public int getIntOption(String name, int defaultValue) {
+        return Integer.parseInt(getOption(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * @return true if the benchmark is selected by --only
+     */
+    public boolean selected(String name) {
+        return only == null || only.matcher(name).find();
+    }
+
+    /**
+     * Warms up and measures one benchmark
+     *
+     * @param name    Benchmark name, e.g. "products.searchProducts"
+     * @param threads Threads calling op concurrently
+     * @param op      The operation
+     */
+    public void run(String name, int threads, Op op) throws InterruptedException {
+        if (!selected(name)) {
+            return;
+        }
+        System.out.printf("%-40s %2d thread(s) ... ", name, threads);
+        System.out.flush();
+        measure(threads, warmupSeconds, op, new LatencyHistogram(name), new AtomicLong());
+
+        LatencyHistogram latency = new LatencyHistogram(name);
+        AtomicLong errors = new AtomicLong();
+        double elapsed = measure(threads, measureSeconds, op, latency, errors);
+        Result result = new Result(name, threads, latency.getCount() / elapsed, errors.get(), latency);
+        results.add(result);
+        System.out.printf("%10.1f ops/s  p50 %8.3f ms  p99 %8.3f ms%s%n", result.opsPerSecond,
+                latency.getPercentileMillis(50), latency.getPercentileMillis(99),
+                result.errors > 0 ? "  (" + result.errors + " errors)" : "");
+    }
+
+    /**
+     * Prints the summary, writes --out and checks --baseline
+     *
+     * @return false if a regression against the baseline was found
+     */
+    public boolean finish() throws IOException {
+        System.out.println();
+        System.out.printf("%-40s %3s %12s %9s %9s %9s %9s %7s%n",
+                "benchmark", "thr", "ops/s", "mean ms", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Result r : results) {
+            System.out.printf("%-40s %3d %12.1f %9.3f %9.3f %9.3f %9.3f %7d%n", r.name, r.threads,
+                    r.opsPerSecond, r.latency.getMeanMillis(), r.latency.getPercentileMillis(50),
+                    r.latency.getPercentileMillis(99), r.latency.getMaxMillis(), r.errors);
+        }
+        if (options.containsKey("out")) {
+            writeCsv(new File(options.get("out")));
+        }
+        return !options.containsKey("baseline") || compare(new File(options.get("baseline")));
+    }
+
+    // === INTERNALS ===
+
+    // Runs op from every thread until the time is up; returns the elapsed seconds
+    private static double measure(int threads, double seconds, Op op, LatencyHistogram latency, AtomicLong errors)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t * 7919L + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    while (running.get()) {
+                        long t0 = System.nanoTime();
+                        try {
+                            op.run(random);
+                            latency.recordNanos(System.nanoTime() - t0);
+                        } catch (Exception e) {
+                            if (errors.getAndIncrement() == 0) {
+                                System.err.println("\n  first error: " + e);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        done.await();
+        return (System.nanoTime() - t0) / 1e9;
+    }
+
+    private void writeCsv(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("benchmark,threads,ops_per_s,mean_ms,p50_ms,p99_ms,max_ms,errors");
+            for (Result r : results) {
+                out.printf("%s,%d,%.3f,%.4f,%.4f,%.4f,%.4f,%d%n", r.name, r.threads, r.opsPerSecond,
+                        r.latency.getMeanMillis(), r.latency.getPercentileMillis(50),
+                        r.latency.getPercentileMillis(99), r.latency.getMaxMillis(), r.errors);
+            }
+        }
+        System.out.println("\nResults written to " + file);
+    }
+
+    private boolean compare(File file) throws IOException {
+        double tolerance = Double.parseDouble(getOption("tolerance", "10")) / 100.0;
+        Map<String, double[]> baseline = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line = in.readLine(); // header
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split(",");
+                if (f.length >= 6) {
+                    baseline.put(f[0], new double[] { Double.parseDouble(f[2]), Double.parseDouble(f[5]) });
+                }
+            }
+        }
+        System.out.printf("%nAgainst %s (tolerance %.0f%%):%n", file, tolerance * 100);
+        boolean ok = true;
+        for (Result r : results) {
+            double[] before = baseline.get(r.name);
+            if (before == null) {
+                System.out.printf("  %-40s new%n", r.name);
+                continue;
+            }
+            double throughput = r.opsPerSecond / before[0] - 1;
+            double p99 = r.latency.getPercentileMillis(99) / Math.max(before[1], 0.001) - 1;
+            boolean regressed = throughput < -tolerance || p99 > tolerance;
+            ok &= !regressed;
+            System.out.printf("  %-40s ops/s %+6.1f%%  p99 %+6.1f%%%s%n", r.name, throughput * 100, p99 * 100,
+                    regressed ? "  REGRESSION" : "");
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,88 @@
+import database.DBConnection;
+import services.CustomerSearchService;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * BenchData - Seeds a known volume of products, customers and sales for the
+ * benchmarks and removes them again afterwards.
+ *
+ * The rows come from DataSeeder, so they have the same shape as a seeded
+ * store (Zipf popularity, seasonality, payment mix), but with their own
+ * markers so cleanUp() only touches them: product names start with "bench-",
+ * customer emails end in @bench.example and sales carry SALE_MARKER in their
+ * notes. Run against a scratch database (-Ddb.url=...) when the volumes are large.
+ */
+public class BenchData {
+
+    static final String PRODUCT_PREFIX = "bench-";
+    static final String CUSTOMER_DOMAIN = "@bench.example";
+    static final String SALE_MARKER = "BENCHMARK services";
+
+    static final String[] CATEGORIES = DataSeeder.CATEGORIES;
+
+    final List<Integer> productIds;
+    final List<Double> productPrices;
+    final List<String> productNames;
+    final List<String> customerTerms;
+    int userId;
+    LocalDate from;
+    LocalDate to;
+
+    private BenchData(DataSeeder seeder) {
+        productIds = seeder.productIds;
+        productPrices = seeder.productPrices;
+        productNames = seeder.productNames;
+        customerTerms = seeder.customerTerms;
+    }
+
+    /**
+     * Inserts the requested volumes and brings the analytics summaries up to date
+     *
+     * @param products  Products to create
+     * @param customers Customers to create
+     * @param sales     Historical sales to create, spread over the last days
+     * @param days      How many days back the sales go
+     */
+    static BenchData seed(int products, int customers, int sales, int days) throws SQLException {
+        if (products < 1) {
+            throw new IllegalArgumentException("The benchmarks need at least one product");
+        }
+        DataSeeder seeder = new DataSeeder(42);
+        BenchData data = new BenchData(seeder);
+        data.to = LocalDate.now();
+        data.from = data.to.minusDays(Math.max(0, days - 1));
+        long start = System.currentTimeMillis();
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Database connection not available", "08001");
+            }
+            data.userId = DataSeeder.firstUserId(conn);
+            seeder.seedProducts(conn, products, PRODUCT_PREFIX);
+            seeder.seedCustomers(conn, customers, CUSTOMER_DOMAIN);
+            seeder.seedSales(conn, sales, data.from, data.to, data.userId, SALE_MARKER);
+        }
+        CustomerSearchService.getInstance().backfill();
+        DataSeeder.refreshSummaries(data.from, data.to);
+        System.out.printf("Seeded %d products, %d customers, %d sales in %d ms%n", products, customers, sales,
+                System.currentTimeMillis() - start);
+        return data;
+    }
+
+    /**
+     * Deletes every seeded row (and the sales the benchmarks created) and rebuilds the summaries
+     */
+    void cleanUp() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Database connection not available", "08001");
+            }
+            DataSeeder.purge(conn, PRODUCT_PREFIX, CUSTOMER_DOMAIN, SALE_MARKER);
+        }
+        // Cascaded deletes bypass the summaries, so rebuild the seeded days
+        DataSeeder.refreshSummaries(from, to);
+    }
+}
@@ -0,0 +1,452 @@
+import database.DBConnection;
+import models.Sale;
+import services.CustomerSearchService;
+import services.DailyRollupService;
+import services.ProductCatalogCache;
+import services.SalesCubeService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * DataSeeder - Generates store-sized volumes of products, customers and
+ * sales with realistic shape, for benchmarks and load tests.
+ *
+ * Distributions:
+ *   - product popularity and repeat customers follow a Zipf law
+ *   - sales per day follow a weekday profile (busy weekends) and a
+ *     month profile (December peak); times of day follow store hours with
+ *     lunch and after-work peaks
+ *   - payment mix Cash 55% / Card 38% / Online 5% / Cheque 2%; cash sales
+ *     get a Cash_Logs row and change from the next $5
+ *   - 1-15 lines per basket (mean about 3), mostly single units; 70% walk-in
+ *     customers; 5% of sales discounted
+ *
+ * Rows are written through large JDBC batches, which rewriteBatchedStatements
+ * turns into multi-row INSERTs. Sales get explicit IDs so their lines need no
+ * key round trip. Unique and foreign key checks are off for the loading
+ * session, and each chunk of CHUNK sales is one commit.
+ *
+ * Usage: java DataSeeder [--products n] [--customers n] [--sales n] [--days n] [--seed n]
+ *        java DataSeeder --purge
+ * Seeded rows are marked ("seed-" product names, @seed.example emails,
+ * notes = SEEDED) so --purge removes exactly them.
+ */
+public class DataSeeder {
+
+    static final String PRODUCT_PREFIX = "seed-";
+    static final String CUSTOMER_DOMAIN = "@seed.example";
+    static final String SALE_MARKER = "SEEDED";
+
+    static final String[] CATEGORIES = { "Beverages", "Bakery", "Dairy", "Produce", "Household", "Snacks",
+            "Frozen", "Personal Care" };
+    private static final String[] WORDS = { "organic", "classic", "family", "fresh", "premium", "value", "mini",
+            "large", "crunchy", "sparkling", "whole", "light" };
+    private static final String[] FIRST = { "amal", "nimal", "kasun", "dilini", "sachini", "ruwan", "tharindu",
+            "ishara", "chamari", "lakmal", "priya", "arjun", "meena", "suresh", "anita", "rohan" };
+    private static final String[] LAST = { "perera", "silva", "fernando", "jayasinghe", "bandara", "wickrama",
+            "dissanayake", "gunawardena", "kumar", "nair", "menon", "herath" };
+
+    // Monday..Sunday
+    private static final double[] WEEKDAY_WEIGHT = { 0.85, 0.80, 0.90, 0.95, 1.15, 1.45, 1.25 };
+    // January..December
+    private static final double[] MONTH_WEIGHT = { 0.80, 0.85, 0.95, 1.00, 1.00, 0.95, 1.00, 1.05, 0.95, 1.00,
+            1.15, 1.45 };
+    // Store hours 08:00-21:59
+    private static final int OPENING_HOUR = 8;
+    private static final double[] HOUR_WEIGHT = { 0.4, 0.6, 0.8, 1.0, 1.5, 1.4, 0.9, 0.8, 1.0, 1.5, 1.6, 1.2,
+            0.7, 0.4 };
+    private static final String[] PAYMENT_METHODS = { "Cash", "Card", "Online", "Cheque" };
+    private static final double[] PAYMENT_SHARE = { 0.55, 0.38, 0.05, 0.02 };
+
+    private static final int CHUNK = 2000;
+
+    final List<Integer> productIds = new ArrayList<>();
+    final List<Double> productPrices = new ArrayList<>();
+    final List<String> productNames = new ArrayList<>();
+    final List<Integer> customerIds = new ArrayList<>();
+    // Surnames and phone fragments of some seeded customers, for search benchmarks
+    final List<String> customerTerms = new ArrayList<>();
+
+    private final SplittableRandom random;
+
+    DataSeeder(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Bench.parseOptions(args);
+        System.out.println("========================================");
+        System.out.println("   DATA SEEDER");
+        System.out.println("========================================\n");
+
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                System.out.println("✗ FAILED: Could not connect to database");
+                return;
+            }
+            if (options.containsKey("purge")) {
+                purge(conn, PRODUCT_PREFIX, CUSTOMER_DOMAIN, SALE_MARKER);
+                LocalDate today = LocalDate.now();
+                refreshSummaries(today.minusYears(2), today);
+                return;
+            }
+
+            int days = Integer.parseInt(options.getOrDefault("days", "365"));
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(days - 1);
+            DataSeeder seeder = new DataSeeder(Long.parseLong(options.getOrDefault("seed", "42")));
+            long start = System.currentTimeMillis();
+            seeder.seedProducts(conn, Integer.parseInt(options.getOrDefault("products", "5000")), PRODUCT_PREFIX);
+            seeder.seedCustomers(conn, Integer.parseInt(options.getOrDefault("customers", "100000")), CUSTOMER_DOMAIN);
+            seeder.seedSales(conn, Integer.parseInt(options.getOrDefault("sales", "1000000")), from, to,
+                    firstUserId(conn), SALE_MARKER);
+            System.out.printf("Loaded in %.1f s%n", (System.currentTimeMillis() - start) / 1000.0);
+
+            System.out.println("Rebuilding search index and analytics summaries...");
+            CustomerSearchService.getInstance().backfill();
+            refreshSummaries(from, to);
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   SEEDING COMPLETED");
+        System.out.println("========================================");
+    }
+
+    // === PRODUCTS AND CUSTOMERS ===
+
+    /**
+     * Inserts count products named namePrefix + words, spread over CATEGORIES, with ample stock
+     */
+    void seedProducts(Connection conn, int count, String namePrefix) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO Products (name, category, price, stock) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < count; i++) {
+                String name = namePrefix + WORDS[random.nextInt(WORDS.length)] + " "
+                        + WORDS[random.nextInt(WORDS.length)] + " " + i;
+                // Skewed towards cheap everyday items
+                double price = Math.round((0.5 + Math.pow(random.nextDouble(), 2) * 60) * 100) / 100.0;
+                pstmt.setString(1, name);
+                pstmt.setString(2, CATEGORIES[i % CATEGORIES.length]);
+                pstmt.setDouble(3, price);
+                pstmt.setInt(4, 1_000_000);
+                pstmt.addBatch();
+                productNames.add(name);
+                productPrices.add(price);
+                if ((i + 1) % CHUNK == 0 || i == count - 1) {
+                    pstmt.executeBatch();
+                    readKeys(pstmt, productIds);
+                }
+            }
+        }
+        System.out.println("  Products:  " + productIds.size());
+    }
+
+    /**
+     * Inserts count customers whose emails end in emailDomain
+     */
+    void seedCustomers(Connection conn, int count, String emailDomain) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO customers (first_name, last_name, phone, email) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < count; i++) {
+                String first = FIRST[random.nextInt(FIRST.length)];
+                String last = LAST[random.nextInt(LAST.length)];
+                String phone = String.format("07%08d", random.nextInt(100_000_000));
+                pstmt.setString(1, first);
+                pstmt.setString(2, last);
+                pstmt.setString(3, phone);
+                pstmt.setString(4, first + "." + last + i + emailDomain);
+                pstmt.addBatch();
+                if (i < 200) {
+                    customerTerms.add(i % 2 == 0 ? last : phone.substring(3, 8));
+                }
+                if ((i + 1) % CHUNK == 0 || i == count - 1) {
+                    pstmt.executeBatch();
+                    readKeys(pstmt, customerIds);
+                }
+            }
+        }
+        System.out.println("  Customers: " + customerIds.size());
+    }
+
+    // === SALES ===
+
+    /**
+     * Inserts count completed sales of the seeded products over [from, to], oldest first
+     *
+     * @param userId Cashier recorded on every sale
+     * @param marker Written to Sales.notes so the rows can be found again
+     */
+    void seedSales(Connection conn, int count, LocalDate from, LocalDate to, int userId, String marker)
+            throws SQLException {
+        if (count == 0) {
+            return;
+        }
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("Seed products before sales");
+        }
+        Zipf products = new Zipf(productIds.size(), 1.0);
+        int[] productAt = shuffledIndexes(productIds.size());
+        Zipf customers = customerIds.isEmpty() ? null : new Zipf(customerIds.size(), 0.8);
+        int[] perDay = salesPerDay(count, from, to);
+
+        int nextId;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT COALESCE(MAX(sale_id), 0) + 1 FROM Sales");
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            nextId = rs.getInt(1);
+        }
+
+        long start = System.currentTimeMillis();
+        long lines = 0;
+        int written = 0;
+        conn.setAutoCommit(false);
+        try (Statement session = conn.createStatement();
+             PreparedStatement sale = conn.prepareStatement(
+                "INSERT INTO Sales (sale_id, customer_id, user_id, sale_date, total_amount, discount, final_amount, " +
+                "payment_method, status, notes, cash_received, change_given) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'Completed', ?, ?, ?)");
+             PreparedStatement line = conn.prepareStatement(
+                "INSERT INTO Sale_Details (sale_id, product_id, quantity, unit_price, total_price) " +
+                "VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement cash = conn.prepareStatement(
+                "INSERT INTO Cash_Logs (sale_id, cash_received, change_given, net_amount, transaction_time, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+            session.execute("SET SESSION unique_checks = 0, foreign_key_checks = 0");
+            try {
+                for (int day = 0; day < perDay.length; day++) {
+                    LocalDate date = from.plusDays(day);
+                    long[] times = timesOfDay(date, perDay[day]);
+                    for (long time : times) {
+                        int saleId = nextId + written;
+                        Timestamp at = new Timestamp(time);
+
+                        double total = 0;
+                        int basket = basketSize();
+                        for (int l = 0; l < basket; l++) {
+                            int p = productAt[products.next(random)];
+                            int quantity = quantity();
+                            double price = productPrices.get(p);
+                            line.setInt(1, saleId);
+                            line.setInt(2, productIds.get(p));
+                            line.setInt(3, quantity);
+                            line.setDouble(4, price);
+                            line.setDouble(5, price * quantity);
+                            line.addBatch();
+                            total += price * quantity;
+                        }
+                        lines += basket;
+                        total = Math.round(total * 100) / 100.0;
+                        double discount = random.nextInt(20) == 0
+                                ? Math.round(total * (5 + random.nextInt(11))) / 100.0 : 0;
+                        double finalAmount = Math.round((total - discount) * 100) / 100.0;
+                        String method = paymentMethod();
+                        boolean isCash = "Cash".equals(method);
+                        double received = isCash ? Math.ceil(finalAmount / 5.0) * 5.0 : 0;
+
+                        sale.setInt(1, saleId);
+                        sale.setInt(2, customers == null || random.nextInt(10) < 7
+                                ? Sale.WALK_IN_CUSTOMER_ID : customerIds.get(customers.next(random)));
+                        sale.setInt(3, userId);
+                        sale.setTimestamp(4, at);
+                        sale.setDouble(5, total);
+                        sale.setDouble(6, discount);
+                        sale.setDouble(7, finalAmount);
+                        sale.setString(8, method);
+                        sale.setString(9, marker);
+                        if (isCash) {
+                            sale.setDouble(10, received);
+                            sale.setDouble(11, received - finalAmount);
+                            cash.setInt(1, saleId);
+                            cash.setDouble(2, received);
+                            cash.setDouble(3, received - finalAmount);
+                            cash.setDouble(4, finalAmount);
+                            cash.setTimestamp(5, at);
+                            cash.setInt(6, userId);
+                            cash.addBatch();
+                        } else {
+                            sale.setNull(10, Types.DOUBLE);
+                            sale.setNull(11, Types.DOUBLE);
+                        }
+                        sale.addBatch();
+                        written++;
+
+                        if (written % CHUNK == 0 || written == count) {
+                            sale.executeBatch();
+                            line.executeBatch();
+                            cash.executeBatch();
+                            conn.commit();
+                            if (written % 100_000 == 0 || written == count) {
+                                double seconds = (System.currentTimeMillis() - start) / 1000.0;
+                                System.out.printf("  Sales:     %,d (%,d lines) %,.0f sales/s%n", written, lines,
+                                        written / Math.max(seconds, 0.001));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                session.execute("SET SESSION unique_checks = 1, foreign_key_checks = 1");
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Splits count over the days in proportion to weekday x month weight
+    private int[] salesPerDay(int count, LocalDate from, LocalDate to) {
+        int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        double[] weight = new double[days];
+        double sum = 0;
+        for (int d = 0; d < days; d++) {
+            LocalDate date = from.plusDays(d);
+            weight[d] = WEEKDAY_WEIGHT[date.getDayOfWeek().getValue() - 1] * MONTH_WEIGHT[date.getMonthValue() - 1]
+                    * (0.9 + random.nextDouble() * 0.2);
+            sum += weight[d];
+        }
+        // Cumulative rounding keeps the total exact
+        int[] perDay = new int[days];
+        double cumulative = 0;
+        int assigned = 0;
+        for (int d = 0; d < days; d++) {
+            cumulative += weight[d] / sum * count;
+            int upTo = d == days - 1 ? count : (int) Math.round(cumulative);
+            perDay[d] = upTo - assigned;
+            assigned = upTo;
+        }
+        return perDay;
+    }
+
+    // Sorted sale times within store hours on date
+    private long[] timesOfDay(LocalDate date, int n) {
+        double sum = 0;
+        for (double w : HOUR_WEIGHT) {
+            sum += w;
+        }
+        long dayStart = Timestamp.valueOf(LocalDateTime.of(date, LocalTime.of(OPENING_HOUR, 0))).getTime();
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++) {
+            double u = random.nextDouble() * sum;
+            int hour = 0;
+            while (hour < HOUR_WEIGHT.length - 1 && u >= HOUR_WEIGHT[hour]) {
+                u -= HOUR_WEIGHT[hour];
+                hour++;
+            }
+            times[i] = dayStart + hour * 3_600_000L + random.nextInt(3_600_000);
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    // 1 + geometric(0.35), capped at 15; mean about 2.9 lines
+    private int basketSize() {
+        int size = 1;
+        while (size < 15 && random.nextDouble() > 0.35) {
+            size++;
+        }
+        return size;
+    }
+
+    private int quantity() {
+        int r = random.nextInt(100);
+        return r < 80 ? 1 : r < 95 ? 2 : 3 + random.nextInt(4);
+    }
+
+    private String paymentMethod() {
+        double u = random.nextDouble();
+        for (int i = 0; i < PAYMENT_SHARE.length - 1; i++) {
+            if (u < PAYMENT_SHARE[i]) {
+                return PAYMENT_METHODS[i];
+            }
+            u -= PAYMENT_SHARE[i];
+        }
+        return PAYMENT_METHODS[PAYMENT_METHODS.length - 1];
+    }
+
+    // Popularity rank -> product index, so the best sellers are not simply the lowest IDs
+    private int[] shuffledIndexes(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    // === HOUSEKEEPING ===
+
+    static int firstUserId(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT MIN(user_id) FROM Users");
+             ResultSet rs = pstmt.executeQuery()) {
+            int userId = rs.next() ? rs.getInt(1) : 0;
+            if (userId == 0) {
+                throw new SQLException("Seeding needs at least one user");
+            }
+            return userId;
+        }
+    }
+
+    /**
+     * Deletes the marked sales (lines and cash logs cascade), customers and products
+     */
+    static void purge(Connection conn, String productPrefix, String customerDomain, String saleMarker)
+            throws SQLException {
+        int sales = deleteInChunks(conn, "DELETE FROM Sales WHERE notes = ? LIMIT 10000", saleMarker);
+        int customers = deleteInChunks(conn, "DELETE FROM customers WHERE email LIKE ? LIMIT 10000",
+                "%" + customerDomain);
+        int products = deleteInChunks(conn, "DELETE FROM Products WHERE name LIKE ? LIMIT 10000",
+                productPrefix + "%");
+        System.out.printf("Removed %,d sales, %,d customers, %,d products%n", sales, customers, products);
+    }
+
+    /**
+     * Rebuilds the product cube and daily rollup for [from, to] and drops the cached catalog
+     */
+    static void refreshSummaries(LocalDate from, LocalDate to) throws SQLException {
+        SalesCubeService.getInstance().backfill(from, to);
+        DailyRollupService.getInstance().backfill(from, to);
+        ProductCatalogCache.getInstance().invalidate();
+    }
+
+    private static void readKeys(PreparedStatement pstmt, List<Integer> into) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            while (keys.next()) {
+                into.add(keys.getInt(1));
+            }
+        }
+    }
+
+    private static int deleteInChunks(Connection conn, String sql, String value) throws SQLException {
+        int total = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, value);
+            int n;
+            while ((n = pstmt.executeUpdate()) > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,289 @@
+import database.DBConnection;
+import database.QueryMetrics;
+import models.Sale;
+import models.SaleDetail;
+import services.CheckoutEngine;
+import services.DailyRollupService;
+import services.SalesCubeService;
+import services.SalesService;
+import utils.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LoadDriver - Drives checkouts through SalesService.createSale from many
+ * lanes at once, the way a busy store's tills would, and reports throughput
+ * and tail latency while it runs and at the end.
+ *
+ * Baskets are drawn with Zipf product popularity from the products
+ * DataSeeder created (or any stocked products if there are none). Every
+ * sale is marked, and unless --keep is given the sales are deleted and their
+ * stock put back when the run ends.
+ *
+ * Options:
+ *   --lanes n       concurrent tills (default 16)
+ *   --time s        run for s seconds (default 60), or
+ *   --sales n       stop after n sales per lane
+ *   --think ms      mean pause between a lane's sales, exponentially distributed (default 0)
+ *   --report s      seconds between progress lines (default 5)
+ *   --direct        one transaction per sale (createSaleDirect) instead of group commit
+ *   --keep          leave the sales in the database
+ */
+public class LoadDriver {
+
+    private static final String MARKER = "LOAD DRIVER";
+    private static final int MAX_PRODUCTS = 5000;
+
+    private final List<int[]> products = new ArrayList<>();
+    private int userId;
+    private Zipf popularity;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Bench.parseOptions(args);
+        int lanes = Integer.parseInt(options.getOrDefault("lanes", "16"));
+        double seconds = Double.parseDouble(options.getOrDefault("time", "60"));
+        int salesPerLane = Integer.parseInt(options.getOrDefault("sales", "0"));
+        double thinkMillis = Double.parseDouble(options.getOrDefault("think", "0"));
+        int reportSeconds = Integer.parseInt(options.getOrDefault("report", "5"));
+        boolean direct = options.containsKey("direct");
+
+        System.out.println("========================================");
+        System.out.println("   CHECKOUT LOAD DRIVER");
+        System.out.println("========================================\n");
+
+        LoadDriver driver = new LoadDriver();
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null || !driver.loadFixtures(conn)) {
+                System.out.println("✗ FAILED: Need a reachable database with at least one user and stocked products");
+                return;
+            }
+        }
+        System.out.printf("%d lanes, %s, %s, think %.0f ms, %d products%n%n", lanes,
+                direct ? "one transaction per sale" : "group commit",
+                salesPerLane > 0 ? salesPerLane + " sales per lane" : seconds + " s",
+                thinkMillis, driver.products.size());
+
+        SalesService salesService = new SalesService();
+        CheckoutEngine.getInstance().resetStats();
+        QueryMetrics.reset();
+        try {
+            driver.run(lanes, seconds, salesPerLane, thinkMillis, reportSeconds,
+                    direct ? salesService::createSaleDirect : salesService::createSale);
+            if (!direct) {
+                CheckoutEngine engine = CheckoutEngine.getInstance();
+                System.out.printf("Commits: %d, average group size %.1f, fallbacks %d%n",
+                        engine.getGroupCount(), engine.getAverageGroupSize(), engine.getFallbackGroupCount());
+            }
+            System.out.println("\n" + QueryMetrics.report());
+        } finally {
+            if (!options.containsKey("keep")) {
+                cleanUp();
+            }
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   LOAD RUN COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private interface Checkout {
+        int create(Sale sale) throws Exception;
+    }
+
+    // === RUN ===
+
+    private void run(int lanes, double seconds, int salesPerLane, double thinkMillis, int reportSeconds,
+                     Checkout checkout) throws InterruptedException {
+        LatencyHistogram total = new LatencyHistogram("checkout");
+        AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram("interval"));
+        AtomicLong failures = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(lanes);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            SplittableRandom random = new SplittableRandom(lane * 7919L + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; running.get() && (salesPerLane == 0 || i < salesPerLane); i++) {
+                        if (thinkMillis > 0) {
+                            Thread.sleep((long) (-Math.log(1 - random.nextDouble()) * thinkMillis));
+                        }
+                        Sale sale = randomSale(random);
+                        long t0 = System.nanoTime();
+                        try {
+                            checkout.create(sale);
+                            long nanos = System.nanoTime() - t0;
+                            total.recordNanos(nanos);
+                            interval.get().recordNanos(nanos);
+                        } catch (Exception e) {
+                            if (failures.getAndIncrement() == 0) {
+                                System.err.println("  first failure: " + e);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "lane-" + lane);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long t0 = System.nanoTime();
+        long deadline = salesPerLane > 0 ? Long.MAX_VALUE : t0 + (long) (seconds * 1e9);
+        long reportNanos = reportSeconds * 1_000_000_000L;
+        long lastReport = t0;
+        double best = 0;
+        double worst = Double.MAX_VALUE;
+        start.countDown();
+        while (true) {
+            long waitNanos = Math.min(lastReport + reportNanos, deadline) - System.nanoTime();
+            if (done.await(Math.max(1, waitNanos / 1_000_000), TimeUnit.MILLISECONDS)) {
+                break;
+            }
+            long now = System.nanoTime();
+            if (now >= deadline) {
+                running.set(false);
+                done.await();
+                break;
+            }
+            if (now - lastReport >= reportNanos) {
+                LatencyHistogram last = interval.getAndSet(new LatencyHistogram("interval"));
+                double rate = last.getCount() / ((now - lastReport) / 1e9);
+                lastReport = now;
+                best = Math.max(best, rate);
+                worst = Math.min(worst, rate);
+                System.out.printf("  t=%5.0fs %8.0f sales/s  p50 %7.2f ms  p99 %7.2f ms  failed %d%n",
+                        (now - t0) / 1e9, rate, last.getPercentileMillis(50), last.getPercentileMillis(99),
+                        failures.get());
+            }
+        }
+        double elapsed = (System.nanoTime() - t0) / 1e9;
+
+        System.out.println("\nRESULT");
+        System.out.println("----------------------------");
+        System.out.printf("  %d sales in %.1f s = %.0f sales/s (%d failed)%n", total.getCount(), elapsed,
+                total.getCount() / elapsed, failures.get());
+        if (best > 0) {
+            System.out.printf("  Interval throughput: min %.0f, max %.0f sales/s%n", worst, best);
+        }
+        System.out.printf("  Latency ms: mean %.2f  p50 %.2f  p95 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                total.getMeanMillis(), total.getPercentileMillis(50), total.getPercentileMillis(95),
+                total.getPercentileMillis(99), total.getPercentileMillis(99.9), total.getMaxMillis());
+    }
+
+    // Zipf-popular basket of mostly single units, paid 60/40 cash or card
+    private Sale randomSale(SplittableRandom random) {
+        Sale sale = new Sale();
+        sale.setCustomerId(Sale.WALK_IN_CUSTOMER_ID);
+        sale.setUserId(userId);
+        sale.setNotes(MARKER);
+        sale.setSaleDetails(new ArrayList<>());
+        double total = 0;
+        int lines = 1;
+        while (lines < 15 && random.nextDouble() > 0.35) {
+            lines++;
+        }
+        for (int i = 0; i < lines; i++) {
+            int[] product = products.get(popularity.next(random));
+            SaleDetail detail = new SaleDetail(product[0], null, product[1] / 100.0, random.nextInt(5) == 0 ? 2 : 1);
+            sale.addSaleDetail(detail);
+            total += detail.getTotalPrice();
+        }
+        sale.setTotalAmount(total);
+        if (random.nextInt(10) < 6) {
+            sale.setPaymentMethod("Cash");
+            sale.setCashReceived(Math.ceil(sale.getFinalAmount() / 5.0) * 5.0);
+            sale.setChangeGiven(sale.calculateChange());
+        } else {
+            sale.setPaymentMethod("Card");
+        }
+        return sale;
+    }
+
+    // === FIXTURES ===
+
+    private boolean loadFixtures(Connection conn) throws SQLException {
+        userId = DataSeeder.firstUserId(conn);
+        loadProducts(conn, "SELECT product_id, price FROM Products WHERE name LIKE ? AND stock >= 1000 " +
+                "ORDER BY product_id LIMIT " + MAX_PRODUCTS, DataSeeder.PRODUCT_PREFIX + "%");
+        if (products.isEmpty()) {
+            System.out.println("  Note: no seeded products (run DataSeeder first); using stocked products");
+            loadProducts(conn, "SELECT product_id, price FROM Products WHERE stock >= 100 " +
+                    "ORDER BY product_id LIMIT " + MAX_PRODUCTS, null);
+        }
+        if (products.isEmpty()) {
+            return false;
+        }
+        // Popularity by rank in a shuffled order, so the best sellers are not the lowest IDs
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = products.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            products.set(i, products.set(j, products.get(i)));
+        }
+        popularity = new Zipf(products.size(), 1.0);
+        return true;
+    }
+
+    private void loadProducts(Connection conn, String sql, String pattern) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (pattern != null) {
+                pstmt.setString(1, pattern);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(new int[] { rs.getInt(1), (int) Math.round(rs.getDouble(2) * 100) });
+                }
+            }
+        }
+    }
+
+    // Puts the stock back, deletes the run's sales and re-syncs today's summaries
+    private static void cleanUp() throws SQLException {
+        System.out.println("\nRemoving load-driver sales");
+        System.out.println("----------------------------");
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE Products p JOIN (SELECT sd.product_id, SUM(sd.quantity) AS qty " +
+                        "FROM Sale_Details sd JOIN Sales s ON s.sale_id = sd.sale_id " +
+                        "WHERE s.notes = ? GROUP BY sd.product_id) sold ON sold.product_id = p.product_id " +
+                        "SET p.stock = p.stock + sold.qty")) {
+                    pstmt.setString(1, MARKER);
+                    System.out.println("  Restored stock of " + pstmt.executeUpdate() + " products");
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Sales WHERE notes = ?")) {
+                    pstmt.setString(1, MARKER);
+                    System.out.println("  Removed " + pstmt.executeUpdate() + " sales");
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        LocalDate today = LocalDate.now();
+        SalesCubeService.getInstance().reconcile(today, today, true);
+        DailyRollupService.getInstance().refreshDay(today);
+    }
+}
@@ -0,0 +1,100 @@
+import database.DBConnection;
+import services.CustomerService;
+import services.Page;
+import services.ProductService;
+
+import java.sql.Connection;
+
+/**
+ * Compares OFFSET paging with keyset (cursor) paging of the product and
+ * customer lists at increasing depths. Offset pages get slower the deeper
+ * they are, because the server reads and throws away every skipped row;
+ * keyset pages should cost the same at any depth.
+ *
+ * Seeds a million products and customers by default and removes them at the
+ * end; --existing pages through whatever rows the schema already has. Point
+ * it at a scratch server with -Ddb.url=... -Ddb.user=... -Ddb.password=...
+ *
+ * Usage: java PaginationBenchmark [--products n] [--customers n] [--page n] [--existing]
+ *        [Bench options: --warmup --time --only --out --baseline --tolerance]
+ */
+public class PaginationBenchmark {
+
+    private static final int[] DEPTHS = { 0, 10_000, 100_000, 500_000, 900_000 };
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(args);
+        boolean existing = Bench.parseOptions(args).containsKey("existing");
+        int pageSize = bench.getIntOption("page", 50);
+
+        System.out.println("========================================");
+        System.out.println("   PAGINATION BENCHMARK");
+        System.out.println("========================================\n");
+
+        if (!existing) {
+            try (Connection conn = DBConnection.getConnection()) {
+                DataSeeder seeder = new DataSeeder(42);
+                seeder.seedProducts(conn, bench.getIntOption("products", 1_000_000), DataSeeder.PRODUCT_PREFIX);
+                seeder.seedCustomers(conn, bench.getIntOption("customers", 1_000_000), DataSeeder.CUSTOMER_DOMAIN);
+            }
+        }
+        boolean ok;
+        try {
+            runAll(bench, pageSize);
+            ok = bench.finish();
+        } finally {
+            if (!existing) {
+                try (Connection conn = DBConnection.getConnection()) {
+                    DataSeeder.purge(conn, DataSeeder.PRODUCT_PREFIX, DataSeeder.CUSTOMER_DOMAIN,
+                            DataSeeder.SALE_MARKER);
+                }
+            }
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   BENCHMARK COMPLETED");
+        System.out.println("========================================");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void runAll(Bench bench, int pageSize) throws Exception {
+        ProductService products = new ProductService();
+        CustomerService customers = new CustomerService();
+        ProductService.SortField byName = ProductService.SortField.NAME;
+        CustomerService.SortField bySurname = CustomerService.SortField.NAME;
+
+        int productRows = products.countProducts(null);
+        for (int depth : DEPTHS) {
+            if (depth + pageSize > productRows) {
+                break;
+            }
+            // The cursor a client would hold after scrolling to this depth; fetched untimed
+            String cursor = depth == 0 ? null
+                    : products.listProductsAt(depth - pageSize, pageSize, byName, true, null).getNextCursor();
+            bench.run("products.NAME.offset@" + depth, 1,
+                    r -> expect(products.listProductsAt(depth, pageSize, byName, true, null), pageSize));
+            bench.run("products.NAME.keyset@" + depth, 1,
+                    r -> expect(products.listProducts(cursor, pageSize, byName, true, null), pageSize));
+        }
+
+        int customerRows = customers.countCustomers();
+        for (int depth : DEPTHS) {
+            if (depth + pageSize > customerRows) {
+                break;
+            }
+            String cursor = depth == 0 ? null
+                    : customers.listCustomersAt(depth - pageSize, pageSize, bySurname, true, null).getNextCursor();
+            bench.run("customers.NAME.offset@" + depth, 1,
+                    r -> expect(customers.listCustomersAt(depth, pageSize, bySurname, true, null), pageSize));
+            bench.run("customers.NAME.keyset@" + depth, 1,
+                    r -> expect(customers.listCustomers(cursor, pageSize, bySurname, true, null), pageSize));
+        }
+    }
+
+    // A short page means the benchmark measured less work than it claims
+    private static void expect(Page<?> page, int size) {
+        if (page.getItems().size() != size) {
+            throw new IllegalStateException("Expected " + size + " rows, got " + page.getItems().size());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import database.QueryMetrics;
+import models.Product;
+import models.Sale;
+import models.SaleDetail;
+import services.AnalyticsService;
+import services.CustomerService;
+import services.ProductService;
+import services.SalesService;
+import utils.EventLog;
+import utils.PDFUtil;
+
+import javax.swing.table.DefaultTableModel;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks the service and utility hot paths against a seeded database.
+ * Needs the smart_retail schema; point it at a scratch server with
+ * -Ddb.url=... -Ddb.user=... -Ddb.password=... Everything it seeds or sells
+ * is removed at the end.
+ *
+ * Usage: java ServiceBenchmarks [--products n] [--customers n] [--sales n]
+ *        [--days n] [--lanes n] [Bench options: --warmup --time --only --out --baseline --tolerance]
+ */
+public class ServiceBenchmarks {
+
+    private static final String[] PERIODS = { "Today", "Last 7 Days", "This Month", "This Year" };
+    // Same cap as the SalesUI product search
+    private static final int SEARCH_RESULT_LIMIT = 200;
+
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench(args);
+        int lanes = bench.getIntOption("lanes", 8);
+
+        System.out.println("========================================");
+        System.out.println("   SERVICE BENCHMARKS");
+        System.out.println("========================================\n");
+
+        BenchData data = BenchData.seed(bench.getIntOption("products", 2000), bench.getIntOption("customers", 20000),
+                bench.getIntOption("sales", 50000), bench.getIntOption("days", 90));
+        File scratch = Files.createTempDirectory("service-bench").toFile();
+        boolean ok;
+        try {
+            runAll(bench, data, lanes, scratch);
+            ok = bench.finish();
+            System.out.println("\n" + QueryMetrics.report());
+        } finally {
+            data.cleanUp();
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   BENCHMARK COMPLETED");
+        System.out.println("========================================");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void runAll(Bench bench, BenchData data, int lanes, File scratch) throws Exception {
+        SalesService sales = new SalesService();
+        ProductService products = new ProductService();
+        CustomerService customers = new CustomerService();
+        AnalyticsService analytics = new AnalyticsService();
+
+        // One transaction per sale, then concurrent lanes sharing group commits
+        bench.run("sales.createSale.single", 1, r -> sales.createSaleDirect(randomSale(data, r)));
+        bench.run("sales.createSale.batched", lanes, r -> sales.createSale(randomSale(data, r)));
+
+        bench.run("products.getAllProducts", 1, r -> products.getAllProducts());
+        bench.run("products.searchProducts", 4, r -> products.searchProducts(randomTerm(data, r), null, SEARCH_RESULT_LIMIT));
+        if (!data.customerTerms.isEmpty()) {
+            bench.run("customers.searchCustomers", 4,
+                    r -> customers.searchCustomers(data.customerTerms.get(r.nextInt(data.customerTerms.size()))));
+        }
+
+        bench.run("analytics.getSalesTrend", 2, r -> analytics.getSalesTrend(period(r), category(r)));
+        bench.run("analytics.getTopProducts", 2, r -> analytics.getTopProducts(period(r), category(r)));
+        bench.run("analytics.getRevenueDistribution", 2, r -> analytics.getRevenueDistribution(period(r), category(r)));
+        bench.run("analytics.getPeriodTotals", 2, r -> analytics.getPeriodTotals(period(r)));
+
+        // What SalesUI.filterProducts does per keystroke, minus the Swing repaint
+        DefaultTableModel model = new DefaultTableModel(new String[] { "ID", "Name", "Category", "Price", "Stock" }, 0);
+        bench.run("ui.filterProducts", 1, r -> {
+            model.setRowCount(0);
+            for (Product p : products.searchProducts(randomTerm(data, r), null, SEARCH_RESULT_LIMIT)) {
+                model.addRow(new Object[] { p.getProductId(), p.getName(), p.getCategory(),
+                        String.format("$%.2f", p.getPrice()), p.getStock() });
+            }
+        });
+
+        // JSONUtil.logLogin/logLogout append through EventLog; a scratch log keeps the real one clean
+        EventLog events = new EventLog(new File(scratch, "logs"));
+        bench.run("utils.JSONUtil.logEvent", 1, r -> events.append("bench", r.nextBoolean() ? "LOGIN" : "LOGOUT"));
+        events.close();
+
+        File receipt = new File(scratch, "receipt.pdf");
+        bench.run("utils.PDFUtil.generateReceipt", 1, r -> {
+            Sale sale = randomSale(data, r);
+            sale.setSaleId(1);
+            if (!PDFUtil.generateReceipt(sale, receipt.getPath())) {
+                throw new IllegalStateException("Receipt not written");
+            }
+        });
+    }
+
+    // === INPUTS ===
+
+    private static Sale randomSale(BenchData data, SplittableRandom random) {
+        Sale sale = new Sale();
+        sale.setCustomerId(Sale.WALK_IN_CUSTOMER_ID);
+        sale.setUserId(data.userId);
+        sale.setNotes(BenchData.SALE_MARKER);
+        sale.setSaleDetails(new ArrayList<>());
+        double total = 0;
+        int lines = 1 + random.nextInt(4);
+        for (int i = 0; i < lines; i++) {
+            int p = random.nextInt(data.productIds.size());
+            SaleDetail detail = new SaleDetail(data.productIds.get(p), data.productNames.get(p),
+                    data.productPrices.get(p), 1);
+            sale.addSaleDetail(detail);
+            total += detail.getTotalPrice();
+        }
+        sale.setTotalAmount(total);
+        sale.setCashReceived(Math.ceil(sale.getFinalAmount()));
+        sale.setChangeGiven(sale.calculateChange());
+        return sale;
+    }
+
+    // A word from a product name, as a cashier would type it
+    private static String randomTerm(BenchData data, SplittableRandom random) {
+        String[] words = data.productNames.get(random.nextInt(data.productNames.size())).split(" ");
+        String word = words[1 + random.nextInt(words.length - 1)];
+        return word.substring(0, Math.min(word.length(), 2 + random.nextInt(4)));
+    }
+
+    private static String period(SplittableRandom random) {
+        return PERIODS[random.nextInt(PERIODS.length)];
+    }
+
+    private static String category(SplittableRandom random) {
+        return random.nextInt(3) == 0 ? "All Categories"
+                : BenchData.CATEGORIES[random.nextInt(BenchData.CATEGORIES.length)];
+    }
+}
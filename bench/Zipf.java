@@ -0,0 +1,55 @@
+import java.util.SplittableRandom;
+
+/**
+ * Zipf - Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s,
+ * the long-tail popularity seen in retail baskets: a few products (or regular
+ * customers) account for most of the lines.
+ *
+ * The cumulative distribution is precomputed once, so each draw is a binary
+ * search. Instances are immutable and can be shared between threads.
+ */
+public final class Zipf {
+
+    private final double[] cdf;
+
+    /**
+     * @param n        Number of ranks
+     * @param exponent Skew; about 1.0 for retail popularity, 0 for uniform
+     */
+    public Zipf(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Zipf needs at least one rank");
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+
+    /**
+     * @return A rank, 0 being the most popular
+     */
+    public int next(SplittableRandom random) {
+        double u = random.nextDouble();
+        int lo = 0;
+        int hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,331 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConnectionPool - Bounded pool of physical JDBC connections.
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing the socket, so existing
+ * try-with-resources code keeps working unchanged. A returned connection
+ * gets its auto-commit and transaction isolation back, so a borrower may
+ * change either without restoring it.
+ *
+ * Features: min/max size, idle eviction, validation on borrow, borrow
+ * timeout and leak detection (connections held longer than a threshold
+ * are reported with the borrowing thread). Capturing the borrower's stack
+ * trace costs a stack walk per borrow, so it is only done when enabled
+ * with setTraceBorrows(true).
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens a new physical connection (DriverManager, credential probing, ...)
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    // Connections returned within this window are trusted without a ping
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    // === POOL CONFIGURATION ===
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long leakThresholdMs;
+    private final int validationTimeoutSec;
+
+    // === POOL STATE ===
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledHandler, Long> borrowed = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+    private volatile boolean traceBorrows = false;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long idleTimeoutMs,
+            long borrowTimeoutMs, long leakThresholdMs, int validationTimeoutSec) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(30000, Math.min(idleTimeoutMs, leakThresholdMs > 0 ? leakThresholdMs : Long.MAX_VALUE) / 2));
+        // First run fills the pool up to minSize in the background
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to free up
+     *
+     * @return A pooled connection; close() hands it back to the pool
+     * @throws SQLException if the pool is exhausted or a connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a connection (active="
+                        + getActiveCount() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    return lend(entry);
+                }
+                discard(entry);
+            }
+            return lend(open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeper.
+     * Borrowed connections are closed when their holders return them.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * @param traceBorrows Record the stack trace of every borrow so leak warnings can show it (debugging aid)
+     */
+    public void setTraceBorrows(boolean traceBorrows) {
+        this.traceBorrows = traceBorrows;
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // === INTERNALS ===
+
+    private PooledEntry open() throws SQLException {
+        Connection physical = factory.create();
+        if (physical == null) {
+            throw new SQLException("Connection factory returned no connection");
+        }
+        totalCount.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    private Connection lend(PooledEntry entry) {
+        PooledHandler handler = new PooledHandler(entry, Thread.currentThread().getName(),
+                traceBorrows && leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null);
+        borrowed.put(handler, System.currentTimeMillis());
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, handler);
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsed < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(PooledHandler handler) {
+        borrowed.remove(handler);
+        PooledEntry entry = handler.entry;
+        try {
+            boolean healthy = !entry.physical.isClosed();
+            if (healthy && !entry.physical.getAutoCommit()) {
+                // Caller left a transaction open; never hand that to the next borrower
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (healthy && handler.originalIsolation != null) {
+                entry.physical.setTransactionIsolation(handler.originalIsolation);
+            }
+            if (healthy && !shutdown) {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            } else {
+                discard(entry);
+            }
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        totalCount.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // Already broken, nothing else to do
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // Evict connections idle longer than the timeout, keeping minSize around
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && totalCount.get() > minSize) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsed > idleTimeoutMs && idle.removeFirstOccurrence(entry)) {
+                    discard(entry);
+                }
+            }
+
+            // Top up to minSize
+            while (!shutdown && totalCount.get() < minSize) {
+                PooledEntry entry = open();
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerLast(entry);
+            }
+
+            // Report connections held longer than the leak threshold
+            if (leakThresholdMs > 0) {
+                for (Map.Entry<PooledHandler, Long> e : borrowed.entrySet()) {
+                    PooledHandler handler = e.getKey();
+                    long heldFor = now - e.getValue();
+                    if (heldFor > leakThresholdMs && !handler.leakReported) {
+                        handler.leakReported = true;
+                        System.err.println("WARNING: Possible connection leak - held for " + heldFor
+                                + " ms, borrowed by thread " + handler.borrowerThread);
+                        if (handler.borrowSite != null) {
+                            handler.borrowSite.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping error: " + e);
+        }
+    }
+
+    private static class PooledEntry {
+        final Connection physical;
+        volatile long lastUsed;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+    }
+
+    // Routes close() back to the pool and guards against use after close
+    private class PooledHandler implements InvocationHandler {
+        final PooledEntry entry;
+        final String borrowerThread;
+        final Throwable borrowSite;
+        volatile boolean leakReported = false;
+        // Isolation before the borrower first changed it; restored on return
+        Integer originalIsolation;
+        private boolean closed = false;
+
+        PooledHandler(PooledEntry entry, String borrowerThread, Throwable borrowSite) {
+            this.entry = entry;
+            this.borrowerThread = borrowerThread;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (closed) {
+                            return null;
+                        }
+                        closed = true;
+                    }
+                    giveBack(this);
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    if (originalIsolation == null && method.getName().equals("setTransactionIsolation")) {
+                        originalIsolation = entry.physical.getTransactionIsolation();
+                    }
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
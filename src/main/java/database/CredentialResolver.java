@@ -0,0 +1,144 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLInvalidAuthorizationSpecException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CredentialResolver - Works out which of the configured passwords is valid.
+ * db.password may list several candidates separated by || or ,
+ * The candidates are probed once, the winner is remembered, and probing only
+ * happens again after the remembered password is rejected by the server.
+ */
+public class CredentialResolver {
+
+    // MySQL "Access denied for user" error code
+    private static final int ER_ACCESS_DENIED = 1045;
+
+    private final String url;
+    private final String user;
+    private final List<String> candidates;
+
+    // Index of the password that last worked, -1 until resolved
+    private volatile int resolvedIndex = -1;
+    private volatile long lastProbeMillis = 0;
+    private volatile int probeCount = 0;
+
+    public CredentialResolver(String url, String user, String passwordList) {
+        this.url = url;
+        this.user = user;
+        this.candidates = new ArrayList<>();
+        if (passwordList != null) {
+            // Supporting multiple passwords (OR operator style), split by || or ,
+            for (String pwd : passwordList.split("\\|\\||,")) {
+                candidates.add(pwd.trim());
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.add("");
+        }
+    }
+
+    /**
+     * Opens a connection with the resolved password, probing first if needed
+     *
+     * @return A new physical connection
+     * @throws SQLException if no candidate password is accepted
+     */
+    public Connection connect() throws SQLException {
+        int index = resolvedIndex;
+        if (index >= 0) {
+            try {
+                return DriverManager.getConnection(url, user, candidates.get(index));
+            } catch (SQLException e) {
+                if (!isAuthFailure(e)) {
+                    throw e; // Network or server trouble, the password is still fine
+                }
+                invalidate(index);
+            }
+        }
+        return probe();
+    }
+
+    /**
+     * Forgets the resolved password so the next connect() probes again
+     */
+    public void reset() {
+        resolvedIndex = -1;
+    }
+
+    public boolean isResolved() {
+        return resolvedIndex >= 0;
+    }
+
+    /**
+     * @return Position of the working password in the configured list, or -1
+     */
+    public int getResolvedIndex() {
+        return resolvedIndex;
+    }
+
+    /**
+     * @return How long the most recent probe took, in milliseconds
+     */
+    public long getLastProbeMillis() {
+        return lastProbeMillis;
+    }
+
+    /**
+     * @return Number of times the password list has been probed
+     */
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    // Tries every candidate in order; only one thread probes at a time
+    private synchronized Connection probe() throws SQLException {
+        // Another thread may have resolved it while we waited for the lock
+        int index = resolvedIndex;
+        if (index >= 0) {
+            return DriverManager.getConnection(url, user, candidates.get(index));
+        }
+
+        long start = System.nanoTime();
+        SQLException lastError = null;
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                try {
+                    Connection conn = DriverManager.getConnection(url, user, candidates.get(i));
+                    resolvedIndex = i;
+                    System.out.println(" Connection successful! (credential " + (i + 1) + " of " + candidates.size() + ")");
+                    return conn;
+                } catch (SQLException e) {
+                    lastError = e;
+                    if (!isAuthFailure(e)) {
+                        break; // Server unreachable, other passwords won't help
+                    }
+                }
+            }
+        } finally {
+            lastProbeMillis = (System.nanoTime() - start) / 1_000_000;
+            probeCount++;
+            System.out.println(" Credential probe took " + lastProbeMillis + " ms");
+        }
+
+        System.err.println("ERROR: Could not connect to the database with any provided password!");
+        throw lastError;
+    }
+
+    private synchronized void invalidate(int index) {
+        if (resolvedIndex == index) {
+            System.err.println("Stored database credential was rejected, probing again");
+            resolvedIndex = -1;
+        }
+    }
+
+    private static boolean isAuthFailure(SQLException e) {
+        return e instanceof SQLInvalidAuthorizationSpecException
+                || e.getErrorCode() == ER_ACCESS_DENIED
+                || "28000".equals(e.getSQLState());
+    }
+}
@@ -1,7 +1,6 @@
 package database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DBConnection {
@@ -12,11 +11,47 @@ public class DBConnection {
     private static String USER;
     private static String PASSWORD;
 
+    // === POOL CONFIGURATION ===
+    private static int POOL_MIN_SIZE = 2;
+    private static int POOL_MAX_SIZE = 10;
+    private static long POOL_IDLE_TIMEOUT_MS = 600000;
+    private static long POOL_BORROW_TIMEOUT_MS = 5000;
+    private static long POOL_LEAK_THRESHOLD_MS = 60000;
+    private static int POOL_VALIDATION_TIMEOUT_SEC = 2;
+    // Debugging aid: leak warnings include the borrower's stack trace, at the cost of one per borrow
+    private static boolean POOL_TRACE_BORROWS = false;
+
+    private static ConnectionPool pool;
+    private static CredentialResolver credentials;
+    // Run at JVM exit before the pool closes, e.g. to flush queued writes
+    private static final java.util.List<Runnable> shutdownTasks = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    // Connector/J options the application relies on; an explicit value in db.url wins
+    // (declared before the static block below, which already uses it)
+    private static final String[][] DRIVER_DEFAULTS = {
+            // Lets executeBatch() send one multi-row INSERT instead of a round trip per row
+            { "rewriteBatchedStatements", "true" },
+            // Parse each StatementRegistry statement once per pooled connection and keep it open
+            { "useServerPrepStmts", "true" },
+            { "cachePrepStmts", "true" },
+            { "prepStmtCacheSize", "250" },
+            { "prepStmtCacheSqlLimit", "2048" },
+    };
+
     static {
         loadConfig();
     }
 
     private static void loadConfig() {
+        loadProperties();
+        // -Ddb.url=... etc. point a run (e.g. the benchmarks) at another server without editing the file
+        URL = System.getProperty("db.url", URL);
+        USER = System.getProperty("db.user", USER);
+        PASSWORD = System.getProperty("db.password", PASSWORD);
+        URL = withDriverDefaults(URL);
+    }
+
+    private static void loadProperties() {
         try (java.io.InputStream input = DBConnection.class.getClassLoader().getResourceAsStream("config.properties")) {
             java.util.Properties prop = new java.util.Properties();
             if (input == null) {
@@ -31,11 +66,36 @@ public class DBConnection {
             URL = prop.getProperty("db.url");
             USER = prop.getProperty("db.user");
             PASSWORD = prop.getProperty("db.password");
+
+            POOL_MIN_SIZE = Integer.parseInt(prop.getProperty("db.pool.minSize", String.valueOf(POOL_MIN_SIZE)).trim());
+            POOL_MAX_SIZE = Integer.parseInt(prop.getProperty("db.pool.maxSize", String.valueOf(POOL_MAX_SIZE)).trim());
+            POOL_IDLE_TIMEOUT_MS = Long.parseLong(prop.getProperty("db.pool.idleTimeoutMs", String.valueOf(POOL_IDLE_TIMEOUT_MS)).trim());
+            POOL_BORROW_TIMEOUT_MS = Long.parseLong(prop.getProperty("db.pool.borrowTimeoutMs", String.valueOf(POOL_BORROW_TIMEOUT_MS)).trim());
+            POOL_LEAK_THRESHOLD_MS = Long.parseLong(prop.getProperty("db.pool.leakThresholdMs", String.valueOf(POOL_LEAK_THRESHOLD_MS)).trim());
+            POOL_VALIDATION_TIMEOUT_SEC = Integer.parseInt(prop.getProperty("db.pool.validationTimeoutSec", String.valueOf(POOL_VALIDATION_TIMEOUT_SEC)).trim());
+            POOL_TRACE_BORROWS = Boolean.parseBoolean(prop.getProperty("db.pool.traceBorrows", String.valueOf(POOL_TRACE_BORROWS)).trim());
+            QueryMetrics.setSlowThresholdMillis(Long.parseLong(prop.getProperty("db.slowQueryMs", String.valueOf(QueryMetrics.getSlowThresholdMillis())).trim()));
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid pool setting in config.properties, using defaults: " + ex.getMessage());
         } catch (java.io.IOException ex) {
             ex.printStackTrace();
         }
     }
 
+    // Appends each DRIVER_DEFAULTS option that the URL does not already set
+    public static String withDriverDefaults(String url) {
+        if (url == null) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(url);
+        for (String[] option : DRIVER_DEFAULTS) {
+            if (!url.contains(option[0] + "=")) {
+                result.append(result.indexOf("?") < 0 ? '?' : '&').append(option[0]).append('=').append(option[1]);
+            }
+        }
+        return result.toString();
+    }
+
     private static DBConnection instance;
 
     private DBConnection() {
@@ -49,32 +109,80 @@ public class DBConnection {
     }
 
     // === METHOD TO GET CONNECTION ===
+    // Hands out a pooled connection; close() returns it to the pool
     public static Connection getConnection() {
+        long start = System.nanoTime();
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-
-            // Supporting multiple passwords (OR operator style) as requested
-            // Splitting by || or ,
-            String[] passwords = PASSWORD.split("\\|\\||,");
-
-            for (String pwd : passwords) {
-                try {
-                    Connection conn = DriverManager.getConnection(URL, USER, pwd.trim());
-                    System.out.println(" Connection successful!");
-                    return conn;
-                } catch (SQLException e) {
-                    // Try next password...
-                }
+            return getPool().borrow();
+        } catch (SQLException e) {
+            System.err.println("ERROR: Could not get a database connection: " + e.getMessage());
+            return null;
+        } finally {
+            QueryMetrics.recordConnectionWait(System.nanoTime() - start);
+        }
+    }
+
+    // === CONNECTION POOL ===
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                System.err.println(" ERROR: MySQL JDBC Driver not found!");
+                e.printStackTrace();
             }
+            pool = new ConnectionPool(DBConnection::openPhysicalConnection, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                    POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS, POOL_VALIDATION_TIMEOUT_SEC);
+            pool.setTraceBorrows(Boolean.parseBoolean(
+                    System.getProperty("db.pool.traceBorrows", String.valueOf(POOL_TRACE_BORROWS))));
+            Runtime.getRuntime().addShutdownHook(new Thread(DBConnection::shutdown, "db-pool-shutdown"));
+        }
+        return pool;
+    }
 
-            System.err.println("ERROR: Could not connect to the database with any provided password!");
-            return null;
+    // Registers work that still needs the database when the application exits
+    public static void addShutdownTask(Runnable task) {
+        shutdownTasks.add(task);
+    }
 
-        } catch (ClassNotFoundException e) {
-            System.err.println(" ERROR: MySQL JDBC Driver not found!");
-            e.printStackTrace();
-            return null;
+    private static void shutdown() {
+        for (Runnable task : shutdownTasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error in shutdown task: " + e.getMessage());
+            }
+        }
+        pool.shutdown();
+    }
+
+    // True when the error means the server could not be reached (as opposed to a rejected statement)
+    public static boolean isConnectionFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof java.sql.SQLRecoverableException || t instanceof java.sql.SQLTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    return true;
+                }
+            }
         }
+        return false;
+    }
+
+    // Remembers which configured password works so it is only probed once
+    public static synchronized CredentialResolver getCredentialResolver() {
+        if (credentials == null) {
+            credentials = new CredentialResolver(URL, USER, PASSWORD);
+        }
+        return credentials;
+    }
+
+    // Opens a brand new physical connection (used by the pool only)
+    private static Connection openPhysicalConnection() throws SQLException {
+        return getCredentialResolver().connect();
     }
 
     // === MAIN METHOD TO TEST CONNECTION ===
@@ -83,6 +191,7 @@ public class DBConnection {
 
         if (conn != null) {
             System.out.println("✓ Database is reachable!");
+            System.out.println("  Credential probe took " + getCredentialResolver().getLastProbeMillis() + " ms");
             try {
                 conn.close();
                 System.out.println("✓ Connection closed successfully");
@@ -0,0 +1,176 @@
+package database;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset - SQL fragments for keyset ("seek") pagination.
+ *
+ * A page after the row with sort key (a1, b1, id1) is read with
+ *   WHERE (a > ? OR (a = ? AND b > ?) OR (a = ? AND b = ? AND id > ?))
+ *   ORDER BY a, b, id LIMIT n
+ * which an index on (a, b, id) answers by seeking straight to the key,
+ * however deep the page is. The last column must be unique (normally the
+ * primary key) so that every row has exactly one position. The columns must
+ * be NOT NULL; a NULL key never compares greater or smaller than anything.
+ *
+ * The fragments go into {0}-style slots of a SqlStatement; the columns
+ * (or expressions) are trusted constants, never user input.
+ *
+ * A key can be handed to callers as an opaque cursor (encodeCursor). The
+ * cursor names the list and order it was made for, so one from another list
+ * or sort order is rejected instead of silently seeking to a wrong place.
+ */
+public final class Keyset {
+
+    private Keyset() {
+    }
+
+    /**
+     * @return "a, b, id" or "a DESC, b DESC, id DESC"
+     */
+    public static String orderBy(String[] columns, boolean ascending) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns[i]);
+            if (!ascending) {
+                sb.append(" DESC");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The predicate selecting the rows after a key, in the order of orderBy(columns, ascending)
+     */
+    public static String after(String[] columns, boolean ascending) {
+        String op = ascending ? " > ?" : " < ?";
+        StringBuilder sb = new StringBuilder("(").append(columns[0]).append(op);
+        for (int i = 1; i < columns.length; i++) {
+            sb.append(" OR (");
+            for (int j = 0; j < i; j++) {
+                sb.append(columns[j]).append(" = ? AND ");
+            }
+            sb.append(columns[i]).append(op).append(')');
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Binds the key values for a predicate from after()
+     *
+     * @param index First parameter index to use
+     * @param key   The key values, one per column
+     * @return The next free parameter index
+     */
+    public static int bind(PreparedStatement pstmt, int index, Object[] key) throws SQLException {
+        for (int i = 0; i < key.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                pstmt.setObject(index++, key[j]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the key of the current row; the columns must be in the select list under these names
+     */
+    public static Object[] keyOf(ResultSet rs, String[] columns) throws SQLException {
+        Object[] key = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            key[i] = rs.getObject(columns[i]);
+        }
+        return key;
+    }
+
+    // === CURSORS ===
+
+    /**
+     * @param order Names the list and its order, e.g. "products.NAME.asc"
+     * @param key   Key of the last row of a page (String, Integer, Long, BigDecimal or Timestamp values)
+     * @return An opaque, URL-safe cursor
+     */
+    public static String encodeCursor(String order, Object[] key) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, 's', order);
+        for (Object value : key) {
+            if (value instanceof String) {
+                append(sb, 's', (String) value);
+            } else if (value instanceof Integer) {
+                append(sb, 'i', value.toString());
+            } else if (value instanceof Long) {
+                append(sb, 'l', value.toString());
+            } else if (value instanceof BigDecimal) {
+                append(sb, 'd', ((BigDecimal) value).toPlainString());
+            } else if (value instanceof Timestamp) {
+                append(sb, 't', value.toString());
+            } else {
+                throw new IllegalArgumentException("Unsupported key value: " + value);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param order The list and order the cursor must have been made for
+     * @return The key values, one per column
+     * @throws IllegalArgumentException If the cursor is malformed or made for another list or order
+     */
+    public static Object[] decodeCursor(String cursor, String order, int columns) {
+        List<Object> values = new ArrayList<>();
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int pos = 0;
+            while (pos < text.length()) {
+                char type = text.charAt(pos);
+                int colon = text.indexOf(':', pos);
+                int length = Integer.parseInt(text.substring(pos + 1, colon));
+                String value = text.substring(colon + 1, colon + 1 + length);
+                pos = colon + 1 + length;
+                switch (type) {
+                    case 's':
+                        values.add(value);
+                        break;
+                    case 'i':
+                        values.add(Integer.valueOf(value));
+                        break;
+                    case 'l':
+                        values.add(Long.valueOf(value));
+                        break;
+                    case 'd':
+                        values.add(new BigDecimal(value));
+                        break;
+                    case 't':
+                        values.add(Timestamp.valueOf(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown value type " + type);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (values.isEmpty() || !order.equals(values.get(0))) {
+            throw new IllegalArgumentException("Cursor was not made for " + order);
+        }
+        if (values.size() != columns + 1) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return values.subList(1, values.size()).toArray();
+    }
+
+    // Type, length, ':', value; lengths keep any character in a value unambiguous
+    private static void append(StringBuilder sb, char type, String value) {
+        sb.append(type).append(value.length()).append(':').append(value);
+    }
+}
@@ -0,0 +1,219 @@
+package database;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import utils.LatencyHistogram;
+
+/**
+ * QueryMetrics - What the services layer spends its time on in the database.
+ *
+ * Collects, in process:
+ *   - latency histogram, row count and errors per named statement (kept by
+ *     each SqlStatement, see StatementRegistry)
+ *   - how long callers waited for a pooled connection
+ *   - a slow-query log: every statement slower than the threshold
+ *     (db.slowQueryMs, default 250 ms) is kept in memory and appended to
+ *     src/main/resources/logs/slow-queries.log
+ *
+ * report() renders all of it as text; dump() writes that text to a file.
+ */
+public final class QueryMetrics {
+
+    private static final String LOG_DIR = "src/main/resources/logs";
+    private static final String SLOW_LOG = "slow-queries.log";
+    // Slow queries kept in memory for getSlowQueries()
+    private static final int RECENT_SLOW = 100;
+
+    /**
+     * One statement execution that exceeded the slow-query threshold
+     */
+    public static final class SlowQuery {
+        public final long at;
+        public final String statement;
+        public final double millis;
+        public final long rows;
+        public final String sql;
+        public final String thread;
+
+        SlowQuery(long at, String statement, double millis, long rows, String sql, String thread) {
+            this.at = at;
+            this.statement = statement;
+            this.millis = millis;
+            this.rows = rows;
+            this.sql = sql;
+            this.thread = thread;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %-30s %9.2f ms %7d rows [%s] %s",
+                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(at)), statement, millis, rows,
+                    thread, sql);
+        }
+    }
+
+    private static final LatencyHistogram connectionWait = new LatencyHistogram("connection.wait");
+    private static final Deque<SlowQuery> recentSlow = new ArrayDeque<>();
+    private static final LongAdder slowCount = new LongAdder();
+    private static volatile long slowThresholdNanos = 250_000_000L;
+    private static File slowLog = new File(LOG_DIR, SLOW_LOG);
+
+    // Appends to the slow-query log off the query thread
+    private static final ExecutorService logWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "slow-query-log");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private QueryMetrics() {
+    }
+
+    // === CONFIGURATION ===
+
+    public static long getSlowThresholdMillis() {
+        return slowThresholdNanos / 1_000_000L;
+    }
+
+    /**
+     * @param millis Executions taking at least this long are logged; 0 logs every execution
+     */
+    public static void setSlowThresholdMillis(long millis) {
+        slowThresholdNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    /**
+     * Redirects the slow-query log, or turns the file off with null (the in-memory list is kept)
+     */
+    public static synchronized void setSlowLogFile(File file) {
+        slowLog = file;
+    }
+
+    // === RECORDING ===
+
+    static void recordConnectionWait(long nanos) {
+        connectionWait.recordNanos(nanos);
+    }
+
+    // Called by SqlStatement once an execution and its rows are complete
+    static void recordExecution(SqlStatement statement, String sql, long nanos, long rows) {
+        if (nanos < slowThresholdNanos) {
+            return;
+        }
+        SlowQuery slow = new SlowQuery(System.currentTimeMillis(), statement.getName(), nanos / 1e6, rows, sql,
+                Thread.currentThread().getName());
+        slowCount.increment();
+        File file;
+        synchronized (QueryMetrics.class) {
+            recentSlow.addLast(slow);
+            if (recentSlow.size() > RECENT_SLOW) {
+                recentSlow.removeFirst();
+            }
+            file = slowLog;
+        }
+        System.err.println("Slow query: " + slow.statement + " took " + String.format("%.1f", slow.millis) + " ms");
+        if (file != null) {
+            logWriter.execute(() -> append(file, slow.toString()));
+        }
+    }
+
+    // === READING ===
+
+    /**
+     * @return Time spent waiting for DBConnection.getConnection()
+     */
+    public static LatencyHistogram getConnectionWait() {
+        return connectionWait;
+    }
+
+    /**
+     * @return The most recent slow queries, oldest first
+     */
+    public static synchronized List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(recentSlow);
+    }
+
+    public static long getSlowQueryCount() {
+        return slowCount.sum();
+    }
+
+    /**
+     * Clears every statement's statistics, the connection wait histogram and the in-memory slow queries
+     */
+    public static void reset() {
+        StatementRegistry.resetStats();
+        connectionWait.reset();
+        slowCount.reset();
+        synchronized (QueryMetrics.class) {
+            recentSlow.clear();
+        }
+    }
+
+    /**
+     * @return Connection wait, per-statement statistics and recent slow queries as text
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Query metrics at ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()))
+                .append(System.lineSeparator()).append(System.lineSeparator());
+        sb.append(connectionWait).append(System.lineSeparator()).append(System.lineSeparator());
+        sb.append(StatementRegistry.report()).append(System.lineSeparator());
+        List<SlowQuery> slow = getSlowQueries();
+        sb.append("Slow queries (>= ").append(getSlowThresholdMillis()).append(" ms): ").append(getSlowQueryCount())
+                .append(" total, last ").append(slow.size()).append(System.lineSeparator());
+        for (SlowQuery q : slow) {
+            sb.append(q).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes report() to a new timestamped file in the logs directory
+     *
+     * @return The file written
+     * @throws IOException If the file could not be written
+     */
+    public static File dump() throws IOException {
+        File file = new File(LOG_DIR, "query-metrics-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".txt");
+        dumpTo(file);
+        return file;
+    }
+
+    /**
+     * Writes report() to file, replacing it
+     */
+    public static void dumpTo(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(report());
+        }
+    }
+
+    private static void append(File file, String line) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            out.write(line + System.lineSeparator());
+        } catch (IOException e) {
+            System.err.println("Error writing slow-query log: " + e.getMessage());
+        }
+    }
+}
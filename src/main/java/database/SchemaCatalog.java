@@ -0,0 +1,176 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SchemaCatalog - Process-wide cache of the table and column names in the
+ * connected database. The schema is introspected once (two metadata round
+ * trips) and services ask the catalog instead of calling DatabaseMetaData
+ * before every query. Call invalidate() after a migration to re-read it.
+ */
+public class SchemaCatalog {
+
+    private static final SchemaCatalog INSTANCE = new SchemaCatalog();
+
+    // Immutable view of the schema; replaced as a whole on reload
+    private static class Snapshot {
+        // lowercase table name -> actual table name
+        final Map<String, String> tables = new HashMap<>();
+        // lowercase table name -> lowercase column names
+        final Map<String, Set<String>> columns = new HashMap<>();
+    }
+
+    private volatile Snapshot snapshot;
+
+    private SchemaCatalog() {
+    }
+
+    public static SchemaCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Drops the cached schema; the next lookup introspects the database again
+     */
+    public void invalidate() {
+        snapshot = null;
+        StatementRegistry.invalidate();
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    // === GENERIC LOOKUPS ===
+
+    /**
+     * Returns the actual name of a table, matching case-insensitively
+     *
+     * @param conn          Connection used to load the catalog if not loaded yet
+     * @param preferred     The name to use when the table is not found
+     * @param alternatives  Other spellings to look for, in order
+     * @return The name as it exists in the database, or preferred
+     */
+    public String resolveTable(Connection conn, String preferred, String... alternatives) {
+        Snapshot s = load(conn);
+        if (s == null) {
+            return preferred;
+        }
+        String actual = s.tables.get(preferred.toLowerCase());
+        if (actual != null) {
+            return actual;
+        }
+        for (String alt : alternatives) {
+            actual = s.tables.get(alt.toLowerCase());
+            if (actual != null) {
+                return actual;
+            }
+        }
+        return preferred;
+    }
+
+    /**
+     * Checks whether a column exists in a table (both case-insensitive)
+     */
+    public boolean hasColumn(Connection conn, String table, String column) {
+        Snapshot s = load(conn);
+        if (s == null) {
+            return false;
+        }
+        Set<String> cols = s.columns.get(table.toLowerCase());
+        return cols != null && cols.contains(column.toLowerCase());
+    }
+
+    /**
+     * Returns preferred if the table has that column, otherwise fallback
+     */
+    public String resolveColumn(Connection conn, String table, String preferred, String fallback) {
+        return hasColumn(conn, table, preferred) ? preferred : fallback;
+    }
+
+    // === RETAIL SCHEMA SHORTCUTS ===
+
+    public String getSalesTable(Connection conn) {
+        return resolveTable(conn, "Sales");
+    }
+
+    public String getSaleDetailsTable(Connection conn) {
+        return resolveTable(conn, "Sale_Details");
+    }
+
+    public String getProductsTable(Connection conn) {
+        return resolveTable(conn, "Products");
+    }
+
+    public String getUsersTable(Connection conn) {
+        return resolveTable(conn, "users");
+    }
+
+    // Older schemas only have total_amount on Sales
+    public String getSalesAmountColumn(Connection conn) {
+        return resolveColumn(conn, "sales", "final_amount", "total_amount");
+    }
+
+    // Older schemas call the line total "subtotal"
+    public String getSubtotalColumn(Connection conn) {
+        return resolveColumn(conn, "sale_details", "total_price", "subtotal");
+    }
+
+    // Some installs store hashed passwords in password_hash
+    public String getPasswordColumn(Connection conn) {
+        return resolveColumn(conn, "users", "password_hash", "password");
+    }
+
+    // === LOADING ===
+
+    private Snapshot load(Connection conn) {
+        Snapshot s = snapshot;
+        if (s != null || conn == null) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            try {
+                snapshot = introspect(conn);
+            } catch (SQLException e) {
+                System.err.println("Error reading database schema: " + e.getMessage());
+            }
+            return snapshot;
+        }
+    }
+
+    private Snapshot introspect(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        Snapshot s = new Snapshot();
+        DatabaseMetaData meta = conn.getMetaData();
+        String catalog = conn.getCatalog();
+
+        try (ResultSet rs = meta.getTables(catalog, null, "%", new String[] { "TABLE", "VIEW" })) {
+            while (rs.next()) {
+                String name = rs.getString("TABLE_NAME");
+                s.tables.put(name.toLowerCase(), name);
+            }
+        }
+
+        try (ResultSet rs = meta.getColumns(catalog, null, "%", "%")) {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME").toLowerCase();
+                s.columns.computeIfAbsent(table, k -> new HashSet<>())
+                        .add(rs.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+
+        System.out.println("Schema catalog loaded: " + s.tables.size() + " tables in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return s;
+    }
+}
@@ -0,0 +1,302 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import utils.LatencyHistogram;
+
+/**
+ * SqlStatement - One named SQL operation, defined once through StatementRegistry.
+ *
+ * The template names tables as {Products} and schema-dependent columns as
+ * {sales.final_amount|total_amount} (preferred|fallback). Both are resolved
+ * through SchemaCatalog the first time the statement is prepared and the
+ * resulting text is reused, so the driver sees byte-identical SQL and its
+ * prepared statement cache can hit. Positional slots {0}, {1}, ... take
+ * trusted SQL fragments such as TimeWindow predicates; every distinct set of
+ * fragments is resolved and cached separately.
+ *
+ * Statements returned by prepare() time every execution into a latency
+ * histogram and count the rows it returned (queries) or changed (updates).
+ * A query's rows are counted as the caller reads them, so its execution is
+ * recorded when the ResultSet or statement is closed. Slow executions are
+ * reported to QueryMetrics.
+ */
+public final class SqlStatement {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\d+)}|\\{(\\w+)(?:\\.(\\w+)\\|(\\w+))?}");
+
+    private final String name;
+    private final String template;
+    // Fragment list -> resolved SQL
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram latency;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    SqlStatement(String name, String template) {
+        this.name = name;
+        this.template = template;
+        this.latency = new LatencyHistogram(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @param conn      Connection used to read the schema the first time
+     * @param fragments Values for {0}, {1}, ...
+     * @return The SQL text with every placeholder resolved
+     */
+    public String sql(Connection conn, String... fragments) {
+        String key = fragments.length == 0 ? "" : String.join("\u0000", fragments);
+        String sql = resolved.get(key);
+        if (sql == null) {
+            sql = resolve(conn, fragments);
+            // Names resolved without a schema are only a guess; try again next time
+            if (SchemaCatalog.getInstance().isLoaded()) {
+                resolved.put(key, sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Prepares the statement on conn
+     */
+    public PreparedStatement prepare(Connection conn, String... fragments) throws SQLException {
+        String sql = sql(conn, fragments);
+        return timed(conn.prepareStatement(sql), sql);
+    }
+
+    /**
+     * Prepares an INSERT whose generated keys will be read
+     */
+    public PreparedStatement prepareWithKeys(Connection conn, String... fragments) throws SQLException {
+        String sql = sql(conn, fragments);
+        return timed(conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS), sql);
+    }
+
+    // === FRAGMENTS ===
+
+    /**
+     * @return "?, ?, ?" with count markers, for an IN ({0}) list
+     */
+    public static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param row One row, e.g. "(?, ?, NOW())"
+     * @return The row repeated rows times, comma separated, for a multi-row VALUES {0}
+     */
+    public static String valueRows(String row, int rows) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? row : ", " + row);
+        }
+        return sb.toString();
+    }
+
+    // === STATS ===
+
+    public long getExecutionCount() {
+        return latency.getCount();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return Rows read from query results plus rows changed by updates
+     */
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    /**
+     * @return Execution time distribution (p50/p95/p99 via getPercentileMillis)
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return Mean execution time in milliseconds
+     */
+    public double getMeanMillis() {
+        return latency.getMeanMillis();
+    }
+
+    public double getMaxMillis() {
+        return latency.getMaxMillis();
+    }
+
+    public double getTotalMillis() {
+        return latency.getMeanMillis() * latency.getCount();
+    }
+
+    void resetStats() {
+        latency.reset();
+        errors.reset();
+        rows.reset();
+    }
+
+    void invalidate() {
+        resolved.clear();
+    }
+
+    private void record(String sql, long nanos, long rowCount, boolean failed) {
+        latency.recordNanos(nanos);
+        rows.add(rowCount);
+        if (failed) {
+            errors.increment();
+        }
+        QueryMetrics.recordExecution(this, sql, nanos, rowCount);
+    }
+
+    // === INTERNALS ===
+
+    private String resolve(Connection conn, String[] fragments) {
+        SchemaCatalog schema = SchemaCatalog.getInstance();
+        Matcher m = PLACEHOLDER.matcher(template);
+        StringBuilder sql = new StringBuilder();
+        while (m.find()) {
+            String value;
+            if (m.group(1) != null) {
+                int index = Integer.parseInt(m.group(1));
+                if (index >= fragments.length) {
+                    throw new IllegalArgumentException(name + " needs fragment {" + index + "}");
+                }
+                value = fragments[index];
+            } else if (m.group(3) != null) {
+                value = schema.resolveColumn(conn, m.group(2), m.group(3), m.group(4));
+            } else {
+                value = schema.resolveTable(conn, m.group(2));
+            }
+            m.appendReplacement(sql, Matcher.quoteReplacement(value));
+        }
+        m.appendTail(sql);
+        return sql.toString();
+    }
+
+    // Wraps the driver's statement so every execute* call is timed against this operation
+    private PreparedStatement timed(PreparedStatement target, String sql) {
+        Execution execution = new Execution(sql);
+        InvocationHandler handler = (proxy, method, args) -> {
+            String methodName = method.getName();
+            if ("close".equals(methodName)) {
+                execution.finish();
+                return invoke(target, method, args);
+            }
+            if (!methodName.startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            execution.finish();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(target, method, args);
+            } catch (Throwable t) {
+                record(sql, System.nanoTime() - start, 0, true);
+                throw t;
+            }
+            long nanos = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                // Recorded once the caller has read the rows
+                return execution.begin(nanos, (ResultSet) result);
+            }
+            record(sql, nanos, affectedRows(result), false);
+            return result;
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, handler);
+    }
+
+    // Update count of executeUpdate/executeBatch; 0 for execute()
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return Math.max(0, ((Number) result).longValue());
+        }
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(0, count);
+            }
+        }
+        return total;
+    }
+
+    // The query whose rows are still being read on one prepared statement
+    private final class Execution {
+        private final String sql;
+        private long nanos = -1;
+        private long rowCount;
+
+        Execution(String sql) {
+            this.sql = sql;
+        }
+
+        ResultSet begin(long executeNanos, ResultSet target) {
+            nanos = executeNanos;
+            rowCount = 0;
+            InvocationHandler handler = (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                    rowCount++;
+                } else if ("close".equals(method.getName())) {
+                    finish();
+                }
+                return result;
+            };
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, handler);
+        }
+
+        void finish() {
+            if (nanos >= 0) {
+                record(sql, nanos, rowCount, false);
+                nanos = -1;
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,95 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * StatementRegistry - The canonical SQL of every service operation, by name.
+ *
+ * Services define their statements once as constants:
+ *   private static final SqlStatement FIND_BY_ID = StatementRegistry.define(
+ *           "products.findById", "SELECT * FROM {Products} WHERE product_id = ?");
+ * and prepare them with FIND_BY_ID.prepare(conn). Because the text of each
+ * operation never changes, the server-side prepared statement cache that
+ * DBConnection enables on pooled connections (useServerPrepStmts +
+ * cachePrepStmts) parses it once per connection.
+ *
+ * Execution counts, rows and latency histograms per statement are available
+ * from getStatements() and report(); QueryMetrics adds connection wait time
+ * and the slow-query log.
+ */
+public final class StatementRegistry {
+
+    private static final Map<String, SqlStatement> statements = new ConcurrentSkipListMap<>();
+
+    private StatementRegistry() {
+    }
+
+    /**
+     * Defines a named statement
+     *
+     * @param name     Unique operation name, e.g. "sales.insert"
+     * @param template SQL with {Table}, {table.column|fallback} and {0} placeholders
+     * @return The statement handle
+     * @throws IllegalStateException If the name is already defined with different SQL
+     */
+    public static SqlStatement define(String name, String template) {
+        SqlStatement statement = statements.computeIfAbsent(name, n -> new SqlStatement(n, template));
+        if (!statement.getTemplate().equals(template)) {
+            throw new IllegalStateException("Statement " + name + " is already defined with different SQL");
+        }
+        return statement;
+    }
+
+    /**
+     * @return The statement with that name, or null
+     */
+    public static SqlStatement get(String name) {
+        return statements.get(name);
+    }
+
+    /**
+     * @return Every defined statement, sorted by name
+     */
+    public static List<SqlStatement> getStatements() {
+        return new ArrayList<>(statements.values());
+    }
+
+    /**
+     * Forgets resolved table and column names (called when the schema catalog is reloaded)
+     */
+    public static void invalidate() {
+        for (SqlStatement statement : statements.values()) {
+            statement.invalidate();
+        }
+    }
+
+    public static void resetStats() {
+        for (SqlStatement statement : statements.values()) {
+            statement.resetStats();
+        }
+    }
+
+    /**
+     * @return One line per executed statement, busiest first
+     */
+    public static String report() {
+        List<SqlStatement> executed = new ArrayList<>();
+        for (SqlStatement statement : statements.values()) {
+            if (statement.getExecutionCount() > 0) {
+                executed.add(statement);
+            }
+        }
+        executed.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        StringBuilder sb = new StringBuilder(String.format("%-36s %8s %10s %9s %9s %9s %9s %6s%n",
+                "statement", "count", "rows", "mean ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        for (SqlStatement s : executed) {
+            sb.append(String.format("%-36s %8d %10d %9.3f %9.3f %9.3f %9.3f %6d%n", s.getName(),
+                    s.getExecutionCount(), s.getRowCount(), s.getMeanMillis(), s.getLatency().getPercentileMillis(95),
+                    s.getLatency().getPercentileMillis(99), s.getMaxMillis(), s.getErrorCount()));
+        }
+        return sb.toString();
+    }
+}
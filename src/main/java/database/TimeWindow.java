@@ -0,0 +1,96 @@
+package database;
+
+import java.time.LocalDate;
+
+/**
+ * TimeWindow - The reporting periods used by the POS screens, expressed as
+ * half-open [start, end) ranges over whole days.
+ *
+ * predicate() compares the raw column against constant bounds, e.g.
+ * sale_date >= CURDATE() AND sale_date < CURDATE() + INTERVAL 1 DAY
+ * so MySQL can range-scan idx_sale_date instead of evaluating
+ * DATE(sale_date) for every row. Bounds use the database clock (CURDATE())
+ * so they agree with DATE(sale_date) whatever the client's time zone is.
+ */
+public enum TimeWindow {
+    TODAY("Today", 0),
+    LAST_7_DAYS("Last 7 Days", 7),
+    THIS_MONTH("This Month", 30),
+    THIS_YEAR("This Year", 365);
+
+    private final String label;
+    private final int daysBack;
+
+    TimeWindow(String label, int daysBack) {
+        this.label = label;
+        this.daysBack = daysBack;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Maps a filter label from the UI ("Today", "Last 7 Days", ...) to a window
+     *
+     * @param label The label shown in the time filter
+     * @return The matching window, or THIS_MONTH if unknown
+     */
+    public static TimeWindow fromLabel(String label) {
+        for (TimeWindow w : values()) {
+            if (w.label.equals(label)) {
+                return w;
+            }
+        }
+        return THIS_MONTH;
+    }
+
+    /**
+     * @return SQL expression for the inclusive start of the window
+     */
+    public String startSql() {
+        switch (this) {
+            case TODAY:
+                return "CURDATE()";
+            case THIS_YEAR:
+                return "DATE_SUB(CURDATE(), INTERVAL 1 YEAR)";
+            default:
+                return "DATE_SUB(CURDATE(), INTERVAL " + daysBack + " DAY)";
+        }
+    }
+
+    /**
+     * @return SQL expression for the exclusive end of the window (start of tomorrow)
+     */
+    public String endSql() {
+        return "DATE_ADD(CURDATE(), INTERVAL 1 DAY)";
+    }
+
+    /**
+     * Builds an index-friendly range predicate on a DATE/TIMESTAMP column
+     *
+     * @param column Column reference, e.g. "s.sale_date"
+     * @return column >= start AND column < end
+     */
+    public String predicate(String column) {
+        return column + " >= " + startSql() + " AND " + column + " < " + endSql();
+    }
+
+    /**
+     * Same window on the client clock, for code that binds dates as parameters
+     *
+     * @param today The current day
+     * @return First day of the window, inclusive
+     */
+    public LocalDate startDate(LocalDate today) {
+        return this == THIS_YEAR ? today.minusYears(1) : today.minusDays(daysBack);
+    }
+
+    /**
+     * @param today The current day
+     * @return First day after the window, exclusive
+     */
+    public LocalDate endDate(LocalDate today) {
+        return today.plusDays(1);
+    }
+}
@@ -1 +1,67 @@
--- migrations placeholder
+-- Migrations for databases created from an older schema.sql (run each block once, in order)
+
+-- Product Daily Sales Table (pre-aggregated cube for the analytics charts)
+CREATE TABLE IF NOT EXISTS Product_Daily_Sales (
+    sale_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, product_id),
+    INDEX idx_cube_category_date (category, sale_date),
+    INDEX idx_cube_product (product_id)
+);
+
+-- Sales range indexes: cash drawer totals and the sales trend range-scan
+-- these instead of evaluating DATE(sale_date) on every row
+ALTER TABLE Sales
+    ADD INDEX idx_cash_drawer (payment_method, status, sale_date),
+    ADD INDEX idx_sale_date_amount (sale_date, final_amount);
+
+-- Customer Search Tokens (normalised name/email words, phone digits and IDs
+-- for prefix lookups at the counter; filled by CustomerSearchService)
+CREATE TABLE IF NOT EXISTS Customer_Search_Tokens (
+    kind CHAR(1) NOT NULL,
+    token VARCHAR(100) NOT NULL,
+    customer_id INT NOT NULL,
+    PRIMARY KEY (kind, token, customer_id),
+    INDEX idx_search_customer (customer_id, kind, token),
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE
+);
+
+-- Optional: FULLTEXT index for name searches of three or more letters
+-- (CustomerSearchService uses it automatically once it exists)
+-- ALTER TABLE customers ADD FULLTEXT INDEX ft_customer_search (first_name, last_name, email);
+
+-- Offline sale journal sync (one row per sale replayed from a lane's local
+-- journal; filled by SaleSyncService, keeps replays idempotent)
+CREATE TABLE IF NOT EXISTS Sale_Journal_Sync (
+    journal_id CHAR(36) PRIMARY KEY,
+    sale_id INT NOT NULL,
+    recorded_at TIMESTAMP NULL,
+    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    conflict VARCHAR(500) NULL,
+    INDEX idx_journal_sync_sale (sale_id),
+    FOREIGN KEY (sale_id) REFERENCES Sales(sale_id) ON DELETE CASCADE
+);
+
+-- Application settings (theme, notifications, report e-mail; cached in
+-- memory by SettingsService)
+CREATE TABLE IF NOT EXISTS sys_config (
+    variable VARCHAR(100) PRIMARY KEY,
+    value TEXT,
+    set_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    set_by VARCHAR(50)
+);
+
+-- Keyset pagination: one index per product/customer list order (InnoDB
+-- appends the primary key to each), so deep pages seek instead of scanning.
+-- idx_category_name also answers everything idx_category did
+ALTER TABLE Products
+    ADD INDEX idx_category_name (category, name),
+    ADD INDEX idx_price (price),
+    ADD INDEX idx_stock (stock),
+    DROP INDEX idx_category;
+
+ALTER TABLE customers
+    ADD INDEX idx_customer_name (last_name, first_name);
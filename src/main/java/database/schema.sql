@@ -27,8 +27,12 @@ CREATE TABLE IF NOT EXISTS Products (
     supplier VARCHAR(100),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    INDEX idx_category (category),
-    INDEX idx_name (name)
+    -- One index per list order (InnoDB appends product_id to each), so
+    -- keyset pages seek instead of scanning
+    INDEX idx_category_name (category, name),
+    INDEX idx_name (name),
+    INDEX idx_price (price),
+    INDEX idx_stock (stock)
 );
 
 -- Customers Table (lowercase to match Java code)
@@ -46,7 +50,8 @@ CREATE TABLE IF NOT EXISTS customers (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_email (email),
-    INDEX idx_phone (phone)
+    INDEX idx_phone (phone),
+    INDEX idx_customer_name (last_name, first_name)
 );
 
 -- Sales Table (Transactions)
@@ -70,7 +75,9 @@ CREATE TABLE IF NOT EXISTS Sales (
     FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE SET NULL,
     FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE RESTRICT,
     INDEX idx_sale_date (sale_date),
-    INDEX idx_customer_id (customer_id)
+    INDEX idx_customer_id (customer_id),
+    INDEX idx_cash_drawer (payment_method, status, sale_date),
+    INDEX idx_sale_date_amount (sale_date, final_amount)
 );
 
 -- Cash logs table
@@ -134,6 +141,50 @@ CREATE TABLE IF NOT EXISTS Analytics (
     INDEX idx_date (date)
 );
 
+-- Product Daily Sales Table (pre-aggregated cube for the analytics charts)
+CREATE TABLE IF NOT EXISTS Product_Daily_Sales (
+    sale_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, product_id),
+    INDEX idx_cube_category_date (category, sale_date),
+    INDEX idx_cube_product (product_id)
+);
+
+-- Customer Search Tokens (normalised name/email words, phone digits and IDs
+-- for prefix lookups at the counter; filled by CustomerSearchService)
+CREATE TABLE IF NOT EXISTS Customer_Search_Tokens (
+    kind CHAR(1) NOT NULL,
+    token VARCHAR(100) NOT NULL,
+    customer_id INT NOT NULL,
+    PRIMARY KEY (kind, token, customer_id),
+    INDEX idx_search_customer (customer_id, kind, token),
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE
+);
+
+-- Offline sale journal sync (one row per sale replayed from a lane's local
+-- journal; filled by SaleSyncService, keeps replays idempotent)
+CREATE TABLE IF NOT EXISTS Sale_Journal_Sync (
+    journal_id CHAR(36) PRIMARY KEY,
+    sale_id INT NOT NULL,
+    recorded_at TIMESTAMP NULL,
+    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    conflict VARCHAR(500) NULL,
+    INDEX idx_journal_sync_sale (sale_id),
+    FOREIGN KEY (sale_id) REFERENCES Sales(sale_id) ON DELETE CASCADE
+);
+
+-- Application settings (theme, notifications, report e-mail; cached in
+-- memory by SettingsService)
+CREATE TABLE IF NOT EXISTS sys_config (
+    variable VARCHAR(100) PRIMARY KEY,
+    value TEXT,
+    set_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    set_by VARCHAR(50)
+);
+
 -- ============================================
 -- INSERT SAMPLE DATA (IN ORDER WITH AUTO_INCREMENT)
 -- ============================================
@@ -1,5 +1,60 @@
 package models;
 
+import java.time.LocalDate;
+
+/**
+ * Analytics.java
+ * One precomputed daily summary row from the Analytics table.
+ * Maintained by DailyRollupService as sales are committed; also used to
+ * carry totals summed over a range of days.
+ */
 public class Analytics {
-    // Analytics placeholder
+    private int analyticsId;
+    private LocalDate date;
+    private double totalSales;        // Sum of total_amount (before discount)
+    private double totalRevenue;      // Sum of final_amount (after discount)
+    private int totalTransactions;
+    private int totalCustomers;       // Distinct customers per day; over a range, customer visits
+    private Integer bestProduct;      // product_id with the most units sold, null if none
+
+    //Constructors
+
+    public Analytics() {}
+
+    public Analytics(LocalDate date, double totalSales, double totalRevenue,
+                     int totalTransactions, int totalCustomers, Integer bestProduct) {
+        this.date = date;
+        this.totalSales = totalSales;
+        this.totalRevenue = totalRevenue;
+        this.totalTransactions = totalTransactions;
+        this.totalCustomers = totalCustomers;
+        this.bestProduct = bestProduct;
+    }
+
+    // Getters and Setters
+    public int getAnalyticsId() { return analyticsId; }
+    public void setAnalyticsId(int analyticsId) { this.analyticsId = analyticsId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public double getTotalSales() { return totalSales; }
+    public void setTotalSales(double totalSales) { this.totalSales = totalSales; }
+
+    public double getTotalRevenue() { return totalRevenue; }
+    public void setTotalRevenue(double totalRevenue) { this.totalRevenue = totalRevenue; }
+
+    public int getTotalTransactions() { return totalTransactions; }
+    public void setTotalTransactions(int totalTransactions) { this.totalTransactions = totalTransactions; }
+
+    public int getTotalCustomers() { return totalCustomers; }
+    public void setTotalCustomers(int totalCustomers) { this.totalCustomers = totalCustomers; }
+
+    public Integer getBestProduct() { return bestProduct; }
+    public void setBestProduct(Integer bestProduct) { this.bestProduct = bestProduct; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d sales, revenue $%.2f", date, totalTransactions, totalRevenue);
+    }
 }
@@ -1,5 +1,62 @@
 package models;
 
+import java.sql.Timestamp;
+
+/**
+ * AuditLog.java
+ * One row of the Audit_Logs table: who did what to which record, and from where.
+ * Queued by services through AuditWriter and written in batches.
+ */
 public class AuditLog {
-    // Audit log placeholder
+    private int logId;
+    private int userId;
+    private String action;        // e.g. ADD_PRODUCT, UPDATE_STOCK
+    private String tableName;     // Table the change was made to
+    private Integer recordId;     // Primary key of the changed row, null if none
+    private String details;
+    private String ipAddress;     // Address of the till that made the change
+    private Timestamp timestamp;  // When the action happened (not when the row was written)
+
+    //Constructors
+
+    public AuditLog() {}
+
+    public AuditLog(int userId, String action, String tableName, Integer recordId, String details) {
+        this.userId = userId;
+        this.action = action;
+        this.tableName = tableName;
+        this.recordId = recordId;
+        this.details = details;
+        this.timestamp = new Timestamp(System.currentTimeMillis());
+    }
+
+    // Getters and Setters
+    public int getLogId() { return logId; }
+    public void setLogId(int logId) { this.logId = logId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
+    public Integer getRecordId() { return recordId; }
+    public void setRecordId(Integer recordId) { this.recordId = recordId; }
+
+    public String getDetails() { return details; }
+    public void setDetails(String details) { this.details = details; }
+
+    public String getIpAddress() { return ipAddress; }
+    public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
+
+    public Timestamp getTimestamp() { return timestamp; }
+    public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+
+    @Override
+    public String toString() {
+        return "AuditLog{" + action + " " + tableName + "#" + recordId + " by user " + userId + "}";
+    }
 }
@@ -135,6 +135,10 @@ public class Product {
         return true;
     }
 
+    public Product copy() {
+        return new Product(productId, name, category, price, stock, createdAt, updatedAt);
+    }
+
     public double calculateStockValue() {
         return price * stock;
     }
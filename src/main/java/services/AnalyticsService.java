@@ -1,55 +1,111 @@
 package services;
 
 import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import database.TimeWindow;
 import java.sql.*;
 import java.util.*;
+import models.Analytics;
 
 public class AnalyticsService {
 
+    // === STATEMENTS ({0} is the TimeWindow predicate) ===
+
+    private static final SqlStatement TREND_ROLLUP = StatementRegistry.define("analytics.trend.rollup",
+            "SELECT date, total_revenue AS total FROM {Analytics} WHERE {0} ORDER BY date ASC");
+    private static final SqlStatement TREND_SALES = StatementRegistry.define("analytics.trend.sales",
+            "SELECT DATE(s.sale_date) as date, SUM(s.{sales.final_amount|total_amount}) as total " +
+            "FROM {Sales} s WHERE {0} GROUP BY DATE(s.sale_date) ORDER BY date ASC");
+    private static final SqlStatement TREND_CUBE_CATEGORY = StatementRegistry.define("analytics.trend.cubeCategory",
+            "SELECT sale_date AS date, SUM(revenue) AS total FROM {Product_Daily_Sales} " +
+            "WHERE {0} AND category = ? GROUP BY sale_date ORDER BY date ASC");
+    // Sums sale detail totals per date (avoids duplicating sale totals when joining)
+    private static final SqlStatement TREND_CATEGORY = StatementRegistry.define("analytics.trend.category",
+            "SELECT DATE(s.sale_date) as date, SUM(sd.{sale_details.total_price|subtotal}) as total " +
+            "FROM {Sale_Details} sd JOIN {Sales} s ON sd.sale_id = s.sale_id " +
+            "JOIN {Products} p ON sd.product_id = p.product_id " +
+            "WHERE {0} AND p.category = ? GROUP BY DATE(s.sale_date) ORDER BY date ASC");
+
+    private static final SqlStatement TOP_CUBE = StatementRegistry.define("analytics.top.cube",
+            "SELECT p.name, SUM(c.quantity) as total_qty FROM {Product_Daily_Sales} c " +
+            "JOIN {Products} p ON c.product_id = p.product_id " +
+            "WHERE {0} GROUP BY p.name ORDER BY total_qty DESC LIMIT 5");
+    private static final SqlStatement TOP_CUBE_CATEGORY = StatementRegistry.define("analytics.top.cubeCategory",
+            "SELECT p.name, SUM(c.quantity) as total_qty FROM {Product_Daily_Sales} c " +
+            "JOIN {Products} p ON c.product_id = p.product_id " +
+            "WHERE {0} AND c.category = ? GROUP BY p.name ORDER BY total_qty DESC LIMIT 5");
+    private static final SqlStatement TOP_SALES = StatementRegistry.define("analytics.top.sales",
+            "SELECT p.name, SUM(sd.quantity) as total_qty FROM {Sale_Details} sd " +
+            "JOIN {Products} p ON sd.product_id = p.product_id JOIN {Sales} s ON sd.sale_id = s.sale_id " +
+            "WHERE {0} GROUP BY p.name ORDER BY total_qty DESC LIMIT 5");
+    private static final SqlStatement TOP_SALES_CATEGORY = StatementRegistry.define("analytics.top.salesCategory",
+            "SELECT p.name, SUM(sd.quantity) as total_qty FROM {Sale_Details} sd " +
+            "JOIN {Products} p ON sd.product_id = p.product_id JOIN {Sales} s ON sd.sale_id = s.sale_id " +
+            "WHERE {0} AND p.category = ? GROUP BY p.name ORDER BY total_qty DESC LIMIT 5");
+
+    // Category totals from the cube need no join at all
+    private static final SqlStatement REVENUE_CUBE = StatementRegistry.define("analytics.revenue.cube",
+            "SELECT category as label, SUM(revenue) as revenue FROM {Product_Daily_Sales} " +
+            "WHERE {0} GROUP BY category");
+    private static final SqlStatement REVENUE_CUBE_CATEGORY = StatementRegistry.define("analytics.revenue.cubeCategory",
+            "SELECT p.name as label, SUM(c.revenue) as revenue FROM {Product_Daily_Sales} c " +
+            "JOIN {Products} p ON c.product_id = p.product_id " +
+            "WHERE {0} AND c.category = ? GROUP BY p.name");
+    private static final SqlStatement REVENUE_SALES = StatementRegistry.define("analytics.revenue.sales",
+            "SELECT p.category as label, SUM(sd.{sale_details.total_price|subtotal}) as revenue " +
+            "FROM {Sale_Details} sd JOIN {Products} p ON sd.product_id = p.product_id " +
+            "JOIN {Sales} s ON sd.sale_id = s.sale_id WHERE {0} GROUP BY p.category");
+    private static final SqlStatement REVENUE_SALES_CATEGORY = StatementRegistry.define("analytics.revenue.salesCategory",
+            "SELECT p.name as label, SUM(sd.{sale_details.total_price|subtotal}) as revenue " +
+            "FROM {Sale_Details} sd JOIN {Products} p ON sd.product_id = p.product_id " +
+            "JOIN {Sales} s ON sd.sale_id = s.sale_id WHERE {0} AND p.category = ? GROUP BY p.name");
+
+    private static final SqlStatement PERIOD_TOTALS = StatementRegistry.define("analytics.periodTotals",
+            "SELECT COALESCE(SUM(total_amount), 0) AS total_sales, " +
+            "COALESCE(SUM({sales.final_amount|total_amount}), 0) AS total_revenue, " +
+            "COUNT(*) AS total_transactions, COUNT(DISTINCT DATE(sale_date), customer_id) AS total_customers " +
+            "FROM {Sales} WHERE {0}");
+
+    private final DailyRollupService rollup = DailyRollupService.getInstance();
+    private final SalesCubeService cube = SalesCubeService.getInstance();
+
+    public AnalyticsService() {
+        // Builds the daily rollup and product cube in the background the first time analytics is used
+        rollup.ensureBackfilled();
+    }
+
     public Map<String, Double> getSalesTrend(String timePeriod, String category) throws SQLException {
         Map<String, Double> data = new LinkedHashMap<>();
         try (Connection conn = DBConnection.getConnection()) {
             if (conn == null)
                 return data;
 
-            String interval = getTimeInterval(timePeriod);
-
-            // If filtering by category, sum sale detail totals per date (avoids duplicating sale totals when joining)
-            if ("All Categories".equals(category)) {
-                String table = getSalesTable(conn);
-                String col = getSalesAmountColumn(conn);
-                String sql = "SELECT DATE(s.sale_date) as date, SUM(s." + col + ") as total " +
-                        "FROM " + table + " s " +
-                        "WHERE s.sale_date >= " + interval + " " +
-                        "GROUP BY DATE(s.sale_date) ORDER BY date ASC";
+            TimeWindow window = TimeWindow.fromLabel(timePeriod);
+            boolean allCategories = "All Categories".equals(category);
+
+            PreparedStatement pstmt;
+            if (allCategories && !"Today".equals(timePeriod) && rollup.isReady()) {
+                // Whole-day totals are precomputed, one row per day
+                pstmt = TREND_ROLLUP.prepare(conn, window.predicate("date"));
+            } else if (allCategories) {
+                pstmt = TREND_SALES.prepare(conn, window.predicate("s.sale_date"));
+            } else if (useCube(timePeriod)) {
+                // Category revenue per day straight from the product cube
+                pstmt = TREND_CUBE_CATEGORY.prepare(conn, window.predicate("sale_date"));
+            } else {
+                pstmt = TREND_CATEGORY.prepare(conn, window.predicate("s.sale_date"));
+            }
 
-                try (PreparedStatement pstmt = conn.prepareStatement(sql);
-                     ResultSet rs = pstmt.executeQuery()) {
+            try (PreparedStatement stmt = pstmt) {
+                if (!allCategories) {
+                    stmt.setString(1, category);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
                         data.put(rs.getString("date"), rs.getDouble("total"));
                     }
                 }
-            } else {
-                String sTable = getSaleDetailsTable(conn);
-                String pTable = getProductsTable(conn);
-                String salesTable = getSalesTable(conn);
-                String col = getSubtotalColumn(conn);
-
-                String sql = "SELECT DATE(s.sale_date) as date, SUM(sd." + col + ") as total " +
-                        "FROM " + sTable + " sd " +
-                        "JOIN " + salesTable + " s ON sd.sale_id = s.sale_id " +
-                        "JOIN " + pTable + " p ON sd.product_id = p.product_id " +
-                        "WHERE s.sale_date >= " + interval + " AND p.category = ? " +
-                        "GROUP BY DATE(s.sale_date) ORDER BY date ASC";
-
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, category);
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        while (rs.next()) {
-                            data.put(rs.getString("date"), rs.getDouble("total"));
-                        }
-                    }
-                }
             }
         }
         return data;
@@ -61,28 +117,21 @@ public class AnalyticsService {
             if (conn == null)
                 return data;
 
-            String interval = getTimeInterval(timePeriod);
-            String sTable = getSaleDetailsTable(conn);
-            String pTable = getProductsTable(conn);
-            String salesTable = getSalesTable(conn);
-
-            String sql = "SELECT p.name, SUM(sd.quantity) as total_qty " +
-                    "FROM " + sTable + " sd " +
-                    "JOIN " + pTable + " p ON sd.product_id = p.product_id " +
-                    "JOIN " + salesTable + " s ON sd.sale_id = s.sale_id " +
-                    "WHERE s.sale_date >= " + interval + " ";
+            TimeWindow window = TimeWindow.fromLabel(timePeriod);
+            boolean allCategories = "All Categories".equals(category);
 
-            if (!"All Categories".equals(category)) {
-                sql += "AND p.category = ? ";
+            PreparedStatement pstmt;
+            if (useCube(timePeriod)) {
+                pstmt = (allCategories ? TOP_CUBE : TOP_CUBE_CATEGORY).prepare(conn, window.predicate("c.sale_date"));
+            } else {
+                pstmt = (allCategories ? TOP_SALES : TOP_SALES_CATEGORY).prepare(conn, window.predicate("s.sale_date"));
             }
 
-            sql += "GROUP BY p.name ORDER BY total_qty DESC LIMIT 5";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                if (!"All Categories".equals(category)) {
-                    pstmt.setString(1, category);
+            try (PreparedStatement stmt = pstmt) {
+                if (!allCategories) {
+                    stmt.setString(1, category);
                 }
-                try (ResultSet rs = pstmt.executeQuery()) {
+                try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
                         data.put(rs.getString("name"), rs.getInt("total_qty"));
                     }
@@ -98,34 +147,23 @@ public class AnalyticsService {
             if (conn == null)
                 return data;
 
-            String interval = getTimeInterval(timePeriod);
-            String sTable = getSaleDetailsTable(conn);
-            String pTable = getProductsTable(conn);
-            String salesTable = getSalesTable(conn);
-            String col = getSubtotalColumn(conn);
-
-            String sql;
-            if ("All Categories".equals(category)) {
-                sql = "SELECT p.category as label, SUM(sd." + col + ") as revenue " +
-                        "FROM " + sTable + " sd " +
-                        "JOIN " + pTable + " p ON sd.product_id = p.product_id " +
-                        "JOIN " + salesTable + " s ON sd.sale_id = s.sale_id " +
-                        "WHERE s.sale_date >= " + interval + " " +
-                        "GROUP BY p.category";
+            TimeWindow window = TimeWindow.fromLabel(timePeriod);
+            boolean allCategories = "All Categories".equals(category);
+
+            PreparedStatement pstmt;
+            if (useCube(timePeriod)) {
+                pstmt = (allCategories ? REVENUE_CUBE : REVENUE_CUBE_CATEGORY).prepare(conn,
+                        window.predicate(allCategories ? "sale_date" : "c.sale_date"));
             } else {
-                sql = "SELECT p.name as label, SUM(sd." + col + ") as revenue " +
-                        "FROM " + sTable + " sd " +
-                        "JOIN " + pTable + " p ON sd.product_id = p.product_id " +
-                        "JOIN " + salesTable + " s ON sd.sale_id = s.sale_id " +
-                        "WHERE s.sale_date >= " + interval + " AND p.category = ? " +
-                        "GROUP BY p.name";
+                pstmt = (allCategories ? REVENUE_SALES : REVENUE_SALES_CATEGORY).prepare(conn,
+                        window.predicate("s.sale_date"));
             }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                if (!"All Categories".equals(category)) {
-                    pstmt.setString(1, category);
+            try (PreparedStatement stmt = pstmt) {
+                if (!allCategories) {
+                    stmt.setString(1, category);
                 }
-                try (ResultSet rs = pstmt.executeQuery()) {
+                try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
                         data.put(rs.getString("label"), rs.getDouble("revenue"));
                     }
@@ -135,67 +173,39 @@ public class AnalyticsService {
         return data;
     }
 
-    // --- Helper for Filters ---
-    private String getTimeInterval(String period) {
-        switch (period) {
-            case "Today":
-                return "CURDATE()";
-            case "Last 7 Days":
-                return "DATE_SUB(CURDATE(), INTERVAL 7 DAY)";
-            case "This Month":
-                return "DATE_SUB(CURDATE(), INTERVAL 30 DAY)";
-            case "This Year":
-                return "DATE_SUB(CURDATE(), INTERVAL 1 YEAR)";
-            default:
-                return "DATE_SUB(CURDATE(), INTERVAL 30 DAY)";
-        }
-    }
-
-    // --- Helper for Dynamic Schema ---
-    private String getSalesAmountColumn(Connection conn) {
-        return checkColumnExists(conn, "sales", "final_amount") ? "final_amount" : "total_amount";
-    }
-
-    private String getSubtotalColumn(Connection conn) {
-        return checkColumnExists(conn, "sale_details", "total_price") ? "total_price" : "subtotal";
-    }
-
-    private String getSalesTable(Connection conn) {
-        return checkTableExists(conn, "Sales") ? "Sales" : "Sales";
-    }
-
-    private String getProductsTable(Connection conn) {
-        return checkTableExists(conn, "Products") ? "Products" : "products";
-    }
-
-    private String getSaleDetailsTable(Connection conn) {
-        return checkTableExists(conn, "Sale_Details") ? "Sale_Details" : "sale_details";
-    }
+    /**
+     * Dashboard totals (sales, revenue, transactions, customers) for a period.
+     * Reads the precomputed daily rows once the rollup is ready, otherwise
+     * aggregates the raw Sales table. Customers are counted once per day
+     * (customer visits) on both paths, since the daily rows cannot tell
+     * whether two days' customers are the same people.
+     */
+    public Analytics getPeriodTotals(String timePeriod) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return new Analytics();
 
-    private boolean checkColumnExists(Connection conn, String table, String column) {
-        try {
-            DatabaseMetaData meta = conn.getMetaData();
-            try (ResultSet rs = meta.getColumns(null, null, table, column)) {
-                if (rs.next())
-                    return true;
+            TimeWindow window = TimeWindow.fromLabel(timePeriod);
+            if (rollup.isReady()) {
+                return rollup.getTotals(conn, window);
             }
-            // try lowercase
-            try (ResultSet rs = meta.getColumns(null, null, table.toLowerCase(), column)) {
-                return rs.next();
+
+            Analytics totals = new Analytics();
+            try (PreparedStatement pstmt = PERIOD_TOTALS.prepare(conn, window.predicate("sale_date"));
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    totals.setTotalSales(rs.getDouble("total_sales"));
+                    totals.setTotalRevenue(rs.getDouble("total_revenue"));
+                    totals.setTotalTransactions(rs.getInt("total_transactions"));
+                    totals.setTotalCustomers(rs.getInt("total_customers"));
+                }
             }
-        } catch (SQLException e) {
-            return false;
+            return totals;
         }
     }
 
-    private boolean checkTableExists(Connection conn, String table) {
-        try {
-            DatabaseMetaData meta = conn.getMetaData();
-            try (ResultSet rs = meta.getTables(null, null, table, null)) {
-                return rs.next();
-            }
-        } catch (SQLException e) {
-            return false;
-        }
+    // The cube holds whole days, so "Today" stays on the raw tables for freshness
+    private boolean useCube(String timePeriod) {
+        return !"Today".equals(timePeriod) && cube.isReady();
     }
 }
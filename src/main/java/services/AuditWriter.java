@@ -0,0 +1,272 @@
+package services;
+
+import database.DBConnection;
+import java.net.InetAddress;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import models.AuditLog;
+
+/**
+ * AuditWriter - Shared, asynchronous writer for the Audit_Logs table.
+ *
+ * Services call log() and return immediately; the entry goes into a bounded
+ * queue and a single background thread writes it with up to MAX_BATCH rows
+ * per multi-row INSERT, at the latest FLUSH_INTERVAL_MS after it was queued.
+ *
+ * When the queue is full, log() waits up to OFFER_TIMEOUT_MS for room
+ * (backpressure) and then drops the entry, counting it in getDroppedCount().
+ * A batch the database rejects is retried row by row so one bad row (for
+ * example an unknown user_id) does not lose the rest. Queued entries are
+ * written before the connection pool closes at shutdown.
+ */
+public class AuditWriter {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int MAX_BATCH = 200;
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final long OFFER_TIMEOUT_MS = 50;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private static final AuditWriter INSTANCE = new AuditWriter();
+
+    private final BlockingQueue<AuditLog> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final String ipAddress = resolveIpAddress();
+    private final Thread worker;
+    private volatile boolean running = true;
+    // Queued but not yet written or failed
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private AuditWriter() {
+        worker = new Thread(this::run, "audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+        DBConnection.addShutdownTask(() -> shutdown(SHUTDOWN_TIMEOUT_MS));
+    }
+
+    public static AuditWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues an audit entry; returns without waiting for the database
+     *
+     * @param userId    The user who performed the action (entries for user IDs <= 0 are ignored)
+     * @param action    The action, e.g. UPDATE_PRODUCT
+     * @param tableName The table that was changed
+     * @param recordId  Primary key of the changed row, or null
+     * @param details   Human readable description
+     */
+    public void log(int userId, String action, String tableName, Integer recordId, String details) {
+        if (userId <= 0) {
+            return;
+        }
+        AuditLog entry = new AuditLog(userId, action, tableName, recordId, details);
+        entry.setIpAddress(ipAddress);
+        log(entry);
+    }
+
+    /**
+     * Queues a prepared audit entry
+     *
+     * @param entry The entry to write
+     * @return false if the entry was dropped because the queue stayed full
+     */
+    public boolean log(AuditLog entry) {
+        if (entry.getIpAddress() == null) {
+            entry.setIpAddress(ipAddress);
+        }
+        try {
+            pending.incrementAndGet();
+            if (running && queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                queuedCount.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.decrementAndGet();
+        if (droppedCount.incrementAndGet() % 100 == 1) {
+            System.err.println("Audit queue full, dropped " + droppedCount.get() + " entries so far");
+        }
+        return false;
+    }
+
+    /**
+     * Waits until everything queued so far has been written (or failed)
+     *
+     * @param timeoutMs How long to wait at most
+     * @return true if the queue drained in time
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (pending.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting entries and writes whatever is still queued
+     *
+     * @param timeoutMs How long to wait for the queue to drain
+     */
+    public void shutdown(long timeoutMs) {
+        // The worker notices within one poll interval and drains the queue
+        running = false;
+        try {
+            worker.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("Audit writer stopped with " + queue.size() + " entries unwritten");
+        }
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    // === WORKER ===
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Write what we have, then keep going until the queue is empty
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            write(batch);
+            pending.addAndGet(-batch.size());
+            batch.clear();
+        }
+    }
+
+    // Waits for the first entry, then gathers more until the batch is full or the interval has passed
+    private void collect(List<AuditLog> batch) throws InterruptedException {
+        if (!running) {
+            queue.drainTo(batch, MAX_BATCH);
+            return;
+        }
+        AuditLog first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + FLUSH_INTERVAL_MS;
+        while (batch.size() < MAX_BATCH) {
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            long remaining = deadline - System.currentTimeMillis();
+            if (batch.size() >= MAX_BATCH || remaining <= 0) {
+                return;
+            }
+            AuditLog next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<AuditLog> batch) {
+        try (Connection conn = requireConnection()) {
+            try {
+                insert(conn, batch);
+                writtenCount.addAndGet(batch.size());
+            } catch (SQLException e) {
+                // Isolate the rows the database rejects
+                for (AuditLog entry : batch) {
+                    try {
+                        insert(conn, List.of(entry));
+                        writtenCount.incrementAndGet();
+                    } catch (SQLException rowError) {
+                        failedCount.incrementAndGet();
+                        System.err.println("Error logging audit action " + entry + ": " + rowError.getMessage());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            failedCount.addAndGet(batch.size());
+            System.err.println("Error logging " + batch.size() + " audit actions: " + e.getMessage());
+        }
+    }
+
+    private void insert(Connection conn, List<AuditLog> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO Audit_Logs " +
+                "(user_id, action, table_name, record_id, details, ip_address, timestamp) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (AuditLog row : rows) {
+                pstmt.setInt(p++, row.getUserId());
+                pstmt.setString(p++, row.getAction());
+                pstmt.setString(p++, row.getTableName());
+                if (row.getRecordId() != null) {
+                    pstmt.setInt(p++, row.getRecordId());
+                } else {
+                    pstmt.setNull(p++, Types.INTEGER);
+                }
+                pstmt.setString(p++, row.getDetails());
+                pstmt.setString(p++, row.getIpAddress());
+                pstmt.setTimestamp(p++, row.getTimestamp());
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static String resolveIpAddress() {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Connection requireConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
+        }
+        return conn;
+    }
+}
@@ -1,6 +1,8 @@
 package services;
 
 import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,6 +12,11 @@ import utils.JSONUtil;
 
 public class AuthService {
 
+    private static final SqlStatement AUTHENTICATE = StatementRegistry.define("auth.authenticate",
+            "SELECT * FROM {users} WHERE username=? AND {users.password_hash|password}=?");
+    private static final SqlStatement FIND_BY_USERNAME = StatementRegistry.define("auth.findByUsername",
+            "SELECT * FROM {users} WHERE username=?");
+
     /**
      * Authenticate user by verifying username and password against the database
      * 
@@ -27,27 +34,8 @@ public class AuthService {
             if (conn == null)
                 return false;
 
-            // Dynamically check for password or password_hash column
-            String passwordColumn = "password"; // default
-            try {
-                java.sql.DatabaseMetaData meta = conn.getMetaData();
-                try (ResultSet rs = meta.getColumns(null, null, "users", "password_hash")) {
-                    if (rs.next()) {
-                        passwordColumn = "password_hash";
-                    } else {
-                        // try uppercase Users
-                        try (ResultSet rs2 = meta.getColumns(null, null, "Users", "password_hash")) {
-                            if (rs2.next())
-                                passwordColumn = "password_hash";
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // Fallback to default if metadata check fails
-            }
-
-            String sql = "SELECT * FROM users WHERE username=? AND " + passwordColumn + "=?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            // users/Users and password/password_hash are resolved by the shared schema catalog
+            try (PreparedStatement stmt = AUTHENTICATE.prepare(conn)) {
                 stmt.setString(1, username);
                 stmt.setString(2, password);
 
@@ -58,19 +46,6 @@ public class AuthService {
                     }
                     return isAuthenticated;
                 }
-            } catch (SQLException e) {
-                // Secondary fallback try uppercase Users if lowercase users fails
-                String sql2 = "SELECT * FROM Users WHERE username=? AND " + passwordColumn + "=?";
-                try (PreparedStatement stmt = conn.prepareStatement(sql2)) {
-                    stmt.setString(1, username);
-                    stmt.setString(2, password);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        boolean isAuthenticated = rs.next();
-                        if (isAuthenticated)
-                            JSONUtil.logLogin(username);
-                        return isAuthenticated;
-                    }
-                }
             }
         }
     }
@@ -99,30 +74,19 @@ public class AuthService {
             if (conn == null)
                 return null;
 
-            String sql = "SELECT * FROM users WHERE username=?";
-            PreparedStatement stmt = null;
-            ResultSet rs = null;
-
-            try {
-                stmt = conn.prepareStatement(sql);
-                stmt.setString(1, username);
-                rs = stmt.executeQuery();
-            } catch (SQLException e) {
-                // Try uppercase Users
-                sql = "SELECT * FROM Users WHERE username=?";
-                stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = FIND_BY_USERNAME.prepare(conn)) {
                 stmt.setString(1, username);
-                rs = stmt.executeQuery();
-            }
-
-            if (rs != null && rs.next()) {
-                String email = getColumnStringSafe(rs, "email", "not set");
-                String phone = getColumnStringSafe(rs, "phone", "not set");
-                String status = getColumnStringSafe(rs, "status", "Active");
-                String department = getColumnStringSafe(rs, "department", "General");
-                String memberSince = getColumnStringSafe(rs, "created_at", "Unknown");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        String email = getColumnStringSafe(rs, "email", "not set");
+                        String phone = getColumnStringSafe(rs, "phone", "not set");
+                        String status = getColumnStringSafe(rs, "status", "Active");
+                        String department = getColumnStringSafe(rs, "department", "General");
+                        String memberSince = getColumnStringSafe(rs, "created_at", "Unknown");
 
-                return new User(username, email, phone, status, department, memberSince);
+                        return new User(username, email, phone, status, department, memberSince);
+                    }
+                }
             }
             return null;
         }
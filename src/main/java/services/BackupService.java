@@ -1,5 +1,142 @@
 package services;
 
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import utils.PDFReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * BackupService - Exports the main tables to a PDF report.
+ *
+ * Each table is read through a forward-only, read-only result set with
+ * streaming fetch (Connector/J hands rows over one at a time instead of
+ * buffering the whole table), and every row goes straight to a
+ * PDFReportWriter, so exporting millions of sales takes the same memory as
+ * exporting ten.
+ */
 public class BackupService {
-    // Backup service placeholder
+
+    // Integer.MIN_VALUE tells Connector/J to stream rows rather than read the whole result
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    // Progress is reported every this many rows
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private static final float[] COLUMN_X = { 50, 120, 250, 420 };
+
+    /**
+     * One exported table: title, column headers and the query that produces its rows
+     */
+    private static final class Table {
+        final String title;
+        final String[] headers;
+        final SqlStatement query;
+
+        Table(String title, String[] headers, SqlStatement query) {
+            this.title = title;
+            this.headers = headers;
+            this.query = query;
+        }
+    }
+
+    private static final Table[] TABLES = {
+            new Table("USERS", new String[] { "ID", "Username", "Email", "Status" },
+                    StatementRegistry.define("backup.users",
+                            "SELECT user_id, username, email, status FROM {Users} ORDER BY user_id")),
+            new Table("PRODUCTS", new String[] { "ID", "Name", "Price", "Stock" },
+                    StatementRegistry.define("backup.products",
+                            "SELECT product_id, name, price, stock FROM {Products} ORDER BY product_id")),
+            new Table("CUSTOMERS", new String[] { "ID", "First Name", "Last Name", "Email" },
+                    StatementRegistry.define("backup.customers",
+                            "SELECT customer_id, first_name, last_name, email FROM {customers} ORDER BY customer_id")),
+            new Table("SALES", new String[] { "ID", "Date", "Payment", "Amount" },
+                    StatementRegistry.define("backup.sales",
+                            "SELECT sale_id, sale_date, payment_method, {Sales.final_amount|total_amount} " +
+                            "FROM {Sales} ORDER BY sale_id")),
+            new Table("AUDIT_LOGS", new String[] { "ID", "Time", "User", "Action" },
+                    StatementRegistry.define("backup.auditLogs",
+                            "SELECT log_id, timestamp, user_id, action FROM {Audit_Logs} ORDER BY log_id")),
+    };
+
+    /**
+     * Receives export progress; called on the exporting thread
+     */
+    public interface ProgressListener {
+        /**
+         * @param table Title of the table being exported
+         * @param rows  Rows of that table written so far
+         * @param done  true once the table is complete
+         */
+        void progress(String table, long rows, boolean done);
+    }
+
+    /**
+     * Writes every table to a PDF report
+     *
+     * @param file     Target file
+     * @param listener Progress callback, or null; an unchecked exception thrown from it
+     *                 (such as CancellationException) stops the export
+     * @return Total rows exported
+     */
+    public long exportToPDF(File file, ProgressListener listener) throws SQLException, IOException {
+        long total = 0;
+        try (PDFReportWriter report = new PDFReportWriter("Smart Retail - Database Backup Report",
+                "Generated on: " + new java.util.Date())) {
+            for (Table table : TABLES) {
+                report.beginTable(table.title, table.headers, COLUMN_X);
+                total += exportTable(table, report, listener);
+            }
+            report.save(file);
+        }
+        return total;
+    }
+
+    private long exportTable(Table table, PDFReportWriter report, ProgressListener listener)
+            throws SQLException, IOException {
+        long rows = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Database connection not available");
+            }
+            try (PreparedStatement pstmt = table.query.prepare(conn)) {
+                pstmt.setFetchSize(STREAMING_FETCH_SIZE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    String[] values = new String[table.headers.length];
+                    while (rs.next()) {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = rs.getString(i + 1);
+                        }
+                        report.addRow(values);
+                        rows++;
+                        if (listener != null && rows % PROGRESS_INTERVAL == 0) {
+                            listener.progress(table.title, rows, false);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Closing a streaming result reads every remaining row first; cancel the query
+                    // so an abandoned export of a large table stops now
+                    cancelQuietly(pstmt);
+                    throw e;
+                }
+            }
+        }
+        if (listener != null) {
+            listener.progress(table.title, rows, true);
+        }
+        return rows;
+    }
+
+    private static void cancelQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.cancel();
+        } catch (SQLException e) {
+            System.err.println("Error cancelling export query: " + e.getMessage());
+        }
+    }
 }
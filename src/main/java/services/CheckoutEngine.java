@@ -0,0 +1,362 @@
+package services;
+
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import models.Sale;
+import models.SaleDetail;
+import utils.LatencyHistogram;
+
+/**
+ * CheckoutEngine - Group commit for concurrent checkouts.
+ *
+ * Lanes hand their sale to submit() and wait. A single committer thread takes
+ * whatever has queued up (at most MAX_GROUP sales) and writes it in one
+ * transaction: one multi-row INSERT for Sales, one for Sale_Details, one
+ * UPDATE for all stock changes and one INSERT for Cash_Logs. There is no
+ * artificial wait: a lone sale is committed immediately through the
+ * per-sale path, and groups only form while the previous commit is running.
+ *
+ * If a group transaction fails, it is rolled back and every sale in it is
+ * retried on its own, so one bad sale (for example insufficient stock) fails
+ * only its own caller. A lost connection is not retried: if it happened
+ * during the commit the group may already be saved, so every caller gets the
+ * error (and only a NotSentException lets SalesService keep the sale offline).
+ */
+public class CheckoutEngine {
+
+    private static final int MAX_GROUP = 32;
+    // Keeps Sale_Details statements well below the server packet size
+    private static final int DETAIL_CHUNK = 500;
+
+    // {0} is one VALUES row per sale (or detail, product) in the group; each group size is cached separately
+    private static final SqlStatement INSERT_SALES = StatementRegistry.define("checkout.insertSales",
+            "INSERT INTO {Sales} (customer_id, user_id, total_amount, discount, final_amount, payment_method, " +
+            "status, notes, cash_received, change_given) VALUES {0}");
+    private static final SqlStatement INSERT_DETAILS = StatementRegistry.define("checkout.insertDetails",
+            "INSERT INTO {Sale_Details} (sale_id, product_id, quantity, unit_price, total_price, discount) " +
+            "VALUES {0}");
+    // {0} is a CASE product_id WHEN ? THEN ? ... END over the group's products, {1} their ? list
+    private static final SqlStatement DECREMENT_STOCK = StatementRegistry.define("checkout.decrementStock",
+            "UPDATE {Products} SET stock = stock - {0} WHERE product_id IN ({1}) AND stock >= {0}");
+    private static final SqlStatement INSERT_CASH_LOGS = StatementRegistry.define("checkout.insertCashLogs",
+            "INSERT INTO Cash_Logs (sale_id, cash_received, change_given, net_amount, transaction_time, user_id) " +
+            "VALUES {0}");
+
+    private static final CheckoutEngine INSTANCE = new CheckoutEngine();
+
+    private final SalesService salesService = new SalesService();
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final LatencyHistogram latency = new LatencyHistogram("checkout");
+    private final AtomicLong groupCount = new AtomicLong();
+    private final AtomicLong groupedSales = new AtomicLong();
+    private final AtomicLong fallbackGroups = new AtomicLong();
+
+    private static final class Pending {
+        final Sale sale;
+        final long submittedAt = System.nanoTime();
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Pending(Sale sale) {
+            this.sale = sale;
+        }
+    }
+
+    private CheckoutEngine() {
+        Thread committer = new Thread(this::run, "checkout-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public static CheckoutEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a sale and waits until the transaction holding it has committed
+     *
+     * @param sale The sale to save; its sale ID is set on success
+     * @return The generated sale ID
+     * @throws SQLException If this sale could not be saved
+     */
+    public int submit(Sale sale) throws SQLException {
+        Pending pending = new Pending(sale);
+        queue.add(pending);
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for checkout to commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Checkout failed: " + cause.getMessage(), cause);
+        } finally {
+            latency.recordNanos(System.nanoTime() - pending.submittedAt);
+        }
+    }
+
+    /**
+     * @return Submit-to-commit latency of every checkout so far
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return Average number of sales per commit
+     */
+    public double getAverageGroupSize() {
+        long groups = groupCount.get();
+        return groups == 0 ? 0 : (double) groupedSales.get() / groups;
+    }
+
+    public long getGroupCount() {
+        return groupCount.get();
+    }
+
+    /**
+     * @return Groups that failed as a whole and were retried sale by sale
+     */
+    public long getFallbackGroupCount() {
+        return fallbackGroups.get();
+    }
+
+    public void resetStats() {
+        latency.reset();
+        groupCount.set(0);
+        groupedSales.set(0);
+        fallbackGroups.set(0);
+    }
+
+    // === COMMITTER ===
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(MAX_GROUP);
+        while (true) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(group, MAX_GROUP - 1);
+            groupCount.incrementAndGet();
+            groupedSales.addAndGet(group.size());
+            try {
+                if (group.size() == 1) {
+                    commitEach(group);
+                } else {
+                    commitGroup(group);
+                }
+            } catch (RuntimeException e) {
+                for (Pending pending : group) {
+                    pending.result.completeExceptionally(e);
+                }
+            }
+            group.clear();
+        }
+    }
+
+    private void commitGroup(List<Pending> group) {
+        try {
+            writeGroup(group);
+        } catch (SQLException e) {
+            if (e instanceof SalesService.NotSentException || DBConnection.isConnectionFailure(e)) {
+                // Nothing to retry: either nothing reached the server, or the commit may have
+                for (Pending pending : group) {
+                    pending.sale.setSaleId(0);
+                    pending.result.completeExceptionally(e);
+                }
+                return;
+            }
+            fallbackGroups.incrementAndGet();
+            System.err.println("Group checkout of " + group.size() + " sales failed, retrying one by one: "
+                    + e.getMessage());
+            for (Pending pending : group) {
+                pending.sale.setSaleId(0);
+            }
+            commitEach(group);
+            return;
+        }
+        for (Pending pending : group) {
+            salesService.afterCommit(pending.sale);
+            pending.result.complete(pending.sale.getSaleId());
+        }
+    }
+
+    private void commitEach(List<Pending> group) {
+        for (Pending pending : group) {
+            try {
+                pending.result.complete(salesService.createSaleDirect(pending.sale));
+            } catch (SQLException | RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void writeGroup(List<Pending> group) throws SQLException {
+        // The pool restores auto-commit when the connection is returned
+        try (Connection conn = SalesService.beginTransaction()) {
+            try {
+                insertSales(conn, group);
+                insertDetails(conn, group);
+                updateStock(conn, group);
+                insertCashLogs(conn, group);
+                conn.commit();
+            } catch (SQLException e) {
+                SalesService.rollback(conn, e);
+                throw e;
+            } catch (RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void insertSales(Connection conn, List<Pending> group) throws SQLException {
+        String rows = SqlStatement.valueRows("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", group.size());
+        try (PreparedStatement pstmt = INSERT_SALES.prepareWithKeys(conn, rows)) {
+            int p = 1;
+            for (Pending pending : group) {
+                Sale sale = pending.sale;
+                pstmt.setInt(p++, sale.getCustomerId());
+                pstmt.setInt(p++, sale.getUserId());
+                pstmt.setDouble(p++, sale.getTotalAmount());
+                pstmt.setDouble(p++, sale.getDiscount());
+                pstmt.setDouble(p++, sale.getFinalAmount());
+                pstmt.setString(p++, sale.getPaymentMethod());
+                pstmt.setString(p++, sale.getStatus());
+                pstmt.setString(p++, sale.getNotes());
+                if (sale.getCashReceived() != null) {
+                    pstmt.setDouble(p++, sale.getCashReceived());
+                } else {
+                    pstmt.setNull(p++, Types.DOUBLE);
+                }
+                if (sale.getChangeGiven() != null) {
+                    pstmt.setDouble(p++, sale.getChangeGiven());
+                } else {
+                    pstmt.setNull(p++, Types.DOUBLE);
+                }
+            }
+            pstmt.executeUpdate();
+
+            // InnoDB hands a multi-row INSERT consecutive IDs, returned in row order
+            int i = 0;
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                while (keys.next() && i < group.size()) {
+                    group.get(i++).sale.setSaleId(keys.getInt(1));
+                }
+            }
+            if (i != group.size()) {
+                throw new SQLException("Creating sales failed, expected " + group.size() + " IDs but got " + i);
+            }
+        }
+    }
+
+    private void insertDetails(Connection conn, List<Pending> group) throws SQLException {
+        List<SaleDetail> details = new ArrayList<>();
+        List<Integer> saleIds = new ArrayList<>();
+        for (Pending pending : group) {
+            if (pending.sale.getSaleDetails() != null) {
+                for (SaleDetail detail : pending.sale.getSaleDetails()) {
+                    details.add(detail);
+                    saleIds.add(pending.sale.getSaleId());
+                }
+            }
+        }
+        for (int from = 0; from < details.size(); from += DETAIL_CHUNK) {
+            int to = Math.min(details.size(), from + DETAIL_CHUNK);
+            String rows = SqlStatement.valueRows("(?, ?, ?, ?, ?, ?)", to - from);
+            try (PreparedStatement pstmt = INSERT_DETAILS.prepare(conn, rows)) {
+                int p = 1;
+                for (int i = from; i < to; i++) {
+                    SaleDetail detail = details.get(i);
+                    pstmt.setInt(p++, saleIds.get(i));
+                    pstmt.setInt(p++, detail.getProductId());
+                    pstmt.setInt(p++, detail.getQuantity());
+                    pstmt.setDouble(p++, detail.getUnitPrice());
+                    pstmt.setDouble(p++, detail.getTotalPrice());
+                    pstmt.setDouble(p++, detail.getDiscount());
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    // One conditional UPDATE for the whole group; rows are locked in product_id order so concurrent groups
+    // cannot deadlock. If any product is short the group fails and each sale is retried on its own.
+    private void updateStock(Connection conn, List<Pending> group) throws SQLException {
+        Map<Integer, Integer> totals = new TreeMap<>();
+        for (Pending pending : group) {
+            if (pending.sale.getSaleDetails() != null) {
+                for (SaleDetail detail : pending.sale.getSaleDetails()) {
+                    totals.merge(detail.getProductId(), detail.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+        StringBuilder cases = new StringBuilder("CASE product_id");
+        for (int i = 0; i < totals.size(); i++) {
+            cases.append(" WHEN ? THEN ?");
+        }
+        cases.append(" END");
+        try (PreparedStatement pstmt = DECREMENT_STOCK.prepare(conn, cases.toString(),
+                SqlStatement.placeholders(totals.size()))) {
+            int p = bindCases(pstmt, 1, totals);
+            for (Integer productId : totals.keySet()) {
+                pstmt.setInt(p++, productId);
+            }
+            bindCases(pstmt, p, totals);
+            int updated = pstmt.executeUpdate();
+            if (updated != totals.size()) {
+                throw new SQLException("Insufficient stock for " + (totals.size() - updated) + " products in group");
+            }
+        }
+    }
+
+    private int bindCases(PreparedStatement pstmt, int p, Map<Integer, Integer> totals) throws SQLException {
+        for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
+            pstmt.setInt(p++, entry.getKey());
+            pstmt.setInt(p++, entry.getValue());
+        }
+        return p;
+    }
+
+    private void insertCashLogs(Connection conn, List<Pending> group) throws SQLException {
+        List<Sale> cashSales = new ArrayList<>();
+        for (Pending pending : group) {
+            if ("Cash".equalsIgnoreCase(pending.sale.getPaymentMethod()) && pending.sale.getCashReceived() != null) {
+                cashSales.add(pending.sale);
+            }
+        }
+        if (cashSales.isEmpty()) {
+            return;
+        }
+        String rows = SqlStatement.valueRows("(?, ?, ?, ?, NOW(), ?)", cashSales.size());
+        try (PreparedStatement pstmt = INSERT_CASH_LOGS.prepare(conn, rows)) {
+            int p = 1;
+            for (Sale sale : cashSales) {
+                pstmt.setInt(p++, sale.getSaleId());
+                pstmt.setDouble(p++, sale.getCashReceived());
+                pstmt.setDouble(p++, sale.getChangeGiven() != null ? sale.getChangeGiven() : 0.0);
+                pstmt.setDouble(p++, sale.getFinalAmount());
+                pstmt.setInt(p++, sale.getUserId());
+            }
+            pstmt.executeUpdate();
+        }
+    }
+}
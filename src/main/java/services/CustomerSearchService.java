@@ -0,0 +1,402 @@
+package services;
+
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CustomerSearchService - Index-backed customer lookup for the counter.
+ *
+ * Every customer is broken into short, normalised tokens in the
+ * Customer_Search_Tokens table, keyed (kind, token, customer_id):
+ *   n - lower-case name words, email words and the whole email
+ *   p - phone digits with punctuation removed
+ *   r - the same digits reversed, so "last 4 digits" is a prefix search too
+ *   i - the customer ID
+ * Every query is a prefix range scan on the primary key with a LIMIT, so its
+ * cost depends on the number of hits returned, not the size of customers
+ * (the old LIKE '%term%' forced a full table scan).
+ *
+ * When the optional FULLTEXT index ft_customer_search exists on customers
+ * (see migrations.sql), name queries whose words are at least three
+ * characters long use MATCH ... AGAINST instead of the token table.
+ *
+ * Tokens are written by CustomerService on add/update and removed by the
+ * foreign key on delete. Customers from before this table existed are
+ * indexed by a one-time background backfill; until it finishes isReady()
+ * is false and CustomerService keeps using its LIKE query.
+ */
+public class CustomerSearchService {
+
+    public static final String TOKEN_TABLE = "Customer_Search_Tokens";
+    public static final String FULLTEXT_INDEX = "ft_customer_search";
+
+    private static final int MAX_TERMS = 4;
+    private static final int MAX_TOKEN_LENGTH = 100;
+    private static final int MIN_PHONE_DIGITS = 3;
+    // InnoDB ignores shorter words unless innodb_ft_min_token_size is lowered
+    private static final int MIN_FULLTEXT_TERM = 3;
+    private static final int BACKFILL_BATCH = 1000;
+    private static final int INSERT_CHUNK = 500;
+
+    private static final SqlStatement CREATE_TABLE = StatementRegistry.define("search.createTable",
+            "CREATE TABLE IF NOT EXISTS " + TOKEN_TABLE + " (" +
+            "kind CHAR(1) NOT NULL, " +
+            "token VARCHAR(100) NOT NULL, " +
+            "customer_id INT NOT NULL, " +
+            "PRIMARY KEY (kind, token, customer_id), " +
+            "INDEX idx_search_customer (customer_id, kind, token), " +
+            "FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE)");
+    private static final SqlStatement UNINDEXED = StatementRegistry.define("search.unindexed",
+            "SELECT c.customer_id, c.first_name, c.last_name, c.email, c.phone FROM customers c " +
+            "WHERE c.customer_id > ? AND NOT EXISTS " +
+            "(SELECT 1 FROM " + TOKEN_TABLE + " t WHERE t.customer_id = c.customer_id) " +
+            "ORDER BY c.customer_id LIMIT " + BACKFILL_BATCH);
+    private static final SqlStatement DELETE_TOKENS = StatementRegistry.define("search.deleteTokens",
+            "DELETE FROM " + TOKEN_TABLE + " WHERE customer_id = ?");
+    // {0} is one (?, ?, ?) row per token in the chunk
+    private static final SqlStatement INSERT_TOKENS = StatementRegistry.define("search.insertTokens",
+            "INSERT IGNORE INTO " + TOKEN_TABLE + " (kind, token, customer_id) VALUES {0}");
+    private static final SqlStatement FIND_BY_ID = StatementRegistry.define("search.findById",
+            "SELECT DISTINCT customer_id FROM " + TOKEN_TABLE + " " +
+            "WHERE (kind = 'i' AND token = ?) ORDER BY customer_id DESC LIMIT ?");
+    private static final SqlStatement FIND_BY_PHONE = StatementRegistry.define("search.findByPhone",
+            "SELECT DISTINCT customer_id FROM " + TOKEN_TABLE + " " +
+            "WHERE (kind = 'i' AND token = ?) OR (kind = 'p' AND token LIKE ?) OR (kind = 'r' AND token LIKE ?) " +
+            "ORDER BY customer_id DESC LIMIT ?");
+    private static final SqlStatement FIND_FULLTEXT = StatementRegistry.define("search.findFulltext",
+            "SELECT customer_id FROM customers " +
+            "WHERE MATCH(first_name, last_name, email) AGAINST (? IN BOOLEAN MODE) " +
+            "ORDER BY customer_id DESC LIMIT ?");
+    // The longest word drives the range scan; {0} holds one EXISTS per other word (see sameCustomerTerms)
+    private static final SqlStatement FIND_BY_NAME = StatementRegistry.define("search.findByName",
+            "SELECT DISTINCT t0.customer_id FROM " + TOKEN_TABLE + " t0 " +
+            "WHERE t0.kind = 'n' AND t0.token LIKE ?{0} ORDER BY t0.customer_id DESC LIMIT ?");
+    private static final SqlStatement FULLTEXT_INDEX_EXISTS = StatementRegistry.define("search.fulltextIndexExists",
+            "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+            "WHERE table_schema = DATABASE() AND table_name = 'customers' AND index_name = ?");
+
+    private static final CustomerSearchService INSTANCE = new CustomerSearchService();
+
+    private volatile boolean tableChecked = false;
+    private volatile Boolean fulltextAvailable = null;
+    private volatile boolean ready = false;
+    private final AtomicBoolean backfillStarted = new AtomicBoolean(false);
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "customer-search-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private CustomerSearchService() {
+    }
+
+    public static CustomerSearchService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true once every customer has search tokens
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Starts the one-time backfill of customers without tokens in the background
+     * (no-op after the first call)
+     */
+    public void ensureBackfilled() {
+        if (!backfillStarted.compareAndSet(false, true)) {
+            return;
+        }
+        worker.submit(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int indexed = backfill();
+                ready = true;
+                System.out.println("Customer search index ready (" + indexed + " customers indexed in "
+                        + (System.currentTimeMillis() - start) + " ms)");
+            } catch (SQLException e) {
+                backfillStarted.set(false);
+                System.err.println("Error backfilling customer search index: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Indexes every customer that has no tokens yet, in keyset-paged batches
+     *
+     * @return Number of customers indexed
+     * @throws SQLException If a database error occurs
+     */
+    public int backfill() throws SQLException {
+        int total = 0;
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            int lastId = 0;
+            while (true) {
+                int batch = 0;
+                List<Token> tokens = new ArrayList<>();
+                try (PreparedStatement pstmt = UNINDEXED.prepare(conn)) {
+                    pstmt.setInt(1, lastId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            lastId = rs.getInt("customer_id");
+                            batch++;
+                            tokens.addAll(tokenize(lastId, rs.getString("first_name"), rs.getString("last_name"),
+                                    rs.getString("email"), rs.getString("phone")));
+                        }
+                    }
+                }
+                if (batch == 0) {
+                    return total;
+                }
+                insertTokens(conn, tokens);
+                total += batch;
+            }
+        }
+    }
+
+    /**
+     * Replaces the search tokens of one customer (after an insert or update)
+     *
+     * @param conn       Open connection (auto-commit)
+     * @param customerId The customer
+     * @param firstName  First name as stored
+     * @param lastName   Last name as stored
+     * @param email      Email, may be null
+     * @param phone      Phone as typed, may be null
+     * @throws SQLException If a database error occurs
+     */
+    public void reindex(Connection conn, int customerId, String firstName, String lastName,
+                        String email, String phone) throws SQLException {
+        ensureTable(conn);
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement pstmt = DELETE_TOKENS.prepare(conn)) {
+                pstmt.setInt(1, customerId);
+                pstmt.executeUpdate();
+            }
+            insertTokens(conn, tokenize(customerId, firstName, lastName, email, phone));
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Finds customers matching a counter lookup: a phone number (or its last
+     * digits), a customer ID, an email, or the start of one or more name words
+     *
+     * @param conn    Open connection
+     * @param keyword What the cashier typed
+     * @param limit   Maximum number of IDs to return
+     * @return Matching customer IDs, newest first
+     * @throws SQLException If a database error occurs
+     */
+    public List<Integer> findCustomerIds(Connection conn, String keyword, int limit) throws SQLException {
+        ensureTable(conn);
+        String text = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        PreparedStatement pstmt;
+        if (text.matches("[0-9()+\\-. ]+")) {
+            String digits = text.replaceAll("\\D", "");
+            if (digits.isEmpty()) {
+                return new ArrayList<>();
+            }
+            // Too few digits to mean a phone number: only the ID can match
+            boolean phone = digits.length() >= MIN_PHONE_DIGITS;
+            pstmt = (phone ? FIND_BY_PHONE : FIND_BY_ID).prepare(conn);
+            int p = 1;
+            pstmt.setString(p++, digits);
+            if (phone) {
+                pstmt.setString(p++, digits + "%");
+                pstmt.setString(p++, new StringBuilder(digits).reverse() + "%");
+            }
+            pstmt.setInt(p, limit);
+        } else {
+            List<String> terms = queryTerms(text);
+            if (terms.isEmpty()) {
+                return new ArrayList<>();
+            }
+            if (useFulltext(conn, terms)) {
+                StringBuilder against = new StringBuilder();
+                for (String term : terms) {
+                    against.append('+').append(term).append("* ");
+                }
+                pstmt = FIND_FULLTEXT.prepare(conn);
+                pstmt.setString(1, against.toString().trim());
+                pstmt.setInt(2, limit);
+            } else {
+                pstmt = FIND_BY_NAME.prepare(conn, sameCustomerTerms(terms.size()));
+                int p = 1;
+                for (String term : terms) {
+                    pstmt.setString(p++, escapeLike(term) + "%");
+                }
+                pstmt.setInt(p, limit);
+            }
+        }
+
+        // Ordered before the LIMIT, so a common prefix keeps the newest customers like the old search did
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement stmt = pstmt; ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    // === INTERNALS ===
+
+    private static final class Token {
+        final char kind;
+        final String token;
+        final int customerId;
+
+        Token(char kind, String token, int customerId) {
+            this.kind = kind;
+            this.token = token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+            this.customerId = customerId;
+        }
+    }
+
+    private static List<Token> tokenize(int customerId, String firstName, String lastName, String email, String phone) {
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(new Token('i', String.valueOf(customerId), customerId));
+
+        Set<String> words = new LinkedHashSet<>();
+        words.addAll(words(firstName));
+        words.addAll(words(lastName));
+        if (email != null && !email.trim().isEmpty()) {
+            String lower = email.trim().toLowerCase(Locale.ROOT);
+            words.add(lower);
+            words.addAll(words(lower));
+        }
+        for (String w : words) {
+            tokens.add(new Token('n', w, customerId));
+        }
+
+        String digits = phone == null ? "" : phone.replaceAll("\\D", "");
+        if (digits.length() >= MIN_PHONE_DIGITS) {
+            tokens.add(new Token('p', digits, customerId));
+            tokens.add(new Token('r', new StringBuilder(digits).reverse().toString(), customerId));
+        }
+        return tokens;
+    }
+
+    // Lower-case letter/digit runs
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String w : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!w.isEmpty()) {
+                words.add(w);
+            }
+        }
+        return words;
+    }
+
+    // An email is looked up whole; anything else word by word, longest first
+    private static List<String> queryTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text.contains("@")) {
+            terms.add(text);
+            return terms;
+        }
+        terms.addAll(new LinkedHashSet<>(words(text)));
+        terms.sort((a, b) -> Integer.compare(b.length(), a.length()));
+        return terms.size() > MAX_TERMS ? new ArrayList<>(terms.subList(0, MAX_TERMS)) : terms;
+    }
+
+    // " AND EXISTS (...)" for words 1..terms-1: each must match the same customer as word 0
+    private static String sameCustomerTerms(int terms) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 1; i < terms; i++) {
+            sql.append(" AND EXISTS (SELECT 1 FROM ").append(TOKEN_TABLE).append(" t").append(i)
+                    .append(" WHERE t").append(i).append(".customer_id = t0.customer_id")
+                    .append(" AND t").append(i).append(".kind = 'n' AND t").append(i).append(".token LIKE ?)");
+        }
+        return sql.toString();
+    }
+
+    private boolean useFulltext(Connection conn, List<String> terms) throws SQLException {
+        if (fulltextAvailable == null) {
+            try (PreparedStatement pstmt = FULLTEXT_INDEX_EXISTS.prepare(conn)) {
+                pstmt.setString(1, FULLTEXT_INDEX);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    fulltextAvailable = rs.next() && rs.getInt(1) > 0;
+                }
+            }
+        }
+        if (!fulltextAvailable) {
+            return false;
+        }
+        for (String term : terms) {
+            if (term.length() < MIN_FULLTEXT_TERM || term.contains("@")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // One multi-row INSERT per chunk keeps the backfill to a few round trips
+    private void insertTokens(Connection conn, List<Token> tokens) throws SQLException {
+        for (int from = 0; from < tokens.size(); from += INSERT_CHUNK) {
+            int to = Math.min(tokens.size(), from + INSERT_CHUNK);
+            try (PreparedStatement pstmt = INSERT_TOKENS.prepare(conn, SqlStatement.valueRows("(?, ?, ?)", to - from))) {
+                int p = 1;
+                for (int i = from; i < to; i++) {
+                    Token t = tokens.get(i);
+                    pstmt.setString(p++, String.valueOf(t.kind));
+                    pstmt.setString(p++, t.token);
+                    pstmt.setInt(p++, t.customerId);
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    // Also used by CustomerService for its name prefix filter
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Creates the token table the first time it is needed in this process
+    private void ensureTable(Connection conn) throws SQLException {
+        if (tableChecked) {
+            return;
+        }
+        try (PreparedStatement pstmt = CREATE_TABLE.prepare(conn)) {
+            pstmt.execute();
+        }
+        tableChecked = true;
+    }
+
+    private Connection requireConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
+        }
+        return conn;
+    }
+}
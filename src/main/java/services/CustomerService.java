@@ -1,6 +1,9 @@
 package services;
 
 import database.DBConnection;
+import database.Keyset;
+import database.SqlStatement;
+import database.StatementRegistry;
 import models.Customer;
 import java.sql.*;
 import java.util.ArrayList;
@@ -8,31 +11,90 @@ import java.util.List;
 
 public class CustomerService {
 
+    // Most rows a counter lookup returns; refine the search rather than scroll
+    private static final int SEARCH_LIMIT = 100;
+
+    private static final SqlStatement FIND_ALL = StatementRegistry.define("customers.findAll",
+            "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers ORDER BY customer_id DESC");
+    private static final SqlStatement INSERT = StatementRegistry.define("customers.insert",
+            "INSERT INTO customers (first_name, last_name, phone, email, address, loyalty_points) " +
+            "VALUES (?, ?, ?, ?, ?, ?)");
+    private static final SqlStatement SCAN = StatementRegistry.define("customers.scan",
+            "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers " +
+            "WHERE first_name LIKE ? OR last_name LIKE ? OR email LIKE ? OR (phone LIKE ? AND 1=1) " +
+            "ORDER BY customer_id DESC");
+    private static final SqlStatement UPDATE = StatementRegistry.define("customers.update",
+            "UPDATE customers SET first_name=?, last_name=?, phone=?, email=?, address=?, loyalty_points=? " +
+            "WHERE customer_id=?");
+    // {0} is one "?" per ID; at most SEARCH_LIMIT distinct texts
+    private static final SqlStatement FIND_BY_IDS = StatementRegistry.define("customers.findByIds",
+            "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers " +
+            "WHERE customer_id IN ({0}) ORDER BY customer_id DESC");
+    private static final SqlStatement DELETE = StatementRegistry.define("customers.delete",
+            "DELETE FROM customers WHERE customer_id=?");
+    private static final SqlStatement FIND_BY_ID = StatementRegistry.define("customers.findById",
+            "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers WHERE customer_id = ?");
+
+    // {0} is the WHERE condition (name prefix and/or keyset seek), {1} the ORDER BY list of a SortField
+    private static final SqlStatement PAGE = StatementRegistry.define("customers.page",
+            "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers " +
+            "WHERE {0} ORDER BY {1} LIMIT ? OFFSET ?");
+    private static final SqlStatement COUNT = StatementRegistry.define("customers.count",
+            "SELECT COUNT(*) FROM customers");
+
+    // Largest page listCustomers returns
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Orders customers can be listed in, each backed by an index on its sort key
+     * (the primary key, or idx_customer_name which InnoDB extends with customer_id)
+     */
+    public enum SortField {
+        ID("customer_id"),
+        // Phone-book order: surname, then first name
+        NAME("last_name", "first_name", "customer_id");
+
+        private final String[] columns;
+
+        SortField(String... columns) {
+            this.columns = columns;
+        }
+
+        String order(boolean ascending) {
+            return "customers." + name() + (ascending ? ".asc" : ".desc");
+        }
+    }
+
+    private final CustomerSearchService search = CustomerSearchService.getInstance();
+
+    public CustomerService() {
+        // Indexes customers created before the search tokens existed, in the background
+        search.ensureBackfilled();
+    }
+
     // Use DBConnection for all queries
     private Connection getConnection() throws SQLException {
         return DBConnection.getConnection();
     }
 
+    // For callers that report errors rather than returning an empty result
+    private Connection requireConnection() throws SQLException {
+        Connection conn = getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
+        }
+        return conn;
+    }
+
     // Get all customers (Following schema.sql columns)
     public List<Customer> getAllCustomers() {
         List<Customer> customers = new ArrayList<>();
-        String query = "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers ORDER BY customer_id DESC";
-
         try (Connection conn = getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(query)) {
+                PreparedStatement stmt = FIND_ALL.prepare(conn);
+                ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Customer customer = new Customer(
-                        rs.getInt("customer_id"),
-                        rs.getString("full_name"),
-                        hasColumn(rs, "phone") ? rs.getString("phone") : "",
-                        rs.getString("email"),
-                        rs.getString("address"),
-                        rs.getInt("loyalty_points"),
-                        hasColumn(rs, "created_at") ? rs.getString("created_at") : "",
-                        hasColumn(rs, "updated_at") ? rs.getString("updated_at") : "");
-                customers.add(customer);
+                customers.add(readCustomer(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error fetching customers: " + e.getMessage());
@@ -40,6 +102,98 @@ public class CustomerService {
         return customers;
     }
 
+    /**
+     * Lists customers a page at a time, for lists too large to hold in memory.
+     * The cursor holds the sort key of the previous page's last row and the
+     * query seeks to it through the sort's index, so a deep page costs the
+     * same as the first, and customers added or removed meanwhile never shift
+     * a page.
+     *
+     * @param after      Cursor from the previous page, or null for the first page
+     * @param limit      Page size, at most MAX_PAGE_SIZE
+     * @param sort       Order of the list
+     * @param ascending  Sort direction
+     * @param namePrefix Only customers whose last name starts with this, or null for all
+     * @throws IllegalArgumentException If the cursor was made for another order
+     * @throws SQLException on a database error, so a failed page is not mistaken for the end of the list
+     */
+    public Page<Customer> listCustomers(String after, int limit, SortField sort, boolean ascending,
+            String namePrefix) throws SQLException {
+        Object[] key = after == null ? null : Keyset.decodeCursor(after, sort.order(ascending), sort.columns.length);
+        return readPage(namePrefix, sort, ascending, key, 0, limit);
+    }
+
+    /**
+     * Lists the page starting at a row number, for jumps into the middle of a
+     * list. The server walks past every skipped row, so this costs more the
+     * deeper the page; continue from the returned cursor with listCustomers
+     */
+    public Page<Customer> listCustomersAt(int offset, int limit, SortField sort, boolean ascending,
+            String namePrefix) throws SQLException {
+        return readPage(namePrefix, sort, ascending, null, offset, limit);
+    }
+
+    private Page<Customer> readPage(String namePrefix, SortField sort, boolean ascending, Object[] after,
+            int offset, int limit) throws SQLException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be 1-" + MAX_PAGE_SIZE);
+        }
+        boolean filtered = namePrefix != null && !namePrefix.isEmpty();
+        StringBuilder where = new StringBuilder(filtered ? "last_name LIKE ?" : "1=1");
+        if (after != null) {
+            where.append(" AND ").append(Keyset.after(sort.columns, ascending));
+        }
+
+        List<Customer> customers = new ArrayList<>(limit);
+        Object[] lastKey = null;
+        boolean more = false;
+        try (Connection conn = requireConnection();
+                PreparedStatement pstmt = PAGE.prepare(conn, where.toString(),
+                        Keyset.orderBy(sort.columns, ascending))) {
+            int index = 1;
+            if (filtered) {
+                pstmt.setString(index++, CustomerSearchService.escapeLike(namePrefix) + "%");
+            }
+            if (after != null) {
+                index = Keyset.bind(pstmt, index, after);
+            }
+            // One row more than asked for tells whether there is a next page
+            pstmt.setInt(index++, limit + 1);
+            pstmt.setInt(index, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (customers.size() == limit) {
+                        more = true;
+                        break;
+                    }
+                    customers.add(readCustomer(rs));
+                    lastKey = Keyset.keyOf(rs, sort.columns);
+                }
+            }
+        }
+        return new Page<>(customers, more ? Keyset.encodeCursor(sort.order(ascending), lastKey) : null);
+    }
+
+    public int countCustomers() throws SQLException {
+        try (Connection conn = requireConnection();
+                PreparedStatement pstmt = COUNT.prepare(conn);
+                ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private Customer readCustomer(ResultSet rs) throws SQLException {
+        return new Customer(
+                rs.getInt("customer_id"),
+                rs.getString("full_name"),
+                hasColumn(rs, "phone") ? rs.getString("phone") : "",
+                rs.getString("email"),
+                rs.getString("address"),
+                rs.getInt("loyalty_points"),
+                hasColumn(rs, "created_at") ? rs.getString("created_at") : "",
+                hasColumn(rs, "updated_at") ? rs.getString("updated_at") : "");
+    }
+
     private boolean hasColumn(ResultSet rs, String columnName) throws SQLException {
         ResultSetMetaData rsmd = rs.getMetaData();
         int columns = rsmd.getColumnCount();
@@ -57,10 +211,8 @@ public class CustomerService {
         String fname = names[0];
         String lname = (names.length > 1) ? names[1] : "";
 
-        String query = "INSERT INTO customers (first_name, last_name, phone, email, address, loyalty_points) VALUES (?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(query)) {
+                PreparedStatement pstmt = INSERT.prepareWithKeys(conn)) {
 
             pstmt.setString(1, fname);
             pstmt.setString(2, lname);
@@ -69,7 +221,16 @@ public class CustomerService {
             pstmt.setString(5, customer.getAddress());
             pstmt.setInt(6, customer.getLoyaltyPoints());
 
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    customer.setCustomerId(keys.getInt(1));
+                    reindex(conn, customer.getCustomerId(), fname, lname, customer);
+                }
+            }
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -82,13 +243,18 @@ public class CustomerService {
     }
 
     public List<Customer> searchCustomers(String keyword) {
-        List<Customer> customers = new ArrayList<>();
-        String query = "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers " +
-                "WHERE first_name LIKE ? OR last_name LIKE ? OR email LIKE ? OR (phone LIKE ? AND 1=1) " +
-                "ORDER BY customer_id DESC";
+        if (search.isReady()) {
+            try (Connection conn = getConnection()) {
+                return getCustomersByIds(conn, search.findCustomerIds(conn, keyword, SEARCH_LIMIT));
+            } catch (SQLException e) {
+                System.err.println("Customer search index failed, scanning instead: " + e.getMessage());
+            }
+        }
 
+        // Full scan, only used until the search index has been backfilled
+        List<Customer> customers = new ArrayList<>();
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(query)) {
+                PreparedStatement pstmt = SCAN.prepare(conn)) {
             String pattern = "%" + keyword + "%";
             pstmt.setString(1, pattern);
             pstmt.setString(2, pattern);
@@ -97,15 +263,7 @@ public class CustomerService {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    customers.add(new Customer(
-                            rs.getInt("customer_id"),
-                            rs.getString("full_name"),
-                            hasColumn(rs, "phone") ? rs.getString("phone") : "",
-                            rs.getString("email"),
-                            rs.getString("address"),
-                            rs.getInt("loyalty_points"),
-                            hasColumn(rs, "created_at") ? rs.getString("created_at") : "",
-                            hasColumn(rs, "updated_at") ? rs.getString("updated_at") : ""));
+                    customers.add(readCustomer(rs));
                 }
             }
         } catch (SQLException e) {
@@ -118,8 +276,7 @@ public class CustomerService {
         String[] names = customer.getFullName().split(" ", 2);
         String fname = names[0];
         String lname = (names.length > 1) ? names[1] : "";
-        String sql = "UPDATE customers SET first_name=?, last_name=?, phone=?, email=?, address=?, loyalty_points=? WHERE customer_id=?";
-        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = getConnection(); PreparedStatement pstmt = UPDATE.prepare(conn)) {
             pstmt.setString(1, fname);
             pstmt.setString(2, lname);
             pstmt.setString(3, customer.getContact());
@@ -127,16 +284,53 @@ public class CustomerService {
             pstmt.setString(5, customer.getAddress());
             pstmt.setInt(6, customer.getLoyaltyPoints());
             pstmt.setInt(7, customer.getCustomerId());
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            reindex(conn, customer.getCustomerId(), fname, lname, customer);
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    // Loads the given customers, newest first
+    private List<Customer> getCustomersByIds(Connection conn, List<Integer> ids) throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return customers;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+
+        try (PreparedStatement pstmt = FIND_BY_IDS.prepare(conn, placeholders.toString())) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    customers.add(readCustomer(rs));
+                }
+            }
+        }
+        return customers;
+    }
+
+    // Keeps the search tokens in step; a failure only affects search, not the saved customer
+    private void reindex(Connection conn, int customerId, String fname, String lname, Customer customer) {
+        try {
+            search.reindex(conn, customerId, fname, lname, customer.getEmail(), customer.getContact());
+        } catch (SQLException e) {
+            System.err.println("Error updating customer search index: " + e.getMessage());
+        }
+    }
+
     public boolean deleteCustomer(int id) {
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement("DELETE FROM customers WHERE customer_id=?")) {
+                PreparedStatement pstmt = DELETE.prepare(conn)) {
             pstmt.setInt(1, id);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -146,21 +340,12 @@ public class CustomerService {
     }
 
     public Customer getCustomerById(int id) {
-        String query = "SELECT *, CONCAT(first_name, ' ', last_name) as full_name FROM customers WHERE customer_id = ?";
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(query)) {
+                PreparedStatement pstmt = FIND_BY_ID.prepare(conn)) {
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Customer(
-                            rs.getInt("customer_id"),
-                            rs.getString("full_name"),
-                            hasColumn(rs, "phone") ? rs.getString("phone") : "",
-                            rs.getString("email"),
-                            rs.getString("address"),
-                            rs.getInt("loyalty_points"),
-                            hasColumn(rs, "created_at") ? rs.getString("created_at") : "",
-                            hasColumn(rs, "updated_at") ? rs.getString("updated_at") : "");
+                    return readCustomer(rs);
                 }
             }
         } catch (SQLException e) {
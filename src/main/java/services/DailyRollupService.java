@@ -0,0 +1,375 @@
+package services;
+
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import database.TimeWindow;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import models.Analytics;
+
+/**
+ * DailyRollupService - Keeps the Analytics table at one row per day.
+ *
+ * Committed sales are queued and a background worker recomputes only the
+ * days they fall on (here and in the SalesCubeService product cube), so the
+ * checkout path never waits for the rollup. If a refresh fails the sales
+ * are queued again and retried after RETRY_DELAY_SEC.
+ * At startup catchUp() rolls up only the days after the last one already
+ * in the table; backfill() rebuilds any date range. Both work one day per
+ * transaction at READ COMMITTED, so checkout inserts are never held up
+ * behind a year-long INSERT ... SELECT. Readers such as AnalyticsService use
+ * the rollup rows once the startup catch-up is done (see isReady()).
+ */
+public class DailyRollupService {
+
+    private static final long RETRY_DELAY_SEC = 30;
+
+    private static final SqlStatement DELETE_RANGE = StatementRegistry.define("rollup.deleteRange",
+            "DELETE FROM {Analytics} WHERE date >= ? AND date <= ?");
+    private static final SqlStatement INSERT_RANGE = StatementRegistry.define("rollup.insertRange",
+            "INSERT INTO {Analytics} (date, total_sales, total_revenue, total_transactions, total_customers) " +
+            "SELECT DATE(sale_date), SUM(total_amount), SUM({sales.final_amount|total_amount}), COUNT(*), " +
+            "COUNT(DISTINCT customer_id) FROM {Sales} " +
+            "WHERE sale_date >= ? AND sale_date < DATE_ADD(?, INTERVAL 1 DAY) GROUP BY DATE(sale_date)");
+    // Best seller per day: rank products by units within each day
+    private static final SqlStatement BEST_RANGE = StatementRegistry.define("rollup.bestRange",
+            "UPDATE {Analytics} a JOIN (" +
+            "SELECT day, product_id FROM (" +
+            "SELECT DATE(s.sale_date) AS day, sd.product_id, " +
+            "ROW_NUMBER() OVER (PARTITION BY DATE(s.sale_date) " +
+            "ORDER BY SUM(sd.quantity) DESC, sd.product_id) AS rn " +
+            "FROM {Sale_Details} sd JOIN {Sales} s ON sd.sale_id = s.sale_id " +
+            "WHERE s.sale_date >= ? AND s.sale_date < DATE_ADD(?, INTERVAL 1 DAY) " +
+            "GROUP BY DATE(s.sale_date), sd.product_id) ranked WHERE rn = 1" +
+            ") best ON a.date = best.day SET a.best_product = best.product_id");
+    private static final SqlStatement LAST_DAY = StatementRegistry.define("rollup.lastDay",
+            "SELECT MAX(date) FROM {Analytics} WHERE date >= ? AND date <= ?");
+    private static final SqlStatement DAILY_ROWS = StatementRegistry.define("rollup.dailyRows",
+            "SELECT * FROM {Analytics} WHERE date >= ? AND date <= ? ORDER BY date ASC");
+    // {0} is the TimeWindow predicate on date
+    private static final SqlStatement TOTALS = StatementRegistry.define("rollup.totals",
+            "SELECT COALESCE(SUM(total_sales), 0) AS total_sales, " +
+            "COALESCE(SUM(total_revenue), 0) AS total_revenue, " +
+            "COALESCE(SUM(total_transactions), 0) AS total_transactions, " +
+            "COALESCE(SUM(total_customers), 0) AS total_customers " +
+            "FROM {Analytics} WHERE {0}");
+    // {0} is the ? list of the sale IDs; days come from the database so they match DATE(sale_date) exactly
+    private static final SqlStatement SALE_DAYS = StatementRegistry.define("rollup.saleDays",
+            "SELECT DISTINCT DATE(sale_date) AS day FROM {Sales} WHERE sale_id IN ({0})");
+    private static final SqlStatement REFRESH_DAY = StatementRegistry.define("rollup.refreshDay",
+            "INSERT INTO {Analytics} (date, total_sales, total_revenue, " +
+            "total_transactions, total_customers, best_product) " +
+            "SELECT ?, COALESCE(SUM(s.total_amount), 0), COALESCE(SUM(s.{sales.final_amount|total_amount}), 0), " +
+            "COUNT(*), COUNT(DISTINCT s.customer_id), " +
+            "(SELECT sd.product_id FROM {Sale_Details} sd " +
+            "JOIN {Sales} s2 ON sd.sale_id = s2.sale_id " +
+            "WHERE s2.sale_date >= ? AND s2.sale_date < DATE_ADD(?, INTERVAL 1 DAY) " +
+            "GROUP BY sd.product_id ORDER BY SUM(sd.quantity) DESC, sd.product_id LIMIT 1) " +
+            "FROM {Sales} s " +
+            "WHERE s.sale_date >= ? AND s.sale_date < DATE_ADD(?, INTERVAL 1 DAY) " +
+            "ON DUPLICATE KEY UPDATE total_sales = VALUES(total_sales), " +
+            "total_revenue = VALUES(total_revenue), " +
+            "total_transactions = VALUES(total_transactions), " +
+            "total_customers = VALUES(total_customers), " +
+            "best_product = VALUES(best_product)");
+
+    private static final DailyRollupService INSTANCE = new DailyRollupService();
+
+    private final SalesCubeService cube = SalesCubeService.getInstance();
+    private final ConcurrentLinkedQueue<Integer> pendingSales = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean backfillStarted = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "analytics-rollup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private DailyRollupService() {
+    }
+
+    public static DailyRollupService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true once the last year has been backfilled and reads can use the rollup
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Starts the one-time startup backfill in the background (no-op after the first call)
+     */
+    public void ensureBackfilled() {
+        if (!backfillStarted.compareAndSet(false, true)) {
+            return;
+        }
+        worker.submit(() -> {
+            LocalDate today = LocalDate.now();
+            try {
+                // Covers the "This Year" window, with a day of slack either side
+                // for app/database clock differences
+                LocalDate from = TimeWindow.THIS_YEAR.startDate(today).minusDays(1);
+                LocalDate to = TimeWindow.THIS_YEAR.endDate(today);
+                int days = catchUp(from, to);
+                ready = true;
+                System.out.println("Analytics rollup ready (" + days + " days with sales rebuilt)");
+                int cells = cube.catchUp(from, to);
+                System.out.println("Sales cube ready (" + cells + " product-days rebuilt)");
+            } catch (SQLException e) {
+                backfillStarted.set(false);
+                System.err.println("Error backfilling analytics rollup: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Records a committed sale; its day is recomputed in the background.
+     * Bursts of sales on the same day are coalesced into one refresh.
+     *
+     * @param saleId ID of the sale that was just committed
+     */
+    public void onSaleCommitted(int saleId) {
+        pendingSales.add(saleId);
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.submit(this::drainPending);
+        }
+    }
+
+    /**
+     * Recomputes the Analytics row for a single day from the raw sales
+     *
+     * @param day The day to refresh
+     * @throws SQLException If a database error occurs
+     */
+    public void refreshDay(LocalDate day) throws SQLException {
+        try (Connection conn = requireConnection()) {
+            refreshDay(conn, day);
+        }
+    }
+
+    /**
+     * Rolls up the days in [from, to] the table does not have yet: the days after
+     * the last one already present, which is rebuilt too in case it was cut short.
+     * Days before it are kept up to date by onSaleCommitted.
+     *
+     * @param from First day, inclusive
+     * @param to   Last day, inclusive
+     * @return Number of rebuilt days that had sales
+     * @throws SQLException If a database error occurs
+     */
+    public int catchUp(LocalDate from, LocalDate to) throws SQLException {
+        LocalDate last;
+        try (Connection conn = requireConnection();
+                PreparedStatement pstmt = LAST_DAY.prepare(conn)) {
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Date max = rs.next() ? rs.getDate(1) : null;
+                last = max == null ? null : max.toLocalDate();
+            }
+        }
+        return backfill(last == null ? from : last, to);
+    }
+
+    /**
+     * Rebuilds the Analytics rows for every day in [from, to] from the raw sales,
+     * one short READ COMMITTED transaction per day
+     *
+     * @param from First day, inclusive
+     * @param to   Last day, inclusive
+     * @return Number of days that had sales
+     * @throws SQLException If a database error occurs
+     */
+    public int backfill(LocalDate from, LocalDate to) throws SQLException {
+        int days = 0;
+        try (Connection conn = requireConnection()) {
+            readCommitted(conn);
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                days += rebuildDay(conn, day);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Reads the daily rows for a date range, oldest first
+     *
+     * @param from First day, inclusive
+     * @param to   Last day, inclusive
+     * @return List of daily rows (days without sales are absent)
+     * @throws SQLException If a database error occurs
+     */
+    public List<Analytics> getDailyRows(LocalDate from, LocalDate to) throws SQLException {
+        List<Analytics> rows = new ArrayList<>();
+        try (Connection conn = requireConnection()) {
+            try (PreparedStatement pstmt = DAILY_ROWS.prepare(conn)) {
+                pstmt.setDate(1, Date.valueOf(from));
+                pstmt.setDate(2, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(mapRow(rs));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sums the daily rows that fall in a reporting window.
+     * total_customers is the sum of daily distinct customers (customer
+     * visits); AnalyticsService counts the raw sales the same way.
+     *
+     * @param conn   Open connection to read with
+     * @param window The reporting period
+     * @return Totals for the window (bestProduct is not set)
+     * @throws SQLException If a database error occurs
+     */
+    Analytics getTotals(Connection conn, TimeWindow window) throws SQLException {
+        Analytics totals = new Analytics();
+        try (PreparedStatement pstmt = TOTALS.prepare(conn, window.predicate("date"));
+             ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                totals.setTotalSales(rs.getDouble("total_sales"));
+                totals.setTotalRevenue(rs.getDouble("total_revenue"));
+                totals.setTotalTransactions(rs.getInt("total_transactions"));
+                totals.setTotalCustomers(rs.getInt("total_customers"));
+            }
+        }
+        return totals;
+    }
+
+    // === INTERNALS ===
+
+    private void drainPending() {
+        drainScheduled.set(false);
+        List<Integer> saleIds = new ArrayList<>();
+        Integer id;
+        while ((id = pendingSales.poll()) != null) {
+            saleIds.add(id);
+        }
+        if (saleIds.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = requireConnection()) {
+            readCommitted(conn);
+            for (LocalDate day : findSaleDays(conn, saleIds)) {
+                refreshDay(conn, day);
+                cube.refreshDay(conn, day);
+            }
+        } catch (SQLException e) {
+            // Keep the sales so their days are refreshed on the next attempt
+            pendingSales.addAll(saleIds);
+            System.err.println("Error updating analytics rollup, retrying in " + RETRY_DELAY_SEC + " s: "
+                    + e.getMessage());
+            if (drainScheduled.compareAndSet(false, true)) {
+                worker.schedule(this::drainPending, RETRY_DELAY_SEC, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Under the default REPEATABLE READ, INSERT ... SELECT takes shared next-key locks on every
+     * Sales/Sale_Details row it reads, which holds up checkout inserts; READ COMMITTED reads a
+     * snapshot instead. The pool restores the isolation when the connection is returned.
+     */
+    static void readCommitted(Connection conn) throws SQLException {
+        conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    }
+
+    // Replaces one day's row in its own transaction; a day without sales ends up with no row
+    private int rebuildDay(Connection conn, LocalDate day) throws SQLException {
+        Date d = Date.valueOf(day);
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement pstmt = DELETE_RANGE.prepare(conn)) {
+                pstmt.setDate(1, d);
+                pstmt.setDate(2, d);
+                pstmt.executeUpdate();
+            }
+
+            int days;
+            try (PreparedStatement pstmt = INSERT_RANGE.prepare(conn)) {
+                pstmt.setDate(1, d);
+                pstmt.setDate(2, d);
+                days = pstmt.executeUpdate();
+            }
+
+            try (PreparedStatement pstmt = BEST_RANGE.prepare(conn)) {
+                pstmt.setDate(1, d);
+                pstmt.setDate(2, d);
+                pstmt.executeUpdate();
+            }
+
+            conn.commit();
+            return days;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private Set<LocalDate> findSaleDays(Connection conn, List<Integer> saleIds) throws SQLException {
+        Set<LocalDate> days = new TreeSet<>();
+        try (PreparedStatement pstmt = SALE_DAYS.prepare(conn, SqlStatement.placeholders(saleIds.size()))) {
+            for (int i = 0; i < saleIds.size(); i++) {
+                pstmt.setInt(i + 1, saleIds.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    days.add(rs.getDate("day").toLocalDate());
+                }
+            }
+        }
+        return days;
+    }
+
+    private void refreshDay(Connection conn, LocalDate day) throws SQLException {
+        Date d = Date.valueOf(day);
+        try (PreparedStatement pstmt = REFRESH_DAY.prepare(conn)) {
+            for (int i = 1; i <= 5; i++) {
+                pstmt.setDate(i, d);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private Analytics mapRow(ResultSet rs) throws SQLException {
+        Analytics row = new Analytics();
+        row.setAnalyticsId(rs.getInt("analytics_id"));
+        row.setDate(rs.getDate("date").toLocalDate());
+        row.setTotalSales(rs.getDouble("total_sales"));
+        row.setTotalRevenue(rs.getDouble("total_revenue"));
+        row.setTotalTransactions(rs.getInt("total_transactions"));
+        row.setTotalCustomers(rs.getInt("total_customers"));
+        int best = rs.getInt("best_product");
+        row.setBestProduct(rs.wasNull() ? null : best);
+        return row;
+    }
+
+    private Connection requireConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,38 @@
+package services;
+
+import java.util.List;
+
+/**
+ * Page - One page of a keyset-paginated list.
+ *
+ * getNextCursor() is an opaque token for the page after this one, or null
+ * when this is the last page. A cursor holds the sort key of the page's last
+ * row, not a position, so it stays valid while rows are added or removed
+ * elsewhere in the list: the next page starts right after that row, without
+ * skipping or repeating rows.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The cursor to pass as "after" for the next page, or null at the end of the list
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
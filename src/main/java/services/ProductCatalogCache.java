@@ -0,0 +1,324 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import models.Product;
+
+/**
+ * ProductCatalogCache - Process-wide in-memory copy of the Products table.
+ *
+ * Keyed by product_id with a per-category secondary index. ProductService
+ * loads it once and then keeps it current in place on every add, update,
+ * stock change and delete (and SalesService on checkout), so repeated reads
+ * from ProductUI and SalesUI never go back to the database.
+ *
+ * Every change bumps getVersion(); a screen can remember the version it last
+ * rendered and reload only when it has moved on. Entries are replaced rather
+ * than mutated, so lists handed out earlier never change underneath a caller.
+ * Products returned from the cache must be treated as read-only.
+ */
+public class ProductCatalogCache {
+
+    // Full reload after this long, to pick up changes made by other tills
+    private static final long MAX_AGE_MS = 5 * 60 * 1000;
+
+    private static final Comparator<Product> BY_NAME =
+            Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparingInt(Product::getProductId);
+
+    private static final ProductCatalogCache INSTANCE = new ProductCatalogCache();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Product> byId = new HashMap<>();
+    private final Map<String, Map<Integer, Product>> byCategory = new TreeMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean loaded = false;
+    private volatile long loadedAt = 0;
+    // Name-sorted view, rebuilt lazily after a change
+    private List<Product> sortedView = null;
+
+    /**
+     * Notified after every change to the cached catalog
+     */
+    public interface CatalogListener {
+        /**
+         * @param product The new state of the product, or null when it was removed
+         * @param productId The product that changed
+         */
+        void productChanged(int productId, Product product);
+
+        /**
+         * Called after a full (re)load replaced the whole catalog
+         */
+        default void catalogReloaded(List<Product> products) {
+        }
+    }
+
+    private ProductCatalogCache() {
+    }
+
+    public static ProductCatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if the cache holds a complete catalog that is not too old
+     */
+    public boolean isLoaded() {
+        return loaded && System.currentTimeMillis() - loadedAt < MAX_AGE_MS;
+    }
+
+    /**
+     * @return Counter that increases on every change; compare to detect a stale view
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces the whole catalog (after reading every product from the database)
+     *
+     * @param products All products
+     */
+    public void load(List<Product> products) {
+        List<Product> snapshot;
+        lock.writeLock().lock();
+        try {
+            byId.clear();
+            byCategory.clear();
+            for (Product p : products) {
+                index(p.copy());
+            }
+            sortedView = null;
+            loaded = true;
+            loadedAt = System.currentTimeMillis();
+            version.incrementAndGet();
+            snapshot = sorted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (CatalogListener l : listeners) {
+            l.catalogReloaded(snapshot);
+        }
+    }
+
+    /**
+     * Marks the catalog due for a reload; the next full read through
+     * ProductService reloads it. Until then the entries stay readable and
+     * in-place updates keep applying, so no caller sees stale stock.
+     */
+    public void invalidate() {
+        loadedAt = 0;
+        version.incrementAndGet();
+    }
+
+    // === READS ===
+
+    /**
+     * @return All products sorted by name (unmodifiable)
+     */
+    public List<Product> getAll() {
+        lock.readLock().lock();
+        try {
+            if (sortedView != null) {
+                return sortedView;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            return sorted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Product get(int productId) {
+        lock.readLock().lock();
+        try {
+            return byId.get(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Products in one category sorted by name
+     */
+    public List<Product> getByCategory(String category) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Product> members = byCategory.get(category);
+            if (members == null) {
+                return new ArrayList<>();
+            }
+            List<Product> result = new ArrayList<>(members.values());
+            result.sort(BY_NAME);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Distinct categories in alphabetical order
+     */
+    public List<String> getCategories() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(byCategory.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === IN-PLACE UPDATES ===
+
+    /**
+     * Adds or replaces one product (after an INSERT or UPDATE succeeded)
+     */
+    public void put(Product product) {
+        if (!loaded) {
+            return;
+        }
+        Product entry = product.copy();
+        lock.writeLock().lock();
+        try {
+            Product old = unindex(entry.getProductId());
+            if (old != null && entry.getCreatedAt() == null) {
+                entry.setCreatedAt(old.getCreatedAt());
+            }
+            index(entry);
+            sortedView = null;
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChanged(entry.getProductId(), entry);
+    }
+
+    /**
+     * Sets the stock of a cached product
+     */
+    public void setStock(int productId, int newStock) {
+        replaceStock(productId, newStock, false);
+    }
+
+    /**
+     * Adds delta (negative for a sale) to the stock of a cached product
+     */
+    public void adjustStock(int productId, int delta) {
+        replaceStock(productId, delta, true);
+    }
+
+    /**
+     * Removes a product (after a DELETE succeeded)
+     */
+    public void remove(int productId) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (unindex(productId) == null) {
+                return;
+            }
+            sortedView = null;
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChanged(productId, null);
+    }
+
+    // === INTERNALS ===
+
+    private void replaceStock(int productId, int value, boolean relative) {
+        if (!loaded) {
+            return;
+        }
+        Product entry;
+        lock.writeLock().lock();
+        try {
+            Product old = byId.get(productId);
+            if (old == null) {
+                return;
+            }
+            // Constructor path: skips setStock's negative check, the database is the authority
+            entry = new Product(old.getProductId(), old.getName(), old.getCategory(), old.getPrice(),
+                    relative ? old.getStock() + value : value, old.getCreatedAt(), old.getUpdatedAt());
+            unindex(productId);
+            index(entry);
+            sortedView = null;
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChanged(productId, entry);
+    }
+
+    // Caller holds the write lock
+    private void index(Product p) {
+        byId.put(p.getProductId(), p);
+        byCategory.computeIfAbsent(p.getCategory(), k -> new HashMap<>()).put(p.getProductId(), p);
+    }
+
+    // Caller holds the write lock
+    private Product unindex(int productId) {
+        Product old = byId.remove(productId);
+        if (old != null) {
+            Map<Integer, Product> members = byCategory.get(old.getCategory());
+            if (members != null) {
+                members.remove(productId);
+                if (members.isEmpty()) {
+                    byCategory.remove(old.getCategory());
+                }
+            }
+        }
+        return old;
+    }
+
+    // Caller holds the write lock
+    private List<Product> sorted() {
+        if (sortedView == null) {
+            List<Product> list = new ArrayList<>(byId.values());
+            list.sort(BY_NAME);
+            sortedView = Collections.unmodifiableList(list);
+        }
+        return sortedView;
+    }
+
+    private void fireChanged(int productId, Product product) {
+        for (CatalogListener l : listeners) {
+            l.productChanged(productId, product);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import models.Product;
+
+/**
+ * ProductSearchIndex - N-gram index over product names and categories for the
+ * POS search boxes.
+ *
+ * Every lower-cased name and category is split into all 1, 2 and 3 character
+ * grams, each with a sorted posting list of product slots. A query of up to
+ * three characters is answered by a single posting list; a longer one merges
+ * the shortest postings of its trigrams and only checks the survivors with
+ * indexOf. Matches are ranked (exact name, name prefix, word prefix, name
+ * substring, category) and the best K are kept in a bounded heap.
+ *
+ * Names are also kept in a sorted map, so when a top-K query has at least K
+ * name-prefix matches (typical for the first keystrokes) the answer is read
+ * straight off that map without ranking the whole catalog.
+ *
+ * The index follows ProductCatalogCache: it rebuilds on a full reload and
+ * re-indexes a single product when the catalog reports a change.
+ */
+public class ProductSearchIndex implements ProductCatalogCache.CatalogListener {
+
+    private static final int GRAM = 3;
+
+    // Rank buckets, lower is better
+    private static final int EXACT = 0;
+    private static final int NAME_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int NAME_SUBSTRING = 3;
+    private static final int CATEGORY = 4;
+
+    private static final ProductSearchIndex INSTANCE = new ProductSearchIndex();
+
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Products live in dense slots so postings can be plain int arrays
+    private Entry[] slots = new Entry[1024];
+    private int slotCount = 0;
+    private final IntList freeSlots = new IntList();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Map<String, IntList> categoryPostings = new HashMap<>();
+    private final TreeMap<String, IntList> byName = new TreeMap<>();
+
+    // One indexed product
+    private static final class Entry {
+        final Product product;
+        final String name;
+        final String category;
+        final int slot;
+
+        Entry(Product product, int slot) {
+            this.product = product;
+            this.name = normalize(product.getName());
+            this.category = normalize(product.getCategory());
+            this.slot = slot;
+        }
+    }
+
+    // A match waiting in the top-K heap
+    private static final class Hit {
+        final Entry entry;
+        final int rank;
+
+        Hit(Entry entry, int rank) {
+            this.entry = entry;
+            this.rank = rank;
+        }
+    }
+
+    // Best first: rank, then alphabetical like the product tables
+    private static final Comparator<Hit> BEST_FIRST = Comparator.<Hit>comparingInt(h -> h.rank)
+            .thenComparing(h -> h.entry.name)
+            .thenComparingInt(h -> h.entry.product.getProductId());
+
+    private ProductSearchIndex() {
+        catalog.addListener(this);
+        if (catalog.isLoaded()) {
+            // Catalog was loaded before the first search; index what is there
+            catalogReloaded(catalog.getAll());
+        }
+    }
+
+    public static ProductSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Finds products whose name or category contains the query (case-insensitive)
+     *
+     * @param query    Text typed in the search box; empty matches everything
+     * @param category Exact category to restrict to, or null / "All Categories" for any
+     * @param limit    Maximum number of results, 0 for no limit
+     * @return Matching products, best match first (cached instances, read-only)
+     */
+    public List<Product> search(String query, String category, int limit) {
+        String q = normalize(query);
+        String wanted = category == null || "All Categories".equals(category) ? null : normalize(category);
+
+        lock.readLock().lock();
+        try {
+            // Name-prefix matches come out of the sorted name map already in result order
+            if (q.isEmpty() || limit > 0) {
+                List<Product> prefixed = prefixMatches(q, wanted, limit);
+                if (q.isEmpty() || prefixed.size() == limit) {
+                    return prefixed;
+                }
+            }
+
+            IntList candidates = candidates(q);
+            if (wanted != null) {
+                candidates = IntList.intersect(candidates, categoryPostings.getOrDefault(wanted, IntList.EMPTY));
+            }
+
+            PriorityQueue<Hit> heap = new PriorityQueue<>(BEST_FIRST.reversed());
+            List<Hit> all = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                Entry e = slots[candidates.get(i)];
+                int rank = rank(e, q);
+                if (rank < 0) {
+                    continue;
+                }
+                Hit hit = new Hit(e, rank);
+                if (limit <= 0) {
+                    all.add(hit);
+                } else if (heap.size() < limit) {
+                    heap.add(hit);
+                } else if (BEST_FIRST.compare(hit, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(hit);
+                }
+            }
+
+            List<Hit> hits = limit <= 0 ? all : new ArrayList<>(heap);
+            hits.sort(BEST_FIRST);
+            List<Product> results = new ArrayList<>(hits.size());
+            for (Hit h : hits) {
+                results.add(h.entry.product);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of indexed products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === CATALOG EVENTS ===
+
+    @Override
+    public void catalogReloaded(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            slots = new Entry[Math.max(1024, products.size() + products.size() / 4)];
+            slotCount = 0;
+            freeSlots.clear();
+            slotById.clear();
+            postings.clear();
+            categoryPostings.clear();
+            byName.clear();
+            for (Product p : products) {
+                add(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productChanged(int productId, Product product) {
+        lock.writeLock().lock();
+        try {
+            // Re-read the catalog so events that arrive out of order still end in its current state
+            Product current = catalog.get(productId);
+            Integer slot = slotById.get(productId);
+            Entry old = slot == null ? null : slots[slot];
+            if (current == null) {
+                if (old != null) {
+                    remove(old);
+                }
+                return;
+            }
+            if (old != null && old.name.equals(normalize(current.getName()))
+                    && old.category.equals(normalize(current.getCategory()))) {
+                // Price or stock only: the grams are unchanged
+                slots[old.slot] = new Entry(current, old.slot);
+                return;
+            }
+            if (old != null) {
+                remove(old);
+            }
+            add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === INTERNALS ===
+
+    // Caller holds the read lock; names starting with q in alphabetical order
+    private List<Product> prefixMatches(String q, String wanted, int limit) {
+        List<Product> results = new ArrayList<>();
+        NavigableMap<String, IntList> range = q.isEmpty() ? byName
+                : byName.subMap(q, true, q + Character.MAX_VALUE, false);
+        for (IntList list : range.values()) {
+            for (int i = 0; i < list.size(); i++) {
+                Entry e = slots[list.get(i)];
+                if (wanted != null && !wanted.equals(e.category)) {
+                    continue;
+                }
+                results.add(e.product);
+                if (results.size() == limit) {
+                    return results;
+                }
+            }
+        }
+        return results;
+    }
+
+    // Caller holds the read lock; q is not empty
+    private IntList candidates(String q) {
+        if (q.length() <= GRAM) {
+            return postings.getOrDefault(q, IntList.EMPTY);
+        }
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            IntList list = postings.get(q.substring(i, i + GRAM));
+            if (list == null) {
+                return IntList.EMPTY;
+            }
+            lists.add(list);
+        }
+        // Merging the three shortest lists leaves few enough candidates for indexOf to finish the job
+        lists.sort(Comparator.comparingInt(IntList::size));
+        IntList result = lists.get(0);
+        for (int i = 1; i < Math.min(lists.size(), 3) && result.size() > 0; i++) {
+            result = IntList.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    // -1 when the entry does not really contain q (trigram false positive)
+    private static int rank(Entry e, String q) {
+        int at = e.name.indexOf(q);
+        if (at == 0) {
+            return e.name.length() == q.length() ? EXACT : NAME_PREFIX;
+        }
+        if (at > 0) {
+            // Any occurrence right after a space counts as a word prefix
+            for (int i = at; i >= 0; i = e.name.indexOf(q, i + 1)) {
+                if (e.name.charAt(i - 1) == ' ') {
+                    return WORD_PREFIX;
+                }
+            }
+            return NAME_SUBSTRING;
+        }
+        return e.category.contains(q) ? CATEGORY : -1;
+    }
+
+    // Caller holds the write lock
+    private void add(Product product) {
+        int slot;
+        if (freeSlots.size() > 0) {
+            slot = freeSlots.removeLast();
+        } else {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slot = slotCount++;
+        }
+        Entry e = new Entry(product, slot);
+        slots[slot] = e;
+        slotById.put(product.getProductId(), slot);
+        for (String gram : grams(e)) {
+            postings.computeIfAbsent(gram, k -> new IntList()).add(slot);
+        }
+        categoryPostings.computeIfAbsent(e.category, k -> new IntList()).add(slot);
+        byName.computeIfAbsent(e.name, k -> new IntList()).add(slot);
+    }
+
+    // Caller holds the write lock
+    private void remove(Entry e) {
+        for (String gram : grams(e)) {
+            unpost(postings, gram, e.slot);
+        }
+        unpost(categoryPostings, e.category, e.slot);
+        unpost(byName, e.name, e.slot);
+        slotById.remove(e.product.getProductId());
+        slots[e.slot] = null;
+        freeSlots.add(e.slot);
+    }
+
+    private static void unpost(Map<String, IntList> map, String key, int slot) {
+        IntList list = map.get(key);
+        if (list != null) {
+            list.remove(slot);
+            if (list.size() == 0) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(Entry e) {
+        Set<String> grams = new HashSet<>();
+        addGrams(grams, e.name);
+        addGrams(grams, e.category);
+        return grams;
+    }
+
+    private static void addGrams(Set<String> grams, String text) {
+        for (int n = 1; n <= GRAM; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                grams.add(text.substring(i, i + n));
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted, duplicate-free list of slots. A bulk load appends in ascending
+     * order, so add() is O(1) there and only single edits pay for the shift.
+     */
+    private static final class IntList {
+        static final IntList EMPTY = new IntList();
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] >= value) {
+                int at = Arrays.binarySearch(values, 0, size, value);
+                if (at >= 0) {
+                    return;
+                }
+                insertAt(-at - 1, value);
+                return;
+            }
+            insertAt(size, value);
+        }
+
+        void remove(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, size - at - 1);
+                size--;
+            }
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void insertAt(int at, int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = value;
+            size++;
+        }
+
+        static IntList intersect(IntList a, IntList b) {
+            IntList out = new IntList();
+            out.values = new int[Math.max(4, Math.min(a.size, b.size))];
+            int i = 0, j = 0;
+            while (i < a.size && j < b.size) {
+                int x = a.values[i], y = b.values[j];
+                if (x == y) {
+                    out.values[out.size++] = x;
+                    i++;
+                    j++;
+                } else if (x < y) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return out;
+        }
+    }
+}
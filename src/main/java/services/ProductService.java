@@ -1,7 +1,12 @@
 package services;
 
+import database.DBConnection;
+import database.Keyset;
+import database.SqlStatement;
+import database.StatementRegistry;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
 import models.Product;
 
 /**
@@ -11,23 +16,87 @@ import models.Product;
  */
 public class ProductService {
 
-    // Database connection object for executing queries
-    private Connection connection;
+    private static final SqlStatement INSERT = StatementRegistry.define("products.insert",
+            "INSERT INTO {Products} (name, category, price, stock) VALUES (?, ?, ?, ?)");
+    private static final SqlStatement FIND_ALL = StatementRegistry.define("products.findAll",
+            "SELECT * FROM {Products} ORDER BY name");
+    private static final SqlStatement FIND_BY_ID = StatementRegistry.define("products.findById",
+            "SELECT * FROM {Products} WHERE product_id = ?");
+    private static final SqlStatement FIND_LOW_STOCK = StatementRegistry.define("products.findLowStock",
+            "SELECT product_id, name, category, price, stock, created_at, updated_at FROM {Products} " +
+            "WHERE stock < ? ORDER BY stock ASC");
+    private static final SqlStatement UPDATE = StatementRegistry.define("products.update",
+            "UPDATE {Products} SET name = ?, category = ?, price = ?, stock = ? WHERE product_id = ?");
+    private static final SqlStatement UPDATE_STOCK = StatementRegistry.define("products.updateStock",
+            "UPDATE {Products} SET stock = ? WHERE product_id = ?");
+    private static final SqlStatement DECREASE_STOCK = StatementRegistry.define("products.decreaseStock",
+            "UPDATE {Products} SET stock = stock - ? WHERE product_id = ? AND stock >= ?");
+    private static final SqlStatement DELETE = StatementRegistry.define("products.delete",
+            "DELETE FROM {Products} WHERE product_id = ?");
+    private static final SqlStatement STOCK_VALUE = StatementRegistry.define("products.stockValue",
+            "SELECT SUM(price * stock) as total_value FROM {Products}");
+    // {0} is the WHERE condition (category and/or keyset seek), {1} the ORDER BY list of a SortField
+    private static final SqlStatement PAGE = StatementRegistry.define("products.page",
+            "SELECT * FROM {Products} WHERE {0} ORDER BY {1} LIMIT ? OFFSET ?");
+    // {0} is "" or a WHERE clause
+    private static final SqlStatement COUNT = StatementRegistry.define("products.count",
+            "SELECT COUNT(*) FROM {Products}{0}");
+    private static final SqlStatement COUNT_BY_NAME = StatementRegistry.define("products.countByName",
+            "SELECT COUNT(*) as count FROM {Products} WHERE name = ?");
+
+    // Largest page listProducts returns
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Orders products can be listed in. Each is backed by an index whose
+     * columns match the sort key (InnoDB appends product_id to every
+     * secondary index), so a page is one index seek plus limit rows
+     */
+    public enum SortField {
+        ID("product_id"),
+        NAME("name", "product_id"),
+        CATEGORY("category", "name", "product_id"),
+        PRICE("price", "product_id"),
+        STOCK("stock", "product_id");
+
+        private final String[] columns;
+
+        SortField(String... columns) {
+            this.columns = columns;
+        }
+
+        String order(boolean ascending) {
+            return "products." + name() + (ascending ? ".asc" : ".desc");
+        }
+    }
 
     // Current user ID for audit logging purposes (tracks who made changes)
     private int currentUserId = -1;
 
+    // Shared in-memory catalog, kept current by every write below
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    // N-gram index over the catalog for the search boxes
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
+
     /**
-     * Default constructor - initializes ProductService with database connection
-     * Retrieves connection from DBConnection singleton
+     * Default constructor - connections are borrowed from the DBConnection pool
+     * per operation and returned as soon as the operation completes
      */
     public ProductService() {
-        try {
-            this.connection = database.DBConnection.getConnection();
-        } catch (Exception e) {
-            System.err.println("Error getting database connection: " + e.getMessage());
-            this.connection = null;
+    }
+
+    /**
+     * Borrows a pooled connection for a single operation
+     * 
+     * @return An open connection; closing it returns it to the pool
+     * @throws SQLException if no connection is available
+     */
+    private Connection getConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
         }
+        return conn;
     }
 
     /**
@@ -53,17 +122,8 @@ public class ProductService {
             return false;
         }
 
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return false;
-        }
-
-        // SQL query to insert new product
-        String sql = "INSERT INTO Products (name, category, price, stock) VALUES (?, ?, ?, ?)";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql,
-                Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = INSERT.prepareWithKeys(connection)) {
 
             // Set parameters for prepared statement
             pstmt.setString(1, product.getName());
@@ -80,9 +140,10 @@ public class ProductService {
                     if (generatedKeys.next()) {
                         int productId = generatedKeys.getInt(1);
                         product.setProductId(productId);
+                        catalog.put(product);
 
                         // Log the action to audit log
-                        logAuditAction("ADD_PRODUCT",
+                        logAuditAction("ADD_PRODUCT", productId,
                                 "Added product: " + product.getName() + " (ID: " + productId + ")");
                     }
                 }
@@ -99,36 +160,170 @@ public class ProductService {
     }
 
     /**
-     * Retrieves all products from the database
+     * Retrieves all products, sorted by name
+     * Served from the shared catalog cache; the database is read only when the
+     * cache is empty or has aged out
      * 
      * @return ArrayList of all Product objects, or empty list if no products exist
      */
     public ArrayList<Product> getAllProducts() {
-        if (connection == null)
-            return new ArrayList<>();
-        ArrayList<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM Products ORDER BY name";
+        return copyOf(loadCatalog());
+    }
 
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+    /**
+     * @return The catalog version; changes whenever any product changes
+     */
+    public long getCatalogVersion() {
+        return catalog.getVersion();
+    }
+
+    /**
+     * Drops the cached catalog so the next read comes from the database
+     */
+    public void refreshCatalog() {
+        catalog.invalidate();
+    }
+
+    // Returns the cached catalog, loading it from the database if needed
+    private List<Product> loadCatalog() {
+        if (!catalog.isLoaded()) {
+            ArrayList<Product> products = queryAllProducts();
+            if (products != null) {
+                catalog.load(products);
+            } else {
+                return new ArrayList<>();
+            }
+        }
+        return catalog.getAll();
+    }
+
+    // Callers may edit what they get back, so cached entries are never handed out directly
+    private ArrayList<Product> copyOf(List<Product> cached) {
+        ArrayList<Product> products = new ArrayList<>(cached.size());
+        for (Product p : cached) {
+            products.add(p.copy());
+        }
+        return products;
+    }
+
+    // Full table read; null on a database error so an outage is not cached as "no products"
+    private ArrayList<Product> queryAllProducts() {
+        ArrayList<Product> products = new ArrayList<>();
+        try (Connection connection = getConnection();
+                PreparedStatement stmt = FIND_ALL.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Product product = new Product(
-                        rs.getInt("product_id"),
-                        rs.getString("name"),
-                        rs.getString("category"),
-                        rs.getDouble("price"),
-                        rs.getInt("stock"),
-                        hasColumn(rs, "created_at") ? rs.getTimestamp("created_at") : null,
-                        hasColumn(rs, "updated_at") ? rs.getTimestamp("updated_at") : null);
-                products.add(product);
+                products.add(readProduct(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving products: " + e.getMessage());
+            return null;
         }
         return products;
     }
 
+    /**
+     * Lists products a page at a time straight from the database, for lists
+     * too large to hold in memory. Pages are read by keyset: the cursor holds
+     * the sort key of the previous page's last row and the query seeks to it
+     * through the sort's index, so page 10,000 costs the same as page 1, and
+     * rows added or removed meanwhile never shift a page.
+     * 
+     * @param after     Cursor from the previous page, or null for the first page
+     * @param limit     Page size, at most MAX_PAGE_SIZE
+     * @param sort      Order of the list
+     * @param ascending Sort direction
+     * @param category  Category to restrict to, or null for all products
+     * @return The page and the cursor of the next one
+     * @throws IllegalArgumentException If the cursor was made for another order
+     * @throws SQLException on a database error, so a failed page is not mistaken for the end of the list
+     */
+    public Page<Product> listProducts(String after, int limit, SortField sort, boolean ascending, String category)
+            throws SQLException {
+        Object[] key = after == null ? null : Keyset.decodeCursor(after, sort.order(ascending), sort.columns.length);
+        return readPage(category, sort, ascending, key, 0, limit);
+    }
+
+    /**
+     * Lists the page starting at a row number, for jumps into the middle of a
+     * list. The server still walks past every skipped row, so this costs more
+     * the deeper the page; continue from the returned cursor with listProducts
+     */
+    public Page<Product> listProductsAt(int offset, int limit, SortField sort, boolean ascending, String category)
+            throws SQLException {
+        return readPage(category, sort, ascending, null, offset, limit);
+    }
+
+    private Page<Product> readPage(String category, SortField sort, boolean ascending, Object[] after, int offset,
+            int limit) throws SQLException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be 1-" + MAX_PAGE_SIZE);
+        }
+        StringBuilder where = new StringBuilder(category == null ? "1=1" : "category = ?");
+        if (after != null) {
+            where.append(" AND ").append(Keyset.after(sort.columns, ascending));
+        }
+
+        List<Product> products = new ArrayList<>(limit);
+        Object[] lastKey = null;
+        boolean more = false;
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = PAGE.prepare(connection, where.toString(),
+                        Keyset.orderBy(sort.columns, ascending))) {
+            int index = 1;
+            if (category != null) {
+                pstmt.setString(index++, category);
+            }
+            if (after != null) {
+                index = Keyset.bind(pstmt, index, after);
+            }
+            // One row more than asked for tells whether there is a next page
+            pstmt.setInt(index++, limit + 1);
+            pstmt.setInt(index, offset);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (products.size() == limit) {
+                        more = true;
+                        break;
+                    }
+                    products.add(readProduct(rs));
+                    lastKey = Keyset.keyOf(rs, sort.columns);
+                }
+            }
+        }
+        return new Page<>(products, more ? Keyset.encodeCursor(sort.order(ascending), lastKey) : null);
+    }
+
+    /**
+     * Counts products in the database
+     * 
+     * @param category Category to count, or null for all products
+     */
+    public int countProducts(String category) throws SQLException {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = COUNT.prepare(connection, category == null ? "" : " WHERE category = ?")) {
+            if (category != null) {
+                pstmt.setString(1, category);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private Product readProduct(ResultSet rs) throws SQLException {
+        return new Product(
+                rs.getInt("product_id"),
+                rs.getString("name"),
+                rs.getString("category"),
+                rs.getDouble("price"),
+                rs.getInt("stock"),
+                hasColumn(rs, "created_at") ? rs.getTimestamp("created_at") : null,
+                hasColumn(rs, "updated_at") ? rs.getTimestamp("updated_at") : null);
+    }
+
     private boolean hasColumn(ResultSet rs, String columnName) throws SQLException {
         ResultSetMetaData rsmd = rs.getMetaData();
         int columns = rsmd.getColumnCount();
@@ -147,21 +342,20 @@ public class ProductService {
      * @return Product object if found, null otherwise
      */
     public Product getProductById(int productId) {
-        if (connection == null)
-            return null;
-        String sql = "SELECT * FROM Products WHERE product_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        // A single row never triggers a full catalog read; the query covers an expired cache
+        if (catalog.isLoaded()) {
+            Product cached = catalog.get(productId);
+            if (cached != null) {
+                return cached.copy();
+            }
+        }
+
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = FIND_BY_ID.prepare(connection)) {
             pstmt.setInt(1, productId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Product(
-                            rs.getInt("product_id"),
-                            rs.getString("name"),
-                            rs.getString("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock"),
-                            hasColumn(rs, "created_at") ? rs.getTimestamp("created_at") : null,
-                            hasColumn(rs, "updated_at") ? rs.getTimestamp("updated_at") : null);
+                    return readProduct(rs);
                 }
             }
         } catch (SQLException e) {
@@ -177,46 +371,21 @@ public class ProductService {
      * @return ArrayList of Product objects matching the search criteria
      */
     public ArrayList<Product> searchProducts(String searchTerm) {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return new ArrayList<>();
-        }
-
-        // Initialize list to store search results
-        ArrayList<Product> products = new ArrayList<>();
-
-        // SQL query with LIKE operator for fuzzy search
-        String sql = "SELECT product_id, name, category, price, stock, " +
-                "created_at, updated_at FROM Products " +
-                "WHERE name LIKE ? OR category LIKE ? " +
-                "ORDER BY name";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("product_id"),
-                            rs.getString("name"),
-                            rs.getString("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock"),
-                            rs.getTimestamp("created_at"),
-                            rs.getTimestamp("updated_at"));
-                    products.add(product);
-                }
-            }
-
-        } catch (SQLException e) {
-            System.err.println("Error searching products: " + e.getMessage());
-        }
+        return searchProducts(searchTerm, null, 0);
+    }
 
-        return products;
+    /**
+     * Ranked substring search over product names and categories, answered from
+     * the in-memory search index (no database round trip per keystroke)
+     * 
+     * @param searchTerm The text typed by the user; empty matches all products
+     * @param category   Category to restrict to, or null / "All Categories"
+     * @param limit      Maximum number of results, 0 for all
+     * @return Matching products, best match first
+     */
+    public ArrayList<Product> searchProducts(String searchTerm, String category, int limit) {
+        loadCatalog();
+        return copyOf(searchIndex.search(searchTerm, category, limit));
     }
 
     /**
@@ -226,42 +395,8 @@ public class ProductService {
      * @return ArrayList of Product objects in the specified category
      */
     public ArrayList<Product> getProductsByCategory(String category) {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return new ArrayList<>();
-        }
-
-        // Initialize list to store products from the category
-        ArrayList<Product> products = new ArrayList<>();
-
-        String sql = "SELECT product_id, name, category, price, stock, " +
-                "created_at, updated_at FROM Products " +
-                "WHERE category = ? ORDER BY name";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-
-            pstmt.setString(1, category);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("product_id"),
-                            rs.getString("name"),
-                            rs.getString("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock"),
-                            rs.getTimestamp("created_at"),
-                            rs.getTimestamp("updated_at"));
-                    products.add(product);
-                }
-            }
-
-        } catch (SQLException e) {
-            System.err.println("Error retrieving products by category: " + e.getMessage());
-        }
-
-        return products;
+        loadCatalog();
+        return copyOf(catalog.getByCategory(category));
     }
 
     /**
@@ -273,20 +408,11 @@ public class ProductService {
      * @return ArrayList of Product objects with low stock, sorted by stock quantity
      */
     public ArrayList<Product> getLowStockProducts(int threshold) {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return new ArrayList<>();
-        }
-
         // Initialize list to store low stock products
         ArrayList<Product> products = new ArrayList<>();
 
-        String sql = "SELECT product_id, name, category, price, stock, " +
-                "created_at, updated_at FROM Products " +
-                "WHERE stock < ? ORDER BY stock ASC";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = FIND_LOW_STOCK.prepare(connection)) {
 
             pstmt.setInt(1, threshold);
 
@@ -324,17 +450,8 @@ public class ProductService {
             return false;
         }
 
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return false;
-        }
-
-        // SQL query to update product
-        String sql = "UPDATE Products SET name = ?, category = ?, price = ?, " +
-                "stock = ? WHERE product_id = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = UPDATE.prepare(connection)) {
 
             // Set parameters
             pstmt.setString(1, product.getName());
@@ -348,8 +465,15 @@ public class ProductService {
 
             if (affectedRows > 0) {
                 // Log the action
-                logAuditAction("UPDATE_PRODUCT",
+                logAuditAction("UPDATE_PRODUCT", product.getProductId(),
                         "Updated product: " + product.getName() + " (ID: " + product.getProductId() + ")");
+                catalog.put(product);
+
+                // Keep the analytics cube's category filter in step with the product
+                SalesCubeService cube = SalesCubeService.getInstance();
+                if (cube.isReady()) {
+                    cube.onProductCategoryChanged(product.getProductId(), product.getCategory());
+                }
 
                 System.out.println("Product updated successfully: " + product.getName());
                 return true;
@@ -378,15 +502,8 @@ public class ProductService {
             return false;
         }
 
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return false;
-        }
-
-        String sql = "UPDATE Products SET stock = ? WHERE product_id = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = UPDATE_STOCK.prepare(connection)) {
 
             pstmt.setInt(1, newStock);
             pstmt.setInt(2, productId);
@@ -394,7 +511,8 @@ public class ProductService {
             int affectedRows = pstmt.executeUpdate();
 
             if (affectedRows > 0) {
-                logAuditAction("UPDATE_STOCK",
+                catalog.setStock(productId, newStock);
+                logAuditAction("UPDATE_STOCK", productId,
                         "Updated stock for product ID " + productId + " to " + newStock);
                 return true;
             }
@@ -408,29 +526,41 @@ public class ProductService {
 
     /**
      * Decreases stock quantity for a product when items are sold
-     * Verifies sufficient stock exists before reducing quantity
+     * The check and the decrement are one conditional UPDATE, so a concurrent
+     * sale or a stale catalog entry can never take stock below zero
      * 
      * @param productId The ID of the product to decrease stock for
      * @param quantity  The amount to decrease from stock
      * @return true if stock was decreased successfully, false if insufficient stock
      */
     public boolean decreaseStock(int productId, int quantity) {
-        // First check if sufficient stock is available
-        Product product = getProductById(productId);
-        if (product == null) {
-            System.err.println("Product not found");
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = DECREASE_STOCK.prepare(connection)) {
+
+            pstmt.setInt(1, quantity);
+            pstmt.setInt(2, productId);
+            pstmt.setInt(3, quantity);
+
+            if (pstmt.executeUpdate() > 0) {
+                catalog.adjustStock(productId, -quantity);
+                logAuditAction("UPDATE_STOCK", productId,
+                        "Decreased stock for product ID " + productId + " by " + quantity);
+                return true;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error decreasing stock: " + e.getMessage());
             return false;
         }
 
-        if (product.getStock() < quantity) {
+        Product product = getProductById(productId);
+        if (product == null) {
+            System.err.println("Product not found");
+        } else {
             System.err.println("Insufficient stock. Available: " + product.getStock() +
                     ", Required: " + quantity);
-            return false;
         }
-
-        // Update the stock
-        int newStock = product.getStock() - quantity;
-        return updateStock(productId, newStock);
+        return false;
     }
 
     /**
@@ -441,12 +571,6 @@ public class ProductService {
      * @return true if deletion was successful, false otherwise
      */
     public boolean deleteProduct(int productId) {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return false;
-        }
-
         // First get product details for audit logging
         Product product = getProductById(productId);
         if (product == null) {
@@ -454,18 +578,18 @@ public class ProductService {
             return false;
         }
 
-        // SQL query to delete product
-        String sql = "DELETE FROM Products WHERE product_id = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = DELETE.prepare(connection)) {
 
             pstmt.setInt(1, productId);
 
             int affectedRows = pstmt.executeUpdate();
 
             if (affectedRows > 0) {
+                catalog.remove(productId);
+
                 // Log the deletion
-                logAuditAction("DELETE_PRODUCT",
+                logAuditAction("DELETE_PRODUCT", productId,
                         "Deleted product: " + product.getName() + " (ID: " + productId + ")");
 
                 System.out.println("Product deleted successfully: " + product.getName());
@@ -490,26 +614,8 @@ public class ProductService {
      * @return The total number of products, or 0 if error occurs
      */
     public int getTotalProductCount() {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return 0;
-        }
-
-        String sql = "SELECT COUNT(*) as count FROM Products";
-
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-
-        } catch (SQLException e) {
-            System.err.println("Error getting product count: " + e.getMessage());
-        }
-
-        return 0;
+        loadCatalog();
+        return catalog.size();
     }
 
     /**
@@ -520,16 +626,9 @@ public class ProductService {
      * @return The total value of stock in the inventory
      */
     public double getTotalStockValue() {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return 0.0;
-        }
-
-        String sql = "SELECT SUM(price * stock) as total_value FROM Products";
-
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement stmt = STOCK_VALUE.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
 
             if (rs.next()) {
                 return rs.getDouble("total_value");
@@ -549,58 +648,27 @@ public class ProductService {
      * @return ArrayList of category names
      */
     public ArrayList<String> getAllCategories() {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return new ArrayList<>();
-        }
-
-        // Initialize list to store unique categories
-        ArrayList<String> categories = new ArrayList<>();
-
-        String sql = "SELECT DISTINCT category FROM Products ORDER BY category";
-
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                categories.add(rs.getString("category"));
-            }
-
-        } catch (SQLException e) {
-            System.err.println("Error retrieving categories: " + e.getMessage());
-        }
-
-        return categories;
+        loadCatalog();
+        return new ArrayList<>(catalog.getCategories());
     }
 
     /**
      * Logs product-related actions to audit trail for tracking and compliance
-     * Records who performed what action and when
+     * Records who performed what action and when. The entry is queued on the
+     * shared AuditWriter and written in the background, so callers do not
+     * wait for the INSERT
      * 
-     * @param action  The type of action performed (e.g., ADD_PRODUCT,
-     *                UPDATE_PRODUCT)
-     * @param details Description of the action performed
+     * @param action    The type of action performed (e.g., ADD_PRODUCT,
+     *                  UPDATE_PRODUCT)
+     * @param productId The product the action was performed on
+     * @param details   Description of the action performed
      */
-    private void logAuditAction(String action, String details) {
+    private void logAuditAction(String action, int productId, String details) {
         // Only log if we have a valid user ID for accountability
         if (currentUserId <= 0) {
             return;
         }
-
-        String sql = "INSERT INTO Audit_Logs (user_id, action, details) VALUES (?, ?, ?)";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-
-            pstmt.setInt(1, currentUserId);
-            pstmt.setString(2, action);
-            pstmt.setString(3, details);
-
-            pstmt.executeUpdate();
-
-        } catch (SQLException e) {
-            System.err.println("Error logging audit action: " + e.getMessage());
-        }
+        AuditWriter.getInstance().log(currentUserId, action, "Products", productId, details);
     }
 
     /**
@@ -611,15 +679,8 @@ public class ProductService {
      * @return true if product exists, false otherwise
      */
     public boolean productExists(String name) {
-        // Check if database connection is available
-        if (connection == null) {
-            System.err.println("Database connection not available");
-            return false;
-        }
-
-        String sql = "SELECT COUNT(*) as count FROM Products WHERE name = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection();
+                PreparedStatement pstmt = COUNT_BY_NAME.prepare(connection)) {
 
             pstmt.setString(1, name);
 
@@ -647,9 +708,9 @@ public class ProductService {
 
     /**
      * Closes the database connection when done
-     * Should be called when the service is no longer needed
+     * Connections are returned to the pool after every operation, so there is
+     * nothing left to release; kept for callers that still invoke it
      */
     public void closeConnection() {
-        // Connection cleanup can be implemented here
     }
 }
\ No newline at end of file
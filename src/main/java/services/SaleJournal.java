@@ -0,0 +1,308 @@
+package services;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import models.Sale;
+import models.SaleDetail;
+
+/**
+ * SaleJournal - Durable local write-ahead journal for sales taken while the
+ * database cannot be reached.
+ *
+ * Each sale is appended as one line and forced to disk before append()
+ * returns, so a checkout that the lane has confirmed survives a crash or
+ * power loss. SaleSyncService later replays the pending sales in journal
+ * order and records the outcome with a synced or rejected line. Once nothing
+ * is pending the file is truncated.
+ *
+ * Line format (tab separated, strings URL-encoded, CRC32 of the line last):
+ *   S  seq  journalId  recordedAt  customerId  userId  total  discount
+ *      paymentMethod  status  notes  cashReceived  changeGiven  details  crc
+ *   A  journalId  saleId  crc       (synced)
+ *   R  journalId  reason  crc       (rejected; the sale line is copied to the rejected file)
+ * A torn last line (crash mid-write) fails its CRC and is ignored.
+ */
+public class SaleJournal {
+
+    private static final String JOURNAL_DIR = "src/main/resources/journal";
+    private static final String JOURNAL_FILE = "sales.journal";
+    private static final String REJECTED_FILE = "sales-rejected.journal";
+
+    private static SaleJournal instance;
+
+    /**
+     * A journaled sale waiting to be written to the database
+     */
+    public static final class Entry {
+        public final long seq;
+        public final String journalId;
+        public final long recordedAt;
+        public final Sale sale;
+        final String line;
+
+        Entry(long seq, String journalId, long recordedAt, Sale sale, String line) {
+            this.seq = seq;
+            this.journalId = journalId;
+            this.recordedAt = recordedAt;
+            this.sale = sale;
+            this.line = line;
+        }
+    }
+
+    private final File dir;
+    private final File file;
+    private final File rejectedFile;
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long nextSeq = 1;
+    // The last run stopped in the middle of a line; the next record starts a new one
+    private boolean tornTail;
+
+    /**
+     * Opens (and recovers) the journal kept in dir; the application uses getInstance()
+     */
+    public SaleJournal(File dir) {
+        this.dir = dir;
+        this.file = new File(dir, JOURNAL_FILE);
+        this.rejectedFile = new File(dir, REJECTED_FILE);
+        recover();
+    }
+
+    public static synchronized SaleJournal getInstance() {
+        if (instance == null) {
+            instance = new SaleJournal(new File(JOURNAL_DIR));
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "sale-journal-close"));
+        }
+        return instance;
+    }
+
+    /**
+     * Appends a sale and waits until it is on disk
+     *
+     * @param sale The sale to keep
+     * @return The journal entry; entry.seq identifies it to the cashier
+     * @throws IOException If the journal could not be written
+     */
+    public synchronized Entry append(Sale sale) throws IOException {
+        long seq = nextSeq;
+        String journalId = UUID.randomUUID().toString();
+        long recordedAt = System.currentTimeMillis();
+        String line = encodeSale(seq, journalId, recordedAt, sale);
+        write(line, true);
+        nextSeq++;
+        Entry entry = new Entry(seq, journalId, recordedAt, sale, line);
+        pending.put(journalId, entry);
+        return entry;
+    }
+
+    /**
+     * Records that a journaled sale is now in the database
+     */
+    public synchronized void markSynced(Entry entry, int saleId) throws IOException {
+        // Not forced: after a crash the sale is replayed and recognised by its journal ID
+        write(join("A", entry.journalId, String.valueOf(saleId)), false);
+        pending.remove(entry.journalId);
+        compactIfDrained();
+    }
+
+    /**
+     * Gives up on a journaled sale the database will never accept; it is kept in the rejected file
+     */
+    public synchronized void markRejected(Entry entry, String reason) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(rejectedFile, true), StandardCharsets.UTF_8)) {
+            out.write(entry.line + "\t" + encode(reason) + "\n");
+        }
+        write(join("R", entry.journalId, encode(reason)), true);
+        pending.remove(entry.journalId);
+        compactIfDrained();
+    }
+
+    /**
+     * @return Sales not yet synced, oldest first
+     */
+    public synchronized List<Entry> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing sale journal: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    // === FILE ===
+
+    private void write(String line, boolean force) throws IOException {
+        if (channel == null) {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(((tornTail ? "\n" : "") + line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        tornTail = false;
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    // Starts a fresh file once every sale in it has been synced or rejected
+    private void compactIfDrained() throws IOException {
+        if (!pending.isEmpty()) {
+            return;
+        }
+        close();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.force(true);
+        close();
+    }
+
+    // Rebuilds the pending list from the journal left by the last run
+    private void recover() {
+        if (!file.exists()) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = verify(line);
+                if (f == null) {
+                    skipped++;
+                    continue;
+                }
+                if ("S".equals(f[0])) {
+                    long seq = Long.parseLong(f[1]);
+                    pending.put(f[2], new Entry(seq, f[2], Long.parseLong(f[3]), decodeSale(f), line));
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                } else {
+                    pending.remove(f[1]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading sale journal: " + e.getMessage());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() > 0) {
+                raf.seek(raf.length() - 1);
+                tornTail = raf.read() != '\n';
+            }
+        } catch (IOException e) {
+            tornTail = true;
+        }
+        if (skipped > 0) {
+            System.err.println("Sale journal: ignored " + skipped + " damaged lines");
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("Sale journal: " + pending.size() + " sales waiting to be synced");
+        }
+    }
+
+    // === ENCODING ===
+
+    private static String encodeSale(long seq, String journalId, long recordedAt, Sale sale) {
+        StringBuilder details = new StringBuilder();
+        if (sale.getSaleDetails() != null) {
+            for (SaleDetail d : sale.getSaleDetails()) {
+                if (details.length() > 0) {
+                    details.append(';');
+                }
+                details.append(d.getProductId()).append(',').append(d.getQuantity()).append(',')
+                        .append(d.getUnitPrice()).append(',').append(d.getTotalPrice()).append(',')
+                        .append(d.getDiscount()).append(',').append(encode(d.getProductName()));
+            }
+        }
+        return join("S", String.valueOf(seq), journalId, String.valueOf(recordedAt),
+                String.valueOf(sale.getCustomerId()), String.valueOf(sale.getUserId()),
+                String.valueOf(sale.getTotalAmount()), String.valueOf(sale.getDiscount()),
+                encode(sale.getPaymentMethod()), encode(sale.getStatus()), encode(sale.getNotes()),
+                sale.getCashReceived() == null ? "" : String.valueOf(sale.getCashReceived()),
+                sale.getChangeGiven() == null ? "" : String.valueOf(sale.getChangeGiven()),
+                details.toString());
+    }
+
+    private static Sale decodeSale(String[] f) {
+        Sale sale = new Sale();
+        sale.setSaleDate(new Date(Long.parseLong(f[3])));
+        sale.setCustomerId(Integer.parseInt(f[4]));
+        sale.setUserId(Integer.parseInt(f[5]));
+        sale.setTotalAmount(Double.parseDouble(f[6]));
+        sale.setDiscount(Double.parseDouble(f[7]));
+        sale.setPaymentMethod(decode(f[8]));
+        sale.setStatus(decode(f[9]));
+        sale.setNotes(decode(f[10]));
+        sale.setCashReceived(f[11].isEmpty() ? null : Double.valueOf(f[11]));
+        sale.setChangeGiven(f[12].isEmpty() ? null : Double.valueOf(f[12]));
+        List<SaleDetail> details = new ArrayList<>();
+        if (!f[13].isEmpty()) {
+            for (String item : f[13].split(";")) {
+                String[] d = item.split(",", -1);
+                SaleDetail detail = new SaleDetail(Integer.parseInt(d[0]), decode(d[5]),
+                        Double.parseDouble(d[2]), Integer.parseInt(d[1]));
+                detail.setDiscount(Double.parseDouble(d[4]));
+                detail.setTotalPrice(Double.parseDouble(d[3]));
+                details.add(detail);
+            }
+        }
+        sale.setSaleDetails(details);
+        return sale;
+    }
+
+    // Joins the fields with tabs and appends the CRC32 of the result
+    private static String join(String... fields) {
+        String body = String.join("\t", fields);
+        return body + "\t" + crc(body);
+    }
+
+    // Splits a line and checks its CRC; null for a damaged line
+    private static String[] verify(String line) {
+        int cut = line.lastIndexOf('\t');
+        if (cut < 0) {
+            return null;
+        }
+        String body = line.substring(0, cut);
+        if (!crc(body).equals(line.substring(cut + 1))) {
+            return null;
+        }
+        String[] f = body.split("\t", -1);
+        boolean complete = "S".equals(f[0]) ? f.length == 14 : ("A".equals(f[0]) || "R".equals(f[0])) && f.length == 3;
+        return complete ? f : null;
+    }
+
+    private static String crc(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    // null is written as an empty field; real strings get a leading '=' to tell them apart from null
+    private static String encode(String s) {
+        return s == null ? "" : "=" + URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String s) {
+        return s.isEmpty() ? null : URLDecoder.decode(s.substring(1), StandardCharsets.UTF_8);
+    }
+}
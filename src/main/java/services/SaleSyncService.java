@@ -0,0 +1,446 @@
+package services;
+
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import models.Sale;
+import models.SaleDetail;
+
+/**
+ * SaleSyncService - Keeps the lane selling while the database is unreachable.
+ *
+ * When a checkout cannot reach the server before any of its statements is
+ * sent, SalesService hands the sale to journal(): it is written to the local SaleJournal, the
+ * catalog stock is lowered, and the lane carries on. While anything is
+ * waiting in the journal, new sales go straight to it as well, so they are
+ * replayed in the order they were rung up.
+ *
+ * A background thread replays pending sales every RETRY_INTERVAL_MS, one
+ * transaction per sale. Each replayed sale gets a Sale_Journal_Sync row keyed
+ * by its journal ID in the same transaction, so a sale that was committed
+ * just before a crash is recognised instead of inserted twice. Sales keep the
+ * time they were rung up.
+ *
+ * Conflicts: goods sold offline have already left the store, so a replayed
+ * sale is recorded even if stock ran out meanwhile; stock stops at zero and
+ * the shortfall is written to Sale_Journal_Sync.conflict. A sale the database
+ * rejects outright (for example a deleted customer) is moved to the journal's
+ * rejected file and counted in getRejectedCount(). Listeners (addListener)
+ * hear about every change so the till can show both to the operator.
+ */
+public class SaleSyncService {
+
+    public static final String SYNC_TABLE = "Sale_Journal_Sync";
+
+    private static final long RETRY_INTERVAL_MS = 5000;
+    private static final int MAX_RECENT_REJECTIONS = 20;
+
+    private static final SqlStatement CREATE_TABLE = StatementRegistry.define("sync.createTable",
+            "CREATE TABLE IF NOT EXISTS " + SYNC_TABLE + " (" +
+            "journal_id CHAR(36) PRIMARY KEY, " +
+            "sale_id INT NOT NULL, " +
+            "recorded_at TIMESTAMP NULL, " +
+            "synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+            "conflict VARCHAR(500) NULL, " +
+            "INDEX idx_journal_sync_sale (sale_id), " +
+            "FOREIGN KEY (sale_id) REFERENCES Sales(sale_id) ON DELETE CASCADE)");
+    private static final SqlStatement FIND_SYNCED = StatementRegistry.define("sync.findSynced",
+            "SELECT sale_id FROM " + SYNC_TABLE + " WHERE journal_id = ?");
+    private static final SqlStatement INSERT_SYNCED = StatementRegistry.define("sync.insertSynced",
+            "INSERT INTO " + SYNC_TABLE + " (journal_id, sale_id, recorded_at, conflict) VALUES (?, ?, ?, ?)");
+    private static final SqlStatement FIND_CONFLICTS = StatementRegistry.define("sync.findConflicts",
+            "SELECT journal_id, sale_id, recorded_at, conflict FROM " + SYNC_TABLE +
+            " WHERE conflict IS NOT NULL ORDER BY synced_at DESC LIMIT ?");
+    // {0} is the ? list of the sale's product IDs
+    private static final SqlStatement LOCK_STOCK = StatementRegistry.define("sync.lockStock",
+            "SELECT product_id, stock FROM {Products} WHERE product_id IN ({0}) ORDER BY product_id FOR UPDATE");
+    private static final SqlStatement BACKDATE_SALE = StatementRegistry.define("sync.backdateSale",
+            "UPDATE {Sales} SET sale_date = ? WHERE sale_id = ?");
+    private static final SqlStatement BACKDATE_CASH_LOG = StatementRegistry.define("sync.backdateCashLog",
+            "UPDATE Cash_Logs SET transaction_time = ? WHERE sale_id = ?");
+
+    private static final SaleSyncService INSTANCE = new SaleSyncService();
+
+    private final SaleJournal journal = SaleJournal.getInstance();
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Object syncLock = new Object();
+    private volatile boolean tableChecked = false;
+    // False from the first connection failure until the journal has drained
+    private volatile boolean online = true;
+
+    private final AtomicLong syncedCount = new AtomicLong();
+    private final AtomicLong conflictCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    // Guarded by itself; newest last
+    private final Deque<String> recentRejections = new ArrayDeque<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sale-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * A replayed sale that was recorded despite a stock shortfall
+     */
+    public static class Conflict {
+        public final String journalId;
+        public final int saleId;
+        public final Timestamp recordedAt;
+        public final String message;
+
+        Conflict(String journalId, int saleId, Timestamp recordedAt, String message) {
+            this.journalId = journalId;
+            this.saleId = saleId;
+            this.recordedAt = recordedAt;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Sale #" + saleId + " (rung up " + recordedAt + "): " + message;
+        }
+    }
+
+    private SaleSyncService() {
+    }
+
+    public static SaleSyncService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the background replay (no-op after the first call)
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        worker.scheduleWithFixedDelay(this::syncQuietly, 0, RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if a new sale must go to the journal to stay behind the ones already there
+     */
+    public boolean shouldJournal() {
+        return !online || journal.getPendingCount() > 0;
+    }
+
+    /**
+     * Keeps a sale in the local journal until the database is back
+     *
+     * @param sale The sale to keep
+     * @return Negative journal number, see SalesService.isJournaled()
+     * @throws SQLException If the journal itself could not be written
+     */
+    public int journal(Sale sale) throws SQLException {
+        SaleJournal.Entry entry;
+        try {
+            entry = journal.append(sale);
+        } catch (IOException e) {
+            throw new SQLException("Could not save sale offline: " + e.getMessage(), e);
+        }
+        online = false;
+        if (sale.getSaleDetails() != null) {
+            for (SaleDetail detail : sale.getSaleDetails()) {
+                catalog.adjustStock(detail.getProductId(), -detail.getQuantity());
+            }
+        }
+        System.out.println("Sale kept offline as journal #" + entry.seq + " (" + journal.getPendingCount()
+                + " waiting to sync)");
+        notifyListeners();
+        start();
+        return (int) -entry.seq;
+    }
+
+    /**
+     * Replays every pending sale now, stopping at the first connection failure
+     *
+     * @return Number of sales written to the database
+     */
+    public int syncNow() {
+        synchronized (syncLock) {
+            int synced = 0;
+            int rejected = 0;
+            try {
+                for (SaleJournal.Entry entry : journal.getPending()) {
+                    try {
+                        syncOne(entry);
+                        synced++;
+                    } catch (SQLException e) {
+                        if (DBConnection.isConnectionFailure(e) || e instanceof SQLTransientException) {
+                            // Try again on the next round, keeping the order
+                            online = false;
+                            return synced;
+                        }
+                        reject(entry, e.getMessage());
+                        rejected++;
+                    } catch (IOException e) {
+                        System.err.println("Error updating sale journal: " + e.getMessage());
+                        return synced;
+                    }
+                }
+                if (synced > 0) {
+                    System.out.println("Synced " + synced + " offline sales");
+                }
+                online = journal.getPendingCount() == 0;
+                return synced;
+            } finally {
+                if (synced > 0 || rejected > 0) {
+                    notifyListeners();
+                }
+            }
+        }
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public int getPendingCount() {
+        return journal.getPendingCount();
+    }
+
+    public long getSyncedCount() {
+        return syncedCount.get();
+    }
+
+    public long getConflictCount() {
+        return conflictCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return Why the last few rejected sales were refused, newest first
+     */
+    public List<String> getRecentRejections() {
+        synchronized (recentRejections) {
+            List<String> newestFirst = new ArrayList<>(recentRejections);
+            Collections.reverse(newestFirst);
+            return newestFirst;
+        }
+    }
+
+    /**
+     * Called (on the sync thread) whenever a sale is journaled, synced or
+     * rejected, i.e. whenever the counts above change
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error in sale sync listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param limit Maximum rows
+     * @return Replayed sales recorded despite a stock shortfall, newest first
+     * @throws SQLException If a database error occurs
+     */
+    public List<Conflict> getConflicts(int limit) throws SQLException {
+        List<Conflict> conflicts = new ArrayList<>();
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            try (PreparedStatement pstmt = FIND_CONFLICTS.prepare(conn)) {
+                pstmt.setInt(1, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        conflicts.add(new Conflict(rs.getString("journal_id"), rs.getInt("sale_id"),
+                                rs.getTimestamp("recorded_at"), rs.getString("conflict")));
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    // === REPLAY ===
+
+    private void syncQuietly() {
+        if (journal.getPendingCount() == 0) {
+            online = true;
+            return;
+        }
+        try {
+            syncNow();
+        } catch (RuntimeException e) {
+            System.err.println("Error syncing offline sales: " + e.getMessage());
+        }
+    }
+
+    private void syncOne(SaleJournal.Entry entry) throws SQLException, IOException {
+        Sale sale = entry.sale;
+        Timestamp recordedAt = new Timestamp(entry.recordedAt);
+        Map<Integer, Integer> stockAfter = new TreeMap<>();
+        int saleId;
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            conn.setAutoCommit(false);
+            try {
+                Integer existing = findSynced(conn, entry.journalId);
+                if (existing != null) {
+                    // Committed before the journal could record it
+                    conn.commit();
+                    journal.markSynced(entry, existing);
+                    return;
+                }
+
+                String conflict = lockStock(conn, sale, stockAfter);
+                saleId = new SalesService().writeSale(conn, sale, true);
+                backdate(conn, saleId, recordedAt);
+                try (PreparedStatement pstmt = INSERT_SYNCED.prepare(conn)) {
+                    pstmt.setString(1, entry.journalId);
+                    pstmt.setInt(2, saleId);
+                    pstmt.setTimestamp(3, recordedAt);
+                    pstmt.setString(4, conflict);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+
+                if (conflict != null) {
+                    conflictCount.incrementAndGet();
+                    System.err.println("Offline sale #" + saleId + " oversold stock: " + conflict);
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        journal.markSynced(entry, saleId);
+        syncedCount.incrementAndGet();
+
+        // The catalog guessed the stock when the sale was journaled; use what the database now says
+        for (Map.Entry<Integer, Integer> product : stockAfter.entrySet()) {
+            catalog.setStock(product.getKey(), product.getValue());
+        }
+        DailyRollupService.getInstance().onSaleCommitted(saleId);
+    }
+
+    private Integer findSynced(Connection conn, String journalId) throws SQLException {
+        try (PreparedStatement pstmt = FIND_SYNCED.prepare(conn)) {
+            pstmt.setString(1, journalId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // Locks the sale's products, works out the stock each ends with and describes any shortfall
+    private String lockStock(Connection conn, Sale sale, Map<Integer, Integer> stockAfter) throws SQLException {
+        Map<Integer, Integer> sold = new TreeMap<>();
+        if (sale.getSaleDetails() != null) {
+            for (SaleDetail detail : sale.getSaleDetails()) {
+                sold.merge(detail.getProductId(), detail.getQuantity(), Integer::sum);
+            }
+        }
+        if (sold.isEmpty()) {
+            return null;
+        }
+        StringBuilder conflict = new StringBuilder();
+        try (PreparedStatement pstmt = LOCK_STOCK.prepare(conn, SqlStatement.placeholders(sold.size()))) {
+            int p = 1;
+            for (Integer productId : sold.keySet()) {
+                pstmt.setInt(p++, productId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int productId = rs.getInt("product_id");
+                    int stock = rs.getInt("stock");
+                    int quantity = sold.get(productId);
+                    stockAfter.put(productId, Math.max(stock - quantity, 0));
+                    if (quantity > stock) {
+                        if (conflict.length() > 0) {
+                            conflict.append("; ");
+                        }
+                        conflict.append("product #").append(productId).append(" sold ").append(quantity)
+                                .append(" with ").append(stock).append(" in stock");
+                    }
+                }
+            }
+        }
+        String message = conflict.toString();
+        return message.isEmpty() ? null : message.substring(0, Math.min(message.length(), 500));
+    }
+
+    // Gives the sale and its cash log the time it was rung up instead of the time it was synced
+    private void backdate(Connection conn, int saleId, Timestamp recordedAt) throws SQLException {
+        try (PreparedStatement pstmt = BACKDATE_SALE.prepare(conn)) {
+            pstmt.setTimestamp(1, recordedAt);
+            pstmt.setInt(2, saleId);
+            pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = BACKDATE_CASH_LOG.prepare(conn)) {
+            pstmt.setTimestamp(1, recordedAt);
+            pstmt.setInt(2, saleId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void reject(SaleJournal.Entry entry, String reason) {
+        rejectedCount.incrementAndGet();
+        System.err.println("Offline sale journal #" + entry.seq + " rejected by the database: " + reason);
+        synchronized (recentRejections) {
+            if (recentRejections.size() == MAX_RECENT_REJECTIONS) {
+                recentRejections.removeFirst();
+            }
+            recentRejections.addLast("Journal #" + entry.seq + " (rung up " + new Timestamp(entry.recordedAt)
+                    + "): " + reason);
+        }
+        try {
+            journal.markRejected(entry, reason);
+        } catch (IOException e) {
+            System.err.println("Error updating sale journal: " + e.getMessage());
+        }
+    }
+
+    private void ensureTable(Connection conn) throws SQLException {
+        if (tableChecked) {
+            return;
+        }
+        try (PreparedStatement pstmt = CREATE_TABLE.prepare(conn)) {
+            pstmt.execute();
+        }
+        tableChecked = true;
+    }
+
+    private Connection requireConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available", "08001");
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,293 @@
+package services;
+
+import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * SalesCubeService - Pre-aggregated (day, product_id, category) -> (quantity,
+ * revenue) store in the Product_Daily_Sales table.
+ *
+ * The top-products and revenue-distribution charts read this small table
+ * instead of joining Sale_Details x Products x Sales over the whole period.
+ * Days are recomputed by the DailyRollupService worker as sales commit, one
+ * short READ COMMITTED transaction per day so checkout is never held behind
+ * a range lock; catchUp() fills only the days missing at startup, and
+ * reconcile() compares the cube against the raw tables.
+ */
+public class SalesCubeService {
+
+    public static final String CUBE_TABLE = "Product_Daily_Sales";
+
+    // Per (day, product) totals from the raw tables; takes two date parameters
+    private static final String RAW_AGGREGATE =
+            "SELECT DATE(s.sale_date) AS day, sd.product_id, p.category, " +
+            "SUM(sd.quantity) AS qty, SUM(sd.{sale_details.total_price|subtotal}) AS revenue " +
+            "FROM {Sale_Details} sd " +
+            "JOIN {Sales} s ON sd.sale_id = s.sale_id " +
+            "JOIN {Products} p ON sd.product_id = p.product_id " +
+            "WHERE s.sale_date >= ? AND s.sale_date < DATE_ADD(?, INTERVAL 1 DAY) " +
+            "GROUP BY DATE(s.sale_date), sd.product_id, p.category";
+
+    private static final SqlStatement CREATE_TABLE = StatementRegistry.define("cube.createTable",
+            "CREATE TABLE IF NOT EXISTS " + CUBE_TABLE + " (" +
+            "sale_date DATE NOT NULL, " +
+            "product_id INT NOT NULL, " +
+            "category VARCHAR(50) NOT NULL, " +
+            "quantity INT NOT NULL DEFAULT 0, " +
+            "revenue DECIMAL(14, 2) NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (sale_date, product_id), " +
+            "INDEX idx_cube_category_date (category, sale_date), " +
+            "INDEX idx_cube_product (product_id))");
+    private static final SqlStatement LAST_DAY = StatementRegistry.define("cube.lastDay",
+            "SELECT MAX(sale_date) FROM " + CUBE_TABLE + " WHERE sale_date >= ? AND sale_date <= ?");
+    private static final SqlStatement UPDATE_CATEGORY = StatementRegistry.define("cube.updateCategory",
+            "UPDATE " + CUBE_TABLE + " SET category = ? WHERE product_id = ? AND category <> ?");
+    private static final SqlStatement DELETE_RANGE = StatementRegistry.define("cube.deleteRange",
+            "DELETE FROM " + CUBE_TABLE + " WHERE sale_date >= ? AND sale_date <= ?");
+    private static final SqlStatement INSERT_RANGE = StatementRegistry.define("cube.insertRange",
+            "INSERT INTO " + CUBE_TABLE + " (sale_date, product_id, category, quantity, revenue) " +
+            "SELECT day, product_id, category, qty, revenue FROM (" + RAW_AGGREGATE + ") r");
+    // Cells missing from or different in the cube, then cells only in the cube
+    private static final SqlStatement RECONCILE = StatementRegistry.define("cube.reconcile",
+            "SELECT r.day, r.product_id, r.qty, r.revenue, " +
+            "COALESCE(c.quantity, 0) AS cube_qty, COALESCE(c.revenue, 0) AS cube_revenue " +
+            "FROM (" + RAW_AGGREGATE + ") r " +
+            "LEFT JOIN " + CUBE_TABLE + " c ON c.sale_date = r.day AND c.product_id = r.product_id " +
+            "WHERE c.product_id IS NULL OR c.quantity <> r.qty " +
+            "OR ABS(c.revenue - r.revenue) > 0.005 OR c.category <> r.category " +
+            "UNION ALL " +
+            "SELECT c.sale_date, c.product_id, 0, 0, c.quantity, c.revenue " +
+            "FROM " + CUBE_TABLE + " c " +
+            "LEFT JOIN (" + RAW_AGGREGATE + ") r ON c.sale_date = r.day AND c.product_id = r.product_id " +
+            "WHERE c.sale_date >= ? AND c.sale_date <= ? AND r.product_id IS NULL");
+
+    private static final SalesCubeService INSTANCE = new SalesCubeService();
+
+    private volatile boolean tableChecked = false;
+    private volatile boolean ready = false;
+
+    /**
+     * One (day, product) cell that differs from the raw sale tables
+     */
+    public static class Mismatch {
+        public final LocalDate day;
+        public final int productId;
+        public final int expectedQuantity;
+        public final double expectedRevenue;
+        public final int cubeQuantity;
+        public final double cubeRevenue;
+
+        Mismatch(LocalDate day, int productId, int expectedQuantity, double expectedRevenue,
+                 int cubeQuantity, double cubeRevenue) {
+            this.day = day;
+            this.productId = productId;
+            this.expectedQuantity = expectedQuantity;
+            this.expectedRevenue = expectedRevenue;
+            this.cubeQuantity = cubeQuantity;
+            this.cubeRevenue = cubeRevenue;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s product %d: expected %d / $%.2f, cube has %d / $%.2f",
+                    day, productId, expectedQuantity, expectedRevenue, cubeQuantity, cubeRevenue);
+        }
+    }
+
+    private SalesCubeService() {
+    }
+
+    public static SalesCubeService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true once the cube has been backfilled and reads can use it
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Fills in the days in [from, to] the cube does not have yet: the days after
+     * the last one present, which is rebuilt too in case it was cut short.
+     * Earlier days are kept current by refreshDay and checked by reconcile().
+     *
+     * @param from First day, inclusive
+     * @param to   Last day, inclusive
+     * @return Number of (day, product) cells written
+     * @throws SQLException If a database error occurs
+     */
+    public int catchUp(LocalDate from, LocalDate to) throws SQLException {
+        LocalDate last;
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            try (PreparedStatement pstmt = LAST_DAY.prepare(conn)) {
+                pstmt.setDate(1, Date.valueOf(from));
+                pstmt.setDate(2, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    Date max = rs.next() ? rs.getDate(1) : null;
+                    last = max == null ? null : max.toLocalDate();
+                }
+            }
+        }
+        return backfill(last == null ? from : last, to);
+    }
+
+    /**
+     * Rebuilds the cube for every day in [from, to] from the raw tables,
+     * one short READ COMMITTED transaction per day
+     *
+     * @param from First day, inclusive
+     * @param to   Last day, inclusive
+     * @return Number of (day, product) cells written
+     * @throws SQLException If a database error occurs
+     */
+    public int backfill(LocalDate from, LocalDate to) throws SQLException {
+        int cells = 0;
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            DailyRollupService.readCommitted(conn);
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                cells += rebuildDay(conn, day);
+            }
+        }
+        ready = true;
+        return cells;
+    }
+
+    /**
+     * Recomputes one day of the cube; called by the rollup worker after a sale commits
+     *
+     * @param conn Open connection (auto-commit)
+     * @param day  The day to refresh
+     * @throws SQLException If a database error occurs
+     */
+    void refreshDay(Connection conn, LocalDate day) throws SQLException {
+        ensureTable(conn);
+        rebuildDay(conn, day);
+    }
+
+    /**
+     * Moves a product's cube rows to its new category so category filters stay correct
+     *
+     * @param productId The product that was re-categorised
+     * @param category  Its new category
+     */
+    public void onProductCategoryChanged(int productId, String category) {
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            try (PreparedStatement pstmt = UPDATE_CATEGORY.prepare(conn)) {
+                pstmt.setString(1, category);
+                pstmt.setInt(2, productId);
+                pstmt.setString(3, category);
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating sales cube category: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the cube with the raw Sale_Details/Sales/Products aggregates
+     *
+     * @param from   First day, inclusive
+     * @param to     Last day, inclusive
+     * @param repair When true, days with differences are rebuilt
+     * @return The cells that differed (before any repair)
+     * @throws SQLException If a database error occurs
+     */
+    public List<Mismatch> reconcile(LocalDate from, LocalDate to, boolean repair) throws SQLException {
+        List<Mismatch> mismatches = new ArrayList<>();
+        try (Connection conn = requireConnection()) {
+            ensureTable(conn);
+            try (PreparedStatement pstmt = RECONCILE.prepare(conn)) {
+                int i = 1;
+                for (int pass = 0; pass < 2; pass++) {
+                    pstmt.setDate(i++, Date.valueOf(from));
+                    pstmt.setDate(i++, Date.valueOf(to));
+                }
+                pstmt.setDate(i++, Date.valueOf(from));
+                pstmt.setDate(i, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        mismatches.add(new Mismatch(
+                                rs.getDate(1).toLocalDate(),
+                                rs.getInt(2),
+                                rs.getInt(3),
+                                rs.getDouble(4),
+                                rs.getInt(5),
+                                rs.getDouble(6)));
+                    }
+                }
+            }
+
+            if (repair && !mismatches.isEmpty()) {
+                Set<LocalDate> days = new TreeSet<>();
+                for (Mismatch m : mismatches) {
+                    days.add(m.day);
+                }
+                for (LocalDate day : days) {
+                    refreshDay(conn, day);
+                }
+                System.out.println("Sales cube repaired " + days.size() + " day(s)");
+            }
+        }
+        return mismatches;
+    }
+
+    // === INTERNALS ===
+
+    // Replaces one day's cube rows in its own transaction
+    private int rebuildDay(Connection conn, LocalDate day) throws SQLException {
+        Date d = Date.valueOf(day);
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement pstmt = DELETE_RANGE.prepare(conn)) {
+                pstmt.setDate(1, d);
+                pstmt.setDate(2, d);
+                pstmt.executeUpdate();
+            }
+
+            int cells;
+            try (PreparedStatement pstmt = INSERT_RANGE.prepare(conn)) {
+                pstmt.setDate(1, d);
+                pstmt.setDate(2, d);
+                cells = pstmt.executeUpdate();
+            }
+            conn.commit();
+            return cells;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Creates the cube table the first time it is needed in this process
+    private void ensureTable(Connection conn) throws SQLException {
+        if (tableChecked) {
+            return;
+        }
+        try (PreparedStatement pstmt = CREATE_TABLE.prepare(conn)) {
+            pstmt.execute();
+        }
+        tableChecked = true;
+    }
+
+    private Connection requireConnection() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Database connection not available");
+        }
+        return conn;
+    }
+}
@@ -1,6 +1,9 @@
 package services;
 
 import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
+import database.TimeWindow;
 import java.io.File;
 import java.sql.*;
 import java.util.ArrayList;
@@ -16,25 +19,144 @@ Supports both quick cash sales (walk-in customers) and regular sales (registered
  */
 public class SalesService {
 
-    //Creates a new sale in the database
+    private static final SqlStatement INSERT_SALE = StatementRegistry.define("sales.insert",
+            "INSERT INTO {Sales} (customer_id, user_id, total_amount, discount, final_amount, payment_method, " +
+            "status, notes, cash_received, change_given) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    private static final SqlStatement INSERT_DETAIL = StatementRegistry.define("sales.insertDetail",
+            "INSERT INTO {Sale_Details} (sale_id, product_id, quantity, unit_price, total_price, discount) " +
+            "VALUES (?, ?, ?, ?, ?, ?)");
+    private static final SqlStatement DECREMENT_STOCK = StatementRegistry.define("sales.decrementStock",
+            "UPDATE {Products} SET stock = stock - ? WHERE product_id = ? AND stock >= ?");
+    private static final SqlStatement CLAMP_STOCK = StatementRegistry.define("sales.clampStock",
+            "UPDATE {Products} SET stock = GREATEST(stock - ?, 0) WHERE product_id = ?");
+    private static final SqlStatement INSERT_CASH_LOG = StatementRegistry.define("sales.insertCashLog",
+            "INSERT INTO Cash_Logs (sale_id, cash_received, change_given, net_amount, transaction_time, user_id) " +
+            "VALUES (?, ?, ?, ?, NOW(), ?)");
+    private static final SqlStatement FIND_BY_ID = StatementRegistry.define("sales.findById",
+            "SELECT s.*, CONCAT(c.first_name, ' ', c.last_name) as customer_name, c.phone as customer_contact " +
+            "FROM {Sales} s LEFT JOIN customers c ON s.customer_id = c.customer_id WHERE s.sale_id = ?");
+    private static final SqlStatement FIND_DETAILS = StatementRegistry.define("sales.findDetails",
+            "SELECT sd.*, p.name as product_name FROM {Sale_Details} sd " +
+            "JOIN {Products} p ON sd.product_id = p.product_id WHERE sd.sale_id = ?");
+    // {0} is the TimeWindow predicate
+    private static final SqlStatement CASH_TOTAL = StatementRegistry.define("sales.cashTotal",
+            "SELECT COALESCE(SUM(final_amount), 0) as total_cash FROM {Sales} " +
+            "WHERE payment_method = 'Cash' AND {0} AND status = 'Completed'");
+    private static final SqlStatement CASH_SUMMARY = StatementRegistry.define("sales.cashSummary",
+            "SELECT COUNT(*) as transaction_count, COALESCE(SUM(cash_received), 0) as total_received, " +
+            "COALESCE(SUM(change_given), 0) as total_change, COALESCE(SUM(final_amount), 0) as net_cash " +
+            "FROM {Sales} WHERE payment_method = 'Cash' AND {0} AND status = 'Completed'");
 
+    /**
+     * A checkout that failed before any of its statements reached the server.
+     * Only these are safe to keep offline: once a statement has been sent, a
+     * lost connection (SQLState 08S01) may hide a commit the server already
+     * made, and replaying the sale from the journal would record it twice.
+     */
+    static final class NotSentException extends SQLException {
+        NotSentException(String reason, Throwable cause) {
+            super(reason, "08001", cause);
+        }
+    }
+
+    public SalesService() {
+        // Replays sales kept offline by an earlier run
+        SaleSyncService.getInstance().start();
+    }
+
+    /**
+     * Creates a new sale in the database.
+     * Concurrent checkouts are committed together by the CheckoutEngine; each
+     * caller still gets its own sale ID or its own SQLException. If the
+     * database could not be reached before anything was sent, the sale is
+     * kept in the local journal and synced later; the returned number is then
+     * negative (see isJournaled). A connection lost after the sale was sent is
+     * reported to the caller, since the server may already have committed it.
+     *
+     * @param sale The sale with its details
+     * @return The generated sale ID, or the negative journal number of an offline sale
+     * @throws SQLException If this sale could not be saved, online or offline
+     */
     public int createSale(Sale sale) throws SQLException {
-        Connection conn = null;
+        SaleSyncService sync = SaleSyncService.getInstance();
+        if (!sync.shouldJournal()) {
+            try {
+                return CheckoutEngine.getInstance().submit(sale);
+            } catch (NotSentException e) {
+                System.err.println("Database unreachable, keeping sale offline: " + e.getMessage());
+            }
+        }
+        return sync.journal(sale);
+    }
+
+    /**
+     * @return true if createSale() kept the sale in the offline journal instead of the database
+     */
+    public static boolean isJournaled(int saleId) {
+        return saleId < 0;
+    }
+
+    //Creates a new sale in its own transaction (one sale per commit)
+
+    public int createSaleDirect(Sale sale) throws SQLException {
+        // The pool restores auto-commit when the connection is returned
+        try (Connection conn = beginTransaction()) {
+            try {
+                int saleId = writeSale(conn, sale);
+                conn.commit();
+                afterCommit(sale);
+
+                return saleId;
+
+            } catch (SQLException e) {
+                rollback(conn, e);
+                throw e;
+            }
+        }
+    }
+
+    //Borrows a connection and starts a transaction; failing here means nothing was sent (NotSentException)
+
+    static Connection beginTransaction() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null) {
+            throw new NotSentException("Database connection not available", null);
+        }
+        try {
+            conn.setAutoCommit(false);
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw new NotSentException("Could not start transaction: " + e.getMessage(), e);
+        }
+    }
+
+    //Rolls back after a failure without letting a dead connection hide the original error
+
+    static void rollback(Connection conn, SQLException cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    //Writes a sale with its details, stock changes and cash log on the caller's transaction
+
+    int writeSale(Connection conn, Sale sale) throws SQLException {
+        return writeSale(conn, sale, false);
+    }
+
+    //clampStock: record the sale even if stock ran out (goods already left the store), stopping stock at 0
+
+    int writeSale(Connection conn, Sale sale, boolean clampStock) throws SQLException {
         PreparedStatement pstmtSale = null;
         PreparedStatement pstmtDetail = null;
         ResultSet rs = null;
 
         try {
-            conn = DBConnection.getConnection();
-            conn.setAutoCommit(false);
-
             // Insert into Sales table - REMOVED created_by
-            String sqlSale = "INSERT INTO Sales (customer_id, user_id, total_amount, " +
-                    "discount, final_amount, payment_method, status, notes, " +
-                    "cash_received, change_given) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            pstmtSale = conn.prepareStatement(sqlSale, Statement.RETURN_GENERATED_KEYS);
+            pstmtSale = INSERT_SALE.prepareWithKeys(conn);
             pstmtSale.setInt(1, sale.getCustomerId());
             pstmtSale.setInt(2, sale.getUserId());
             pstmtSale.setDouble(3, sale.getTotalAmount());
@@ -75,11 +197,7 @@ public class SalesService {
 
             // Insert sale details - REMOVED created_by
             if (sale.getSaleDetails() != null && !sale.getSaleDetails().isEmpty()) {
-                String sqlDetail = "INSERT INTO Sale_Details (sale_id, product_id, " +
-                        "quantity, unit_price, total_price, discount) " +
-                        "VALUES (?, ?, ?, ?, ?, ?)";
-
-                pstmtDetail = conn.prepareStatement(sqlDetail);
+                pstmtDetail = INSERT_DETAIL.prepare(conn);
 
                 for (SaleDetail detail : sale.getSaleDetails()) {
                     pstmtDetail.setInt(1, saleId);
@@ -94,7 +212,11 @@ public class SalesService {
                 pstmtDetail.executeBatch();
 
                 // Update product stock
-                updateProductStock(sale.getSaleDetails(), conn);
+                if (clampStock) {
+                    clampProductStock(sale.getSaleDetails(), conn);
+                } else {
+                    updateProductStock(sale.getSaleDetails(), conn);
+                }
             }
 
             // Log cash transaction if cash payment
@@ -102,36 +224,60 @@ public class SalesService {
                 logCashTransaction(sale, conn);
             }
 
-            conn.commit();
-
-            // Log success message
-            if (sale.isQuickCashSale()) {
-                System.out.println("Quick cash sale #" + saleId + " processed successfully");
-            } else {
-                System.out.println("Regular sale #" + saleId + " processed successfully");
-            }
-
             return saleId;
 
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
-            }
-            throw e;
         } finally {
             closeResources(rs, pstmtSale, pstmtDetail);
-            if (conn != null) {
-                conn.setAutoCommit(true);
-                conn.close();
+        }
+    }
+
+    //Work that follows a committed sale, whichever path committed it
+
+    void afterCommit(Sale sale) {
+        int saleId = sale.getSaleId();
+
+        // Recompute this day's Analytics row in the background
+        DailyRollupService.getInstance().onSaleCommitted(saleId);
+
+        // Mirror the stock decrement in the shared product catalog
+        if (sale.getSaleDetails() != null) {
+            ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+            for (SaleDetail detail : sale.getSaleDetails()) {
+                catalog.adjustStock(detail.getProductId(), -detail.getQuantity());
             }
         }
+
+        // Log success message
+        if (sale.isQuickCashSale()) {
+            System.out.println("Quick cash sale #" + saleId + " processed successfully");
+        } else {
+            System.out.println("Regular sale #" + saleId + " processed successfully");
+        }
     }
 
-    //Updates product stock levels after a sale
+    //Updates product stock levels after a sale; fails the sale if any line is no longer in stock
 
     private void updateProductStock(List<SaleDetail> saleDetails, Connection conn) throws SQLException {
-        String updateQuery = "UPDATE Products SET stock = stock - ? WHERE product_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(updateQuery)) {
+        try (PreparedStatement stmt = DECREMENT_STOCK.prepare(conn)) {
+            for (SaleDetail detail : saleDetails) {
+                stmt.setInt(1, detail.getQuantity());
+                stmt.setInt(2, detail.getProductId());
+                stmt.setInt(3, detail.getQuantity());
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw insufficientStock(saleDetails.get(i));
+                }
+            }
+        }
+    }
+
+    //Updates product stock levels for a sale that already happened, never going below zero
+
+    private void clampProductStock(List<SaleDetail> saleDetails, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = CLAMP_STOCK.prepare(conn)) {
             for (SaleDetail detail : saleDetails) {
                 stmt.setInt(1, detail.getQuantity());
                 stmt.setInt(2, detail.getProductId());
@@ -141,6 +287,11 @@ public class SalesService {
         }
     }
 
+    static SQLException insufficientStock(SaleDetail detail) {
+        String name = detail.getProductName() != null ? detail.getProductName() : "product #" + detail.getProductId();
+        return new SQLException("Insufficient stock for " + name + " (" + detail.getQuantity() + " requested)");
+    }
+
     /**
      * Logs cash transaction for daily cash tracking
      * @param sale The sale object
@@ -148,11 +299,7 @@ public class SalesService {
      * @throws SQLException If database error occurs
      */
     private void logCashTransaction(Sale sale, Connection conn) throws SQLException {
-        String sql = "INSERT INTO Cash_Logs (sale_id, cash_received, change_given, " +
-                "net_amount, transaction_time, user_id) " +
-                "VALUES (?, ?, ?, ?, NOW(), ?)";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = INSERT_CASH_LOG.prepare(conn)) {
             pstmt.setInt(1, sale.getSaleId());
             pstmt.setDouble(2, sale.getCashReceived());
             pstmt.setDouble(3, sale.getChangeGiven() != null ? sale.getChangeGiven() : 0.0);
@@ -165,14 +312,8 @@ public class SalesService {
     //Retrieves a sale by its ID
 
     public Sale getSaleById(int saleId) throws SQLException {
-        String sql = "SELECT s.*, CONCAT(c.first_name, ' ', c.last_name) as customer_name, " +
-                "c.phone as customer_contact " +
-                "FROM Sales s " +
-                "LEFT JOIN customers c ON s.customer_id = c.customer_id " +
-                "WHERE s.sale_id = ?";
-
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_BY_ID.prepare(conn)) {
 
             pstmt.setInt(1, saleId);
             ResultSet rs = pstmt.executeQuery();
@@ -215,13 +356,8 @@ public class SalesService {
 
     public List<SaleDetail> getSaleDetails(int saleId) throws SQLException {
         List<SaleDetail> details = new ArrayList<>();
-        String sql = "SELECT sd.*, p.name as product_name " +
-                "FROM Sale_Details sd " +
-                "JOIN Products p ON sd.product_id = p.product_id " +
-                "WHERE sd.sale_id = ?";
-
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = FIND_DETAILS.prepare(conn)) {
 
             pstmt.setInt(1, saleId);
             ResultSet rs = pstmt.executeQuery();
@@ -246,14 +382,8 @@ public class SalesService {
     //Gets today's total cash in register
 
     public double getTodayCashTotal() throws SQLException {
-        String sql = "SELECT COALESCE(SUM(final_amount), 0) as total_cash " +
-                "FROM Sales " +
-                "WHERE payment_method = 'Cash' " +
-                "AND DATE(sale_date) = CURDATE() " +
-                "AND status = 'Completed'";
-
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = CASH_TOTAL.prepare(conn, TimeWindow.TODAY.predicate("sale_date"))) {
 
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -267,18 +397,8 @@ public class SalesService {
 
     public List<Object[]> getTodayCashSummary() throws SQLException {
         List<Object[]> summary = new ArrayList<>();
-        String sql = "SELECT " +
-                "COUNT(*) as transaction_count, " +
-                "COALESCE(SUM(cash_received), 0) as total_received, " +
-                "COALESCE(SUM(change_given), 0) as total_change, " +
-                "COALESCE(SUM(final_amount), 0) as net_cash " +
-                "FROM Sales " +
-                "WHERE payment_method = 'Cash' " +
-                "AND DATE(sale_date) = CURDATE() " +
-                "AND status = 'Completed'";
-
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = CASH_SUMMARY.prepare(conn, TimeWindow.TODAY.predicate("sale_date"))) {
 
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
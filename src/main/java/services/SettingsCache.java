@@ -0,0 +1,135 @@
+package services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SettingsCache - Process-wide in-memory copy of the sys_config table.
+ *
+ * SettingsService loads it on first use (and reloads it periodically),
+ * serves every getSetting() from it, and writes through to it after each
+ * saveSetting(), so screens and AppTheme can read settings as often as
+ * they like without a database round trip.
+ *
+ * Listeners are told about every value that actually changes, whether it
+ * came from a save in this process or from a reload that picked up another
+ * till's change. They are called on the thread that made the change.
+ */
+public class SettingsCache {
+
+    private static final SettingsCache INSTANCE = new SettingsCache();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final List<SettingsListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded = false;
+    // Set by invalidate(): the next load reports changes even though loaded is false
+    private volatile boolean stale = false;
+
+    /**
+     * Notified after a setting changed
+     */
+    public interface SettingsListener {
+        /**
+         * @param key   The setting that changed
+         * @param value Its new value, or null when it was removed
+         */
+        void settingChanged(String key, String value);
+    }
+
+    private SettingsCache() {
+    }
+
+    public static SettingsCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void addListener(SettingsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SettingsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces all values (after reading sys_config) and reports the ones that differ
+     *
+     * @param settings Every row of sys_config
+     */
+    public void load(Map<String, String> settings) {
+        Map<String, String> changed = new HashMap<>();
+        synchronized (this) {
+            boolean report = loaded || stale;
+            for (Map.Entry<String, String> e : settings.entrySet()) {
+                String old = e.getValue() == null ? values.remove(e.getKey()) : values.put(e.getKey(), e.getValue());
+                if (report && !Objects.equals(old, e.getValue())) {
+                    changed.put(e.getKey(), e.getValue());
+                }
+            }
+            for (String key : values.keySet()) {
+                if (!settings.containsKey(key)) {
+                    values.remove(key);
+                    if (report) {
+                        changed.put(key, null);
+                    }
+                }
+            }
+            loaded = true;
+            stale = false;
+        }
+        for (Map.Entry<String, String> e : changed.entrySet()) {
+            fireChanged(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Marks the values stale. They stay readable; the next read through
+     * SettingsService reloads them and listeners hear about what changed.
+     */
+    public synchronized void invalidate() {
+        stale = stale || loaded;
+        loaded = false;
+    }
+
+    /**
+     * @return The cached value, or null if the setting is not set
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @return A copy of all cached settings
+     */
+    public Map<String, String> getAll() {
+        return new HashMap<>(values);
+    }
+
+    /**
+     * Stores one value (after it was written to sys_config) and notifies listeners if it changed
+     */
+    public void put(String key, String value) {
+        String old = value == null ? values.remove(key) : values.put(key, value);
+        if (!Objects.equals(old, value)) {
+            fireChanged(key, value);
+        }
+    }
+
+    private void fireChanged(String key, String value) {
+        for (SettingsListener l : listeners) {
+            try {
+                l.settingChanged(key, value);
+            } catch (RuntimeException e) {
+                System.err.println("Settings listener failed for " + key + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,80 +1,229 @@
 package services;
 
 import database.DBConnection;
+import database.SqlStatement;
+import database.StatementRegistry;
 import java.sql.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * SettingsService - Application settings kept in the sys_config table.
+ *
+ * Reads come from the shared SettingsCache, which is filled from the table
+ * on first use; saves write through to the table and then to the cache, and
+ * the cache notifies its listeners (see addListener). Once the first load
+ * succeeds, a background thread calls reload() every RELOAD_INTERVAL_SEC to
+ * pick up changes made by other tills; the settings screen also reloads
+ * when it opens. Listeners may therefore be called on that thread.
+ *
+ * A save the database refuses is kept as a pending value: every reload lays
+ * it over what the table holds, so it does not revert, and tries to write
+ * it again until it succeeds.
+ *
+ * The table itself is created by bootstrap(), once per process, before the
+ * first load.
+ */
 public class SettingsService {
 
+    private static final SqlStatement SAVE = StatementRegistry.define("settings.save",
+            "INSERT INTO sys_config (variable, value, set_time) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE value = ?, set_time = CURRENT_TIMESTAMP");
+    private static final SqlStatement GET_ALL = StatementRegistry.define("settings.getAll",
+            "SELECT variable, value FROM sys_config");
+
+    // Wait this long after a failed load before trying the database again
+    private static final long RETRY_MS = 30 * 1000;
+    private static final long RELOAD_INTERVAL_SEC = 60;
+
+    private static final SettingsService INSTANCE = new SettingsService();
+
+    private static volatile boolean bootstrapped = false;
+    private static volatile long lastFailedLoad = 0;
+
+    private static final AtomicBoolean reloadScheduled = new AtomicBoolean(false);
+
+    private final SettingsCache cache = SettingsCache.getInstance();
+
+    // Saves that did not reach sys_config yet, by variable
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
     public SettingsService() {
-        ensureTableExists();
     }
 
-    private void ensureTableExists() {
+    public static SettingsService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates sys_config if it does not exist yet; only the first successful call touches the database
+     *
+     * @return true if the table is known to exist
+     */
+    public static synchronized boolean bootstrap() {
+        if (bootstrapped) {
+            return true;
+        }
         String sql = "CREATE TABLE IF NOT EXISTS sys_config (" +
                 "variable VARCHAR(100) PRIMARY KEY, " +
                 "value TEXT, " +
                 "set_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "set_by VARCHAR(50))";
-        try (Connection conn = DBConnection.getConnection();
-                Statement stmt = conn.createStatement()) {
-            if (conn != null) {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                return false;
+            }
+            try (Statement stmt = conn.createStatement()) {
                 stmt.execute(sql);
             }
+            bootstrapped = true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.err.println("Error creating sys_config: " + e.getMessage());
         }
+        return bootstrapped;
+    }
+
+    public void addListener(SettingsCache.SettingsListener listener) {
+        cache.addListener(listener);
+    }
+
+    public void removeListener(SettingsCache.SettingsListener listener) {
+        cache.removeListener(listener);
     }
 
     public String getSetting(String key, String defaultValue) {
-        String sql = "SELECT value FROM sys_config WHERE variable = ?";
-        try (Connection conn = DBConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            if (conn == null)
-                return defaultValue;
-            pstmt.setString(1, key);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("value");
+        ensureLoaded();
+        String value = cache.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Writes one setting to sys_config and the cache. If the database cannot be
+     * reached the value is kept as pending: it stays in effect across reloads
+     * and is written by the next reload that reaches the database.
+     *
+     * @return true if the value was saved to the database
+     */
+    public boolean saveSetting(String key, String value) {
+        ensureLoaded();
+        boolean saved = false;
+        if (bootstrap()) {
+            try (Connection conn = DBConnection.getConnection()) {
+                if (conn != null) {
+                    write(conn, key, value);
+                    saved = true;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error saving setting " + key + ": " + e.getMessage());
+            }
+        }
+        if (saved) {
+            pending.remove(key);
+        } else {
+            pending.put(key, value);
+        }
+        cache.put(key, value);
+        return saved;
+    }
+
+    /**
+     * @return true if some saved settings have not reached the database yet
+     */
+    public boolean hasPendingSaves() {
+        return !pending.isEmpty();
+    }
+
+    public Map<String, String> getAllSettings() {
+        ensureLoaded();
+        return cache.getAll();
+    }
+
+    /**
+     * Re-reads sys_config; listeners hear about every value that changed
+     *
+     * @return true if the settings were read from the database
+     */
+    public boolean reload() {
+        if (!bootstrap()) {
+            return false;
+        }
+        Map<String, String> settings = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                return false;
+            }
+            try (PreparedStatement pstmt = GET_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    settings.put(rs.getString("variable"), rs.getString("value"));
                 }
             }
+            writePending(conn);
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.err.println("Error loading settings: " + e.getMessage());
+            return false;
         }
-        return defaultValue;
+        // Values still unsaved win over the table so they do not revert
+        settings.putAll(pending);
+        cache.load(settings);
+        return true;
     }
 
-    public void saveSetting(String key, String value) {
-        String sql = "INSERT INTO sys_config (variable, value, set_time) VALUES (?, ?, CURRENT_TIMESTAMP) " +
-                "ON DUPLICATE KEY UPDATE value = ?, set_time = CURRENT_TIMESTAMP";
-        try (Connection conn = DBConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            if (conn == null)
+    // Retries the pending saves; each one stays pending until its write succeeds
+    private void writePending(Connection conn) {
+        for (Map.Entry<String, String> entry : pending.entrySet()) {
+            try {
+                write(conn, entry.getKey(), entry.getValue());
+                // Only if no newer save replaced it meanwhile
+                pending.remove(entry.getKey(), entry.getValue());
+            } catch (SQLException e) {
+                System.err.println("Error saving setting " + entry.getKey() + ": " + e.getMessage());
                 return;
+            }
+        }
+    }
+
+    private void write(Connection conn, String key, String value) throws SQLException {
+        try (PreparedStatement pstmt = SAVE.prepare(conn)) {
             pstmt.setString(1, key);
             pstmt.setString(2, value);
             pstmt.setString(3, value);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
-    public Map<String, String> getAllSettings() {
-        Map<String, String> settings = new HashMap<>();
-        String sql = "SELECT variable, value FROM sys_config";
-        try (Connection conn = DBConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
-            if (conn == null)
-                return settings;
-            while (rs.next()) {
-                settings.put(rs.getString("variable"), rs.getString("value"));
+    // Loads the cache on first use; after a failure, waits RETRY_MS rather than retrying on every read
+    private void ensureLoaded() {
+        if (cache.isLoaded() || System.currentTimeMillis() - lastFailedLoad < RETRY_MS) {
+            return;
+        }
+        synchronized (SettingsService.class) {
+            if (cache.isLoaded()) {
+                return;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            if (reload()) {
+                scheduleReloads();
+            } else {
+                lastFailedLoad = System.currentTimeMillis();
+            }
+        }
+    }
+
+    // Keeps the cache in step with other tills; a failed reload leaves the cached values in place
+    private void scheduleReloads() {
+        if (!reloadScheduled.compareAndSet(false, true)) {
+            return;
         }
-        return settings;
+        ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "settings-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        reloader.scheduleWithFixedDelay(this::reload, RELOAD_INTERVAL_SEC, RELOAD_INTERVAL_SEC, TimeUnit.SECONDS);
     }
 }
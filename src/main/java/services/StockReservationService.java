@@ -0,0 +1,311 @@
+package services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import models.Product;
+
+/**
+ * StockReservationService - Holds stock for items sitting in open carts.
+ *
+ * A lane opens a cart, reserves units as items are added and either commits
+ * the hold after its sale is saved or releases it when the cart is cleared.
+ * A unit can only be reserved while catalog stock minus everything already
+ * reserved by other carts covers it, so two lanes can no longer put the last
+ * unit in their carts.
+ *
+ * Reserved counts live in STRIPES independently locked maps keyed by product
+ * ID, so lanes selling different products never contend and a hot SKU only
+ * blocks its own stripe. Carts that are not touched for the hold timeout are
+ * released by a background sweep.
+ *
+ * Holds are per application instance; across terminals the conditional stock
+ * decrement in SalesService is what finally prevents overselling.
+ */
+public class StockReservationService {
+
+    private static final int STRIPES = 64;
+    private static final long DEFAULT_HOLD_TIMEOUT_MS = 15 * 60 * 1000;
+    private static final long SWEEP_INTERVAL_SEC = 30;
+
+    private static final StockReservationService INSTANCE = new StockReservationService();
+
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong nextCartId = new AtomicLong();
+    private volatile long holdTimeoutMs = DEFAULT_HOLD_TIMEOUT_MS;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    // Units reserved per product, for the products that hash to this stripe
+    private static final class Stripe {
+        final Map<Integer, Integer> reserved = new HashMap<>();
+    }
+
+    // Units one cart holds per product; guarded by synchronizing on the hold
+    private static final class Hold {
+        final Map<Integer, Integer> items = new HashMap<>();
+        volatile long touchedAt = System.currentTimeMillis();
+        boolean closed;
+    }
+
+    private StockReservationService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-hold-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::releaseExpired, SWEEP_INTERVAL_SEC, SWEEP_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    public static StockReservationService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return A new, empty cart to reserve stock for
+     */
+    public long openCart() {
+        long cartId = nextCartId.incrementAndGet();
+        holds.put(cartId, new Hold());
+        return cartId;
+    }
+
+    /**
+     * Reserves units for a cart if enough unreserved stock is left
+     *
+     * @param cartId    The cart from openCart()
+     * @param productId The product to reserve
+     * @param quantity  Units to add to the cart's hold
+     * @return false if fewer than quantity units are available
+     */
+    public boolean reserve(long cartId, int productId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        while (true) {
+            // A cart whose hold expired starts a fresh one
+            Hold hold = holds.computeIfAbsent(cartId, id -> new Hold());
+            synchronized (hold) {
+                if (hold.closed) {
+                    continue;
+                }
+                Stripe stripe = stripeOf(productId);
+                synchronized (stripe) {
+                    int reserved = stripe.reserved.getOrDefault(productId, 0);
+                    if (stockOf(productId) - reserved < quantity) {
+                        rejectedCount.incrementAndGet();
+                        return false;
+                    }
+                    stripe.reserved.put(productId, reserved + quantity);
+                }
+                hold.items.merge(productId, quantity, Integer::sum);
+                hold.touchedAt = System.currentTimeMillis();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns units of one product from a cart's hold
+     *
+     * @param cartId    The cart
+     * @param productId The product
+     * @param quantity  Units to release (capped at what the cart holds)
+     */
+    public void release(long cartId, int productId, int quantity) {
+        Hold hold = holds.get(cartId);
+        if (hold == null) {
+            return;
+        }
+        synchronized (hold) {
+            if (hold.closed) {
+                return;
+            }
+            int held = hold.items.getOrDefault(productId, 0);
+            int released = Math.min(held, quantity);
+            if (released <= 0) {
+                return;
+            }
+            if (held == released) {
+                hold.items.remove(productId);
+            } else {
+                hold.items.put(productId, held - released);
+            }
+            unreserve(productId, released);
+            hold.touchedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Releases everything a cart holds (cart cleared or abandoned); the cart stays usable
+     */
+    public void releaseAll(long cartId) {
+        Hold hold = holds.get(cartId);
+        if (hold == null) {
+            return;
+        }
+        synchronized (hold) {
+            if (hold.closed) {
+                return;
+            }
+            for (Map.Entry<Integer, Integer> item : hold.items.entrySet()) {
+                unreserve(item.getKey(), item.getValue());
+            }
+            hold.items.clear();
+            hold.touchedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Releases everything a cart holds and forgets the cart (its screen was closed)
+     */
+    public void closeCart(long cartId) {
+        Hold hold = holds.remove(cartId);
+        if (hold == null) {
+            return;
+        }
+        synchronized (hold) {
+            if (hold.closed) {
+                return;
+            }
+            for (Map.Entry<Integer, Integer> item : hold.items.entrySet()) {
+                unreserve(item.getKey(), item.getValue());
+            }
+            hold.items.clear();
+            hold.closed = true;
+        }
+    }
+
+    /**
+     * Ends a cart's hold once its sale is saved. Call after the sale has
+     * lowered catalog stock, so the units are never counted as free in between.
+     */
+    public void commit(long cartId) {
+        releaseAll(cartId);
+    }
+
+    /**
+     * Keeps a cart's hold from expiring
+     */
+    public void touch(long cartId) {
+        Hold hold = holds.get(cartId);
+        if (hold != null) {
+            hold.touchedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Releases the holds of carts not touched within the hold timeout
+     *
+     * @return Number of carts whose held units were returned
+     */
+    public int releaseExpired() {
+        long cutoff = System.currentTimeMillis() - holdTimeoutMs;
+        int released = 0;
+        for (Map.Entry<Long, Hold> entry : holds.entrySet()) {
+            Hold hold = entry.getValue();
+            if (hold.touchedAt > cutoff) {
+                continue;
+            }
+            synchronized (hold) {
+                if (hold.closed || hold.touchedAt > cutoff) {
+                    continue;
+                }
+                if (!hold.items.isEmpty()) {
+                    for (Map.Entry<Integer, Integer> item : hold.items.entrySet()) {
+                        unreserve(item.getKey(), item.getValue());
+                    }
+                    hold.items.clear();
+                    released++;
+                }
+                hold.closed = true;
+                holds.remove(entry.getKey(), hold);
+            }
+        }
+        if (released > 0) {
+            expiredCount.addAndGet(released);
+            System.out.println("Released stock held by " + released + " idle carts");
+        }
+        return released;
+    }
+
+    /**
+     * @return Catalog stock not held by any cart
+     */
+    public int getAvailable(int productId) {
+        Stripe stripe = stripeOf(productId);
+        synchronized (stripe) {
+            return stockOf(productId) - stripe.reserved.getOrDefault(productId, 0);
+        }
+    }
+
+    /**
+     * @return Units of a product held across all carts
+     */
+    public int getReserved(int productId) {
+        Stripe stripe = stripeOf(productId);
+        synchronized (stripe) {
+            return stripe.reserved.getOrDefault(productId, 0);
+        }
+    }
+
+    /**
+     * @return Units of a product held by one cart
+     */
+    public int getHeld(long cartId, int productId) {
+        Hold hold = holds.get(cartId);
+        if (hold == null) {
+            return 0;
+        }
+        synchronized (hold) {
+            return hold.items.getOrDefault(productId, 0);
+        }
+    }
+
+    public void setHoldTimeout(long holdTimeoutMs) {
+        this.holdTimeoutMs = holdTimeoutMs;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    // === INTERNALS ===
+
+    private void unreserve(int productId, int quantity) {
+        Stripe stripe = stripeOf(productId);
+        synchronized (stripe) {
+            int left = stripe.reserved.getOrDefault(productId, 0) - quantity;
+            if (left > 0) {
+                stripe.reserved.put(productId, left);
+            } else {
+                stripe.reserved.remove(productId);
+            }
+        }
+    }
+
+    private int stockOf(int productId) {
+        Product product = catalog.get(productId);
+        return product == null ? 0 : product.getStock();
+    }
+
+    // Spreads consecutive product IDs over all stripes
+    private Stripe stripeOf(int productId) {
+        int h = productId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -23,6 +23,7 @@ public class Account extends JPanel {
     private JTextField deptField;
     private JTextField memberSinceField;
     private JLabel titleLabel;
+    private final AsyncLoader loader = new AsyncLoader("account", this);
 
     public Account() {
         this("Guest");
@@ -47,8 +48,7 @@ public class Account extends JPanel {
 
     private void loadUserData() {
         AuthService authService = new AuthService();
-        try {
-            models.User user = authService.getUserDetails(currentUsername);
+        loader.load("user", () -> authService.getUserDetails(currentUsername), user -> {
             if (user != null) {
                 if (nameField != null)
                     nameField.setText(user.getUsername());
@@ -67,11 +67,11 @@ public class Account extends JPanel {
                     titleLabel.setText("Account: " + user.getUsername());
                 }
             }
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading account details: " + e.getMessage(),
                     "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private JPanel createHeader() {
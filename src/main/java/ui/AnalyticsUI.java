@@ -1,5 +1,6 @@
 package ui;
 
+import models.Analytics;
 import services.AnalyticsService;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -8,7 +9,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.sql.SQLException;
 import java.util.Map;
 import java.util.LinkedHashMap;
 import java.io.File;
@@ -31,6 +31,7 @@ public class AnalyticsUI extends JPanel {
     private final Color TEXT_SECONDARY = AppTheme.getSubTextColor();
 
     private final AnalyticsService analyticsService;
+    private final AsyncLoader loader = new AsyncLoader("analytics", this);
     private final JPanel chartsGrid;
     private JComboBox<String> timeFilter;
     private JComboBox<String> categoryFilter;
@@ -122,41 +123,68 @@ public class AnalyticsUI extends JPanel {
         loadData();
     }
 
-    private synchronized void loadData() {
+    private void loadData() {
         if (timeFilter == null || categoryFilter == null)
             return;
         String period = (String) timeFilter.getSelectedItem();
         String cat = (String) categoryFilter.getSelectedItem();
 
+        // The queries run in the background; a newer filter choice drops older results.
+        // The period totals are store-wide, so they are only shown without a category filter
+        boolean allCategories = "All Categories".equals(cat);
+        loader.load("charts", () -> new ChartData(
+                analyticsService.getSalesTrend(period, cat),
+                analyticsService.getTopProducts(period, cat),
+                analyticsService.getRevenueDistribution(period, cat),
+                allCategories ? analyticsService.getPeriodTotals(period) : null),
+                data -> showCharts(period, cat, data),
+                e -> {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
+                });
+    }
+
+    private void showCharts(String period, String cat, ChartData data) {
         chartsGrid.removeAll();
-        try {
-            // 1. Sales Trend
-            Map<String, Double> salesTrend = analyticsService.getSalesTrend(period, cat);
-            chartsGrid.add(createChartCard("Sales Trend (" + period + ")", new LineChart(salesTrend)));
-
-            // 2. Top Products
-            Map<String, Integer> topProducts = analyticsService.getTopProducts(period, cat);
-            Map<String, Double> topProductData = new LinkedHashMap<>();
-            topProducts.forEach((k, v) -> topProductData.put(k, v.doubleValue()));
-            chartsGrid.add(createChartCard("Top Products (" + period + ")", new BarChart(topProductData)));
-
-            // 3. Revenue Breakdown (Pie Chart) - Shows Products within category if filtered
-            Map<String, Double> revenueDistribution = analyticsService.getRevenueDistribution(period, cat);
-            String pieTitle = (cat.equals("All Categories")) ? "Revenue by Category" : "Revenue Breakdown: " + cat;
-            chartsGrid.add(createChartCard(pieTitle, new PieChart(revenueDistribution)));
-
-            // 4. Summary Stats
-            double total = revenueDistribution.values().stream().mapToDouble(Double::doubleValue).sum();
-            chartsGrid.add(createChartCard("Performance Summary", new SummaryPanel(total, topProducts.size())));
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
-        }
+
+        // 1. Sales Trend
+        chartsGrid.add(createChartCard("Sales Trend (" + period + ")", new LineChart(data.salesTrend)));
+
+        // 2. Top Products
+        Map<String, Double> topProductData = new LinkedHashMap<>();
+        data.topProducts.forEach((k, v) -> topProductData.put(k, v.doubleValue()));
+        chartsGrid.add(createChartCard("Top Products (" + period + ")", new BarChart(topProductData)));
+
+        // 3. Revenue Breakdown (Pie Chart) - Shows Products within category if filtered
+        String pieTitle = (cat.equals("All Categories")) ? "Revenue by Category" : "Revenue Breakdown: " + cat;
+        chartsGrid.add(createChartCard(pieTitle, new PieChart(data.revenueDistribution)));
+
+        // 4. Summary Stats
+        double total = data.revenueDistribution.values().stream().mapToDouble(Double::doubleValue).sum();
+        chartsGrid.add(createChartCard("Performance Summary",
+                new SummaryPanel(total, data.topProducts.size(), data.totals)));
+
         chartsGrid.revalidate();
         chartsGrid.repaint();
     }
 
+    // Results of one chart load
+    private static class ChartData {
+        final Map<String, Double> salesTrend;
+        final Map<String, Integer> topProducts;
+        final Map<String, Double> revenueDistribution;
+        // Store-wide totals for the period, or null when a category is selected
+        final Analytics totals;
+
+        ChartData(Map<String, Double> salesTrend, Map<String, Integer> topProducts,
+                  Map<String, Double> revenueDistribution, Analytics totals) {
+            this.salesTrend = salesTrend;
+            this.topProducts = topProducts;
+            this.revenueDistribution = revenueDistribution;
+            this.totals = totals;
+        }
+    }
+
     private JPanel createChartCard(String title, JPanel chart) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(CARD_BG);
@@ -267,21 +295,30 @@ public class AnalyticsUI extends JPanel {
     // --- Chart Components ---
 
     class SummaryPanel extends JPanel {
-        SummaryPanel(double total, int count) {
+        SummaryPanel(double total, int count, Analytics totals) {
             setOpaque(false);
-            setLayout(new GridLayout(2, 1));
-            JLabel lblTotal = new JLabel("Total Revenue: $" + String.format("%.2f", total));
+            setLayout(new GridLayout(totals == null ? 2 : 4, 1));
+            // Without a category filter the rollup totals cover every sale, not just the charted ones
+            double revenue = totals == null ? total : totals.getTotalRevenue();
+            JLabel lblTotal = new JLabel("Total Revenue: $" + String.format("%.2f", revenue));
             lblTotal.setForeground(SUCCESS_COLOR);
             lblTotal.setFont(new Font("Segoe UI", Font.BOLD, 20));
             lblTotal.setHorizontalAlignment(SwingConstants.CENTER);
+            add(lblTotal);
 
-            JLabel lblCount = new JLabel("Products Sold: " + count);
-            lblCount.setForeground(TEXT_PRIMARY);
-            lblCount.setFont(new Font("Segoe UI", Font.PLAIN, 18));
-            lblCount.setHorizontalAlignment(SwingConstants.CENTER);
+            if (totals != null) {
+                add(createSummaryLine("Transactions: " + totals.getTotalTransactions()));
+                add(createSummaryLine("Customer Visits: " + totals.getTotalCustomers()));
+            }
+            add(createSummaryLine("Products Sold: " + count));
+        }
 
-            add(lblTotal);
-            add(lblCount);
+        private JLabel createSummaryLine(String text) {
+            JLabel label = new JLabel(text);
+            label.setForeground(TEXT_PRIMARY);
+            label.setFont(new Font("Segoe UI", Font.PLAIN, 18));
+            label.setHorizontalAlignment(SwingConstants.CENTER);
+            return label;
         }
     }
 
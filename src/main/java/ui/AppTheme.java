@@ -4,13 +4,24 @@ import java.awt.Color;
 import services.SettingsService;
 
 public class AppTheme {
-    private static boolean isDarkMode = true;
-    private static boolean isColorBlindMode = false;
-    private static final SettingsService settingsService = new SettingsService();
+    private static final String DARK_MODE_KEY = "theme_dark";
+    private static final String COLOR_BLIND_KEY = "accessibility_colorblind";
+
+    private static volatile boolean isDarkMode = true;
+    private static volatile boolean isColorBlindMode = false;
+    private static final SettingsService settingsService = SettingsService.getInstance();
 
     static {
-        isDarkMode = Boolean.parseBoolean(settingsService.getSetting("theme_dark", "true"));
-        isColorBlindMode = Boolean.parseBoolean(settingsService.getSetting("accessibility_colorblind", "false"));
+        isDarkMode = Boolean.parseBoolean(settingsService.getSetting(DARK_MODE_KEY, "true"));
+        isColorBlindMode = Boolean.parseBoolean(settingsService.getSetting(COLOR_BLIND_KEY, "false"));
+        // Follow saves from the settings screen and values reloaded from other tills
+        settingsService.addListener((key, value) -> {
+            if (DARK_MODE_KEY.equals(key)) {
+                isDarkMode = Boolean.parseBoolean(value == null ? "true" : value);
+            } else if (COLOR_BLIND_KEY.equals(key)) {
+                isColorBlindMode = Boolean.parseBoolean(value);
+            }
+        });
     }
 
     public static boolean isDarkMode() {
@@ -19,7 +30,7 @@ public class AppTheme {
 
     public static void setDarkMode(boolean darkMode) {
         isDarkMode = darkMode;
-        settingsService.saveSetting("theme_dark", String.valueOf(darkMode));
+        settingsService.saveSetting(DARK_MODE_KEY, String.valueOf(darkMode));
     }
 
     public static boolean isColorBlindMode() {
@@ -28,7 +39,7 @@ public class AppTheme {
 
     public static void setColorBlindMode(boolean colorBlindMode) {
         isColorBlindMode = colorBlindMode;
-        settingsService.saveSetting("accessibility_colorblind", String.valueOf(colorBlindMode));
+        settingsService.saveSetting(COLOR_BLIND_KEY, String.valueOf(colorBlindMode));
     }
 
     // Colors
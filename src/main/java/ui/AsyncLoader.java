@@ -0,0 +1,146 @@
+package ui;
+
+import utils.LatencyHistogram;
+
+import javax.swing.JComponent;
+import java.awt.Cursor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * AsyncLoader - Runs a panel's data loads off the Swing event thread.
+ *
+ * A panel keeps one loader and calls load(name, call, onResult, onError)
+ * from the EDT. The service call runs on the ServiceExecutor; the result
+ * (or error) is handed back on the EDT. Each load has a name,
+ * and a newer load with the same name supersedes an older one: if the older
+ * one finishes later its result is dropped, so a slow query can never
+ * overwrite the rows of a faster, more recent search.
+ *
+ * While any load of a panel is running the panel shows the busy cursor.
+ * Every load is timed (service call, and the apply step on the EDT) into a
+ * histogram per "panel.name"; see report().
+ */
+public class AsyncLoader {
+
+    private static final Map<String, LatencyHistogram> callTimes = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> applyTimes = new ConcurrentHashMap<>();
+    private static final AtomicInteger staleCount = new AtomicInteger();
+
+    private final String panel;
+    private final JComponent component;
+    // Latest generation per load name; only touched on the EDT
+    private final Map<String, Long> generations = new HashMap<>();
+    private long nextGeneration = 0;
+    private int pending = 0;
+
+    /**
+     * @param panel     Name used in the timing report, e.g. "products"
+     * @param component Panel that shows the busy cursor while loading
+     */
+    public AsyncLoader(String panel, JComponent component) {
+        this.panel = panel;
+        this.component = component;
+    }
+
+    /**
+     * Starts a load; must be called on the EDT
+     *
+     * @param name     Load name within the panel; a newer load of the same name supersedes this one
+     * @param call     Service call to run in the background
+     * @param onResult Applies the result on the EDT
+     * @param onError  Reports a failure on the EDT
+     */
+    public <T> void load(String name, Callable<T> call, Consumer<T> onResult, Consumer<Throwable> onError) {
+        long generation = ++nextGeneration;
+        generations.put(name, generation);
+        if (pending++ == 0) {
+            component.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+        String key = panel + "." + name;
+        ServiceExecutor.getInstance().submit(key, () -> {
+            long t0 = System.nanoTime();
+            try {
+                return call.call();
+            } finally {
+                histogram(callTimes, key).recordNanos(System.nanoTime() - t0);
+            }
+        }).onEdt(result -> apply(name, generation, key, result, null, onResult, onError),
+                error -> apply(name, generation, key, null, error, onResult, onError));
+    }
+
+    /**
+     * @return true while a load started by this loader has not been applied or dropped yet
+     */
+    public boolean isLoading() {
+        return pending > 0;
+    }
+
+    private <T> void apply(String name, long generation, String key, T result, Throwable error,
+                           Consumer<T> onResult, Consumer<Throwable> onError) {
+        if (--pending == 0) {
+            component.setCursor(Cursor.getDefaultCursor());
+        }
+        if (generations.get(name) != generation) {
+            staleCount.incrementAndGet();
+            return;
+        }
+        long t0 = System.nanoTime();
+        if (error != null) {
+            onError.accept(error);
+        } else {
+            onResult.accept(result);
+        }
+        histogram(applyTimes, key).recordNanos(System.nanoTime() - t0);
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> map, String key) {
+        return map.computeIfAbsent(key, LatencyHistogram::new);
+    }
+
+    // === METRICS ===
+
+    /**
+     * @return Loads whose result was dropped because a newer load superseded them
+     */
+    public static int getStaleCount() {
+        return staleCount.get();
+    }
+
+    /**
+     * @return Service call times of one load, e.g. "products.table", or null if it never ran
+     */
+    public static LatencyHistogram getCallTimes(String key) {
+        return callTimes.get(key);
+    }
+
+    /**
+     * @return Time spent applying results on the EDT for one load, or null
+     */
+    public static LatencyHistogram getApplyTimes(String key) {
+        return applyTimes.get(key);
+    }
+
+    /**
+     * @return One line per load: background call time, then EDT apply time
+     */
+    public static String report() {
+        List<String> keys = new ArrayList<>(callTimes.keySet());
+        keys.sort(null);
+        StringBuilder sb = new StringBuilder("UI loads (" + staleCount.get() + " stale results dropped)\n");
+        for (String key : keys) {
+            sb.append("  call  ").append(callTimes.get(key)).append('\n');
+            LatencyHistogram apply = applyTimes.get(key);
+            if (apply != null) {
+                sb.append("  apply ").append(apply).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -2,20 +2,26 @@ package ui;
 
 import models.Customer;
 import services.CustomerService;
+import services.CustomerService.SortField;
+import services.Page;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class CustomerUI extends JPanel {
+    // Rows per page and pages kept by the table model
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 20;
     private JTable table;
-    private DefaultTableModel model;
+    private PagedTableModel<Customer> model;
     private JTextField txtFullName, txtContact, txtEmail, txtAddress, txtPoints, txtSearch;
     private CustomerService service;
+    private final AsyncLoader loader = new AsyncLoader("customers", this);
 
     public CustomerUI() {
         service = new CustomerService();
@@ -89,14 +95,11 @@ public class CustomerUI extends JPanel {
         card.setLayout(new BorderLayout());
         card.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
-        model = new DefaultTableModel(
+        // Rows are fetched a page at a time as the table scrolls, newest customers first
+        model = new PagedTableModel<>("customers",
                 new String[] { "ID", "Full Name", "Contact", "Email", "Address", "Loyalty Points", "Created",
                         "Updated" },
-                0) {
-            public boolean isCellEditable(int r, int c) {
-                return false;
-            }
-        };
+                this::cellValue, PAGE_SIZE, MAX_PAGES, 0, false);
 
         table = new JTable(model);
         table.setBackground(AppTheme.getCardColor());
@@ -122,15 +125,18 @@ public class CustomerUI extends JPanel {
         table.getTableHeader().setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(50, 60, 90)));
         table.getTableHeader().setPreferredSize(new Dimension(0, 45));
 
+        model.installSortHeader(table);
+
         table.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
                 int row = table.getSelectedRow();
-                if (row >= 0) {
-                    txtFullName.setText(model.getValueAt(row, 1).toString());
-                    txtContact.setText(model.getValueAt(row, 2).toString());
-                    txtEmail.setText(model.getValueAt(row, 3).toString());
-                    txtAddress.setText(model.getValueAt(row, 4).toString());
-                    txtPoints.setText(model.getValueAt(row, 5).toString());
+                Customer c = row >= 0 ? model.getRow(row) : null;
+                if (c != null) {
+                    txtFullName.setText(c.getFullName());
+                    txtContact.setText(c.getContact());
+                    txtEmail.setText(c.getEmail());
+                    txtAddress.setText(c.getAddress());
+                    txtPoints.setText(String.valueOf(c.getLoyaltyPoints()));
                 }
             }
         });
@@ -329,11 +335,47 @@ public class CustomerUI extends JPanel {
     }
 
     private void loadTable() {
-        model.setRowCount(0);
-        List<Customer> list = service.getAllCustomers();
-        for (Customer c : list) {
-            model.addRow(new Object[] { c.getCustomerId(), c.getFullName(), c.getContact(), c.getEmail(),
-                    c.getAddress(), c.getLoyaltyPoints(), c.getCreatedAt(), c.getUpdatedAt() });
+        loader.load("table", service::countCustomers, count -> model.setSource(customerPages(), count),
+                e -> showError("Error loading customers: " + e.getMessage()));
+    }
+
+    // Pages of all customers, sorted on the server by ID or by surname then first name
+    private PagedTableModel.Source<Customer> customerPages() {
+        return new PagedTableModel.Source<Customer>() {
+            @Override
+            public Page<Customer> fetch(String after, int offset, int limit, int column, boolean ascending)
+                    throws Exception {
+                SortField sort = column == 1 ? SortField.NAME : SortField.ID;
+                return after != null
+                        ? service.listCustomers(after, limit, sort, ascending, null)
+                        : service.listCustomersAt(offset, limit, sort, ascending, null);
+            }
+
+            @Override
+            public boolean isSortable(int column) {
+                return column == 0 || column == 1;
+            }
+        };
+    }
+
+    private Object cellValue(Customer c, int column) {
+        switch (column) {
+            case 0:
+                return c.getCustomerId();
+            case 1:
+                return c.getFullName();
+            case 2:
+                return c.getContact();
+            case 3:
+                return c.getEmail();
+            case 4:
+                return c.getAddress();
+            case 5:
+                return c.getLoyaltyPoints();
+            case 6:
+                return c.getCreatedAt();
+            default:
+                return c.getUpdatedAt();
         }
     }
 
@@ -352,13 +394,8 @@ public class CustomerUI extends JPanel {
             c.setLoyaltyPoints(
                     Integer.parseInt(txtPoints.getText().trim().isEmpty() ? "0" : txtPoints.getText().trim()));
 
-            if (service.addCustomer(c)) {
-                showSuccess("Customer added successfully!");
-                loadTable();
-                clearFields();
-            } else {
-                showError("Failed to add customer");
-            }
+            save("customers.add", () -> service.addCustomer(c),
+                    "Customer added successfully!", "Failed to add customer");
         } catch (NumberFormatException e) {
             showError("Loyalty Points must be a valid number");
         } catch (Exception e) {
@@ -372,9 +409,13 @@ public class CustomerUI extends JPanel {
             showWarning("Please select a customer to update");
             return;
         }
+        Customer selected = model.getRow(row);
+        if (selected == null) {
+            return;
+        }
         try {
             Customer c = new Customer();
-            c.setCustomerId(Integer.parseInt(model.getValueAt(row, 0).toString()));
+            c.setCustomerId(selected.getCustomerId());
             c.setFullName(txtFullName.getText().trim());
             c.setContact(txtContact.getText().trim());
             c.setEmail(txtEmail.getText().trim());
@@ -382,13 +423,8 @@ public class CustomerUI extends JPanel {
             c.setLoyaltyPoints(
                     Integer.parseInt(txtPoints.getText().trim().isEmpty() ? "0" : txtPoints.getText().trim()));
 
-            if (service.updateCustomer(c)) {
-                showSuccess("Customer updated successfully!");
-                loadTable();
-                clearFields();
-            } else {
-                showError("Failed to update customer");
-            }
+            save("customers.update", () -> service.updateCustomer(c),
+                    "Customer updated successfully!", "Failed to update customer");
         } catch (Exception e) {
             showError("Error: " + e.getMessage());
         }
@@ -402,28 +438,43 @@ public class CustomerUI extends JPanel {
         }
         if (JOptionPane.showConfirmDialog(this, "Delete this customer?",
                 "Confirm", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-            int id = Integer.parseInt(model.getValueAt(row, 0).toString());
-            if (service.deleteCustomer(id)) {
-                showSuccess("Customer deleted successfully!");
+            Customer selected = model.getRow(row);
+            if (selected == null) {
+                return;
+            }
+            int id = selected.getCustomerId();
+            save("customers.delete", () -> service.deleteCustomer(id),
+                    "Customer deleted successfully!", "Failed to delete customer");
+        }
+    }
+
+    // Runs a write in the background, then reloads the table on success
+    private void save(String name, Callable<Boolean> call, String successMsg, String failureMsg) {
+        ServiceExecutor.getInstance().submit(name, call).onEdt(success -> {
+            if (success) {
+                showSuccess(successMsg);
                 loadTable();
                 clearFields();
             } else {
-                showError("Failed to delete customer");
+                showError(failureMsg);
             }
-        }
+        }, e -> showError("Error: " + e.getMessage()));
     }
 
+    // Shares the "table" slot with loadTable, so a slow full load cannot overwrite search results
     private void searchCustomer() {
         String key = txtSearch.getText().trim();
-        model.setRowCount(0);
-        List<Customer> results = key.isEmpty() ? service.getAllCustomers() : service.searchCustomers(key);
-        for (Customer c : results) {
-            model.addRow(new Object[] { c.getCustomerId(), c.getFullName(), c.getContact(), c.getEmail(),
-                    c.getAddress(), c.getLoyaltyPoints(), c.getCreatedAt(), c.getUpdatedAt() });
-        }
-        if (results.isEmpty() && !key.isEmpty()) {
-            showInfo("No customers found");
+        if (key.isEmpty()) {
+            loadTable();
+            return;
         }
+        loader.load("table", () -> service.searchCustomers(key),
+                results -> {
+                    model.setSource(PagedTableModel.listSource(results), results.size());
+                    if (results.isEmpty()) {
+                        showInfo("No customers found");
+                    }
+                }, e -> showError("Search failed: " + e.getMessage()));
     }
 
     private void clearFields() {
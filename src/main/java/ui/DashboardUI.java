@@ -6,12 +6,15 @@ import javax.swing.*;
 import javax.swing.border.*;
 
 public class DashboardUI {
+    // -Dui.preload=false builds every panel only when it is first opened
+    private static final boolean PRELOAD = Boolean.parseBoolean(System.getProperty("ui.preload", "true"));
+
     private final JFrame frame;
     private final JPanel mainContent;
     private final CardLayout cardLayout;
+    private final PanelRegistry panels;
 
     private final String username;
-    private AnalyticsUI analyticsPanel;
     private static DashboardUI instance;
 
     public static DashboardUI getInstance() {
@@ -19,6 +22,7 @@ public class DashboardUI {
     }
 
     public DashboardUI(String username) {
+        long start = System.nanoTime();
         instance = this;
         this.username = username;
         frame = new JFrame("Smart Retails & Analytics");
@@ -28,19 +32,26 @@ public class DashboardUI {
         frame.setLocationRelativeTo(null);
         frame.setLayout(new BorderLayout());
         cardLayout = new CardLayout();
-        mainContent = new JPanel(cardLayout);
+        mainContent = new JPanel(cardLayout) {
+            private boolean painted;
+
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                if (!painted) {
+                    painted = true;
+                    onFirstPaint();
+                }
+            }
+        };
         mainContent.setBackground(AppTheme.getBgColor());
         mainContent.setOpaque(true);
 
-        analyticsPanel = new AnalyticsUI();
-
-        mainContent.add(new Account(username), "Account");
-        mainContent.add(createPlaceholder("Dashboard"), "Dashboard");
-        mainContent.add(analyticsPanel, "Analytics");
-        mainContent.add(new SalesUI(), "sales");
-        mainContent.add(new SettingsUI(), "Setting");
-        mainContent.add(new CustomerUI(), "Customer");
-        mainContent.add(new ProductUI(), "Product");
+        // Panels are built when first opened (or preloaded after the first paint), then kept
+        panels = new PanelRegistry(mainContent, cardLayout, start);
+        registerPanels();
+        panels.show("Account");
+        watchFirstInteraction();
 
         frame.add(sideBar(), BorderLayout.WEST);
         frame.add(mainContent, BorderLayout.CENTER);
@@ -48,22 +59,54 @@ public class DashboardUI {
         frame.setVisible(true);
     }
 
+    private void registerPanels() {
+        panels.register("Account", () -> new Account(username));
+        panels.register("Customer", CustomerUI::new);
+        panels.register("Product", ProductUI::new);
+        panels.register("Analytics", AnalyticsUI::new);
+        panels.register("sales", SalesUI::new);
+        panels.register("Setting", SettingsUI::new);
+        panels.register("Dashboard", () -> createPlaceholder("Dashboard"));
+    }
+
+    private void onFirstPaint() {
+        panels.markFirstPaint();
+        if (PRELOAD) {
+            SwingUtilities.invokeLater(panels::preload);
+        }
+    }
+
+    // The first mouse press or key press anywhere in the window ends the startup measurement
+    private void watchFirstInteraction() {
+        AWTEventListener listener = new AWTEventListener() {
+            @Override
+            public void eventDispatched(AWTEvent event) {
+                int id = event.getID();
+                if (id == MouseEvent.MOUSE_PRESSED || id == KeyEvent.KEY_PRESSED) {
+                    Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+                    panels.markFirstInteraction();
+                }
+            }
+        };
+        Toolkit.getDefaultToolkit().addAWTEventListener(listener,
+                AWTEvent.MOUSE_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+    }
+
     public void reloadAllTabs() {
-        mainContent.removeAll();
-        analyticsPanel = new AnalyticsUI();
-
-        mainContent.add(new Account(username), "Account");
-       
-        mainContent.add(analyticsPanel, "Analytics");
-        mainContent.add(new SalesUI(), "sales");
-        mainContent.add(new SettingsUI(), "Setting");
-        mainContent.add(new CustomerUI(), "Customer");
-        mainContent.add(new ProductUI(), "Product");
-
-        mainContent.revalidate();
-        mainContent.repaint();
+        // Rebuild with the new theme: settings now, the rest when opened or preloaded
+        panels.reset();
         // Return to settings tab so the user sees the confirmation
-        cardLayout.show(mainContent, "Setting");
+        panels.show("Setting");
+        if (PRELOAD) {
+            panels.preload();
+        }
+    }
+
+    /**
+     * @return Startup milestones and panel build times
+     */
+    public PanelRegistry getPanels() {
+        return panels;
     }
 
     public DashboardUI() {
@@ -91,10 +134,11 @@ public class DashboardUI {
             button.setMargin(new Insets(8, 16, 8, 16));
 
             button.addActionListener(e -> {
-                if ("Analytics".equals(item)) {
-                    analyticsPanel.refreshData();
+                // A freshly built analytics panel has just loaded; a cached one is refreshed
+                if ("Analytics".equals(item) && panels.isBuilt(item)) {
+                    ((AnalyticsUI) panels.get(item)).refreshData();
                 }
-                cardLayout.show(mainContent, item);
+                panels.show(item);
             });
 
             sidebar.add(Box.createVerticalStrut(15));
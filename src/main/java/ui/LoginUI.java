@@ -2,7 +2,6 @@ package ui;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.SQLException;
 import javax.swing.*;
 import services.AuthService;
 
@@ -290,9 +289,12 @@ public class LoginUI {
                 return;
             }
 
-            try {
-                // Authenticate user
-                if (authService.authenticateUser(username, password)) {
+            // Authenticate in the background so the window stays responsive
+            signInBtn.setEnabled(false);
+            ServiceExecutor.getInstance().submit("login.authenticate",
+                    () -> authService.authenticateUser(username, password)).onEdt(authenticated -> {
+                signInBtn.setEnabled(true);
+                if (authenticated) {
                     JOptionPane.showMessageDialog(frame, "Login Successful! Welcome " + username, "Success",
                             JOptionPane.INFORMATION_MESSAGE);
 
@@ -301,31 +303,26 @@ public class LoginUI {
 
                     // Then create and show dashboard
                     try {
-                        SwingUtilities.invokeLater(() -> {
-                            try {
-                                new DashboardUI(username);
-                            } catch (Exception ex) {
-                                ex.printStackTrace();
-                                JOptionPane.showMessageDialog(null, "Error loading Dashboard: " + ex.getMessage(),
-                                        "Error", JOptionPane.ERROR_MESSAGE);
-                            }
-                        });
+                        new DashboardUI(username);
                     } catch (Exception ex) {
                         ex.printStackTrace();
-                        JOptionPane.showMessageDialog(frame, "Error launching Dashboard: " + ex.getMessage(), "Error",
-                                JOptionPane.ERROR_MESSAGE);
+                        JOptionPane.showMessageDialog(null, "Error loading Dashboard: " + ex.getMessage(),
+                                "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 } else {
                     JOptionPane.showMessageDialog(frame, "Username or Password doesnot exist..please contact IT dept",
                             "Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(frame, "Database Error: " + ex.getMessage(), "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            } catch (IllegalArgumentException ex) {
-                JOptionPane.showMessageDialog(frame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }, ex -> {
+                signInBtn.setEnabled(true);
+                if (ex instanceof IllegalArgumentException) {
+                    JOptionPane.showMessageDialog(frame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(frame, "Database Error: " + ex.getMessage(), "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            });
         });
         // compose form: header stays at the top, the fields and button vertically
         // centered
@@ -0,0 +1,352 @@
+package ui;
+
+import services.Page;
+
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PagedTableModel - A table model that only holds the rows being looked at.
+ *
+ * The model knows how many rows there are, but fetches them a page at a
+ * time from a Source as the table asks for them (i.e. as the viewport
+ * scrolls), on the ServiceExecutor. Until a page arrives its cells are
+ * empty; when it does, only its rows are repainted. At most maxPages pages
+ * are kept, least recently used first out, so a 100k-row list costs a few
+ * pages of memory, and cell text is formatted only when a cell is painted.
+ *
+ * A page is fetched by keyset when the cursor of the page before it is
+ * known, which is always the case when scrolling through the list; a jump
+ * (dragging the scrollbar) fetches that one page by offset. The cursor of
+ * every page fetched is remembered (one per page, even after the page
+ * itself is evicted) so going back is a seek again.
+ *
+ * Sorting happens at the source: clicking a sortable header (see
+ * installSortHeader) drops the cache and re-reads in the new order.
+ * A page whose fetch failed is not asked for again until its retry delay
+ * has passed (its rows are then repainted, which requests it again) or
+ * the source or sort changes.
+ * All methods must be called on the EDT.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+
+    public static final int DEFAULT_RETRY_DELAY_MS = 5000;
+
+    /**
+     * Where the rows come from; called off the EDT
+     */
+    public interface Source<T> {
+        /**
+         * @param after     Cursor of the previous page, or null to read by offset
+         * @param offset    Index of the first row wanted (ignored when after is given)
+         * @param limit     Page size
+         * @param column    Column to sort by
+         * @param ascending Sort direction
+         */
+        Page<T> fetch(String after, int offset, int limit, int column, boolean ascending) throws Exception;
+
+        default boolean isSortable(int column) {
+            return false;
+        }
+    }
+
+    /**
+     * Turns a row into cell values; called while painting, so it should only format
+     */
+    public interface Columns<T> {
+        Object valueAt(T row, int column);
+    }
+
+    /**
+     * Source over rows already in memory, e.g. ranked search results; not sortable
+     */
+    public static <T> Source<T> listSource(List<T> rows) {
+        return (after, offset, limit, column, ascending) -> {
+            int start = Math.min(after != null ? Integer.parseInt(after) : offset, rows.size());
+            int end = Math.min(start + limit, rows.size());
+            return new Page<>(rows.subList(start, end), end < rows.size() ? String.valueOf(end) : null);
+        };
+    }
+
+    private final String name;
+    private final String[] columnNames;
+    private final Columns<T> columns;
+    private final int pageSize;
+
+    private final Map<Integer, List<T>> pages;
+    // Cursor for the page after each page fetched
+    private final Map<Integer, String> cursors = new HashMap<>();
+    private final Set<Integer> pending = new HashSet<>();
+    // Failed page -> time (ms) before which it is not fetched again
+    private final Map<Integer, Long> retryAt = new HashMap<>();
+    private int retryDelayMs = DEFAULT_RETRY_DELAY_MS;
+
+    private Source<T> source = listSource(List.of());
+    private int rowCount = 0;
+    private int sortColumn;
+    private boolean ascending;
+    // Bumped whenever the cache is dropped, so pages of an older query are ignored
+    private long generation = 0;
+
+    private JTable sortTable;
+    private int seekFetches = 0;
+    private int offsetFetches = 0;
+    private Throwable lastError;
+
+    /**
+     * @param name        Task name prefix for the ServiceExecutor metrics, e.g. "products"
+     * @param columnNames Column headers
+     * @param columns     Formats cell values
+     * @param pageSize    Rows per page
+     * @param maxPages    Pages kept in memory
+     * @param sortColumn  Initial sort column
+     * @param ascending   Initial sort direction
+     */
+    public PagedTableModel(String name, String[] columnNames, Columns<T> columns, int pageSize, int maxPages,
+                           int sortColumn, boolean ascending) {
+        this.name = name;
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.pageSize = pageSize;
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Shows the rows of a new source; pages are fetched as they are displayed
+     *
+     * @param rowCount Number of rows the source has
+     */
+    public void setSource(Source<T> source, int rowCount) {
+        this.source = source;
+        this.rowCount = rowCount;
+        clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Re-reads in a new order; the row count stays the same
+     */
+    public void setSort(int column, boolean ascending) {
+        this.sortColumn = column;
+        this.ascending = ascending;
+        clear();
+        updateSortHeader();
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * @param retryDelayMs How long a page whose fetch failed is left alone before it is fetched again
+     */
+    public void setRetryDelay(int retryDelayMs) {
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * Makes clicks on sortable headers sort by that column (again to reverse)
+     * and marks the sorted column with an arrow
+     */
+    public void installSortHeader(JTable table) {
+        sortTable = table;
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                int column = table.convertColumnIndexToModel(viewColumn);
+                if (source.isSortable(column)) {
+                    setSort(column, column == sortColumn ? !ascending : true);
+                }
+            }
+        });
+        updateSortHeader();
+    }
+
+    /**
+     * @return The row if its page is loaded, otherwise null (and the page is requested)
+     */
+    public T getRow(int row) {
+        List<T> page = pages.get(row / pageSize);
+        if (page == null) {
+            requestPage(row / pageSize, true);
+            return null;
+        }
+        int index = row % pageSize;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    // === TABLE MODEL ===
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T value = getRow(row);
+        return value == null ? null : columns.valueAt(value, column);
+    }
+
+    // === PAGING ===
+
+    private void clear() {
+        generation++;
+        pages.clear();
+        cursors.clear();
+        pending.clear();
+        retryAt.clear();
+    }
+
+    private void requestPage(int page, boolean prefetchNext) {
+        if (page * pageSize >= rowCount || pages.containsKey(page)) {
+            return;
+        }
+        Long retry = retryAt.get(page);
+        if (retry != null) {
+            if (System.currentTimeMillis() < retry) {
+                return;
+            }
+            retryAt.remove(page);
+        }
+        if (!pending.add(page)) {
+            return;
+        }
+        String after = page == 0 ? null : cursors.get(page - 1);
+        if (page == 0 || after != null) {
+            seekFetches++;
+        } else {
+            offsetFetches++;
+        }
+        long requested = generation;
+        Source<T> from = source;
+        int column = sortColumn;
+        boolean asc = ascending;
+        ServiceExecutor.getInstance().submit(name + ".page",
+                () -> from.fetch(after, page * pageSize, pageSize, column, asc))
+                .onEdt(result -> {
+                    if (requested != generation) {
+                        return;
+                    }
+                    pending.remove(page);
+                    pages.put(page, result.getItems());
+                    if (result.hasMore()) {
+                        cursors.put(page, result.getNextCursor());
+                    }
+                    int first = page * pageSize;
+                    int last = Math.min(rowCount, first + pageSize) - 1;
+                    if (first <= last) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                    // Scrolling on will want the next page; it can now be fetched by seek
+                    if (prefetchNext) {
+                        requestPage(page + 1, false);
+                    }
+                }, e -> {
+                    if (requested != generation) {
+                        return;
+                    }
+                    // Not retried on every repaint; after the delay its rows are repainted so it is asked for again
+                    pending.remove(page);
+                    retryAt.put(page, System.currentTimeMillis() + retryDelayMs);
+                    lastError = e;
+                    System.err.println("Error loading " + name + " page " + page + ": " + e.getMessage());
+                    scheduleRetry(page, requested);
+                });
+    }
+
+    private void scheduleRetry(int page, long requested) {
+        Timer timer = new Timer(retryDelayMs, e -> {
+            int first = page * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (requested == generation && first <= last) {
+                fireTableRowsUpdated(first, last);
+            }
+        });
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    private void updateSortHeader() {
+        if (sortTable == null) {
+            return;
+        }
+        for (int i = 0; i < sortTable.getColumnModel().getColumnCount(); i++) {
+            TableColumn tc = sortTable.getColumnModel().getColumn(i);
+            int column = tc.getModelIndex();
+            tc.setHeaderValue(column == sortColumn ? columnNames[column] + (ascending ? " ▲" : " ▼")
+                    : columnNames[column]);
+        }
+        sortTable.getTableHeader().repaint();
+    }
+
+    // === METRICS ===
+
+    /**
+     * @return Pages currently held in memory
+     */
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * @return Pages fetched from the start or by keyset seek
+     */
+    public int getSeekFetches() {
+        return seekFetches;
+    }
+
+    /**
+     * @return Pages fetched by offset after a jump
+     */
+    public int getOffsetFetches() {
+        return offsetFetches;
+    }
+
+    /**
+     * @return The last page fetch failure, or null
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,217 @@
+package ui;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.awt.CardLayout;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * PanelRegistry - Builds the cards of a CardLayout on demand.
+ *
+ * Each card is registered with a factory instead of an instance. A card is
+ * built the first time it is shown, or earlier by preload(), and is then
+ * kept, so every screen exists at most once. preload() builds the
+ * remaining cards one per EDT event after the window has painted, so a
+ * click on the sidebar never waits behind more than one panel constructor.
+ *
+ * Panels start their own data loads in the background (AsyncLoader /
+ * ServiceExecutor), so building one on the EDT costs only the Swing work.
+ * Build time per card and the startup milestones are kept for report().
+ * Cards that hold resources outside Swing implement Disposable and are
+ * disposed when reset() drops them. All methods must be called on the EDT.
+ */
+public class PanelRegistry {
+
+    /**
+     * A card that holds something outside Swing (e.g. stock held for a cart)
+     * which must be given back when the card is thrown away
+     */
+    public interface Disposable {
+        void dispose();
+    }
+
+    private final JPanel container;
+    private final CardLayout layout;
+    private final long startNanos;
+
+    private final Map<String, Supplier<? extends JComponent>> factories = new LinkedHashMap<>();
+    private final Map<String, JComponent> built = new LinkedHashMap<>();
+    private final Map<String, Long> buildMillis = new LinkedHashMap<>();
+    private final Deque<String> preloadQueue = new ArrayDeque<>();
+    private String current;
+
+    private long firstPaintMillis = -1;
+    private long firstInteractionMillis = -1;
+
+    /**
+     * @param container  Panel that holds the cards
+     * @param layout     The container's CardLayout
+     * @param startNanos System.nanoTime() when startup began; milestones are measured from it
+     */
+    public PanelRegistry(JPanel container, CardLayout layout, long startNanos) {
+        this.container = container;
+        this.layout = layout;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Registers a card; nothing is built yet
+     */
+    public void register(String name, Supplier<? extends JComponent> factory) {
+        factories.put(name, factory);
+    }
+
+    /**
+     * Shows a card, building it first if needed
+     *
+     * @return The card's component
+     */
+    public JComponent show(String name) {
+        JComponent panel = get(name);
+        layout.show(container, name);
+        current = name;
+        return panel;
+    }
+
+    /**
+     * @return The card, building it if it does not exist yet
+     */
+    public JComponent get(String name) {
+        JComponent panel = built.get(name);
+        if (panel == null) {
+            Supplier<? extends JComponent> factory = factories.get(name);
+            if (factory == null) {
+                throw new IllegalArgumentException("Unknown panel: " + name);
+            }
+            long t0 = System.nanoTime();
+            panel = factory.get();
+            container.add(panel, name);
+            built.put(name, panel);
+            buildMillis.put(name, (System.nanoTime() - t0) / 1_000_000);
+            preloadQueue.remove(name);
+        }
+        return panel;
+    }
+
+    public boolean isBuilt(String name) {
+        return built.containsKey(name);
+    }
+
+    /**
+     * @return Name of the card shown last, or null
+     */
+    public String getCurrent() {
+        return current;
+    }
+
+    /**
+     * Builds every card not built yet, one per EDT event, in registration order
+     */
+    public void preload() {
+        boolean idle = preloadQueue.isEmpty();
+        for (String name : factories.keySet()) {
+            if (!built.containsKey(name) && !preloadQueue.contains(name)) {
+                preloadQueue.add(name);
+            }
+        }
+        if (idle) {
+            SwingUtilities.invokeLater(this::preloadNext);
+        }
+    }
+
+    private void preloadNext() {
+        String name = preloadQueue.poll();
+        if (name == null) {
+            return;
+        }
+        try {
+            get(name);
+        } catch (RuntimeException e) {
+            // The card is built again (and the error shown) when it is opened
+            System.err.println("Preloading " + name + " failed: " + e.getMessage());
+        }
+        if (!preloadQueue.isEmpty()) {
+            SwingUtilities.invokeLater(this::preloadNext);
+        }
+    }
+
+    /**
+     * Drops every built card (e.g. after a theme change), disposing those that
+     * are Disposable; they are rebuilt on demand
+     */
+    public void reset() {
+        for (Map.Entry<String, JComponent> card : built.entrySet()) {
+            if (card.getValue() instanceof Disposable) {
+                try {
+                    ((Disposable) card.getValue()).dispose();
+                } catch (RuntimeException e) {
+                    System.err.println("Disposing " + card.getKey() + " failed: " + e.getMessage());
+                }
+            }
+        }
+        preloadQueue.clear();
+        container.removeAll();
+        built.clear();
+        container.revalidate();
+        container.repaint();
+    }
+
+    // === STARTUP METRICS ===
+
+    /**
+     * Records the first time the window painted; later calls are ignored
+     */
+    public void markFirstPaint() {
+        if (firstPaintMillis < 0) {
+            firstPaintMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    /**
+     * Records the first user action; later calls are ignored
+     */
+    public void markFirstInteraction() {
+        if (firstInteractionMillis < 0) {
+            firstInteractionMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            System.out.println(report());
+        }
+    }
+
+    /**
+     * @return Milliseconds from startup to the first paint, or -1 if it has not happened
+     */
+    public long getFirstPaintMillis() {
+        return firstPaintMillis;
+    }
+
+    /**
+     * @return Milliseconds from startup to the first user action, or -1
+     */
+    public long getFirstInteractionMillis() {
+        return firstInteractionMillis;
+    }
+
+    /**
+     * @return Time the last build of a card took in milliseconds, or -1 if it was never built
+     */
+    public long getBuildMillis(String name) {
+        Long millis = buildMillis.get(name);
+        return millis == null ? -1 : millis;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Startup: first paint ").append(firstPaintMillis).append(" ms, first interaction ")
+                .append(firstInteractionMillis).append(" ms\n");
+        for (Map.Entry<String, Long> e : buildMillis.entrySet()) {
+            sb.append("  ").append(e.getKey()).append(" built in ").append(e.getValue()).append(" ms")
+                    .append(built.containsKey(e.getKey()) ? "" : " (dropped)").append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -2,12 +2,13 @@ package ui;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
 import models.Product;
+import services.Page;
 import services.ProductService;
+import services.ProductService.SortField;
 
 /**
  * ProductUI - User Interface for Product Management
@@ -15,9 +16,17 @@ import services.ProductService;
  */
 public class ProductUI extends JPanel {
 
+    // Rows per page and pages kept by the table model
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 20;
+    // Server-side order for each sortable column (ID, name, category, price, stock)
+    private static final SortField[] SORT_FIELDS = {
+            SortField.ID, SortField.NAME, SortField.CATEGORY, SortField.PRICE, SortField.STOCK };
+
     private final ProductService ProductService;
+    private final AsyncLoader loader = new AsyncLoader("products", this);
     private JTable productTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Product> tableModel;
     private JTextField searchField;
     private JComboBox<String> categoryFilter;
     private JTextField nameField;
@@ -90,10 +99,12 @@ public class ProductUI extends JPanel {
 
         // Table setup
         String[] columnNames = { "ID", "Product Name", "Category", "Price (Rs)", "Stock", "Actions" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        // Rows are fetched a page at a time as the table scrolls, sorted by name to start with
+        tableModel = new PagedTableModel<Product>("products", columnNames, this::cellValue, PAGE_SIZE, MAX_PAGES,
+                1, true) {
             @Override
             public boolean isCellEditable(int row, int column) {
-                return column == 5;
+                return column == 5 && getRow(row) != null;
             }
         };
 
@@ -125,6 +136,7 @@ public class ProductUI extends JPanel {
 
         productTable.getColumnModel().getColumn(5).setCellRenderer(new ButtonRenderer());
         productTable.getColumnModel().getColumn(5).setCellEditor(new ButtonEditor(new JCheckBox()));
+        tableModel.installSortHeader(productTable);
 
         // Form fields
         nameField = new JTextField(20);
@@ -421,32 +433,15 @@ public class ProductUI extends JPanel {
     }
 
     /**
-     * Loads all products from the database and populates the table
+     * Counts all products in the background, then shows them page by page
      */
     private void loadProductData() {
-        tableModel.setRowCount(0);
-
-        try {
-            ArrayList<Product> products = ProductService.getAllProducts();
-
-            for (Product product : products) {
-                Object[] rowData = {
-                        product.getProductId(),
-                        product.getName(),
-                        product.getCategory(),
-                        String.format("Rs %.2f", product.getPrice()),
-                        product.getStock(),
-                        "Actions"
-                };
-                tableModel.addRow(rowData);
-            }
-
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading products: " + ex.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        loader.load("table", () -> ProductService.countProducts(null),
+                count -> tableModel.setSource(productPages(null), count), ex ->
+                JOptionPane.showMessageDialog(this,
+                        "Error loading products: " + ex.getMessage(),
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -455,37 +450,61 @@ public class ProductUI extends JPanel {
     private void filterProducts() {
         String searchText = searchField.getText().toLowerCase();
         String selectedCategory = (String) categoryFilter.getSelectedItem();
+        String category = selectedCategory == null || "All Categories".equals(selectedCategory)
+                ? null : selectedCategory;
+
+        // A category alone is paged from the database like the full list. Search text is
+        // answered by the in-memory search index, best matches first. Both share the
+        // "table" slot with loadProductData so only the latest request fills the table
+        if (searchText.trim().isEmpty()) {
+            loader.load("table", () -> ProductService.countProducts(category),
+                    count -> tableModel.setSource(productPages(category), count), ex ->
+                    JOptionPane.showMessageDialog(this,
+                            "Error filtering products: " + ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE));
+            return;
+        }
+        loader.load("table", () -> ProductService.searchProducts(searchText, selectedCategory, 0),
+                products -> tableModel.setSource(PagedTableModel.listSource(products), products.size()), ex ->
+                JOptionPane.showMessageDialog(this,
+                        "Error filtering products: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE));
+    }
 
-        tableModel.setRowCount(0);
+    // Pages of the products in a category (null for all), sorted by the clicked column
+    private PagedTableModel.Source<Product> productPages(String category) {
+        return new PagedTableModel.Source<Product>() {
+            @Override
+            public Page<Product> fetch(String after, int offset, int limit, int column, boolean ascending)
+                    throws Exception {
+                return after != null
+                        ? ProductService.listProducts(after, limit, SORT_FIELDS[column], ascending, category)
+                        : ProductService.listProductsAt(offset, limit, SORT_FIELDS[column], ascending, category);
+            }
 
-        try {
-            ArrayList<Product> products = ProductService.getAllProducts();
-
-            for (Product product : products) {
-                boolean matchesSearch = searchText.isEmpty() ||
-                        product.getName().toLowerCase().contains(searchText) ||
-                        product.getCategory().toLowerCase().contains(searchText);
-
-                boolean matchesCategory = selectedCategory.equals("All Categories") ||
-                        product.getCategory().equals(selectedCategory);
-
-                if (matchesSearch && matchesCategory) {
-                    Object[] rowData = {
-                            product.getProductId(),
-                            product.getName(),
-                            product.getCategory(),
-                            String.format("Rs %.2f", product.getPrice()),
-                            product.getStock(),
-                            "Actions"
-                    };
-                    tableModel.addRow(rowData);
-                }
+            @Override
+            public boolean isSortable(int column) {
+                return column < SORT_FIELDS.length;
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error filtering products: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+        };
+    }
+
+    private Object cellValue(Product product, int column) {
+        switch (column) {
+            case 0:
+                return product.getProductId();
+            case 1:
+                return product.getName();
+            case 2:
+                return product.getCategory();
+            case 3:
+                return String.format("Rs %.2f", product.getPrice());
+            case 4:
+                return product.getStock();
+            default:
+                return "Actions";
         }
     }
 
@@ -497,60 +516,50 @@ public class ProductUI extends JPanel {
             return;
         }
 
+        String name = nameField.getText().trim();
+        String category = categoryField.getText().trim();
+        double price;
         try {
-            String name = nameField.getText().trim();
-            String category = categoryField.getText().trim();
-            double price = Double.parseDouble(priceField.getText().trim());
-            int stock = (Integer) stockSpinner.getValue();
-
-            if (isEditMode) {
-                Product product = new Product(editingProductId, name, category, price, stock);
-                boolean success = ProductService.updateProduct(product);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(this,
-                            "Product updated successfully!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    clearForm();
-                    loadProductData();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Failed to update product.",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-
-            } else {
-                Product product = new Product(name, category, price, stock);
-                boolean success = ProductService.addProduct(product);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(this,
-                            "Product added successfully!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    clearForm();
-                    loadProductData();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Failed to add product.",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-            }
-
+            price = Double.parseDouble(priceField.getText().trim());
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
                     "Invalid price format. Please enter a valid number.",
                     "Input Error",
                     JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        int stock = (Integer) stockSpinner.getValue();
+        boolean update = isEditMode;
+        Product product = update
+                ? new Product(editingProductId, name, category, price, stock)
+                : new Product(name, category, price, stock);
+
+        // Saved in the background; the button stays disabled so a double click saves once
+        addButton.setEnabled(false);
+        ServiceExecutor.getInstance().submit(update ? "products.update" : "products.add",
+                () -> update ? ProductService.updateProduct(product) : ProductService.addProduct(product))
+                .onEdt(success -> {
+                    addButton.setEnabled(true);
+                    if (success) {
+                        JOptionPane.showMessageDialog(this,
+                                update ? "Product updated successfully!" : "Product added successfully!",
+                                "Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                        clearForm();
+                        loadProductData();
+                    } else {
+                        JOptionPane.showMessageDialog(this,
+                                update ? "Failed to update product." : "Failed to add product.",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }, ex -> {
+                    addButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(this,
+                            "Error: " + ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                });
     }
 
     /**
@@ -559,9 +568,7 @@ public class ProductUI extends JPanel {
      * @param productId The ID of the product to edit
      */
     private void editProduct(int productId) {
-        try {
-            Product product = ProductService.getProductById(productId);
-
+        loader.load("edit", () -> ProductService.getProductById(productId), product -> {
             if (product != null) {
                 nameField.setText(product.getName());
                 categoryField.setText(product.getCategory());
@@ -579,13 +586,11 @@ public class ProductUI extends JPanel {
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
             }
-
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error loading product: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        }, ex ->
+                JOptionPane.showMessageDialog(this,
+                        "Error loading product: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE));
     }
 
     /**
@@ -601,29 +606,26 @@ public class ProductUI extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ProductService.deleteProduct(productId);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(this,
-                            "Product deleted successfully!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-
-                    loadProductData();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Failed to delete product.",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this,
-                        "Error deleting product: " + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            ServiceExecutor.getInstance().submit("products.delete", () -> ProductService.deleteProduct(productId))
+                    .onEdt(success -> {
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Product deleted successfully!",
+                                    "Success",
+                                    JOptionPane.INFORMATION_MESSAGE);
+
+                            loadProductData();
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Failed to delete product.",
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                        }
+                    }, ex ->
+                            JOptionPane.showMessageDialog(this,
+                                    "Error deleting product: " + ex.getMessage(),
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -777,14 +779,18 @@ public class ProductUI extends JPanel {
 
             editButton.addActionListener(e -> {
                 fireEditingStopped();
-                int productId = (Integer) tableModel.getValueAt(currentRow, 0);
-                editProduct(productId);
+                Product product = tableModel.getRow(currentRow);
+                if (product != null) {
+                    editProduct(product.getProductId());
+                }
             });
 
             deleteButton.addActionListener(e -> {
                 fireEditingStopped();
-                int productId = (Integer) tableModel.getValueAt(currentRow, 0);
-                deleteProduct(productId);
+                Product product = tableModel.getRow(currentRow);
+                if (product != null) {
+                    deleteProduct(product.getProductId());
+                }
             });
 
             panel.add(editButton);
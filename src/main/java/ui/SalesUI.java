@@ -30,7 +30,10 @@ import java.util.List;
  * - Receipt generation
  * - Daily cash summary
  */
-public class SalesUI extends JPanel {
+public class SalesUI extends JPanel implements PanelRegistry.Disposable {
+    // Rows shown for a search; the cashier refines the query rather than scrolling
+    private static final int SEARCH_RESULT_LIMIT = 200;
+
     // Services
     private final SalesService salesService;
     private final ProductService productService;
@@ -62,6 +65,8 @@ public class SalesUI extends JPanel {
     private JLabel lblAmountDue;
     private JTextField txtCashReceived;
     private JLabel lblChangeDue;
+    // Offline sales waiting to sync, and any the sync had to oversell or reject
+    private JLabel lblSyncStatus;
     private JButton btnCalculateChange;
     private JButton btnViewCashSummary;
 
@@ -76,7 +81,18 @@ public class SalesUI extends JPanel {
 
     // Data
     private List<Product> availableProducts;
+    // Catalog version that availableProducts was read at
+    private volatile long productsVersion = -1;
     private List<CartItem> cartItems;
+    // Stock held for the items in cartItems
+    private final StockReservationService reservations = StockReservationService.getInstance();
+    // Every database call of this screen runs here instead of on the EDT
+    private final ServiceExecutor.Scope tasks = ServiceExecutor.getInstance().newScope();
+    private ServiceExecutor.Task<Customer> customerLookup;
+    private ServiceExecutor.Task<ArrayList<Product>> productSearch;
+    private final long cartId = reservations.openCart();
+    private final SaleSyncService saleSync = SaleSyncService.getInstance();
+    private final Runnable syncListener = () -> SwingUtilities.invokeLater(this::updateSyncStatus);
     private double currentSubtotal = 0.0;
     private final double TAX_RATE = 0.10; // 10% tax
     private int currentSaleId = 0;
@@ -143,6 +159,8 @@ public class SalesUI extends JPanel {
 
         // Load initial data
         loadProducts();
+        saleSync.addListener(syncListener);
+        updateSyncStatus();
 
         // Set default sale type
         rbQuickCash.setSelected(true);
@@ -192,9 +210,20 @@ public class SalesUI extends JPanel {
 
         infoPanel.add(btnViewCashSummary);
         infoPanel.add(Box.createVerticalStrut(10));
+        lblSyncStatus = new JLabel(" ");
+        lblSyncStatus.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        lblSyncStatus.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                showSyncProblems();
+            }
+        });
+
         infoPanel.add(lblSaleNo);
         infoPanel.add(Box.createVerticalStrut(5));
         infoPanel.add(lblDate);
+        infoPanel.add(Box.createVerticalStrut(5));
+        infoPanel.add(lblSyncStatus);
 
         header.add(textPanel, BorderLayout.WEST);
         header.add(infoPanel, BorderLayout.EAST);
@@ -751,36 +780,44 @@ public class SalesUI extends JPanel {
                 Math.max((int) (color.getBlue() * factor), 0));
     }
 
+    //Drops the results of pending database calls once the screen is discarded (e.g. on a theme reload)
+
+    @Override
+    public void removeNotify() {
+        tasks.cancelAll();
+        super.removeNotify();
+    }
+
     //DATA OPERATIONS ****
 
     //Loading all products from database
 
     private void loadProducts() {
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                availableProducts = productService.getAllProducts();
-                return null;
-            }
+        tasks.submit("sales.loadProducts", () -> {
+            long version = productService.getCatalogVersion();
+            availableProducts = productService.getAllProducts();
+            productsVersion = version;
+            return null;
+        }).onEdt(done -> updateProductsTable(), e -> showError("Failed to load products: " + e.getMessage()));
+    }
 
-            @Override
-            protected void done() {
-                try {
-                    get();
-                    updateProductsTable();
-                } catch (Exception e) {
-                    showError("Failed to load products: " + e.getMessage());
-                }
-            }
-        };
-        worker.execute();
+    //Reloads the product list only if the shared catalog changed since it was read
+
+    private void refreshProductsIfStale() {
+        if (productService.getCatalogVersion() != productsVersion) {
+            loadProducts();
+        }
     }
 
     //Updates the products table display
 
     private void updateProductsTable() {
+        showProducts(availableProducts);
+    }
+
+    private void showProducts(List<Product> products) {
         productsTableModel.setRowCount(0);
-        for (Product product : availableProducts) {
+        for (Product product : products) {
             productsTableModel.addRow(new Object[] {
                     product.getProductId(),
                     product.getName(),
@@ -794,22 +831,21 @@ public class SalesUI extends JPanel {
     //Filters products based on search text
 
     private void filterProducts() {
-        String searchText = txtSearchProduct.getText().toLowerCase();
-        productsTableModel.setRowCount(0);
-
-        for (Product product : availableProducts) {
-            if (searchText.isEmpty() ||
-                    product.getName().toLowerCase().contains(searchText) ||
-                    product.getCategory().toLowerCase().contains(searchText)) {
-                productsTableModel.addRow(new Object[] {
-                        product.getProductId(),
-                        product.getName(),
-                        product.getCategory(),
-                        String.format("$%.2f", product.getPrice()),
-                        product.getStock()
-                });
-            }
+        String searchText = txtSearchProduct.getText().trim();
+        // Only the latest keystroke may fill the table
+        if (productSearch != null) {
+            productSearch.cancel();
+            productSearch = null;
+        }
+        if (searchText.isEmpty()) {
+            updateProductsTable();
+            return;
         }
+
+        // The search may have to reload an aged-out catalog, so it never runs on the EDT
+        productSearch = tasks.submit("sales.searchProducts",
+                () -> productService.searchProducts(searchText, null, SEARCH_RESULT_LIMIT))
+                .onEdt(this::showProducts, e -> showError("Product search failed: " + e.getMessage()));
     }
 
     //Adds selected product to cart
@@ -823,7 +859,6 @@ public class SalesUI extends JPanel {
         int productId = (int) productsTableModel.getValueAt(selectedRow, 0);
         String productName = (String) productsTableModel.getValueAt(selectedRow, 1);
         double price = Double.parseDouble(((String) productsTableModel.getValueAt(selectedRow, 3)).replace("$", ""));
-        int stock = (int) productsTableModel.getValueAt(selectedRow, 4);
         int quantity = (int) spnQuantity.getValue();
 
         if (quantity <= 0) {
@@ -831,24 +866,28 @@ public class SalesUI extends JPanel {
             return;
         }
 
-        if (quantity > stock) {
-            showError("Insufficient stock! Only " + stock + " available");
+        // Hold the units so other lanes cannot sell them while they sit in this cart
+        CartItem existing = null;
+        for (CartItem item : cartItems) {
+            if (item.productId == productId) {
+                existing = item;
+            }
+        }
+        if (!reservations.reserve(cartId, productId, quantity)) {
+            if (existing != null) {
+                showError("Cannot add more than available stock");
+            } else {
+                showError("Insufficient stock! Only " + Math.max(0, reservations.getAvailable(productId)) + " available");
+            }
             return;
         }
 
         // Check if already in cart
-        for (CartItem item : cartItems) {
-            if (item.productId == productId) {
-                if (item.quantity + quantity <= stock) {
-                    item.quantity += quantity;
-                    updateCartTable();
-                    calculateTotals();
-                    return;
-                } else {
-                    showError("Cannot add more than available stock");
-                    return;
-                }
-            }
+        if (existing != null) {
+            existing.quantity += quantity;
+            updateCartTable();
+            calculateTotals();
+            return;
         }
 
         // Add new item to cart
@@ -880,7 +919,8 @@ public class SalesUI extends JPanel {
             return;
         }
 
-        cartItems.remove(selectedRow);
+        CartItem removed = cartItems.remove(selectedRow);
+        reservations.release(cartId, removed.productId, removed.quantity);
         updateCartTable();
         calculateTotals();
     }
@@ -901,11 +941,66 @@ public class SalesUI extends JPanel {
 
         if (confirm == JOptionPane.YES_OPTION) {
             cartItems.clear();
+            reservations.releaseAll(cartId);
             updateCartTable();
             calculateTotals();
         }
     }
 
+    //Gives back the stock this screen's cart holds when the dashboard drops the screen (e.g. theme change)
+
+    @Override
+    public void dispose() {
+        saleSync.removeListener(syncListener);
+        tasks.cancelAll();
+        reservations.closeCart(cartId);
+    }
+
+    //Shows offline sales still waiting, and flags any the sync oversold or the database rejected
+
+    private void updateSyncStatus() {
+        long problems = saleSync.getConflictCount() + saleSync.getRejectedCount();
+        int pending = saleSync.getPendingCount();
+        if (problems > 0) {
+            lblSyncStatus.setText(String.format("⚠ %d offline sales need review (click)", problems));
+            lblSyncStatus.setForeground(DANGER_COLOR);
+            lblSyncStatus.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        } else if (pending > 0) {
+            lblSyncStatus.setText(String.format("Offline: %d sales waiting to sync", pending));
+            lblSyncStatus.setForeground(WARNING_COLOR);
+            lblSyncStatus.setCursor(Cursor.getDefaultCursor());
+        } else {
+            lblSyncStatus.setText(" ");
+            lblSyncStatus.setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    //Lists oversold and rejected offline sales so they can be checked against the shelf and the till
+
+    private void showSyncProblems() {
+        if (saleSync.getConflictCount() + saleSync.getRejectedCount() == 0) {
+            return;
+        }
+        List<String> rejections = saleSync.getRecentRejections();
+        tasks.submit("sales.syncConflicts", () -> saleSync.getConflicts(20)).onEdt(conflicts -> {
+            StringBuilder sb = new StringBuilder();
+            if (!conflicts.isEmpty()) {
+                sb.append("Recorded although stock had run out:\n");
+                for (SaleSyncService.Conflict conflict : conflicts) {
+                    sb.append("  ").append(conflict).append('\n');
+                }
+            }
+            if (!rejections.isEmpty()) {
+                sb.append(sb.length() > 0 ? "\n" : "")
+                        .append("Rejected by the database (kept in the journal's rejected file):\n");
+                for (String rejection : rejections) {
+                    sb.append("  ").append(rejection).append('\n');
+                }
+            }
+            showWarning(sb.length() > 0 ? sb.toString() : "No details available");
+        }, e -> showError("Could not load offline sale conflicts: " + e.getMessage()));
+    }
+
     //Calculates subtotal, tax, and grand total
 
     private void calculateTotals() {
@@ -957,16 +1052,12 @@ public class SalesUI extends JPanel {
 
         int customerId = Integer.parseInt(customerIdStr);
 
-        SwingWorker<Customer, Void> worker = new SwingWorker<Customer, Void>() {
-            @Override
-            protected Customer doInBackground() throws Exception {
-                return customerService.getCustomerById(customerId);
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    Customer customer = get();
+        // Only the latest lookup may update the label
+        if (customerLookup != null) {
+            customerLookup.cancel();
+        }
+        customerLookup = tasks.submit("sales.validateCustomer", () -> customerService.getCustomerById(customerId))
+                .onEdt(customer -> {
                     if (customer != null) {
                         lblCustomerInfo.setText(customer.getFullName() + " | " + customer.getContact());
                         lblCustomerInfo.setForeground(SUCCESS_COLOR);
@@ -974,13 +1065,10 @@ public class SalesUI extends JPanel {
                         lblCustomerInfo.setText("Customer not found");
                         lblCustomerInfo.setForeground(DANGER_COLOR);
                     }
-                } catch (Exception e) {
+                }, e -> {
                     lblCustomerInfo.setText("Error loading customer");
                     lblCustomerInfo.setForeground(DANGER_COLOR);
-                }
-            }
-        };
-        worker.execute();
+                });
     }
 
     //Shows dialog to create new customer
@@ -1023,12 +1111,19 @@ public class SalesUI extends JPanel {
             customer.setAddress(""); // Optional
             customer.setLoyaltyPoints(0);
 
-            if (customerService.addCustomer(customer)) {
-                showSuccess("Customer added successfully!");
-                dialog.dispose();
-            } else {
-                showError("Failed to add customer");
-            }
+            btnSave.setEnabled(false);
+            tasks.submit("sales.addCustomer", () -> customerService.addCustomer(customer)).onEdt(added -> {
+                btnSave.setEnabled(true);
+                if (added) {
+                    showSuccess("Customer added successfully!");
+                    dialog.dispose();
+                } else {
+                    showError("Failed to add customer");
+                }
+            }, ex -> {
+                btnSave.setEnabled(true);
+                showError("Failed to add customer: " + ex.getMessage());
+            });
         });
 
         btnCancel.addActionListener(e -> dialog.dispose());
@@ -1078,13 +1173,7 @@ public class SalesUI extends JPanel {
             }
 
             customerId = Integer.parseInt(customerIdStr);
-
-            // Verify customer exists
-            Customer customer = customerService.getCustomerById(customerId);
-            if (customer == null) {
-                showError("Customer not found. Please enter a valid Customer ID or use Quick Cash Sale.");
-                return;
-            }
+            // The customer is verified in the background, just before the sale is created
         }
 
         String paymentMethod = (String) cmbPaymentMethod.getSelectedItem();
@@ -1151,54 +1240,58 @@ public class SalesUI extends JPanel {
         final Double finalChangeGiven = changeGiven;
         final boolean isQuickSale = rbQuickCash.isSelected();
 
-        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
-            @Override
-            protected Integer doInBackground() throws Exception {
-                return salesService.createSale(sale);
+        // No deadline: a checkout that is still running must not be reported as failed and retried
+        tasks.submit("sales.checkout", () -> {
+            if (!isQuickSale && customerService.getCustomerById(sale.getCustomerId()) == null) {
+                throw new IllegalArgumentException(
+                        "Customer not found. Please enter a valid Customer ID or use Quick Cash Sale.");
             }
+            return salesService.createSale(sale);
+        }, 0).onEdt(saleId -> {
+            boolean offline = SalesService.isJournaled(saleId);
+            currentSaleId = offline ? 0 : saleId;
+
+            String message;
+            if (offline) {
+                message = String.format(
+                        "Sale saved offline (journal #%d)\nTotal: $%.2f\n"
+                                + "The database is unreachable; the sale will be synced automatically.",
+                        -saleId, calculateGrandTotal());
+            } else if (isQuickSale) {
+                message = String.format(
+                        "Quick Cash Sale successful!\nSale #%d\nTotal: $%.2f\nCash: $%.2f\nChange: $%.2f",
+                        saleId, calculateGrandTotal(), finalCashReceived, finalChangeGiven);
+            } else {
+                message = String.format(
+                        "Regular Sale successful!\nSale #%d\nTotal: $%.2f\nCustomer ID: %d",
+                        saleId, calculateGrandTotal(), customerId);
+            }
+            showSuccess(message);
 
-            @Override
-            protected void done() {
-                try {
-                    int saleId = get();
-                    currentSaleId = saleId;
-
-                    SwingUtilities.invokeLater(() -> {
-                        String message;
-                        if (isQuickSale) {
-                            message = String.format(
-                                    "Quick Cash Sale successful!\nSale #%d\nTotal: $%.2f\nCash: $%.2f\nChange: $%.2f",
-                                    saleId, calculateGrandTotal(), finalCashReceived, finalChangeGiven);
-                        } else {
-                            message = String.format(
-                                    "Regular Sale successful!\nSale #%d\nTotal: $%.2f\nCustomer ID: %d",
-                                    saleId, calculateGrandTotal(), customerId);
-                        }
-                        showSuccess(message);
-
-                        // Enable receipt generation
-                        btnGenerateReceipt.setEnabled(true);
-                        btnCheckout.setEnabled(false);
-
-                        // Clear cart for next sale
-                        cartItems.clear();
-                        updateCartTable();
-                        calculateTotals();
-
-                        // Clear cash fields
-                        txtCashReceived.setText("");
-                        lblChangeDue.setText("Change: $0.00");
-                    });
-
-                } catch (Exception e) {
-                    SwingUtilities.invokeLater(() -> {
-                        showError("Checkout failed: " + e.getMessage());
-                        e.printStackTrace();
-                    });
-                }
+            // Enable receipt generation (offline sales get theirs once synced)
+            btnGenerateReceipt.setEnabled(!offline);
+            btnCheckout.setEnabled(false);
+
+            // Clear cart for next sale; the sale has already taken the held stock
+            reservations.commit(cartId);
+            cartItems.clear();
+            updateCartTable();
+            calculateTotals();
+
+            // Clear cash fields
+            txtCashReceived.setText("");
+            lblChangeDue.setText("Change: $0.00");
+
+            // Show the stock left after this sale
+            refreshProductsIfStale();
+        }, e -> {
+            if (e instanceof IllegalArgumentException) {
+                showError(e.getMessage());
+            } else {
+                showError("Checkout failed: " + e.getMessage());
+                e.printStackTrace();
             }
-        };
-        worker.execute();
+        });
     }
 
     //Generates PDF receipt for the last sale
@@ -1222,89 +1315,63 @@ public class SalesUI extends JPanel {
             }
 
             final File targetFile = file;
-
-            SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-                @Override
-                protected Boolean doInBackground() throws Exception {
-                    return salesService.generateReceiptPDF(currentSaleId, targetFile.getAbsolutePath());
-                }
-
-                @Override
-                protected void done() {
-                    try {
-                        boolean success = get();
-                        if (success) {
-                            showSuccess("Receipt generated successfully!");
-
-                            // Ask to open file
-                            int option = JOptionPane.showConfirmDialog(SalesUI.this,
-                                    "Do you want to open the receipt?",
-                                    "Receipt Generated",
-                                    JOptionPane.YES_NO_OPTION);
-
-                            if (option == JOptionPane.YES_OPTION && Desktop.isDesktopSupported()) {
-                                try {
-                                    Desktop.getDesktop().open(targetFile);
-                                } catch (IOException ex) {
-                                    showError("Cannot open file: " + ex.getMessage());
-                                }
-                            }
-                        } else {
-                            showError("Failed to generate receipt");
+            final int saleId = currentSaleId;
+
+            tasks.submit("sales.generateReceipt",
+                    () -> salesService.generateReceiptPDF(saleId, targetFile.getAbsolutePath())).onEdt(success -> {
+                if (success) {
+                    showSuccess("Receipt generated successfully!");
+
+                    // Ask to open file
+                    int option = JOptionPane.showConfirmDialog(SalesUI.this,
+                            "Do you want to open the receipt?",
+                            "Receipt Generated",
+                            JOptionPane.YES_NO_OPTION);
+
+                    if (option == JOptionPane.YES_OPTION && Desktop.isDesktopSupported()) {
+                        try {
+                            Desktop.getDesktop().open(targetFile);
+                        } catch (IOException ex) {
+                            showError("Cannot open file: " + ex.getMessage());
                         }
-                    } catch (Exception e) {
-                        showError("Error generating receipt: " + e.getMessage());
                     }
+                } else {
+                    showError("Failed to generate receipt");
                 }
-            };
-            worker.execute();
+            }, e -> showError("Error generating receipt: " + e.getMessage()));
         }
     }
 
     //Shows daily cash summary
 
     private void showCashSummary() {
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
-            @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                return salesService.getTodayCashSummary();
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    List<Object[]> summary = get();
-                    if (!summary.isEmpty()) {
-                        Object[] data = summary.get(0);
-
-                        String message = String.format(
-                                "DAILY CASH SUMMARY\n" +
-                                        "─────────────────────────\n" +
-                                        "Transactions: %d\n" +
-                                        "Cash Received: $%.2f\n" +
-                                        "Change Given: $%.2f\n" +
-                                        "Net Cash: $%.2f\n" +
-                                        "─────────────────────────\n" +
-                                        "Date: %s",
-                                (Integer) data[0],
-                                (Double) data[1],
-                                (Double) data[2],
-                                (Double) data[3],
-                                new SimpleDateFormat("dd-MMM-yyyy").format(new Date()));
-
-                        JOptionPane.showMessageDialog(SalesUI.this,
-                                message,
-                                "Daily Cash Summary",
-                                JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        showInfo("No cash transactions today");
-                    }
-                } catch (Exception e) {
-                    showError("Error fetching cash summary: " + e.getMessage());
-                }
+        tasks.submit("sales.cashSummary", () -> salesService.getTodayCashSummary()).onEdt(summary -> {
+            if (!summary.isEmpty()) {
+                Object[] data = summary.get(0);
+
+                String message = String.format(
+                        "DAILY CASH SUMMARY\n" +
+                                "─────────────────────────\n" +
+                                "Transactions: %d\n" +
+                                "Cash Received: $%.2f\n" +
+                                "Change Given: $%.2f\n" +
+                                "Net Cash: $%.2f\n" +
+                                "─────────────────────────\n" +
+                                "Date: %s",
+                        (Integer) data[0],
+                        (Double) data[1],
+                        (Double) data[2],
+                        (Double) data[3],
+                        new SimpleDateFormat("dd-MMM-yyyy").format(new Date()));
+
+                JOptionPane.showMessageDialog(SalesUI.this,
+                        message,
+                        "Daily Cash Summary",
+                        JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                showInfo("No cash transactions today");
             }
-        };
-        worker.execute();
+        }, e -> showError("Error fetching cash summary: " + e.getMessage()));
     }
 
     // INNER CLASSES
@@ -0,0 +1,352 @@
+package ui;
+
+import utils.LatencyHistogram;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * ServiceExecutor - The one place the ui package runs blocking service calls.
+ *
+ * Every database round trip a screen needs (loads, saves, checkout,
+ * receipts) is submitted here instead of running on the event thread or in
+ * an ad-hoc SwingWorker. Tasks run on virtual threads when the JVM has them
+ * (Java 21+), otherwise on a pool of platform daemon threads, so a slow query
+ * on one screen never waits behind another screen's work.
+ *
+ * Each task has a deadline (DEFAULT_DEADLINE_MS unless given): when it
+ * passes, the task completes with a TimeoutException and its eventual
+ * result is discarded. Tasks can be cancelled one by one or through a Scope
+ * that a panel owns. Cancellation never interrupts a running JDBC call,
+ * which could break the pooled connection. A task that has not started is
+ * skipped; a running one finishes but its result is dropped. Long loops can
+ * poll isCurrentTaskCancelled().
+ *
+ * Results come back on the EDT through Task.onEdt(onResult, onError).
+ * Queue depth, queue wait, run time per task name, timeouts and
+ * cancellations are kept for report().
+ */
+public final class ServiceExecutor {
+
+    public static final long DEFAULT_DEADLINE_MS = 30_000;
+    // Platform threads used when virtual threads are not available
+    private static final int FALLBACK_THREADS = 16;
+
+    private static final ServiceExecutor INSTANCE = new ServiceExecutor();
+    private static final ThreadLocal<Task<?>> currentTask = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final ScheduledExecutorService deadlines;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final LatencyHistogram queueWait = new LatencyHistogram("queue.wait");
+    private final Map<String, LatencyHistogram> runTimes = new ConcurrentHashMap<>();
+
+    private ServiceExecutor() {
+        ExecutorService virtual = Boolean.parseBoolean(System.getProperty("ui.virtualThreads", "true"))
+                ? newVirtualThreadExecutor() : null;
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : newPlatformExecutor();
+        deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "service-deadlines");
+            t.setDaemon(true);
+            return t;
+        });
+        System.out.println("Service executor using " + (virtualThreads ? "virtual threads" : FALLBACK_THREADS + " platform threads"));
+    }
+
+    public static ServiceExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if tasks run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtualThreads;
+    }
+
+    // === SUBMISSION ===
+
+    /**
+     * Runs call in the background with the default deadline
+     *
+     * @param name Task name used in the metrics, e.g. "sales.checkout"
+     */
+    public <T> Task<T> submit(String name, Callable<T> call) {
+        return submit(name, call, DEFAULT_DEADLINE_MS);
+    }
+
+    /**
+     * Runs call in the background
+     *
+     * @param name           Task name used in the metrics
+     * @param deadlineMillis Time after which the task fails with a TimeoutException; 0 for none
+     */
+    public <T> Task<T> submit(String name, Callable<T> call, long deadlineMillis) {
+        Task<T> task = new Task<>(name);
+        long submitted = System.nanoTime();
+        maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        executor.execute(() -> {
+            queued.decrementAndGet();
+            queueWait.recordNanos(System.nanoTime() - submitted);
+            if (task.promise.isDone()) {
+                return; // cancelled or timed out while queued
+            }
+            running.incrementAndGet();
+            currentTask.set(task);
+            long t0 = System.nanoTime();
+            T result = null;
+            Throwable error = null;
+            try {
+                result = call.call();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                currentTask.remove();
+                running.decrementAndGet();
+                runTimes.computeIfAbsent(name, LatencyHistogram::new).recordNanos(System.nanoTime() - t0);
+            }
+            // Metrics are recorded before completing, so whoever sees the outcome also sees them
+            if (error == null) {
+                completed.incrementAndGet();
+                task.promise.complete(result);
+            } else {
+                failed.incrementAndGet();
+                task.promise.completeExceptionally(error);
+            }
+        });
+        if (deadlineMillis > 0) {
+            ScheduledFuture<?> timer = deadlines.schedule(() -> {
+                if (task.promise.completeExceptionally(new TimeoutException(
+                        name + " did not finish within " + deadlineMillis + " ms"))) {
+                    timedOut.incrementAndGet();
+                }
+            }, deadlineMillis, TimeUnit.MILLISECONDS);
+            task.promise.whenComplete((r, e) -> timer.cancel(false));
+        }
+        return task;
+    }
+
+    /**
+     * @return A new scope whose tasks can be cancelled together
+     */
+    public Scope newScope() {
+        return new Scope();
+    }
+
+    /**
+     * @return true if the task running on this thread has been cancelled or timed out
+     */
+    public static boolean isCurrentTaskCancelled() {
+        Task<?> task = currentTask.get();
+        return task != null && task.promise.isDone();
+    }
+
+    // === TASKS ===
+
+    /**
+     * Handle to one submitted call
+     */
+    public final class Task<T> {
+        private final String name;
+        private final CompletableFuture<T> promise = new CompletableFuture<>();
+
+        private Task(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Delivers the outcome on the EDT; nothing is delivered if the task was cancelled
+         *
+         * @param onResult Receives the result
+         * @param onError  Receives the failure (a TimeoutException if the deadline passed)
+         */
+        public Task<T> onEdt(Consumer<? super T> onResult, Consumer<? super Throwable> onError) {
+            promise.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                if (promise.isCancelled()) {
+                    return;
+                }
+                if (error != null) {
+                    onError.accept(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    onResult.accept(result);
+                }
+            }));
+            return this;
+        }
+
+        /**
+         * Drops the task: skipped if it has not started, its result discarded if it has
+         *
+         * @return false if it had already completed
+         */
+        public boolean cancel() {
+            boolean wasCancelled = promise.cancel(false);
+            if (wasCancelled) {
+                cancelled.incrementAndGet();
+            }
+            return wasCancelled;
+        }
+
+        public boolean isCancelled() {
+            return promise.isCancelled();
+        }
+
+        public boolean isDone() {
+            return promise.isDone();
+        }
+
+        /**
+         * Waits for the result; for callers that are not on the EDT
+         */
+        public T await(long timeout, TimeUnit unit) throws Exception {
+            try {
+                return promise.get(timeout, unit);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    /**
+     * Group of tasks owned by one screen; cancelAll() drops every task still pending
+     */
+    public final class Scope {
+        private final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
+
+        private Scope() {
+        }
+
+        public <T> Task<T> submit(String name, Callable<T> call) {
+            return submit(name, call, DEFAULT_DEADLINE_MS);
+        }
+
+        public <T> Task<T> submit(String name, Callable<T> call, long deadlineMillis) {
+            Task<T> task = ServiceExecutor.this.submit(name, call, deadlineMillis);
+            tasks.add(task);
+            task.promise.whenComplete((r, e) -> tasks.remove(task));
+            return task;
+        }
+
+        /**
+         * @return Tasks of this scope that have not completed
+         */
+        public int getPendingCount() {
+            return tasks.size();
+        }
+
+        public void cancelAll() {
+            for (Task<?> task : tasks) {
+                task.cancel();
+            }
+        }
+    }
+
+    // === METRICS ===
+
+    /**
+     * @return Tasks submitted but not yet started
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueued.get();
+    }
+
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * @return Run times of one task name, or null if it never ran
+     */
+    public LatencyHistogram getRunTimes(String name) {
+        return runTimes.get(name);
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Service executor (%s): queued %d (max %d), running %d, completed %d, failed %d, "
+                        + "timed out %d, cancelled %d%n", virtualThreads ? "virtual threads" : "platform threads",
+                queued.get(), maxQueued.get(), running.get(), completed.get(), failed.get(), timedOut.get(),
+                cancelled.get()));
+        sb.append("  ").append(queueWait).append('\n');
+        List<String> names = new ArrayList<>(runTimes.keySet());
+        names.sort(null);
+        for (String name : names) {
+            sb.append("  ").append(runTimes.get(name)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // === EXECUTORS ===
+
+    // Executors.newVirtualThreadPerTaskExecutor() through reflection, so the code still builds for Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(FALLBACK_THREADS, FALLBACK_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "service-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
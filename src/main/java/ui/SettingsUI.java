@@ -1,5 +1,6 @@
 package ui;
 
+import services.BackupService;
 import services.SettingsService;
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
@@ -8,18 +9,12 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.Map;
-import java.sql.*;
 import java.io.File;
-import java.io.IOException;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
-import database.DBConnection;
+import java.util.concurrent.CancellationException;
 
 public class SettingsUI extends JPanel {
     private final SettingsService settingsService;
+    private final AsyncLoader loader = new AsyncLoader("settings", this);
 
     private ModernToggle themeToggle;
     private ModernToggle notificationToggle;
@@ -28,7 +23,7 @@ public class SettingsUI extends JPanel {
     private JTextField emailSettings;
 
     public SettingsUI() {
-        this.settingsService = new SettingsService();
+        this.settingsService = SettingsService.getInstance();
         applyTheme();
     }
 
@@ -159,7 +154,7 @@ public class SettingsUI extends JPanel {
 
         JButton btnBackup = new JButton("Export Database to PDF");
         styleButton(btnBackup, AppTheme.getPrimaryColor());
-        btnBackup.addActionListener(e -> exportDatabaseToPDF());
+        btnBackup.addActionListener(e -> exportDatabaseToPDF(btnBackup));
 
         gbc.gridy = 0;
         form.add(createSettingRow("Report Frequency", "Automatic generation interval", reportFrequency), gbc);
@@ -255,24 +250,47 @@ public class SettingsUI extends JPanel {
 
     private void saveSettings() {
         boolean dark = themeToggle.isSelected();
-        AppTheme.setDarkMode(dark);
-        AppTheme.setColorBlindMode(accessibilityToggle.isSelected());
-        
-        settingsService.saveSetting("notifications_enabled", String.valueOf(notificationToggle.isSelected()));
-        settingsService.saveSetting("report_frequency", (String) reportFrequency.getSelectedItem());
-        settingsService.saveSetting("admin_email", emailSettings.getText());
-
-        if (DashboardUI.getInstance() != null) {
-            DashboardUI.getInstance().reloadAllTabs();
-        } else {
-            applyTheme();
-        }
+        boolean colorBlind = accessibilityToggle.isSelected();
+        String notifications = String.valueOf(notificationToggle.isSelected());
+        String frequency = (String) reportFrequency.getSelectedItem();
+        String email = emailSettings.getText();
+
+        // Every setter writes through to the database, so the writes run in the background
+        ServiceExecutor.getInstance().submit("settings.save", () -> {
+            AppTheme.setDarkMode(dark);
+            AppTheme.setColorBlindMode(colorBlind);
+            settingsService.saveSetting("notifications_enabled", notifications);
+            settingsService.saveSetting("report_frequency", frequency);
+            settingsService.saveSetting("admin_email", email);
+            return !settingsService.hasPendingSaves();
+        }).onEdt(saved -> {
+            if (DashboardUI.getInstance() != null) {
+                DashboardUI.getInstance().reloadAllTabs();
+            } else {
+                applyTheme();
+            }
 
-        JOptionPane.showMessageDialog(this, "Settings saved successfully!");
+            if (saved) {
+                JOptionPane.showMessageDialog(this, "Settings saved successfully!");
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Settings applied, but the database could not be reached.\n"
+                                + "They will be saved once the connection is back.",
+                        "Settings Not Saved", JOptionPane.WARNING_MESSAGE);
+            }
+        }, e -> JOptionPane.showMessageDialog(this, "Error saving settings: " + e.getMessage()));
     }
 
     private void loadCurrentSettings() {
-        Map<String, String> settings = settingsService.getAllSettings();
+        // Re-read sys_config so the screen shows changes made on other tills
+        loader.load("settings", () -> {
+            settingsService.reload();
+            return settingsService.getAllSettings();
+        }, this::showSettings,
+                e -> System.err.println("Error loading settings: " + e.getMessage()));
+    }
+
+    private void showSettings(Map<String, String> settings) {
         themeToggle.setSelected(Boolean.parseBoolean(settings.getOrDefault("theme_dark", "true")));
         notificationToggle.setSelected(Boolean.parseBoolean(settings.getOrDefault("notifications_enabled", "true")));
         accessibilityToggle.setSelected(AppTheme.isColorBlindMode());
@@ -280,152 +298,52 @@ public class SettingsUI extends JPanel {
         emailSettings.setText(settings.getOrDefault("admin_email", "admin@store.com"));
     }
 
-    private void exportDatabaseToPDF() {
-        try (PDDocument document = new PDDocument()) {
-            PDFContext ctx = new PDFContext(document);
-            ctx.newPage();
-
-            // Report Header
-            ctx.stream.beginText();
-            ctx.stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 22);
-            ctx.stream.newLineAtOffset(50, 750);
-            ctx.stream.showText("Smart Retail - Database Backup Report");
-            ctx.stream.endText();
-
-            ctx.stream.beginText();
-            ctx.stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
-            ctx.stream.newLineAtOffset(50, 730);
-            ctx.stream.showText("Generated on: " + new java.util.Date().toString());
-            ctx.stream.endText();
-
-            ctx.y = 690;
-
-            // Export Tables
-            addTableToPDF(ctx, "USERS", 
-                new String[]{"ID", "Username", "Email", "Status"}, 
-                new String[]{"user_id", "username", "email", "status"});
-            
-            ctx.y -= 40;
-            addTableToPDF(ctx, "PRODUCTS", 
-                new String[]{"ID", "Name", "Price", "Stock"}, 
-                new String[]{"product_id", "name", "price", "stock"});
-            
-            ctx.y -= 40;
-            addTableToPDF(ctx, "CUSTOMERS", 
-                new String[]{"ID", "First Name", "Last Name", "Email"}, 
-                new String[]{"customer_id", "first_name", "last_name", "email"});
-
-            ctx.closeStream();
-
-            File file = new File("Database_Backup.pdf");
-            document.save(file);
-            JOptionPane.showMessageDialog(this, "Professional PDF backup saved to: " + file.getAbsolutePath());
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error generating backup: " + e.getMessage());
-        }
-    }
-
-    private static class PDFContext {
-        PDDocument doc;
-        PDPage page;
-        PDPageContentStream stream;
-        float y;
-        int pageNum = 0;
-
-        PDFContext(PDDocument doc) { this.doc = doc; }
-
-        void newPage() throws IOException {
-            if (stream != null) {
-                drawFooter();
-                stream.close();
-            }
-            page = new PDPage();
-            doc.addPage(page);
-            stream = new PDPageContentStream(doc, page);
-            y = 750;
-            pageNum++;
-        }
-
-        void closeStream() throws IOException {
-            if (stream != null) {
-                drawFooter();
-                stream.close();
-            }
-        }
-
-        private void drawFooter() throws IOException {
-            stream.beginText();
-            stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE), 8);
-            stream.newLineAtOffset(500, 30);
-            stream.showText("Page " + pageNum);
-            stream.endText();
-        }
-
-        void checkSpace(float needed) throws IOException {
-            if (y - needed < 50) {
-                newPage();
-            }
-        }
-    }
-
-    private void addTableToPDF(PDFContext ctx, String title, String[] headers, String[] dbCols) throws SQLException, IOException {
-        float margin = 50;
-        float rowHeight = 20;
-        float[] xOffsets = {50, 120, 250, 420}; // Fixed absolute x-coordinates for columns
-
-        ctx.checkSpace(60);
-
-        // Draw Table Title
-        ctx.stream.beginText();
-        ctx.stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 14);
-        ctx.stream.newLineAtOffset(margin, ctx.y);
-        ctx.stream.showText(title + " DATA");
-        ctx.stream.endText();
-        ctx.y -= 25;
-
-        // Draw Line
-        ctx.stream.setLineWidth(1.0f);
-        ctx.stream.moveTo(margin, ctx.y + 5);
-        ctx.stream.lineTo(550, ctx.y + 5);
-        ctx.stream.stroke();
-
-        // Draw Headers
-        ctx.stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 10);
-        for (int i = 0; i < headers.length; i++) {
-            ctx.stream.beginText();
-            ctx.stream.newLineAtOffset(xOffsets[i], ctx.y);
-            ctx.stream.showText(headers[i]);
-            ctx.stream.endText();
-        }
-        ctx.y -= rowHeight;
-
-        // Fetch Data
-        String sql = "SELECT * FROM " + title.toLowerCase();
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                ctx.checkSpace(rowHeight);
-                if (ctx.y > 700) { // New page was triggered
-                    ctx.y -= rowHeight; // Adjust for title gap
-                }
-
-                ctx.stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-                for (int j = 0; j < dbCols.length; j++) {
-                    ctx.stream.beginText();
-                    ctx.stream.newLineAtOffset(xOffsets[j], ctx.y);
-                    String val = rs.getString(dbCols[j]);
-                    if (val == null) val = "";
-                    if (val.length() > 25) val = val.substring(0, 22) + "..";
-                    ctx.stream.showText(val);
-                    ctx.stream.endText();
-                }
-                ctx.y -= rowHeight;
-            }
-        }
-        ctx.y -= 20; // Extra gap between tables
+    private void exportDatabaseToPDF(JButton source) {
+        File file = new File("Database_Backup.pdf");
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Exporting Database",
+                Dialog.ModalityType.MODELESS);
+        JLabel status = new JLabel("Starting export...");
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.setBorder(new EmptyBorder(15, 20, 15, 20));
+        content.add(status, BorderLayout.NORTH);
+        content.add(bar, BorderLayout.CENTER);
+        JButton cancel = new JButton("Cancel");
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.add(cancel);
+        content.add(buttons, BorderLayout.SOUTH);
+        dialog.setContentPane(content);
+        dialog.setSize(360, 140);
+        dialog.setLocationRelativeTo(this);
+        source.setEnabled(false);
+
+        // No deadline: a large export can legitimately run for minutes; Cancel stops it
+        // at the next progress report, where throwing makes BackupService cancel its query
+        ServiceExecutor.Task<Long> task = ServiceExecutor.getInstance().submit("settings.export",
+                () -> new BackupService().exportToPDF(file, (table, rows, done) -> {
+                    if (ServiceExecutor.isCurrentTaskCancelled()) {
+                        throw new CancellationException("Export cancelled");
+                    }
+                    String text = String.format("%s: %,d rows%s", table, rows, done ? " done" : "...");
+                    SwingUtilities.invokeLater(() -> status.setText(text));
+                }), 0).onEdt(rows -> {
+                    dialog.dispose();
+                    source.setEnabled(true);
+                    JOptionPane.showMessageDialog(this, String.format(
+                            "Professional PDF backup (%,d rows) saved to: %s", rows, file.getAbsolutePath()));
+                }, e -> {
+                    dialog.dispose();
+                    source.setEnabled(true);
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Error generating backup: " + e.getMessage());
+                });
+        cancel.addActionListener(e -> {
+            task.cancel();
+            dialog.dispose();
+            source.setEnabled(true);
+        });
+        dialog.setVisible(true);
     }
 
     // Modern iOS Style Toggle Switch
@@ -0,0 +1,280 @@
+package utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EventLog - Append-only JSON-lines log of user events (one object per line).
+ *
+ * Writing an event appends a single line through a buffered writer that
+ * stays open, so the cost no longer depends on how many events were logged
+ * before. The active file is rotated when it passes MAX_FILE_BYTES or when
+ * the first event of a new day arrives; only the newest MAX_ROTATED_FILES
+ * rotated files are kept.
+ *
+ * Readers stream the files line by line (oldest first), so scanning for one
+ * user needs memory only for the lines that match.
+ */
+public class EventLog {
+
+    private static final String LOG_DIR = "src/main/resources/logs";
+    private static final String ACTIVE_FILE = "events.jsonl";
+    private static final String ROTATED_PREFIX = "events-";
+    private static final String LEGACY_FILE = "src/main/resources/logs.json";
+
+    private static final long MAX_FILE_BYTES = 5L * 1024 * 1024;
+    private static final int MAX_ROTATED_FILES = 30;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern LEGACY_ENTRY = Pattern.compile(
+            "\"username\":\"((?:[^\"\\\\]|\\\\.)*)\",\"event\":\"((?:[^\"\\\\]|\\\\.)*)\",\"timestamp\":\"([^\"]*)\"");
+
+    private static EventLog instance;
+
+    private final File dir;
+    private final File active;
+    private final long maxFileBytes;
+    private Writer writer;
+    private long activeBytes;
+    private LocalDate activeDay;
+
+    /**
+     * Opens the log kept in dir; the application uses getInstance()
+     */
+    public EventLog(File dir) {
+        this(dir, MAX_FILE_BYTES);
+    }
+
+    /**
+     * @param maxFileBytes Size past which the active file is rotated
+     */
+    public EventLog(File dir, long maxFileBytes) {
+        this.dir = dir;
+        this.active = new File(dir, ACTIVE_FILE);
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    public static synchronized EventLog getInstance() {
+        if (instance == null) {
+            instance = new EventLog(new File(LOG_DIR));
+            instance.migrateLegacyFile(new File(LEGACY_FILE));
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "event-log-close"));
+        }
+        return instance;
+    }
+
+    /**
+     * Appends one event
+     *
+     * @param username  The user the event belongs to
+     * @param eventType The type of event (LOGIN, LOGOUT, ...)
+     */
+    public void append(String username, String eventType) {
+        LocalDateTime now = LocalDateTime.now();
+        String line = String.format("{\"username\":\"%s\",\"event\":\"%s\",\"timestamp\":\"%s\"}",
+                escapeJson(username), escapeJson(eventType), now.format(DATE_FORMATTER));
+        synchronized (this) {
+            try {
+                writeLine(line, now.toLocalDate());
+            } catch (IOException e) {
+                System.err.println("Error logging event: " + e.getMessage());
+                closeWriter();
+            }
+        }
+    }
+
+    /**
+     * Streams every logged line, oldest first
+     *
+     * @param consumer Receives each JSON line
+     */
+    public void forEach(Consumer<String> consumer) {
+        synchronized (this) {
+            // Make buffered events visible to the reader
+            if (writer != null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    System.err.println("Error flushing event log: " + e.getMessage());
+                }
+            }
+        }
+        for (File file : logFiles()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        consumer.accept(line);
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                // Rotated away after the files were listed; skipped in this scan
+            } catch (IOException e) {
+                System.err.println("Error reading " + file.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the most recent events of one user without loading the whole log
+     *
+     * @param username   The user to filter by
+     * @param maxEntries Keep only this many of the newest matches, 0 for all
+     * @return Matching JSON lines, oldest first
+     */
+    public List<String> findByUser(String username, int maxEntries) {
+        String key = "\"username\":\"" + escapeJson(username) + "\"";
+        ArrayDeque<String> matches = new ArrayDeque<>();
+        forEach(line -> {
+            if (line.contains(key)) {
+                matches.addLast(line);
+                if (maxEntries > 0 && matches.size() > maxEntries) {
+                    matches.removeFirst();
+                }
+            }
+        });
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Flushes and closes the active file (it is reopened on the next event)
+     */
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    /**
+     * One-time import of the old logs.json array (which the old regex split often
+     * merged into one entry); the old file is renamed to *.migrated afterwards.
+     * Does nothing once this log has any events.
+     */
+    public void migrateLegacyFile(File legacy) {
+        if (!legacy.exists() || active.exists() || !rotatedFiles().isEmpty()) {
+            return;
+        }
+        try {
+            String content = new String(Files.readAllBytes(legacy.toPath()), StandardCharsets.UTF_8);
+            Matcher m = LEGACY_ENTRY.matcher(content);
+            int count = 0;
+            synchronized (this) {
+                while (m.find()) {
+                    String line = "{\"username\":\"" + m.group(1) + "\",\"event\":\"" + m.group(2)
+                            + "\",\"timestamp\":\"" + m.group(3) + "\"}";
+                    writeLine(line, LocalDate.now());
+                    count++;
+                }
+            }
+            Files.move(legacy.toPath(), new File(legacy.getPath() + ".migrated").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Migrated " + count + " events from " + legacy.getName());
+        } catch (IOException e) {
+            System.err.println("Error migrating " + legacy.getName() + ": " + e.getMessage());
+        }
+    }
+
+    // === INTERNALS ===
+
+    // Caller holds the lock
+    private void writeLine(String line, LocalDate today) throws IOException {
+        if (writer == null) {
+            openWriter();
+        }
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (activeBytes > 0 && (activeBytes + bytes.length > maxFileBytes || !today.equals(activeDay))) {
+            rotate();
+            openWriter();
+        }
+        writer.write(line);
+        writer.write('\n');
+        // Login/logout are rare; flushing keeps each event on disk without reopening the file
+        writer.flush();
+        activeBytes += bytes.length;
+        activeDay = today;
+    }
+
+    private void openWriter() throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        activeBytes = active.length();
+        activeDay = active.exists() && activeBytes > 0
+                ? Instant.ofEpochMilli(active.lastModified()).atZone(ZoneId.systemDefault()).toLocalDate()
+                : LocalDate.now();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(active, true), StandardCharsets.UTF_8));
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing event log: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    // Moves the active file to events-<day>[.n].jsonl and prunes old files
+    private void rotate() throws IOException {
+        closeWriter();
+        String base = ROTATED_PREFIX + activeDay;
+        File target = new File(dir, base + ".jsonl");
+        for (int n = 1; target.exists(); n++) {
+            target = new File(dir, base + "." + n + ".jsonl");
+        }
+        Files.move(active.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        List<File> rotated = rotatedFiles();
+        for (int i = 0; i < rotated.size() - MAX_ROTATED_FILES; i++) {
+            if (!rotated.get(i).delete()) {
+                System.err.println("Could not delete old event log " + rotated.get(i).getName());
+            }
+        }
+    }
+
+    // Rotated files oldest first, then the active file
+    private List<File> logFiles() {
+        List<File> files = rotatedFiles();
+        if (active.exists()) {
+            files.add(active);
+        }
+        return files;
+    }
+
+    private List<File> rotatedFiles() {
+        File[] found = dir.listFiles((d, name) -> name.startsWith(ROTATED_PREFIX) && name.endsWith(".jsonl"));
+        List<File> files = new ArrayList<>(found == null ? Collections.emptyList() : Arrays.asList(found));
+        files.sort(Comparator.comparing(EventLog::rotationKey));
+        return files;
+    }
+
+    // events-2026-10-17.jsonl < events-2026-10-17.1.jsonl < events-2026-10-17.2.jsonl
+    private static String rotationKey(File file) {
+        String name = file.getName();
+        String stem = name.substring(ROTATED_PREFIX.length(), name.length() - ".jsonl".length());
+        int dot = stem.indexOf('.');
+        String day = dot < 0 ? stem : stem.substring(0, dot);
+        int n = dot < 0 ? 0 : Integer.parseInt(stem.substring(dot + 1));
+        return day + String.format("%06d", n);
+    }
+
+    private static String escapeJson(String str) {
+        return str.replace("\\", "\\\\")
+                  .replace("\"", "\\\"")
+                  .replace("\n", "\\n")
+                  .replace("\r", "\\r")
+                  .replace("\t", "\\t");
+    }
+}
@@ -1,13 +1,13 @@
 package utils;
 
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+/**
+ * JSONUtil - Login/logout event logging.
+ * Events are appended to the JSON-lines EventLog (one line per event) instead
+ * of rewriting a single logs.json array on every event.
+ */
 public class JSONUtil {
-    private static final String LOGS_FILE = "src/main/resources/logs.json";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
      * Log a user login event
@@ -26,134 +26,42 @@ public class JSONUtil {
     }
 
     /**
-     * Log an event to the logs.json file
+     * Log an event to the event log
      * @param username The username associated with the event
      * @param eventType The type of event (LOGIN, LOGOUT, etc.)
      */
     private static void logEvent(String username, String eventType) {
-        try {
-            List<String> logs = readLogs();
-            
-            String logEntry = String.format(
-                "{\"username\":\"%s\",\"event\":\"%s\",\"timestamp\":\"%s\"}",
-                escapeJson(username),
-                eventType,
-                LocalDateTime.now().format(DATE_FORMATTER)
-            );
-            
-            logs.add(logEntry);
-            writeLogs(logs);
-        } catch (IOException e) {
-            System.err.println("Error logging event: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Read the logs from logs.json file
-     * @return List of JSON strings containing all logs
-     */
-    private static List<String> readLogs() throws IOException {
-        File logsFile = new File(LOGS_FILE);
-        List<String> logs = new ArrayList<>();
-        
-        if (!logsFile.exists()) {
-            return logs;
-        }
-        
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(logsFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
-        }
-        
-        String fileContent = content.toString().trim();
-        if (fileContent.isEmpty() || fileContent.equals("[]")) {
-            return logs;
-        }
-        
-        // Parse JSON array manually
-        fileContent = fileContent.substring(1, fileContent.length() - 1); // Remove [ and ]
-        if (!fileContent.isEmpty()) {
-            String[] entries = fileContent.split("\\},\\{");
-            for (String entry : entries) {
-                entry = entry.replace("}", "").replace("{", "").trim();
-                if (!entry.isEmpty()) {
-                    logs.add("{" + entry + "}");
-                }
-            }
-        }
-        
-        return logs;
-    }
-
-    /**
-     * Write logs to logs.json file
-     * @param logs List of JSON strings containing all logs
-     */
-    private static void writeLogs(List<String> logs) throws IOException {
-        File logsFile = new File(LOGS_FILE);
-        
-        // Create parent directories if they don't exist
-        logsFile.getParentFile().mkdirs();
-        
-        try (FileWriter writer = new FileWriter(logsFile)) {
-            writer.write("[\n");
-            for (int i = 0; i < logs.size(); i++) {
-                writer.write("  " + logs.get(i));
-                if (i < logs.size() - 1) {
-                    writer.write(",");
-                }
-                writer.write("\n");
-            }
-            writer.write("]\n");
-            writer.flush();
-        }
+        EventLog.getInstance().append(username, eventType);
     }
 
     /**
      * Get all logs
+     * Loads every event; prefer EventLog.forEach for large logs
      * @return List of JSON strings containing all logged events
      */
     public static List<String> getAllLogs() {
-        try {
-            return readLogs();
-        } catch (IOException e) {
-            System.err.println("Error reading logs: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        List<String> logs = new ArrayList<>();
+        EventLog.getInstance().forEach(logs::add);
+        return logs;
     }
 
     /**
      * Get logs for a specific user
+     * Streams the log files, keeping only this user's entries in memory
      * @param username The username to filter logs by
      * @return List of JSON strings containing logs for the user
      */
     public static List<String> getLogsForUser(String username) {
-        List<String> allLogs = getAllLogs();
-        List<String> userLogs = new ArrayList<>();
-        
-        for (String log : allLogs) {
-            if (log.contains("\"username\":\"" + escapeJson(username) + "\"")) {
-                userLogs.add(log);
-            }
-        }
-        
-        return userLogs;
+        return EventLog.getInstance().findByUser(username, 0);
     }
 
     /**
-     * Escape special characters in JSON strings
-     * @param str The string to escape
-     * @return The escaped string
+     * Get the most recent logs for a specific user
+     * @param username The username to filter logs by
+     * @param maxEntries How many of the newest entries to return
+     * @return List of JSON strings, oldest first
      */
-    private static String escapeJson(String str) {
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    public static List<String> getRecentLogsForUser(String username, int maxEntries) {
+        return EventLog.getInstance().findByUser(username, maxEntries);
     }
 }
@@ -0,0 +1,204 @@
+package utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PDFReportWriter - Writes a multi-page tabular report one row at a time.
+ *
+ * Built for exports that are too large to hold in memory: the document
+ * keeps its page content in a PDFBox scratch file (only the first few MB in
+ * memory), each page's content stream is closed as soon as the page is
+ * full, and the fonts are created once per report. Rows are written as they
+ * arrive, so a caller can stream them straight from a ResultSet.
+ *
+ * Usage:
+ *   try (PDFReportWriter report = new PDFReportWriter("Title", "Subtitle")) {
+ *       report.beginTable("USERS", headers, columnX);
+ *       report.addRow(values);  // repeatedly
+ *       report.save(file);
+ *   }
+ */
+public class PDFReportWriter implements Closeable {
+
+    // Page content kept in memory before PDFBox spills to its scratch file
+    private static final long MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    private static final float MARGIN = 50;
+    private static final float RIGHT_EDGE = 550;
+    private static final float TOP = 750;
+    private static final float BOTTOM = 50;
+    private static final float ROW_HEIGHT = 20;
+    private static final int MAX_CELL_CHARS = 25;
+
+    private final PDDocument document;
+    private final PDType1Font titleFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    private final PDType1Font cellFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private final PDType1Font footerFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
+
+    private PDPageContentStream stream;
+    private float y;
+    private int pageNum = 0;
+
+    // Current table, repeated at the top of each continuation page
+    private String tableTitle;
+    private String[] headers;
+    private float[] columnX;
+
+    /**
+     * Starts the report with a title block on the first page
+     */
+    public PDFReportWriter(String title, String subtitle) throws IOException {
+        document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES).streamCache);
+        newPage();
+        stream.beginText();
+        stream.setFont(titleFont, 22);
+        stream.newLineAtOffset(MARGIN, TOP);
+        stream.showText(title);
+        stream.endText();
+
+        stream.beginText();
+        stream.setFont(cellFont, 10);
+        stream.newLineAtOffset(MARGIN, TOP - 20);
+        stream.showText(subtitle);
+        stream.endText();
+        y = TOP - 60;
+    }
+
+    /**
+     * Starts a new table below the previous one (or on a new page if there is no room)
+     *
+     * @param title   Table title, e.g. "USERS"
+     * @param headers Column headers
+     * @param columnX Absolute x of each column
+     */
+    public void beginTable(String title, String[] headers, float[] columnX) throws IOException {
+        if (tableTitle != null) {
+            y -= 60;
+        }
+        this.tableTitle = title;
+        this.headers = headers;
+        this.columnX = columnX;
+        if (y - 60 < BOTTOM) {
+            newPage();
+        }
+        drawTableHeader(title + " DATA");
+    }
+
+    /**
+     * Writes one row of the current table; long values are shortened to fit the column
+     */
+    public void addRow(String[] values) throws IOException {
+        if (y - ROW_HEIGHT < BOTTOM) {
+            newPage();
+            drawTableHeader(tableTitle + " DATA (continued)");
+        }
+        stream.setFont(cellFont, 9);
+        for (int i = 0; i < columnX.length && i < values.length; i++) {
+            String value = values[i] == null ? "" : values[i];
+            if (value.length() > MAX_CELL_CHARS) {
+                value = value.substring(0, MAX_CELL_CHARS - 3) + "..";
+            }
+            stream.beginText();
+            stream.newLineAtOffset(columnX[i], y);
+            stream.showText(printable(value));
+            stream.endText();
+        }
+        y -= ROW_HEIGHT;
+    }
+
+    public int getPageCount() {
+        return pageNum;
+    }
+
+    /**
+     * Finishes the last page and writes the document
+     */
+    public void save(File file) throws IOException {
+        finishPage();
+        document.save(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finishPage();
+        } finally {
+            document.close();
+        }
+    }
+
+    // === INTERNALS ===
+
+    private void drawTableHeader(String title) throws IOException {
+        stream.beginText();
+        stream.setFont(titleFont, 14);
+        stream.newLineAtOffset(MARGIN, y);
+        stream.showText(title);
+        stream.endText();
+        y -= 25;
+
+        stream.setLineWidth(1.0f);
+        stream.moveTo(MARGIN, y + 5);
+        stream.lineTo(RIGHT_EDGE, y + 5);
+        stream.stroke();
+
+        stream.setFont(titleFont, 10);
+        for (int i = 0; i < headers.length; i++) {
+            stream.beginText();
+            stream.newLineAtOffset(columnX[i], y);
+            stream.showText(headers[i]);
+            stream.endText();
+        }
+        y -= ROW_HEIGHT;
+    }
+
+    // The standard 14 fonts only encode Latin-1; one odd character must not abort a long export
+    private static String printable(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0xFF) {
+                if (sb == null) {
+                    sb = new StringBuilder(value);
+                }
+                sb.setCharAt(i, c < 0x20 ? ' ' : '?');
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    // Closing the content stream hands the finished page to the scratch file
+    private void newPage() throws IOException {
+        finishPage();
+        PDPage page = new PDPage();
+        document.addPage(page);
+        stream = new PDPageContentStream(document, page);
+        y = TOP;
+        pageNum++;
+    }
+
+    private void finishPage() throws IOException {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.beginText();
+            stream.setFont(footerFont, 8);
+            stream.newLineAtOffset(500, 30);
+            stream.showText("Page " + pageNum);
+            stream.endText();
+        } finally {
+            stream.close();
+            stream = null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import ui.AsyncLoader;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that panel loads run off the EDT, come back on it and that stale
+ * results are dropped. Runs without a database (and without a display).
+ */
+public class AsyncLoaderTest {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("========================================");
+        System.out.println("   ASYNC LOADER TEST SUITE");
+        System.out.println("========================================\n");
+
+        AsyncLoader loader = new AsyncLoader("test", new JPanel());
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        // Test 1: The call runs in the background, the result is applied on the EDT
+        System.out.println("TEST 1: Threads");
+        System.out.println("----------------------------");
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] callOnEdt = new boolean[1];
+        boolean[] applyOnEdt = new boolean[1];
+        SwingUtilities.invokeAndWait(() -> loader.load("table", () -> {
+            callOnEdt[0] = SwingUtilities.isEventDispatchThread();
+            return "rows";
+        }, result -> {
+            applyOnEdt[0] = SwingUtilities.isEventDispatchThread();
+            applied.add(result);
+            done.countDown();
+        }, e -> done.countDown()));
+        done.await(5, TimeUnit.SECONDS);
+        check(!callOnEdt[0], "Service call ran off the EDT");
+        check(applyOnEdt[0] && applied.contains("rows"), "Result applied on the EDT");
+        System.out.println();
+
+        // Test 2: A slow older load is dropped once a newer one has been started
+        System.out.println("TEST 2: Stale Results");
+        System.out.println("----------------------------");
+        applied.clear();
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        CountDownLatch fastApplied = new CountDownLatch(1);
+        int staleBefore = AsyncLoader.getStaleCount();
+        SwingUtilities.invokeAndWait(() -> {
+            loader.load("table", () -> {
+                slowRelease.await(5, TimeUnit.SECONDS);
+                return "slow";
+            }, applied::add, e -> { });
+            loader.load("table", () -> "fast", result -> {
+                applied.add(result);
+                fastApplied.countDown();
+            }, e -> { });
+        });
+        fastApplied.await(5, TimeUnit.SECONDS);
+        slowRelease.countDown();
+        waitUntilIdle(loader);
+        check(applied.size() == 1 && "fast".equals(applied.get(0)), "Only the newer result applied: " + applied);
+        check(AsyncLoader.getStaleCount() == staleBefore + 1, "One stale result dropped");
+        System.out.println();
+
+        // Test 3: Errors reach the error handler, and every load is timed
+        System.out.println("TEST 3: Errors and Timings");
+        System.out.println("----------------------------");
+        CountDownLatch failed = new CountDownLatch(1);
+        String[] message = new String[1];
+        SwingUtilities.invokeAndWait(() -> loader.load("broken", () -> {
+            throw new IllegalStateException("no database");
+        }, result -> { }, e -> {
+            message[0] = e.getMessage();
+            failed.countDown();
+        }));
+        failed.await(5, TimeUnit.SECONDS);
+        check("no database".equals(message[0]), "Error handler got: " + message[0]);
+        check(AsyncLoader.getCallTimes("test.table").getCount() == 3, "Three table calls timed");
+        check(AsyncLoader.getApplyTimes("test.table").getCount() == 2, "Two table results applied");
+        System.out.print(AsyncLoader.report());
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void waitUntilIdle(AsyncLoader loader) throws Exception {
+        boolean[] loading = { true };
+        for (int i = 0; i < 100 && loading[0]; i++) {
+            Thread.sleep(20);
+            SwingUtilities.invokeAndWait(() -> loading[0] = loader.isLoading());
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
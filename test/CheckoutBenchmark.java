@@ -0,0 +1,193 @@
+import database.DBConnection;
+import services.CheckoutEngine;
+import services.DailyRollupService;
+import services.SalesCubeService;
+import services.SalesService;
+import models.Sale;
+import models.SaleDetail;
+import utils.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs concurrent checkouts from several lanes, first one transaction per
+ * sale, then through the group-commit CheckoutEngine, and prints throughput
+ * and latency percentiles for both. Needs the smart_retail database; the
+ * benchmark sales are deleted and their stock is put back afterwards.
+ *
+ * Usage: java CheckoutBenchmark [lanes] [salesPerLane]
+ */
+public class CheckoutBenchmark {
+
+    private static final String MARKER = "BENCHMARK checkout";
+
+    private static int userId;
+    private static final List<int[]> products = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        int lanes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int salesPerLane = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.println("========================================");
+        System.out.println("   CHECKOUT BENCHMARK");
+        System.out.println("========================================\n");
+
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null || !loadFixtures(conn)) {
+                System.out.println("✗ FAILED: Need a reachable database with at least one user and stocked products");
+                return;
+            }
+        }
+
+        SalesService salesService = new SalesService();
+        try {
+            System.out.println("STEP 1: One transaction per sale (" + lanes + " lanes x " + salesPerLane + ")");
+            System.out.println("----------------------------");
+            LatencyHistogram direct = new LatencyHistogram("direct");
+            run(lanes, salesPerLane, direct, salesService::createSaleDirect);
+            System.out.println();
+
+            System.out.println("STEP 2: Group commit (" + lanes + " lanes x " + salesPerLane + ")");
+            System.out.println("----------------------------");
+            CheckoutEngine engine = CheckoutEngine.getInstance();
+            engine.resetStats();
+            LatencyHistogram grouped = new LatencyHistogram("grouped");
+            run(lanes, salesPerLane, grouped, salesService::createSale);
+            System.out.printf("  Commits: %d, average group size %.1f, fallbacks %d%n",
+                    engine.getGroupCount(), engine.getAverageGroupSize(), engine.getFallbackGroupCount());
+        } finally {
+            System.out.println("\nSTEP 3: Removing benchmark sales");
+            System.out.println("----------------------------");
+            cleanUp();
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   BENCHMARK COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private interface Checkout {
+        int create(Sale sale) throws Exception;
+    }
+
+    private static void run(int lanes, int salesPerLane, LatencyHistogram histogram, Checkout checkout)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(lanes);
+        AtomicInteger failures = new AtomicInteger();
+        for (int lane = 0; lane < lanes; lane++) {
+            Random random = new Random(lane);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < salesPerLane; i++) {
+                        Sale sale = randomSale(random);
+                        long t0 = System.nanoTime();
+                        try {
+                            checkout.create(sale);
+                            histogram.recordNanos(System.nanoTime() - t0);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "lane-" + lane).start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("  %d sales in %.2f s = %.0f sales/s, %d failed%n",
+                histogram.getCount(), seconds, histogram.getCount() / seconds, failures.get());
+        System.out.println("  " + histogram);
+    }
+
+    // 1-4 lines of one unit each, so stock lasts for many runs
+    private static Sale randomSale(Random random) {
+        Sale sale = new Sale();
+        sale.setCustomerId(Sale.WALK_IN_CUSTOMER_ID);
+        sale.setUserId(userId);
+        sale.setNotes(MARKER);
+        sale.setSaleDetails(new ArrayList<>());
+        double total = 0;
+        int lines = 1 + random.nextInt(4);
+        for (int i = 0; i < lines; i++) {
+            int[] product = products.get(random.nextInt(products.size()));
+            SaleDetail detail = new SaleDetail(product[0], null, product[1] / 100.0, 1);
+            sale.addSaleDetail(detail);
+            total += detail.getTotalPrice();
+        }
+        sale.setTotalAmount(total);
+        sale.setCashReceived(Math.ceil(sale.getFinalAmount()));
+        sale.setChangeGiven(sale.calculateChange());
+        return sale;
+    }
+
+    private static boolean loadFixtures(Connection conn) throws Exception {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT MIN(user_id) FROM Users");
+             ResultSet rs = pstmt.executeQuery()) {
+            userId = rs.next() ? rs.getInt(1) : 0;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT product_id, price FROM Products WHERE stock >= 1000 ORDER BY product_id LIMIT 50");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                products.add(new int[] { rs.getInt(1), (int) Math.round(rs.getDouble(2) * 100) });
+            }
+        }
+        if (products.isEmpty()) {
+            // Fall back to whatever is stocked; sales that run a product out fail and are counted
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT product_id, price FROM Products ORDER BY product_id LIMIT 50");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(new int[] { rs.getInt(1), (int) Math.round(rs.getDouble(2) * 100) });
+                }
+            }
+            System.out.println("  Note: no product has 1000+ units in stock; sales may fail on low stock");
+        }
+        return userId > 0 && !products.isEmpty();
+    }
+
+    private static void cleanUp() throws Exception {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE Products p JOIN (SELECT sd.product_id, SUM(sd.quantity) AS qty " +
+                        "FROM Sale_Details sd JOIN Sales s ON s.sale_id = sd.sale_id " +
+                        "WHERE s.notes = ? GROUP BY sd.product_id) sold ON sold.product_id = p.product_id " +
+                        "SET p.stock = p.stock + sold.qty")) {
+                    pstmt.setString(1, MARKER);
+                    System.out.println("  Restored stock of " + pstmt.executeUpdate() + " products");
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Sales WHERE notes = ?")) {
+                    pstmt.setString(1, MARKER);
+                    System.out.println("  Removed " + pstmt.executeUpdate() + " sales");
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        // Cascaded deletes bypass triggers, so bring today's summaries back in line
+        LocalDate today = LocalDate.now();
+        SalesCubeService.getInstance().reconcile(today, today, true);
+        DailyRollupService.getInstance().refreshDay(today);
+    }
+}
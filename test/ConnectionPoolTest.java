@@ -0,0 +1,211 @@
+import database.ConnectionPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTest {
+
+    private static final AtomicInteger opened = new AtomicInteger();
+    private static final AtomicInteger closed = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   CONNECTION POOL TEST SUITE");
+        System.out.println("========================================\n");
+
+        // Test 1: Connections are reused
+        testReuse();
+
+        // Test 2: Pool is bounded and borrow times out
+        testBorrowTimeout();
+
+        // Test 3: Broken connections are replaced
+        testValidationOnBorrow();
+
+        // Test 4: Open transactions are rolled back on return
+        testAutoCommitReset();
+
+        // Test 5: Leaks are reported; the borrow stack only when tracing
+        testLeakWarning();
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    // Test 1: Connections are reused
+    private static void testReuse() throws Exception {
+        System.out.println("TEST 1: Connection Reuse");
+        System.out.println("----------------------------");
+        opened.set(0);
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolTest::fakeConnection, 0, 2, 60000, 500, 0, 1);
+
+        for (int i = 0; i < 20; i++) {
+            try (Connection conn = pool.borrow()) {
+                conn.getAutoCommit();
+            }
+        }
+
+        check(opened.get() == 1, "20 borrows opened " + opened.get() + " physical connection(s)");
+        check(pool.getActiveCount() == 0 && pool.getIdleCount() == 1, "Connection returned to idle list");
+        pool.shutdown();
+        System.out.println();
+    }
+
+    // Test 2: Pool is bounded and borrow times out
+    private static void testBorrowTimeout() throws Exception {
+        System.out.println("TEST 2: Max Size And Borrow Timeout");
+        System.out.println("----------------------------");
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolTest::fakeConnection, 0, 2, 60000, 200, 0, 1);
+
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        long start = System.currentTimeMillis();
+        try {
+            pool.borrow();
+            check(false, "Third borrow should have timed out");
+        } catch (SQLException e) {
+            long waited = System.currentTimeMillis() - start;
+            check(waited >= 150, "Third borrow timed out after " + waited + " ms");
+        }
+        a.close();
+        try (Connection c = pool.borrow()) {
+            check(c != null, "Borrow succeeds once a connection is returned");
+        }
+        b.close();
+        b.close(); // double close must not release the slot twice
+        check(pool.getTotalCount() <= 2, "Pool never exceeded max size");
+        pool.shutdown();
+        System.out.println();
+    }
+
+    // Test 3: Broken connections are replaced
+    private static void testValidationOnBorrow() throws Exception {
+        System.out.println("TEST 3: Validation On Borrow");
+        System.out.println("----------------------------");
+        opened.set(0);
+        closed.set(0);
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolTest::fakeConnection, 0, 2, 60000, 500, 0, 1);
+
+        Connection first = pool.borrow();
+        first.setClientInfo("broken", "true"); // fake marks itself invalid
+        first.close();
+        Thread.sleep(600); // past the validation bypass window
+
+        try (Connection second = pool.borrow()) {
+            check(second != first && opened.get() == 2, "Invalid connection replaced by a new one");
+            check(closed.get() == 1, "Invalid connection was closed");
+        }
+        pool.shutdown();
+        System.out.println();
+    }
+
+    // Test 4: Open transactions are rolled back on return
+    private static void testAutoCommitReset() throws Exception {
+        System.out.println("TEST 4: Auto-Commit Reset");
+        System.out.println("----------------------------");
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolTest::fakeConnection, 0, 1, 60000, 500, 0, 1);
+
+        try (Connection conn = pool.borrow()) {
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = pool.borrow()) {
+            check(conn.getAutoCommit(), "Next borrower gets auto-commit back");
+            check(conn.getTransactionIsolation() == Connection.TRANSACTION_REPEATABLE_READ,
+                    "Next borrower gets the default isolation back");
+        }
+        pool.shutdown();
+        System.out.println();
+    }
+
+    // Test 5: Leaks are reported; the borrow stack only when tracing
+    private static void testLeakWarning() throws Exception {
+        System.out.println("TEST 5: Leak Warning");
+        System.out.println("----------------------------");
+        String plain = leakReport(false);
+        check(plain.contains("Possible connection leak") && plain.contains("borrowed by thread leaky"),
+                "Held connection reported with its thread");
+        check(!plain.contains("Connection borrowed here"), "No stack trace captured by default");
+        String traced = leakReport(true);
+        check(traced.contains("Connection borrowed here") && traced.contains("leakReport"),
+                "Stack trace of the borrower shown when tracing");
+        System.out.println();
+    }
+
+    // Holds a connection past a 1 s leak threshold on thread "leaky" and returns what the pool printed
+    private static String leakReport(boolean trace) throws Exception {
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolTest::fakeConnection, 0, 1, 60000, 500, 1000, 1);
+        pool.setTraceBorrows(trace);
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(captured, true, "UTF-8"));
+        try {
+            Connection[] held = new Connection[1];
+            Thread leaky = new Thread(() -> {
+                try {
+                    held[0] = pool.borrow();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "leaky");
+            leaky.start();
+            leaky.join();
+            Thread.sleep(2500);
+            held[0].close();
+        } finally {
+            System.setErr(err);
+            pool.shutdown();
+        }
+        return captured.toString("UTF-8");
+    }
+
+    // Minimal in-memory Connection: tracks auto-commit, validity and close
+    private static Connection fakeConnection() {
+        opened.incrementAndGet();
+        boolean[] state = { true, true, false }; // autoCommit, valid, closed
+        int[] isolation = { Connection.TRANSACTION_REPEATABLE_READ };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                            return state[0];
+                        case "setAutoCommit":
+                            state[0] = (Boolean) args[0];
+                            return null;
+                        case "getTransactionIsolation":
+                            return isolation[0];
+                        case "setTransactionIsolation":
+                            isolation[0] = (Integer) args[0];
+                            return null;
+                        case "isValid":
+                            return state[1];
+                        case "setClientInfo":
+                            state[1] = false;
+                            return null;
+                        case "isClosed":
+                            return state[2];
+                        case "close":
+                            if (!state[2]) {
+                                closed.incrementAndGet();
+                            }
+                            state[2] = true;
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import database.DBConnection;
+import services.CustomerSearchService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Random;
+
+/**
+ * Seeds synthetic customers and compares the token index against the old
+ * leading-wildcard LIKE search. Needs the smart_retail database.
+ *
+ * Usage: java CustomerSearchBenchmark [count] [--keep]
+ *   count  - customers to seed (default 1,000,000)
+ *   --keep - leave the seeded rows in place (they use @bench.example emails)
+ */
+public class CustomerSearchBenchmark {
+
+    private static final String BENCH_DOMAIN = "@bench.example";
+    private static final String[] FIRST = { "amal", "nimal", "kasun", "dilini", "sachini", "ruwan", "tharindu",
+            "ishara", "chamari", "lakmal", "priya", "arjun", "meena", "suresh", "anita", "rohan" };
+    private static final String[] LAST = { "perera", "silva", "fernando", "jayasinghe", "bandara", "wickrama",
+            "dissanayake", "gunawardena", "rajapaksa", "kumar", "nair", "menon", "ramesh", "herath" };
+
+    public static void main(String[] args) throws Exception {
+        int count = 1_000_000;
+        boolean keep = false;
+        for (String arg : args) {
+            if ("--keep".equals(arg)) {
+                keep = true;
+            } else {
+                count = Integer.parseInt(arg.replace("_", ""));
+            }
+        }
+
+        System.out.println("========================================");
+        System.out.println("   CUSTOMER SEARCH BENCHMARK");
+        System.out.println("========================================\n");
+
+        CustomerSearchService search = CustomerSearchService.getInstance();
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                System.out.println("✗ FAILED: Could not connect to database");
+                return;
+            }
+
+            System.out.println("STEP 1: Seeding " + count + " customers");
+            System.out.println("----------------------------");
+            long start = System.currentTimeMillis();
+            seed(conn, count);
+            System.out.println("  Seeded in " + (System.currentTimeMillis() - start) + " ms");
+
+            start = System.currentTimeMillis();
+            int indexed = search.backfill();
+            System.out.println("  Indexed " + indexed + " customers in " + (System.currentTimeMillis() - start) + " ms\n");
+
+            System.out.println("STEP 2: Lookups (average of 20 runs, milliseconds)");
+            System.out.println("----------------------------");
+            System.out.printf("  %-22s %10s %10s %8s%n", "query", "index", "LIKE scan", "hits");
+            String[] queries = { "0771234", "4321", "perera", "amal silva", "sachini.herath", "zzqx" };
+            for (String q : queries) {
+                double indexMs = time(() -> search.findCustomerIds(conn, q, 100).size());
+                int hits = search.findCustomerIds(conn, q, 100).size();
+                double likeMs = time(() -> legacySearch(conn, q));
+                System.out.printf("  %-22s %10.2f %10.2f %8d%n", q, indexMs, likeMs, hits);
+            }
+            System.out.println();
+
+            if (!keep) {
+                System.out.println("STEP 3: Removing seeded customers");
+                System.out.println("----------------------------");
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM customers WHERE email LIKE ?")) {
+                    pstmt.setString(1, "%" + BENCH_DOMAIN);
+                    System.out.println("  Removed " + pstmt.executeUpdate() + " customers");
+                }
+            }
+        }
+
+        System.out.println("\n========================================");
+        System.out.println("   BENCHMARK COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private interface Query {
+        int run() throws Exception;
+    }
+
+    private static double time(Query query) throws Exception {
+        query.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / 20;
+    }
+
+    // The search as it was before the token index
+    private static int legacySearch(Connection conn, String keyword) throws Exception {
+        String sql = "SELECT customer_id FROM customers " +
+                "WHERE first_name LIKE ? OR last_name LIKE ? OR email LIKE ? OR phone LIKE ? LIMIT 100";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            String pattern = "%" + keyword + "%";
+            for (int i = 1; i <= 4; i++) {
+                pstmt.setString(i, pattern);
+            }
+            int hits = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    hits++;
+                }
+            }
+            return hits;
+        }
+    }
+
+    // Multi-row inserts of 1000 customers, committed every 50,000
+    private static void seed(Connection conn, int count) throws Exception {
+        Random random = new Random(42);
+        conn.setAutoCommit(false);
+        try {
+            int batch = 1000;
+            for (int done = 0; done < count; done += batch) {
+                int n = Math.min(batch, count - done);
+                StringBuilder sql = new StringBuilder(
+                        "INSERT INTO customers (first_name, last_name, email, phone, loyalty_points) VALUES ");
+                for (int i = 0; i < n; i++) {
+                    sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                    int p = 1;
+                    for (int i = 0; i < n; i++) {
+                        String first = FIRST[random.nextInt(FIRST.length)];
+                        String last = LAST[random.nextInt(LAST.length)];
+                        pstmt.setString(p++, capitalize(first));
+                        pstmt.setString(p++, capitalize(last));
+                        pstmt.setString(p++, first + "." + last + (done + i) + BENCH_DOMAIN);
+                        pstmt.setString(p++, String.format("077-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                        pstmt.setInt(p++, random.nextInt(500));
+                    }
+                    pstmt.executeUpdate();
+                }
+                if ((done + n) % 50000 == 0 || done + n == count) {
+                    conn.commit();
+                }
+            }
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+}
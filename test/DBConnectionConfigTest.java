@@ -0,0 +1,59 @@
+import database.DBConnection;
+
+/**
+ * Checks that DBConnection initialises and adds the Connector/J options the
+ * application relies on to db.url. Runs without a database: loading the
+ * class reads config.properties but does not connect.
+ */
+public class DBConnectionConfigTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   DB CONNECTION CONFIG TEST SUITE");
+        System.out.println("========================================\n");
+
+        // Test 1: The static initialiser runs
+        System.out.println("TEST 1: Class Initialisation");
+        System.out.println("----------------------------");
+        boolean loaded;
+        try {
+            Class.forName("database.DBConnection");
+            loaded = true;
+        } catch (ExceptionInInitializerError e) {
+            System.out.println("  " + e.getCause());
+            loaded = false;
+        }
+        check(loaded, "DBConnection loads without an initialiser error");
+        System.out.println();
+
+        // Test 2: Driver options are appended, explicit ones are kept
+        System.out.println("TEST 2: Driver Defaults");
+        System.out.println("----------------------------");
+        String plain = DBConnection.withDriverDefaults("jdbc:mysql://localhost:3306/smart_retail");
+        check(plain.startsWith("jdbc:mysql://localhost:3306/smart_retail?rewriteBatchedStatements=true&"),
+                "First option starts the query string: " + plain);
+        check(plain.contains("&useServerPrepStmts=true") && plain.contains("&cachePrepStmts=true")
+                && plain.contains("&prepStmtCacheSize=250") && plain.contains("&prepStmtCacheSqlLimit=2048"),
+                "Statement cache options added");
+
+        String explicit = DBConnection.withDriverDefaults(
+                "jdbc:mysql://db:3306/shop?useSSL=false&cachePrepStmts=false");
+        check(explicit.startsWith("jdbc:mysql://db:3306/shop?useSSL=false&cachePrepStmts=false&"),
+                "Existing query string extended with '&'");
+        check(!explicit.contains("cachePrepStmts=true"), "Explicit cachePrepStmts=false wins");
+        check(explicit.contains("rewriteBatchedStatements=true"), "Missing options still added");
+        check(DBConnection.withDriverDefaults(null) == null, "No URL stays null");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import utils.EventLog;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the JSON-lines event log: one escaped object per line, size-based
+ * rotation with old files pruned, and the one-time import of the legacy
+ * logs.json array. Runs without a database, in a temporary directory.
+ */
+public class EventLogTest {
+
+    private static final Pattern LINE = Pattern.compile(
+            "\\{\"username\":\"(?:[^\"\\\\]|\\\\.)*\",\"event\":\"(?:[^\"\\\\]|\\\\.)*\","
+            + "\"timestamp\":\"\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\"}");
+    private static final long MAX_BYTES = 1000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   EVENT LOG TEST SUITE");
+        System.out.println("========================================\n");
+
+        File root = Files.createTempDirectory("event-log-test").toFile();
+
+        // Test 1: One JSON object per line, with awkward values escaped
+        System.out.println("TEST 1: JSON Lines");
+        System.out.println("----------------------------");
+        File dir = new File(root, "format");
+        EventLog log = new EventLog(dir, MAX_BYTES);
+        log.append("alice", "LOGIN");
+        log.append("bob \"the builder\"\\", "LOG\nOUT");
+        List<String> lines = lines(log);
+        check(lines.size() == 2, "Two events, two lines: " + lines.size());
+        boolean wellFormed = true;
+        for (String line : lines) {
+            wellFormed &= LINE.matcher(line).matches();
+        }
+        check(wellFormed, "Every line is a complete JSON object");
+        check(lines.get(1).contains("\"username\":\"bob \\\"the builder\\\"\\\\\"")
+                && lines.get(1).contains("\"event\":\"LOG\\nOUT\""), "Quotes, backslashes and newlines escaped");
+        check(log.findByUser("bob \"the builder\"\\", 0).size() == 1, "Escaped user found by name");
+        log.close();
+        log.append("alice", "LOGOUT");
+        check(lines(log).size() == 3, "Reopened after close() and appended");
+        log.close();
+        System.out.println();
+
+        // Test 2: The active file rotates at the size limit and old files are pruned
+        System.out.println("TEST 2: Rotation");
+        System.out.println("----------------------------");
+        dir = new File(root, "rotation");
+        log = new EventLog(dir, MAX_BYTES);
+        for (int i = 0; i < 100; i++) {
+            log.append("user" + (i % 3), "EVENT-" + i);
+        }
+        File[] files = dir.listFiles();
+        check(files != null && files.length > 1, "Log split into " + (files == null ? 0 : files.length) + " files");
+        boolean withinLimit = true;
+        for (File f : files) {
+            withinLimit &= f.length() <= MAX_BYTES;
+        }
+        check(withinLimit, "No file grows past the limit");
+        lines = lines(log);
+        boolean inOrder = lines.size() == 100;
+        for (int i = 0; inOrder && i < lines.size(); i++) {
+            inOrder = lines.get(i).contains("\"event\":\"EVENT-" + i + "\"");
+        }
+        check(inOrder, "All 100 events read back oldest first across files");
+        check(log.findByUser("user1", 5).size() == 5 && log.findByUser("user1", 5).get(4).contains("EVENT-97"),
+                "findByUser keeps the newest matches");
+
+        for (int i = 100; i < 1000; i++) {
+            log.append("user", "EVENT-" + i);
+        }
+        int rotated = dir.listFiles((d, name) -> name.startsWith("events-")).length;
+        check(rotated == 30, "Only the newest 30 rotated files kept: " + rotated);
+        lines = lines(log);
+        check(lines.get(lines.size() - 1).contains("EVENT-999") && !lines.get(0).contains("\"EVENT-0\""),
+                "Oldest events pruned, newest kept");
+        log.close();
+        System.out.println();
+
+        // Test 3: The legacy logs.json array is imported once and renamed
+        System.out.println("TEST 3: Legacy Migration");
+        System.out.println("----------------------------");
+        dir = new File(root, "migrate");
+        File legacy = new File(root, "logs.json");
+        write(legacy, "[{\"username\":\"alice\",\"event\":\"LOGIN\",\"timestamp\":\"2024-01-01 10:00:00\"},"
+                + "{\"username\":\"bob\",\"event\":\"LOGOUT\",\"timestamp\":\"2024-01-01 11:00:00\"}]");
+        log = new EventLog(dir);
+        log.migrateLegacyFile(legacy);
+        lines = lines(log);
+        check(lines.size() == 2 && lines.get(0).contains("\"timestamp\":\"2024-01-01 10:00:00\"")
+                && lines.get(1).contains("\"username\":\"bob\""), "Both legacy entries imported as lines");
+        check(!legacy.exists() && new File(root, "logs.json.migrated").exists(),
+                "logs.json renamed to logs.json.migrated");
+        write(legacy, "[{\"username\":\"carol\",\"event\":\"LOGIN\",\"timestamp\":\"2024-01-02 10:00:00\"}]");
+        log.migrateLegacyFile(legacy);
+        check(lines(log).size() == 2 && legacy.exists(), "Not imported again once the log has events");
+        log.close();
+
+        deleteAll(root);
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static List<String> lines(EventLog log) {
+        List<String> lines = new ArrayList<>();
+        log.forEach(lines::add);
+        return lines;
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteAll(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
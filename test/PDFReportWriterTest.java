@@ -0,0 +1,129 @@
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import utils.PDFReportWriter;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Checks that PDFReportWriter breaks long tables across pages and repeats
+ * the table title and column headers on every continuation page. Runs
+ * without a database: rows are generated and the saved file is read back
+ * with PDFBox.
+ */
+public class PDFReportWriterTest {
+
+    private static final String[] HEADERS = { "ID", "Name", "Price", "Stock" };
+    private static final float[] COLUMN_X = { 50, 120, 250, 420 };
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   PDF REPORT WRITER TEST SUITE");
+        System.out.println("========================================\n");
+
+        File dir = Files.createTempDirectory("pdf-report-test").toFile();
+        File file = new File(dir, "single.pdf");
+
+        // Test 1: A short table fits on the title page
+        System.out.println("TEST 1: Single Page");
+        System.out.println("----------------------------");
+        try (PDFReportWriter report = new PDFReportWriter("Report", "Subtitle")) {
+            report.beginTable("USERS", HEADERS, COLUMN_X);
+            for (int i = 1; i <= 10; i++) {
+                report.addRow(new String[] { String.valueOf(i), "user" + i, "1.00", "5" });
+            }
+            check(report.getPageCount() == 1, "10 rows stay on one page");
+            report.save(file);
+        }
+        String[] pages = pageTexts(file);
+        check(pages.length == 1 && pages[0].contains("USERS DATA") && pages[0].contains("Page 1"),
+                "Title page has the table and its footer");
+        System.out.println();
+
+        // Test 2: A long table continues on new pages with its headers repeated
+        System.out.println("TEST 2: Page Breaks");
+        System.out.println("----------------------------");
+        file = new File(dir, "long.pdf");
+        int rows = 200;
+        int pageCount;
+        try (PDFReportWriter report = new PDFReportWriter("Report", "Subtitle")) {
+            report.beginTable("PRODUCTS", HEADERS, COLUMN_X);
+            for (int i = 1; i <= rows; i++) {
+                report.addRow(new String[] { String.valueOf(i), "product-" + i, "9.99", "12" });
+            }
+            pageCount = report.getPageCount();
+            report.save(file);
+        }
+        pages = pageTexts(file);
+        check(pageCount > 1 && pages.length == pageCount, "200 rows span " + pageCount + " pages");
+
+        boolean headersRepeated = true;
+        boolean footersNumbered = true;
+        for (int p = 1; p < pages.length; p++) {
+            String text = pages[p];
+            headersRepeated &= text.contains("PRODUCTS DATA (continued)") && text.contains("Name")
+                    && text.contains("Price") && text.contains("Stock");
+            footersNumbered &= text.contains("Page " + (p + 1));
+        }
+        check(headersRepeated, "Every continuation page repeats the title and column headers");
+        check(footersNumbered, "Every page is numbered");
+        check(!pages[0].contains("(continued)"), "First page has the plain title");
+
+        boolean allRows = true;
+        String all = String.join("\n", pages);
+        for (int i = 1; i <= rows; i++) {
+            allRows &= all.contains("product-" + i + " ");
+        }
+        check(allRows, "Every row was written once the pages are joined");
+        System.out.println();
+
+        // Test 3: A second table and awkward values
+        System.out.println("TEST 3: Following Table and Values");
+        System.out.println("----------------------------");
+        file = new File(dir, "tables.pdf");
+        try (PDFReportWriter report = new PDFReportWriter("Report", "Subtitle")) {
+            report.beginTable("USERS", HEADERS, COLUMN_X);
+            report.addRow(new String[] { "1", "a-very-long-name-that-does-not-fit", null, "中文\tx" });
+            report.beginTable("SALES", new String[] { "ID", "Date", "Payment", "Amount" }, COLUMN_X);
+            report.addRow(new String[] { "7", "2024-01-01", "Cash", "10.00" });
+            report.save(file);
+        }
+        String text = pageTexts(file)[0];
+        check(text.contains("a-very-long-name-that-..") && !text.contains("does-not-fit"),
+                "Long values shortened to the column");
+        check(text.contains("?? x"), "Characters outside Latin-1 replaced instead of failing");
+        check(text.indexOf("USERS DATA") < text.indexOf("SALES DATA") && text.contains("Payment"),
+                "Second table follows with its own headers");
+
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static String[] pageTexts(File file) throws Exception {
+        try (PDDocument document = Loader.loadPDF(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            String[] pages = new String[document.getNumberOfPages()];
+            for (int p = 0; p < pages.length; p++) {
+                stripper.setStartPage(p + 1);
+                stripper.setEndPage(p + 1);
+                pages[p] = stripper.getText(document);
+            }
+            return pages;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
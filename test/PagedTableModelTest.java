@@ -0,0 +1,247 @@
+import database.Keyset;
+import services.Page;
+import ui.PagedTableModel;
+
+import javax.swing.SwingUtilities;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the paged table model: pages fetched on demand, by keyset when
+ * scrolling and by offset after a jump, a bounded page cache and sorting at
+ * the source, and the opaque page cursors. Uses an in-memory source; runs
+ * without a database (and without a display).
+ */
+public class PagedTableModelTest {
+
+    private static final int ROWS = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("========================================");
+        System.out.println("   PAGED TABLE MODEL TEST SUITE");
+        System.out.println("========================================\n");
+
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(i);
+        }
+        FakeSource source = new FakeSource(rows);
+        AtomicReference<PagedTableModel<Integer>> holder = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            holder.set(new PagedTableModel<>("test", new String[] { "Value", "Text" },
+                    (row, column) -> column == 0 ? row : "#" + row, PAGE_SIZE, MAX_PAGES, 0, true));
+            holder.get().setSource(source, ROWS);
+        });
+        PagedTableModel<Integer> model = holder.get();
+
+        // Test 1: Nothing is fetched until rows are displayed, then one page (plus the next)
+        System.out.println("TEST 1: Lazy Pages");
+        System.out.println("----------------------------");
+        check(source.fetches == 0, "No fetch before the table asks for rows");
+        Object[] first = new Object[1];
+        SwingUtilities.invokeAndWait(() -> first[0] = model.getValueAt(5, 0));
+        check(first[0] == null, "Unloaded cell is empty");
+        settle();
+        Object[] loaded = new Object[2];
+        SwingUtilities.invokeAndWait(() -> {
+            loaded[0] = model.getValueAt(5, 0);
+            loaded[1] = model.getValueAt(150, 1);
+        });
+        check(Integer.valueOf(5).equals(loaded[0]) && "#150".equals(loaded[1]), "Rows 5 and 150 shown after fetch");
+        check(source.fetches == 2 && source.offsetReads == 0, "Page 0 plus prefetched page 1, both seeks");
+        System.out.println();
+
+        // Test 2: Scrolling seeks from the previous page; a jump reads by offset once
+        System.out.println("TEST 2: Keyset and Jumps");
+        System.out.println("----------------------------");
+        for (int row = 200; row < 1000; row += PAGE_SIZE) {
+            int r = row;
+            SwingUtilities.invokeAndWait(() -> model.getValueAt(r, 0));
+            settle();
+        }
+        check(source.offsetReads == 0, "Sequential scroll used only keyset seeks");
+        SwingUtilities.invokeAndWait(() -> model.getValueAt(7_250, 0));
+        settle();
+        Object[] jumped = new Object[2];
+        SwingUtilities.invokeAndWait(() -> {
+            jumped[0] = model.getValueAt(7_250, 0);
+            jumped[1] = model.getValueAt(7_350, 0);
+        });
+        settle();
+        check(Integer.valueOf(7_250).equals(jumped[0]), "Jump landed on the right row");
+        check(source.offsetReads == 1, "Jump read one page by offset, the next one by seek");
+        check(model.getSeekFetches() + model.getOffsetFetches() == source.fetches, "Model counted every fetch");
+        System.out.println();
+
+        // Test 3: The cache stays bounded
+        System.out.println("TEST 3: Page Cache");
+        System.out.println("----------------------------");
+        int[] cached = new int[1];
+        SwingUtilities.invokeAndWait(() -> cached[0] = model.getCachedPageCount());
+        check(cached[0] <= MAX_PAGES, "At most " + MAX_PAGES + " pages cached: " + cached[0]);
+        System.out.println();
+
+        // Test 4: Sorting re-reads from the source in the new order
+        System.out.println("TEST 4: Server-side Sort");
+        System.out.println("----------------------------");
+        SwingUtilities.invokeAndWait(() -> {
+            model.setSort(0, false);
+            model.getValueAt(0, 0);
+        });
+        settle();
+        Object[] sorted = new Object[1];
+        SwingUtilities.invokeAndWait(() -> sorted[0] = model.getValueAt(0, 0));
+        check(Integer.valueOf(ROWS - 1).equals(sorted[0]), "Descending sort puts the largest value first");
+        check(!source.lastAscending, "Source asked for descending order");
+        System.out.println();
+
+        // Test 5: A failed page is retried after its delay, not on every repaint
+        System.out.println("TEST 5: Failed Pages");
+        System.out.println("----------------------------");
+        int[] updates = new int[1];
+        SwingUtilities.invokeAndWait(() -> {
+            model.setRetryDelay(300);
+            model.addTableModelListener(e -> updates[0]++);
+        });
+        source.failing = true;
+        int before = source.fetches;
+        SwingUtilities.invokeAndWait(() -> model.getValueAt(5_000, 0));
+        settle();
+        SwingUtilities.invokeAndWait(() -> model.getValueAt(5_000, 0));
+        settle();
+        check(source.fetches == before + 1 && model.getLastError() != null,
+                "Failed page not fetched again while its delay runs");
+        source.failing = false;
+        Thread.sleep(400);
+        settle();
+        check(updates[0] > 0, "Failed page's rows repainted once the delay passed");
+        Object[] retried = new Object[1];
+        SwingUtilities.invokeAndWait(() -> model.getValueAt(5_000, 0));
+        settle();
+        SwingUtilities.invokeAndWait(() -> retried[0] = model.getValueAt(5_000, 0));
+        // The retried page and the next one, prefetched after it
+        check(source.fetches == before + 3 && retried[0] != null, "Page fetched again after the delay");
+
+        source.failing = true;
+        before = source.fetches;
+        SwingUtilities.invokeAndWait(() -> model.getValueAt(8_000, 0));
+        settle();
+        source.failing = false;
+        SwingUtilities.invokeAndWait(() -> {
+            model.setSort(0, true);
+            model.getValueAt(8_000, 0);
+        });
+        settle();
+        Object[] refreshed = new Object[1];
+        SwingUtilities.invokeAndWait(() -> refreshed[0] = model.getValueAt(8_000, 0));
+        check(source.fetches == before + 3 && Integer.valueOf(8_000).equals(refreshed[0]),
+                "A refresh fetches a failed page straight away");
+        System.out.println();
+
+        // Test 6: Keyset SQL fragments
+        System.out.println("TEST 6: Keyset SQL");
+        System.out.println("----------------------------");
+        String[] columns = { "name", "product_id" };
+        check("(name > ? OR (name = ? AND product_id > ?))".equals(Keyset.after(columns, true)),
+                "Ascending seek: " + Keyset.after(columns, true));
+        check("(name < ? OR (name = ? AND product_id < ?))".equals(Keyset.after(columns, false)),
+                "Descending seek");
+        check("name DESC, product_id DESC".equals(Keyset.orderBy(columns, false)), "Descending ORDER BY");
+        System.out.println();
+
+        // Test 7: Cursors round-trip and are bound to their order
+        System.out.println("TEST 7: Page Cursors");
+        System.out.println("----------------------------");
+        Object[] key = { "a|b:c 5:x", 42, new BigDecimal("1299.50") };
+        String cursor = Keyset.encodeCursor("products.NAME.asc", key);
+        check(cursor.matches("[A-Za-z0-9_-]+"), "Cursor is URL-safe: " + cursor);
+        check(Arrays.equals(key, Keyset.decodeCursor(cursor, "products.NAME.asc", 3)),
+                "Key with separators in a string survives the round trip");
+        check(rejected(() -> Keyset.decodeCursor(cursor, "products.NAME.desc", 3)),
+                "Cursor for another order rejected");
+        check(rejected(() -> Keyset.decodeCursor(cursor, "products.NAME.asc", 2)),
+                "Cursor with the wrong number of columns rejected");
+        check(rejected(() -> Keyset.decodeCursor("not a cursor!", "products.NAME.asc", 3)),
+                "Garbage cursor rejected");
+        check(rejected(() -> Keyset.decodeCursor("czk6cHJvZHVjdHM", "products.NAME.asc", 3)),
+                "Truncated cursor rejected");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    // Sorted in-memory rows, read the way the services read them
+    private static class FakeSource implements PagedTableModel.Source<Integer> {
+        private final List<Integer> rows;
+        volatile int fetches = 0;
+        volatile int offsetReads = 0;
+        volatile boolean lastAscending = true;
+        volatile boolean failing = false;
+
+        FakeSource(List<Integer> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public synchronized Page<Integer> fetch(String after, int offset, int limit, int column, boolean ascending) {
+            fetches++;
+            if (failing) {
+                throw new IllegalStateException("Source unavailable");
+            }
+            lastAscending = ascending;
+            String order = "fake.value." + (ascending ? "asc" : "desc");
+            List<Integer> ordered = new ArrayList<>(rows);
+            ordered.sort(ascending ? Comparator.naturalOrder() : Collections.reverseOrder());
+            int start = offset;
+            if (after != null) {
+                start = ordered.indexOf(Keyset.decodeCursor(after, order, 1)[0]) + 1;
+            } else if (offset > 0) {
+                offsetReads++;
+            }
+            List<Integer> items = new ArrayList<>(ordered.subList(Math.min(start, ordered.size()),
+                    Math.min(start + limit, ordered.size())));
+            boolean more = start + limit < ordered.size();
+            return new Page<>(items, more ? Keyset.encodeCursor(order, new Object[] { items.get(items.size() - 1) })
+                    : null);
+        }
+
+        @Override
+        public boolean isSortable(int column) {
+            return column == 0;
+        }
+    }
+
+    private static boolean rejected(Runnable decode) {
+        try {
+            decode.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    // Lets background fetches finish and their results reach the EDT
+    private static void settle() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(30);
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
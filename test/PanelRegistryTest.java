@@ -0,0 +1,129 @@
+import ui.PanelRegistry;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.awt.CardLayout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that dashboard panels are built lazily, exactly once, and that
+ * preloading fills in the rest, and that dropped panels are disposed. Runs without a database (and without a display).
+ */
+public class PanelRegistryTest {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("========================================");
+        System.out.println("   PANEL REGISTRY TEST SUITE");
+        System.out.println("========================================\n");
+
+        CardLayout layout = new CardLayout();
+        JPanel container = new JPanel(layout);
+        PanelRegistry panels = new PanelRegistry(container, layout, System.nanoTime());
+        List<String> builds = Collections.synchronizedList(new ArrayList<>());
+        for (String name : new String[] { "Account", "Customer", "Product", "sales" }) {
+            panels.register(name, () -> {
+                builds.add(name);
+                return "sales".equals(name) ? new DisposableLabel(name) : new JLabel(name);
+            });
+        }
+
+        // Test 1: Nothing is built until a panel is shown, and each panel only once
+        System.out.println("TEST 1: Lazy Construction");
+        System.out.println("----------------------------");
+        check(builds.isEmpty() && container.getComponentCount() == 0, "No panel built at registration");
+        JComponent[] shown = new JComponent[2];
+        SwingUtilities.invokeAndWait(() -> {
+            shown[0] = panels.show("Customer");
+            panels.show("Account");
+            shown[1] = panels.show("Customer");
+        });
+        check(builds.equals(List.of("Customer", "Account")), "Built on first show only: " + builds);
+        check(shown[0] == shown[1], "Second show reuses the cached panel");
+        check("Customer".equals(panels.getCurrent()), "Current card tracked");
+        check(panels.getBuildMillis("Customer") >= 0 && panels.getBuildMillis("sales") == -1, "Build times recorded");
+        System.out.println();
+
+        // Test 2: Preloading builds the remaining panels in registration order
+        System.out.println("TEST 2: Preload");
+        System.out.println("----------------------------");
+        SwingUtilities.invokeAndWait(panels::preload);
+        waitForEdt(4);
+        check(builds.equals(List.of("Customer", "Account", "Product", "sales")), "Remaining panels preloaded: " + builds);
+        check(container.getComponentCount() == 4, "Every panel added to the container once");
+        System.out.println();
+
+        // Test 3: Reset drops the panels; they are rebuilt on demand
+        System.out.println("TEST 3: Reset");
+        System.out.println("----------------------------");
+        builds.clear();
+        DisposableLabel oldSales = (DisposableLabel) panels.get("sales");
+        SwingUtilities.invokeAndWait(() -> {
+            panels.reset();
+            panels.show("sales");
+        });
+        check(builds.equals(List.of("sales")), "Only the shown panel rebuilt: " + builds);
+        check(oldSales.disposed == 1 && ((DisposableLabel) panels.get("sales")).disposed == 0,
+                "Dropped panel disposed once, its replacement not");
+        check(!panels.isBuilt("Account") && container.getComponentCount() == 1, "Other panels dropped");
+        boolean unknown = false;
+        try {
+            panels.get("Reports");
+        } catch (IllegalArgumentException e) {
+            unknown = true;
+        }
+        check(unknown, "Unknown panel rejected");
+        System.out.println();
+
+        // Test 4: Startup milestones are recorded once
+        System.out.println("TEST 4: Startup Metrics");
+        System.out.println("----------------------------");
+        SwingUtilities.invokeAndWait(() -> {
+            panels.markFirstPaint();
+            panels.markFirstInteraction();
+        });
+        long paint = panels.getFirstPaintMillis();
+        long interaction = panels.getFirstInteractionMillis();
+        Thread.sleep(20);
+        SwingUtilities.invokeAndWait(panels::markFirstInteraction);
+        check(paint >= 0 && interaction >= paint, "First paint " + paint + " ms, first interaction " + interaction + " ms");
+        check(panels.getFirstInteractionMillis() == interaction, "Later interactions ignored");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    // Each preload step is its own EDT event; flush enough of them
+    private static void waitForEdt(int events) throws Exception {
+        for (int i = 0; i < events + 1; i++) {
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+    }
+
+    // Stands in for SalesUI, which gives back its cart's stock on dispose
+    private static class DisposableLabel extends JLabel implements PanelRegistry.Disposable {
+        int disposed = 0;
+
+        DisposableLabel(String text) {
+            super(text);
+        }
+
+        @Override
+        public void dispose() {
+            disposed++;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import models.Product;
+import services.ProductCatalogCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks the in-place updates of the shared product catalog. Runs without a database.
+ */
+public class ProductCatalogCacheTest {
+
+    public static void main(String[] args) {
+        System.out.println("========================================");
+        System.out.println("   PRODUCT CATALOG CACHE TEST SUITE");
+        System.out.println("========================================\n");
+
+        ProductCatalogCache cache = ProductCatalogCache.getInstance();
+        cache.load(Arrays.asList(
+                new Product(1, "Milk", "Dairy", 1.50, 10, null, null),
+                new Product(2, "Apple", "Fruit", 0.40, 50, null, null),
+                new Product(3, "Cheese", "Dairy", 4.00, 5, null, null)));
+
+        // Test 1: Lookups and secondary indexes
+        System.out.println("TEST 1: Lookups");
+        System.out.println("----------------------------");
+        List<Product> all = cache.getAll();
+        check(all.size() == 3 && "Apple".equals(all.get(0).getName()), "getAll() is sorted by name");
+        check(cache.getByCategory("Dairy").size() == 2, "Dairy has 2 products");
+        check(cache.getCategories().equals(Arrays.asList("Dairy", "Fruit")), "Categories " + cache.getCategories());
+        System.out.println();
+
+        // Test 2: Stock changes bump the version and leave old snapshots alone
+        System.out.println("TEST 2: Stock Updates");
+        System.out.println("----------------------------");
+        long version = cache.getVersion();
+        cache.adjustStock(1, -3);
+        check(cache.get(1).getStock() == 7, "Stock after selling 3 is " + cache.get(1).getStock());
+        check(cache.getVersion() > version, "Version moved on");
+        check(all.get(2).getStock() == 10, "Earlier snapshot still shows 10");
+        System.out.println();
+
+        // Test 3: Re-categorising and removing keep the category index in step
+        System.out.println("TEST 3: Category Index");
+        System.out.println("----------------------------");
+        cache.put(new Product(3, "Cheese", "Deli", 4.00, 5, null, null));
+        check(cache.getByCategory("Dairy").size() == 1, "Cheese left Dairy");
+        check(cache.getByCategory("Deli").size() == 1, "Cheese is in Deli");
+        cache.remove(2);
+        check(cache.get(2) == null && !cache.getCategories().contains("Fruit"), "Removed product and empty category");
+        check(cache.size() == 2, "Size is " + cache.size());
+        System.out.println();
+
+        // Test 4: An invalidated catalog stays current until it is reloaded
+        System.out.println("TEST 4: Invalidation");
+        System.out.println("----------------------------");
+        cache.invalidate();
+        check(!cache.isLoaded(), "Invalidated catalog is due for a reload");
+        cache.adjustStock(1, -2);
+        check(cache.get(1).getStock() == 5, "Stock updates still apply while the reload is pending");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
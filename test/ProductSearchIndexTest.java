@@ -0,0 +1,91 @@
+import models.Product;
+import services.ProductCatalogCache;
+import services.ProductSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks ranking, incremental updates and latency of the product search index
+ * on a synthetic 50,000 product catalog. Runs without a database.
+ */
+public class ProductSearchIndexTest {
+
+    private static final String[] CATEGORIES = { "Dairy", "Bakery", "Beverages", "Snacks", "Household" };
+    private static final String[] WORDS = { "organic", "fresh", "classic", "family", "mini", "premium",
+            "light", "spicy", "sweet", "crunchy", "whole", "golden" };
+
+    public static void main(String[] args) {
+        System.out.println("========================================");
+        System.out.println("   PRODUCT SEARCH INDEX TEST SUITE");
+        System.out.println("========================================\n");
+
+        ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+        ProductSearchIndex index = ProductSearchIndex.getInstance();
+
+        List<Product> products = new ArrayList<>();
+        products.add(new Product(1, "Milk", "Dairy", 1.50, 10, null, null));
+        products.add(new Product(2, "Milk Chocolate", "Snacks", 2.00, 10, null, null));
+        products.add(new Product(3, "Oat Milk", "Beverages", 3.00, 10, null, null));
+        products.add(new Product(4, "Buttermilk Bread", "Bakery", 2.50, 10, null, null));
+        for (int i = 5; i <= 50000; i++) {
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " item " + i;
+            products.add(new Product(i, name, CATEGORIES[i % CATEGORIES.length], 1.0, 5, null, null));
+        }
+        long start = System.nanoTime();
+        catalog.load(products);
+        System.out.printf("  Indexed %d products in %d ms%n%n", index.size(), (System.nanoTime() - start) / 1000000);
+
+        // Test 1: Ranking
+        System.out.println("TEST 1: Ranking");
+        System.out.println("----------------------------");
+        List<Product> milk = index.search("milk", null, 10);
+        check(milk.size() == 4, "4 products contain 'milk'");
+        check(milk.get(0).getProductId() == 1, "Exact name first: " + milk.get(0).getName());
+        check(milk.get(1).getProductId() == 2, "Name prefix second: " + milk.get(1).getName());
+        check(milk.get(2).getProductId() == 3, "Word prefix third: " + milk.get(2).getName());
+        check(index.search("milk", "Dairy", 10).size() == 1, "Category filter narrows to Dairy");
+        check(index.search("item 4999", null, 5).size() == 5, "Top-K caps the result count");
+        System.out.println();
+
+        // Test 2: Incremental updates
+        System.out.println("TEST 2: Incremental Updates");
+        System.out.println("----------------------------");
+        catalog.put(new Product(3, "Almond Drink", "Beverages", 3.00, 10, null, null));
+        check(index.search("milk", null, 10).size() == 3, "Renamed product left the 'milk' results");
+        check(index.search("almond", null, 10).size() == 1, "Renamed product found by its new name");
+        catalog.remove(1);
+        check(index.search("milk", null, 10).get(0).getProductId() == 2, "Deleted product is gone");
+        System.out.println();
+
+        // Test 3: Latency
+        System.out.println("TEST 3: Latency");
+        System.out.println("----------------------------");
+        String[] queries = { "m", "cr", "pre", "sweet", "golden item", "item 12345", "zzz" };
+        int rounds = 200;
+        for (String q : queries) {
+            index.search(q, null, 50);
+        }
+        start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String q : queries) {
+                index.search(q, null, 50);
+            }
+        }
+        double avgMs = (System.nanoTime() - start) / 1e6 / (rounds * queries.length);
+        System.out.printf("  Average query: %.3f ms%n", avgMs);
+        check(index.search("item 12345", null, 50).size() == 1, "Selective query finds one product");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import models.Sale;
+import models.SaleDetail;
+import services.SaleJournal;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that journaled sales survive a restart, including a torn last line,
+ * and that the journal empties once every sale is synced. Runs without a database.
+ */
+public class SaleJournalTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   SALE JOURNAL TEST SUITE");
+        System.out.println("========================================\n");
+
+        File dir = Files.createTempDirectory("sale-journal").toFile();
+        File file = new File(dir, "sales.journal");
+
+        // Test 1: A sale reads back exactly as it was written
+        System.out.println("TEST 1: Round Trip");
+        System.out.println("----------------------------");
+        SaleJournal journal = new SaleJournal(dir);
+        SaleJournal.Entry first = journal.append(sale(1, "Milk\t2L; \"fresh\"", 2, null));
+        SaleJournal.Entry second = journal.append(sale(5, "Bread", 1, "Regular sale - Registered customer"));
+        SaleJournal.Entry third = journal.append(sale(1, "Eggs", 12, null));
+        journal.close();
+        check(first.seq == 1 && third.seq == 3, "Entries numbered 1.." + third.seq);
+
+        // A crash in the middle of the next append leaves half a line
+        try (FileWriter out = new FileWriter(file, true)) {
+            out.write("S\t4\tdeadbeef\t17000");
+        }
+        journal = new SaleJournal(dir);
+        List<SaleJournal.Entry> pending = journal.getPending();
+        check(pending.size() == 3, "3 sales recovered, torn line ignored (" + pending.size() + ")");
+        Sale read = pending.get(0).sale;
+        SaleDetail line = read.getSaleDetails().get(0);
+        check("Milk\t2L; \"fresh\"".equals(line.getProductName()) && line.getQuantity() == 2
+                && line.getUnitPrice() == 1.25, "Detail fields preserved: " + line.getProductName());
+        check(read.getCashReceived() == 10.0 && read.getNotes() == null && "Cash".equals(read.getPaymentMethod()),
+                "Cash fields and null notes preserved");
+        check(pending.get(0).recordedAt == first.recordedAt
+                && read.getSaleDate().getTime() == first.recordedAt, "Ring-up time preserved");
+        check(pending.get(1).sale.getCustomerId() == 5, "Order preserved");
+        System.out.println();
+
+        // Test 2: Synced and rejected sales stay done after a restart
+        System.out.println("TEST 2: Outcomes");
+        System.out.println("----------------------------");
+        journal.markSynced(pending.get(0), 101);
+        journal.markRejected(pending.get(1), "Customer #5 no longer exists");
+        journal.close();
+        journal = new SaleJournal(dir);
+        check(journal.getPendingCount() == 1 && journal.getPending().get(0).journalId.equals(third.journalId),
+                "Only the third sale is still pending");
+        check(new File(dir, "sales-rejected.journal").length() > 0, "Rejected sale kept in the rejected file");
+        check(journal.append(sale(1, "Tea", 1, null)).seq == 4, "Numbering continues after restart");
+        System.out.println();
+
+        // Test 3: The file is emptied once nothing is pending
+        System.out.println("TEST 3: Compaction");
+        System.out.println("----------------------------");
+        for (SaleJournal.Entry entry : journal.getPending()) {
+            journal.markSynced(entry, 200);
+        }
+        check(journal.getPendingCount() == 0 && file.length() == 0, "Journal truncated (" + file.length() + " bytes)");
+        journal.close();
+        check(new SaleJournal(dir).getPendingCount() == 0, "Nothing pending after restart");
+
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static Sale sale(int customerId, String productName, int quantity, String notes) {
+        Sale sale = new Sale();
+        sale.setCustomerId(customerId);
+        sale.setUserId(1);
+        sale.setNotes(notes);
+        List<SaleDetail> details = new ArrayList<>();
+        details.add(new SaleDetail(7, productName, 1.25, quantity));
+        sale.setSaleDetails(details);
+        sale.setTotalAmount(1.25 * quantity);
+        sale.setCashReceived(10.0);
+        sale.setChangeGiven(sale.calculateChange());
+        return sale;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
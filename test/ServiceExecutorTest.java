@@ -0,0 +1,118 @@
+import ui.ServiceExecutor;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks the UI service executor: results on the EDT, deadlines, scope
+ * cancellation and the metrics. Runs without a database (and without a display).
+ */
+public class ServiceExecutorTest {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("========================================");
+        System.out.println("   SERVICE EXECUTOR TEST SUITE");
+        System.out.println("========================================\n");
+
+        ServiceExecutor executor = ServiceExecutor.getInstance();
+
+        // Test 1: The call runs in the background, the result is delivered on the EDT
+        System.out.println("TEST 1: Threads");
+        System.out.println("----------------------------");
+        CountDownLatch delivered = new CountDownLatch(1);
+        boolean[] callOnEdt = new boolean[1];
+        boolean[] resultOnEdt = new boolean[1];
+        executor.submit("test.threads", () -> {
+            callOnEdt[0] = SwingUtilities.isEventDispatchThread();
+            return 42;
+        }).onEdt(result -> {
+            resultOnEdt[0] = SwingUtilities.isEventDispatchThread() && result == 42;
+            delivered.countDown();
+        }, e -> delivered.countDown());
+        delivered.await(5, TimeUnit.SECONDS);
+        check(!callOnEdt[0], "Service call ran off the EDT");
+        check(resultOnEdt[0], "Result delivered on the EDT");
+        System.out.println();
+
+        // Test 2: A task that outlives its deadline fails with a TimeoutException
+        System.out.println("TEST 2: Deadlines");
+        System.out.println("----------------------------");
+        long timedOutBefore = executor.getTimedOutCount();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch failed = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+        executor.submit("test.slow", () -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "late";
+        }, 100).onEdt(result -> { }, e -> {
+            error[0] = e;
+            failed.countDown();
+        });
+        failed.await(5, TimeUnit.SECONDS);
+        release.countDown();
+        check(error[0] instanceof TimeoutException, "Deadline reported as: " + error[0]);
+        check(executor.getTimedOutCount() == timedOutBefore + 1, "Timeout counted");
+        System.out.println();
+
+        // Test 3: Cancelling a scope drops pending results and skips tasks not yet started
+        System.out.println("TEST 3: Scope Cancellation");
+        System.out.println("----------------------------");
+        ServiceExecutor.Scope scope = executor.newScope();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        AtomicBoolean resultDelivered = new AtomicBoolean();
+        AtomicBoolean sawCancel = new AtomicBoolean();
+        ServiceExecutor.Task<String> running = scope.submit("test.cancel", () -> {
+            started.countDown();
+            unblock.await(5, TimeUnit.SECONDS);
+            sawCancel.set(ServiceExecutor.isCurrentTaskCancelled());
+            return "dropped";
+        }).onEdt(result -> resultDelivered.set(true), e -> resultDelivered.set(true));
+        started.await(5, TimeUnit.SECONDS);
+        check(scope.getPendingCount() == 1, "One task pending in the scope");
+        long cancelledBefore = executor.getCancelledCount();
+        scope.cancelAll();
+        unblock.countDown();
+        Thread.sleep(200);
+        SwingUtilities.invokeAndWait(() -> { });
+        check(running.isCancelled(), "Task marked cancelled");
+        check(sawCancel.get(), "Running task could see its cancellation");
+        check(!resultDelivered.get(), "No callback after cancellation");
+        check(scope.getPendingCount() == 0, "Scope empty after cancelAll");
+        check(executor.getCancelledCount() == cancelledBefore + 1, "Cancellation counted");
+        System.out.println();
+
+        // Test 4: await() returns results to non-EDT callers and every task is timed
+        System.out.println("TEST 4: Await and Metrics");
+        System.out.println("----------------------------");
+        String value = executor.submit("test.await", () -> "ok").await(5, TimeUnit.SECONDS);
+        check("ok".equals(value), "await() returned the result");
+        try {
+            executor.submit("test.await", () -> {
+                throw new IllegalStateException("no database");
+            }).await(5, TimeUnit.SECONDS);
+            check(false, "await() should rethrow the failure");
+        } catch (IllegalStateException e) {
+            check("no database".equals(e.getMessage()), "await() rethrew the original exception");
+        }
+        check(executor.getRunTimes("test.await").getCount() == 2, "Both await tasks timed");
+        check(executor.getQueueDepth() == 0, "Queue drained");
+        System.out.print(executor.report());
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import services.SettingsCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the shared settings cache and its change notifications. Runs without a database.
+ */
+public class SettingsCacheTest {
+
+    public static void main(String[] args) {
+        System.out.println("========================================");
+        System.out.println("   SETTINGS CACHE TEST SUITE");
+        System.out.println("========================================\n");
+
+        SettingsCache cache = SettingsCache.getInstance();
+        List<String> events = new ArrayList<>();
+        cache.addListener((key, value) -> events.add(key + "=" + value));
+
+        // Test 1: The first load fills the cache without notifications
+        System.out.println("TEST 1: Initial Load");
+        System.out.println("----------------------------");
+        Map<String, String> rows = new HashMap<>();
+        rows.put("theme_dark", "true");
+        rows.put("admin_email", "admin@store.com");
+        cache.load(rows);
+        check(cache.isLoaded(), "Cache is loaded");
+        check("true".equals(cache.get("theme_dark")), "theme_dark is " + cache.get("theme_dark"));
+        check(events.isEmpty(), "No notifications for the initial values");
+        System.out.println();
+
+        // Test 2: Writes notify only when the value changes
+        System.out.println("TEST 2: Write-through Notifications");
+        System.out.println("----------------------------");
+        cache.put("theme_dark", "false");
+        cache.put("theme_dark", "false");
+        check(events.size() == 1 && "theme_dark=false".equals(events.get(0)), "One notification: " + events);
+        check("false".equals(cache.get("theme_dark")), "Read sees the new value");
+        Map<String, String> copy = cache.getAll();
+        copy.put("admin_email", "changed");
+        check("admin@store.com".equals(cache.get("admin_email")), "getAll() returns a copy");
+        System.out.println();
+
+        // Test 3: A reload reports changed, added and removed settings
+        System.out.println("TEST 3: Reload");
+        System.out.println("----------------------------");
+        events.clear();
+        Map<String, String> reloaded = new HashMap<>();
+        reloaded.put("theme_dark", "false");
+        reloaded.put("report_frequency", "Weekly");
+        cache.load(reloaded);
+        check(events.contains("report_frequency=Weekly"), "Added setting reported");
+        check(events.contains("admin_email=null"), "Removed setting reported");
+        check(events.size() == 2, "Unchanged theme_dark not reported: " + events);
+        check(cache.get("admin_email") == null, "Removed setting is gone");
+        System.out.println();
+
+        // Test 4: Invalidated values stay readable and the reload still reports changes
+        System.out.println("TEST 4: Invalidate");
+        System.out.println("----------------------------");
+        events.clear();
+        cache.invalidate();
+        check(!cache.isLoaded(), "Cache needs a reload");
+        check("Weekly".equals(cache.get("report_frequency")), "Stale value still readable");
+        Map<String, String> fresh = new HashMap<>(reloaded);
+        fresh.put("report_frequency", "Monthly");
+        cache.load(fresh);
+        check(cache.isLoaded() && events.size() == 1 && "report_frequency=Monthly".equals(events.get(0)),
+                "Reload after invalidate reports the change: " + events);
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
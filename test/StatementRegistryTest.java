@@ -0,0 +1,194 @@
+import database.QueryMetrics;
+import database.SqlStatement;
+import database.StatementRegistry;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks placeholder resolution, template conflicts, per-statement timing and
+ * row counts in the statement registry, and the slow-query log. Runs without
+ * a database: the connection is a stand-in that records the SQL it is asked
+ * to prepare.
+ */
+public class StatementRegistryTest {
+
+    private static final List<String> prepared = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   STATEMENT REGISTRY TEST SUITE");
+        System.out.println("========================================\n");
+
+        Connection conn = fakeConnection();
+
+        // Test 1: Placeholders resolve to plain SQL
+        System.out.println("TEST 1: Resolution");
+        System.out.println("----------------------------");
+        SqlStatement totals = StatementRegistry.define("test.totals",
+                "SELECT SUM({sales.final_amount|total_amount}) FROM {Sales} WHERE {0} AND user_id = ?");
+        String sql = totals.sql(conn, "sale_date >= CURDATE()");
+        // Without a readable schema, tables keep their given name and columns take the fallback
+        check("SELECT SUM(total_amount) FROM Sales WHERE sale_date >= CURDATE() AND user_id = ?".equals(sql),
+                "Resolved: " + sql);
+        try {
+            totals.sql(conn);
+            check(false, "Missing fragment accepted");
+        } catch (IllegalArgumentException e) {
+            check(true, "Missing fragment rejected: " + e.getMessage());
+        }
+        SqlStatement rows = StatementRegistry.define("test.rows",
+                "INSERT INTO t (a, b) VALUES {0} ON DUPLICATE KEY UPDATE b = b - {1}");
+        check("INSERT INTO t (a, b) VALUES (?, ?), (?, ?) ON DUPLICATE KEY UPDATE b = b - ?"
+                        .equals(rows.sql(conn, SqlStatement.valueRows("(?, ?)", 2), SqlStatement.placeholders(1))),
+                "Group-size fragments: " + rows.sql(conn, SqlStatement.valueRows("(?, ?)", 2), "?"));
+        check("?, ?, ?".equals(SqlStatement.placeholders(3)) && SqlStatement.placeholders(0).isEmpty(),
+                "IN list placeholders");
+        System.out.println();
+
+        // Test 2: A name maps to one template
+        System.out.println("TEST 2: Definitions");
+        System.out.println("----------------------------");
+        check(StatementRegistry.define("test.totals", totals.getTemplate()) == totals,
+                "Redefining with the same SQL returns the same handle");
+        check(StatementRegistry.get("test.totals") == totals, "Lookup by name");
+        try {
+            StatementRegistry.define("test.totals", "SELECT 1");
+            check(false, "Conflicting definition accepted");
+        } catch (IllegalStateException e) {
+            check(true, "Conflicting definition rejected");
+        }
+        System.out.println();
+
+        // Test 3: Executions are counted and timed per statement
+        System.out.println("TEST 3: Statistics");
+        System.out.println("----------------------------");
+        SqlStatement update = StatementRegistry.define("test.update", "UPDATE {Products} SET stock = ? WHERE product_id = ?");
+        for (int i = 0; i < 3; i++) {
+            try (PreparedStatement stmt = update.prepare(conn)) {
+                stmt.setInt(1, 5);
+                stmt.setInt(2, i);
+                stmt.executeUpdate();
+            }
+        }
+        try (PreparedStatement stmt = update.prepare(conn)) {
+            stmt.executeQuery();
+            check(false, "Failing execution did not throw");
+        } catch (SQLException e) {
+            check("fake failure".equals(e.getMessage()), "Driver exception passed through unchanged");
+        }
+        check(update.getExecutionCount() == 4 && update.getErrorCount() == 1 && update.getRowCount() == 3,
+                "4 executions, 1 error (" + update.getExecutionCount() + ", " + update.getErrorCount() + ")");
+        check(update.getMaxMillis() >= 2 && update.getMeanMillis() > 0,
+                String.format("Timed: mean %.2f ms, max %.2f ms", update.getMeanMillis(), update.getMaxMillis()));
+        check(prepared.size() == 4 && prepared.get(3).equals(prepared.get(0)), "Every prepare sends identical SQL");
+        String report = StatementRegistry.report();
+        check(report.contains("test.update") && !report.contains("test.totals"),
+                "Report lists executed statements only");
+        System.out.print(report);
+        System.out.println();
+
+        // Test 4: Rows are counted as they are read; slow executions are logged
+        System.out.println("TEST 4: Rows and Slow Queries");
+        System.out.println("----------------------------");
+        File dir = Files.createTempDirectory("query-metrics").toFile();
+        File slowLog = new File(dir, "slow-queries.log");
+        QueryMetrics.setSlowLogFile(slowLog);
+        QueryMetrics.setSlowThresholdMillis(1);
+        SqlStatement select = StatementRegistry.define("test.select", "SELECT * FROM {Products}");
+        try (PreparedStatement stmt = select.prepare(conn); ResultSet rs = stmt.executeQuery()) {
+            check(select.getExecutionCount() == 0, "Query not recorded while its rows are being read");
+            while (rs.next()) {
+                // read every row
+            }
+        }
+        check(select.getExecutionCount() == 1 && select.getRowCount() == 3,
+                "Query recorded with 3 rows (" + select.getRowCount() + ")");
+        // A ResultSet the caller never closes is recorded when its statement closes
+        try (PreparedStatement stmt = select.prepare(conn)) {
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+        }
+        check(select.getExecutionCount() == 2 && select.getRowCount() == 4, "Unclosed result set recorded on close");
+        List<QueryMetrics.SlowQuery> slow = QueryMetrics.getSlowQueries();
+        check(slow.size() == 2 && QueryMetrics.getSlowQueryCount() == 2 && slow.get(1).rows == 1
+                && slow.get(1).sql.equals("SELECT * FROM Products"),
+                "Executions over 1 ms kept as slow queries (" + slow.size() + ")");
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((!slowLog.exists() || Files.readAllLines(slowLog.toPath()).size() < 2)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        check(slowLog.exists() && Files.readAllLines(slowLog.toPath()).size() == 2, "Slow queries appended to the log file");
+        File dump = new File(dir, "metrics.txt");
+        QueryMetrics.dumpTo(dump);
+        String text = new String(Files.readAllBytes(dump.toPath()), "UTF-8");
+        check(text.contains("connection.wait") && text.contains("test.select") && text.contains("Slow queries"),
+                "Metrics dumped to file");
+        QueryMetrics.reset();
+        check(update.getExecutionCount() == 0 && select.getRowCount() == 0 && QueryMetrics.getSlowQueries().isEmpty(),
+                "Statistics reset");
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    // A connection whose schema cannot be read and whose statements take ~2 ms;
+    // queries on anything but a SELECT fail
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            prepared.add((String) args[0]);
+                            return fakeStatement();
+                        case "getMetaData":
+                            throw new SQLException("no metadata");
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static PreparedStatement fakeStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeUpdate":
+                            Thread.sleep(2);
+                            return 1;
+                        case "executeQuery":
+                            Thread.sleep(2);
+                            if (!prepared.get(prepared.size() - 1).startsWith("SELECT")) {
+                                throw new SQLException("fake failure");
+                            }
+                            return fakeResultSet(3);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static ResultSet fakeResultSet(int rows) {
+        int[] left = { rows };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> "next".equals(method.getName()) ? left[0]-- > 0 : null);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import models.Product;
+import services.ProductCatalogCache;
+import services.StockReservationService;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many simulated lanes fill, sell and abandon carts against a few hot
+ * products at once; stock must never be oversold. Runs without a database.
+ */
+public class StockReservationStressTest {
+
+    private static final int LANES = 64;
+    private static final int CARTS_PER_LANE = 500;
+    private static final int[] STOCK = { 1000, 50, 5 };
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   STOCK RESERVATION STRESS TEST");
+        System.out.println("========================================\n");
+
+        ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+        catalog.load(Arrays.asList(
+                new Product(1, "Hot Item", "Promo", 1.00, STOCK[0], null, null),
+                new Product(2, "Warm Item", "Promo", 2.00, STOCK[1], null, null),
+                new Product(3, "Last Units", "Promo", 3.00, STOCK[2], null, null)));
+        StockReservationService reservations = StockReservationService.getInstance();
+
+        // Test 1: A cart cannot hold more than is in stock
+        System.out.println("TEST 1: Single Cart");
+        System.out.println("----------------------------");
+        long cart = reservations.openCart();
+        check(reservations.reserve(cart, 3, 4), "Reserved 4 of 5");
+        check(!reservations.reserve(cart, 3, 2), "Cannot reserve 2 more");
+        long other = reservations.openCart();
+        check(reservations.reserve(other, 3, 1) && !reservations.reserve(other, 3, 1), "Other lane gets the last unit only");
+        reservations.release(cart, 3, 4);
+        reservations.releaseAll(other);
+        check(reservations.getReserved(3) == 0 && reservations.getAvailable(3) == 5, "All released");
+        long closed = reservations.openCart();
+        reservations.reserve(closed, 3, 5);
+        reservations.closeCart(closed);
+        check(reservations.getAvailable(3) == 5 && reservations.getHeld(closed, 3) == 0,
+                "Closed cart gave its stock back");
+        System.out.println();
+
+        // Test 2: Lanes race for the same products; sold units never exceed stock
+        System.out.println("TEST 2: " + LANES + " Lanes x " + CARTS_PER_LANE + " Carts");
+        System.out.println("----------------------------");
+        int[] sold = new int[STOCK.length];
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(LANES);
+        for (int lane = 0; lane < LANES; lane++) {
+            Random random = new Random(lane);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long laneCart = reservations.openCart();
+                    for (int i = 0; i < CARTS_PER_LANE; i++) {
+                        int[] held = new int[STOCK.length];
+                        for (int line = 0; line < 3; line++) {
+                            int product = random.nextInt(STOCK.length);
+                            int qty = 1 + random.nextInt(3);
+                            if (reservations.reserve(laneCart, product + 1, qty)) {
+                                held[product] += qty;
+                            } else {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                        if (random.nextInt(4) == 0) {
+                            // Sell: the sale lowers catalog stock, then the hold is committed
+                            synchronized (sold) {
+                                for (int p = 0; p < STOCK.length; p++) {
+                                    sold[p] += held[p];
+                                }
+                            }
+                            for (int p = 0; p < STOCK.length; p++) {
+                                if (held[p] > 0) {
+                                    catalog.adjustStock(p + 1, -held[p]);
+                                }
+                            }
+                            reservations.commit(laneCart);
+                        } else {
+                            reservations.releaseAll(laneCart);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "lane-" + lane).start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        System.out.printf("  Finished in %.0f ms, %d reservations rejected%n", (System.nanoTime() - t0) / 1e6, rejected.get());
+        for (int p = 0; p < STOCK.length; p++) {
+            int stock = catalog.get(p + 1).getStock();
+            check(sold[p] <= STOCK[p] && stock == STOCK[p] - sold[p] && stock >= 0,
+                    "Product " + (p + 1) + ": sold " + sold[p] + " of " + STOCK[p] + ", " + stock + " left");
+            check(reservations.getReserved(p + 1) == 0, "Product " + (p + 1) + " has no units left on hold");
+        }
+        System.out.println();
+
+        // Test 3: Idle carts give their stock back
+        System.out.println("TEST 3: Hold Timeout");
+        System.out.println("----------------------------");
+        catalog.put(new Product(4, "Slow Item", "Promo", 4.00, 10, null, null));
+        long idle = reservations.openCart();
+        check(reservations.reserve(idle, 4, 3) && reservations.getAvailable(4) == 7, "Idle cart holds 3 of 10");
+        reservations.setHoldTimeout(1);
+        Thread.sleep(5);
+        check(reservations.releaseExpired() >= 1, "Idle cart released");
+        check(reservations.getAvailable(4) == 10, "Stock available again: " + reservations.getAvailable(4));
+        check(reservations.reserve(idle, 4, 1) && reservations.getHeld(idle, 4) == 1, "Expired cart can reserve again");
+        reservations.releaseAll(idle);
+
+        System.out.println("\n========================================");
+        System.out.println("   ALL TESTS COMPLETED");
+        System.out.println("========================================");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("✓ SUCCESS: " + message);
+        } else {
+            System.out.println("✗ FAILED: " + message);
+        }
+    }
+}